@@ -0,0 +1,43 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api;
+
+import org.mule.extension.db.internal.util.ExcludeFromGeneratedCoverage;
+
+import java.io.Serializable;
+
+/**
+ * Attributes of the messages generated by a listener which polls many tables at once
+ *
+ * @since 2.0.0
+ */
+@ExcludeFromGeneratedCoverage
+public class TableRowAttributes implements Serializable {
+
+  private static final long serialVersionUID = 6021577425318520934L;
+
+  /**
+   * The name of the table the row was read from
+   */
+  private final String table;
+
+  /**
+   * Creates a new instance
+   *
+   * @param table the name of the table the row was read from
+   */
+  public TableRowAttributes(String table) {
+    this.table = table;
+  }
+
+  /**
+   * @return the name of the table the row was read from
+   */
+  public String getTable() {
+    return table;
+  }
+}
@@ -14,11 +14,14 @@ import org.mule.extension.db.internal.util.ExcludeFromGeneratedCoverage;
 import org.mule.runtime.api.config.DatabasePoolingProfile;
 import org.mule.runtime.extension.api.annotation.Alias;
 import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.NullSafe;
 import org.mule.runtime.extension.api.annotation.param.Parameter;
 import org.mule.runtime.extension.api.annotation.param.Optional;
 import org.mule.runtime.extension.api.annotation.param.display.Placement;
 import org.mule.runtime.extension.api.annotation.param.display.Summary;
 
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
@@ -126,6 +129,132 @@ public class DbPoolingProfile implements DatabasePoolingProfile {
   @Summary("Additional properties used to configure pooling profile.")
   private Map<String, Object> additionalProperties = emptyMap();
 
+  /**
+   * The implementation which pools the connections. C3P0 is the pool built by the database client, which the additional
+   * properties configure. CONCURRENT_BAG is the pool built by the connector, which should be used when operations run on
+   * virtual threads.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "C3P0")
+  @Placement(tab = ADVANCED_TAB, order = 11)
+  @Expression(NOT_SUPPORTED)
+  private PoolEngine poolEngine = PoolEngine.C3P0;
+
+  /**
+   * How the pool gets ready. DEFAULT creates the pool when the config is initialised and lets it fill up to its min pool size
+   * on its own pace. PREWARM creates the min pool size connections in parallel while the config is initialised, so that the
+   * first requests after a deployment don't pay for the connection setup. LAZY creates nothing until the config is first
+   * asked for a connection, so that configs which are rarely used don't slow the deployment down.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "DEFAULT")
+  @Placement(tab = ADVANCED_TAB, order = 12)
+  @Expression(NOT_SUPPORTED)
+  private PoolStartup poolStartup = PoolStartup.DEFAULT;
+
+  /**
+   * A query to run on each connection created while prewarming the pool, for example to load the data the application uses
+   * into the caches of the database. Only used when the pool startup is PREWARM.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional
+  @Placement(tab = ADVANCED_TAB, order = 13)
+  @Expression(NOT_SUPPORTED)
+  private String warmupQuery;
+
+  /**
+   * When connections are tested on checkout, how many milliseconds a connection which was just created, used without errors
+   * or validated is trusted without testing it again. Zero tests every checkout. Only used by the CONCURRENT_BAG pool engine.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "500")
+  @Placement(tab = ADVANCED_TAB, order = 14)
+  @Expression(NOT_SUPPORTED)
+  private int validationWindow = 500;
+
+  /**
+   * How often, in milliseconds, idle connections are validated in the background, so that broken connections are discarded
+   * before they are checked out. Zero disables it. Only used by the CONCURRENT_BAG pool engine.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Placement(tab = ADVANCED_TAB, order = 15)
+  @Expression(NOT_SUPPORTED)
+  private int idleValidationInterval = 0;
+
+  /**
+   * How many milliseconds a connection can be held before the connections held from the pool are reported in the log, to
+   * find the flows which leak or hold on to connections. Zero disables it.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Placement(tab = ADVANCED_TAB, order = 16)
+  @Expression(NOT_SUPPORTED)
+  private int leakDetectionThreshold = 0;
+
+  /**
+   * Capture the stack of one checkout in this many, so that the reports of the connections held from the pool tell where
+   * they were checked out. Capturing a stack is expensive, so keep it high under load. Zero disables it.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Placement(tab = ADVANCED_TAB, order = 17)
+  @Expression(NOT_SUPPORTED)
+  private int checkoutStackSampling = 0;
+
+  /**
+   * The classes of workload which share the connections of the pool. Each class is guaranteed its min connections and can't
+   * hold more than its max connections, so that a slow workload can't starve the others. Components which don't belong to any
+   * class share the connections no class reserved. Not supported along with an ADAPTIVE pool sizing.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional
+  @NullSafe
+  @Placement(tab = ADVANCED_TAB, order = 18)
+  @Expression(NOT_SUPPORTED)
+  private List<WorkloadClass> workloadClasses = new LinkedList<>();
+
+  /**
+   * How many connections the pool is allowed to hold. FIXED lets the pool grow up to its max pool size whenever callers
+   * wait for connections. ADAPTIVE adjusts the limit of the pool between its min and max pool sizes, growing while callers
+   * wait and the database keeps up, and shrinking when connections sit idle or the database slows down as more of them are
+   * used. ADAPTIVE is only supported by the CONCURRENT_BAG pool engine, and not along with workload classes.
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "FIXED")
+  @Placement(tab = ADVANCED_TAB, order = 19)
+  @Expression(NOT_SUPPORTED)
+  private PoolSizing poolSizing = PoolSizing.FIXED;
+
+  /**
+   * How often, in milliseconds, a pool with ADAPTIVE sizing adjusts its limit
+   *
+   * @since 2.0.0
+   */
+  @Parameter
+  @Optional(defaultValue = "5000")
+  @Placement(tab = ADVANCED_TAB, order = 20)
+  @Expression(NOT_SUPPORTED)
+  private int sizingInterval = 5000;
+
   public DbPoolingProfile() { //Default constructor
   }
 
@@ -186,7 +315,9 @@ public class DbPoolingProfile implements DatabasePoolingProfile {
 
   @Override
   public int hashCode() {
-    return Objects.hash(minPoolSize, maxPoolSize, acquireIncrement, preparedStatementCacheSize, maxWaitUnit, maxWait);
+    return Objects.hash(minPoolSize, maxPoolSize, acquireIncrement, preparedStatementCacheSize, maxWaitUnit, maxWait,
+                        poolEngine, poolStartup, warmupQuery, validationWindow, idleValidationInterval,
+                        leakDetectionThreshold, checkoutStackSampling, workloadClasses, poolSizing, sizingInterval);
   }
 
   public int getMaxIdleTime() {
@@ -223,6 +354,86 @@ public class DbPoolingProfile implements DatabasePoolingProfile {
     this.additionalProperties = additionalProperties;
   }
 
+  public PoolEngine getPoolEngine() {
+    return poolEngine;
+  }
+
+  public void setPoolEngine(PoolEngine poolEngine) {
+    this.poolEngine = poolEngine;
+  }
+
+  public PoolStartup getPoolStartup() {
+    return poolStartup;
+  }
+
+  public void setPoolStartup(PoolStartup poolStartup) {
+    this.poolStartup = poolStartup;
+  }
+
+  public String getWarmupQuery() {
+    return warmupQuery;
+  }
+
+  public void setWarmupQuery(String warmupQuery) {
+    this.warmupQuery = warmupQuery;
+  }
+
+  public int getValidationWindow() {
+    return validationWindow;
+  }
+
+  public void setValidationWindow(int validationWindow) {
+    this.validationWindow = validationWindow;
+  }
+
+  public int getIdleValidationInterval() {
+    return idleValidationInterval;
+  }
+
+  public void setIdleValidationInterval(int idleValidationInterval) {
+    this.idleValidationInterval = idleValidationInterval;
+  }
+
+  public int getLeakDetectionThreshold() {
+    return leakDetectionThreshold;
+  }
+
+  public void setLeakDetectionThreshold(int leakDetectionThreshold) {
+    this.leakDetectionThreshold = leakDetectionThreshold;
+  }
+
+  public int getCheckoutStackSampling() {
+    return checkoutStackSampling;
+  }
+
+  public void setCheckoutStackSampling(int checkoutStackSampling) {
+    this.checkoutStackSampling = checkoutStackSampling;
+  }
+
+  public List<WorkloadClass> getWorkloadClasses() {
+    return workloadClasses;
+  }
+
+  public void setWorkloadClasses(List<WorkloadClass> workloadClasses) {
+    this.workloadClasses = workloadClasses;
+  }
+
+  public PoolSizing getPoolSizing() {
+    return poolSizing;
+  }
+
+  public void setPoolSizing(PoolSizing poolSizing) {
+    this.poolSizing = poolSizing;
+  }
+
+  public int getSizingInterval() {
+    return sizingInterval;
+  }
+
+  public void setSizingInterval(int sizingInterval) {
+    this.sizingInterval = sizingInterval;
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (this == obj) {
@@ -239,6 +450,16 @@ public class DbPoolingProfile implements DatabasePoolingProfile {
         acquireIncrement == that.acquireIncrement &&
         preparedStatementCacheSize == that.preparedStatementCacheSize &&
         maxWait == that.maxWait &&
-        maxWaitUnit == that.maxWaitUnit;
+        maxWaitUnit == that.maxWaitUnit &&
+        poolEngine == that.poolEngine &&
+        poolStartup == that.poolStartup &&
+        Objects.equals(warmupQuery, that.warmupQuery) &&
+        validationWindow == that.validationWindow &&
+        idleValidationInterval == that.idleValidationInterval &&
+        leakDetectionThreshold == that.leakDetectionThreshold &&
+        checkoutStackSampling == that.checkoutStackSampling &&
+        Objects.equals(workloadClasses, that.workloadClasses) &&
+        poolSizing == that.poolSizing &&
+        sizingInterval == that.sizingInterval;
   }
 }
@@ -0,0 +1,26 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.config;
+
+/**
+ * The implementations which can pool the connections of a config
+ *
+ * @since 2.0.0
+ */
+public enum PoolEngine {
+
+  /**
+   * The c3p0 pool built by the database client
+   */
+  C3P0,
+
+  /**
+   * A pool built by the connector, which hands connections out of a lock free bag and favors the connections each thread used
+   * last. Callers wait for connections without holding monitors, so it's the engine to use from virtual threads.
+   */
+  CONCURRENT_BAG
+}
@@ -0,0 +1,28 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.config;
+
+/**
+ * How many connections a pool is allowed to hold
+ *
+ * @since 2.0.0
+ */
+public enum PoolSizing {
+
+  /**
+   * The pool grows up to its configured maximum size whenever callers wait for connections
+   */
+  FIXED,
+
+  /**
+   * The pool adjusts its own limit between its configured minimum and maximum sizes, growing while callers wait for
+   * connections and the database keeps up, and shrinking when connections sit idle or the database slows down as more of
+   * them are used. Only supported by {@link PoolEngine#CONCURRENT_BAG}, and not together with {@link WorkloadClass workload
+   * classes}, which split the connections of the pool assuming it can always grow up to its maximum size.
+   */
+  ADAPTIVE
+}
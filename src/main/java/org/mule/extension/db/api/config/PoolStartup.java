@@ -0,0 +1,32 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.config;
+
+/**
+ * How a connection provider gets its pool ready
+ *
+ * @since 2.0.0
+ */
+public enum PoolStartup {
+
+  /**
+   * The pool is created when the provider is initialised and fills up to its minimum size on its own pace
+   */
+  DEFAULT,
+
+  /**
+   * The minimum number of connections is created in parallel while the provider is initialised, so that the first requests
+   * after a deployment don't pay for the connection setup. Each connection can be warmed up with a query.
+   */
+  PREWARM,
+
+  /**
+   * Nothing is created until the provider is first asked for a connection, so that configs which are rarely used don't slow
+   * the deployment down nor hold resources
+   */
+  LAZY
+}
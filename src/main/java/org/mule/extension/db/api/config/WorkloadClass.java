@@ -0,0 +1,138 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.config;
+
+import static org.mule.runtime.api.meta.ExpressionSupport.NOT_SUPPORTED;
+
+import org.mule.extension.db.internal.util.ExcludeFromGeneratedCoverage;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A class of workload which shares the connections of a pool with the rest: it's guaranteed a minimum number of connections
+ * and can't take more than a maximum, so that a slow workload can't starve the others.
+ *
+ * @since 2.0.0
+ */
+@ExcludeFromGeneratedCoverage
+public class WorkloadClass {
+
+  public WorkloadClass() {}
+
+  public WorkloadClass(String name, List<String> flows) {
+    this.name = name;
+    this.flows = flows;
+  }
+
+  /**
+   * The name of the class, which identifies it in the statistics of the pool
+   */
+  @Parameter
+  @Expression(NOT_SUPPORTED)
+  private String name;
+
+  /**
+   * Patterns of the flows assigned to the class, where {@code *} matches any text. A pattern may also be the path of a single
+   * component of a flow, like {@code reporting-flow/processors/2}, to assign a single operation to the class. A component
+   * belongs to the first class which matches it.
+   */
+  @Parameter
+  @Expression(NOT_SUPPORTED)
+  private List<String> flows;
+
+  /**
+   * Connections reserved for the class, which other classes can't take
+   */
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Expression(NOT_SUPPORTED)
+  private int minConnections = 0;
+
+  /**
+   * Connections the class can hold at once. Defaults to the max pool size.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  private Integer maxConnections;
+
+  /**
+   * How many milliseconds a checkout waits for the class to have a connection available before it's rejected. Zero (default)
+   * rejects the checkouts of a saturated class right away.
+   */
+  @Parameter
+  @Optional(defaultValue = "0")
+  @Expression(NOT_SUPPORTED)
+  private int maxWait = 0;
+
+  public String getName() {
+    return name;
+  }
+
+  public void setName(String name) {
+    this.name = name;
+  }
+
+  public List<String> getFlows() {
+    return flows;
+  }
+
+  public void setFlows(List<String> flows) {
+    this.flows = flows;
+  }
+
+  public int getMinConnections() {
+    return minConnections;
+  }
+
+  public void setMinConnections(int minConnections) {
+    this.minConnections = minConnections;
+  }
+
+  public Integer getMaxConnections() {
+    return maxConnections;
+  }
+
+  public void setMaxConnections(Integer maxConnections) {
+    this.maxConnections = maxConnections;
+  }
+
+  public int getMaxWait() {
+    return maxWait;
+  }
+
+  public void setMaxWait(int maxWait) {
+    this.maxWait = maxWait;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, flows, minConnections, maxConnections, maxWait);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof WorkloadClass)) {
+      return false;
+    }
+
+    WorkloadClass that = (WorkloadClass) obj;
+
+    return Objects.equals(name, that.name) &&
+        Objects.equals(flows, that.flows) &&
+        minConnections == that.minConnections &&
+        Objects.equals(maxConnections, that.maxConnections) &&
+        maxWait == that.maxWait;
+  }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.metrics;
+
+import java.time.Duration;
+
+/**
+ * Receives the metrics of the connection pools of the database configs, so that they can be published to any monitoring
+ * system.
+ * <p>
+ * Implementations are discovered through {@link java.util.ServiceLoader} when each connection provider is initialised, using
+ * the context class loader of the application, so they just need to be listed in a
+ * {@code META-INF/services/org.mule.extension.db.api.metrics.ConnectionPoolMetricsPublisher} file. They are invoked from the
+ * threads which obtain connections, so they need to be thread safe and shouldn't block.
+ *
+ * @since 2.0.0
+ */
+public interface ConnectionPoolMetricsPublisher {
+
+  /**
+   * Invoked each time a connection is obtained from a pool
+   *
+   * @param pool     the name of the pool
+   * @param waitTime the time the caller waited for the connection
+   */
+  void checkedOut(String pool, Duration waitTime);
+
+  /**
+   * Invoked when a caller gives up waiting for a connection because the pool was exhausted for the whole max wait
+   *
+   * @param pool     the name of the pool
+   * @param waitTime the time the caller waited before giving up
+   */
+  default void checkoutTimedOut(String pool, Duration waitTime) {}
+
+  /**
+   * Invoked periodically, at most once per {@link #getSampleInterval() sample interval}, with the state of a pool which is
+   * in use
+   *
+   * @param metrics the state of the pool
+   */
+  default void sampled(PoolMetrics metrics) {}
+
+  /**
+   * @return the minimum time between two invocations of {@link #sampled(PoolMetrics)} for the same pool
+   */
+  default Duration getSampleInterval() {
+    return Duration.ofSeconds(10);
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.metrics;
+
+import static java.util.Optional.ofNullable;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Measurements of a single poll of a table row listener
+ *
+ * @since 2.0.0
+ */
+public final class PollMetrics {
+
+  private final String listener;
+  private final String table;
+  private final int rows;
+  private final Duration connectTime;
+  private final Duration executeTime;
+  private final Duration fetchTime;
+  private final Duration dispatchTime;
+  private final Duration lag;
+
+  /**
+   * Creates a new instance
+   *
+   * @param listener     the name of the listener which polled
+   * @param table        the table which was polled
+   * @param rows         the number of rows read by the poll
+   * @param connectTime  the time spent obtaining a connection
+   * @param executeTime  the time spent executing statements, until their results were available
+   * @param fetchTime    the time spent reading rows from the results
+   * @param dispatchTime the time spent turning rows into messages and handing them over to the flow
+   * @param lag          the time elapsed since the latest watermark, or {@code null} if the watermark is not temporal
+   */
+  public PollMetrics(String listener, String table, int rows, Duration connectTime, Duration executeTime, Duration fetchTime,
+                     Duration dispatchTime, Duration lag) {
+    this.listener = listener;
+    this.table = table;
+    this.rows = rows;
+    this.connectTime = connectTime;
+    this.executeTime = executeTime;
+    this.fetchTime = fetchTime;
+    this.dispatchTime = dispatchTime;
+    this.lag = lag;
+  }
+
+  /**
+   * @return the name of the listener which polled
+   */
+  public String getListener() {
+    return listener;
+  }
+
+  /**
+   * @return the table which was polled
+   */
+  public String getTable() {
+    return table;
+  }
+
+  /**
+   * @return the number of rows read by the poll
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * @return the time spent obtaining a connection
+   */
+  public Duration getConnectTime() {
+    return connectTime;
+  }
+
+  /**
+   * @return the time spent executing statements, until their results were available
+   */
+  public Duration getExecuteTime() {
+    return executeTime;
+  }
+
+  /**
+   * @return the time spent reading rows from the results
+   */
+  public Duration getFetchTime() {
+    return fetchTime;
+  }
+
+  /**
+   * @return the time spent turning rows into messages and handing them over to the flow
+   */
+  public Duration getDispatchTime() {
+    return dispatchTime;
+  }
+
+  /**
+   * @return the total time spent by the poll
+   */
+  public Duration getDuration() {
+    return connectTime.plus(executeTime).plus(fetchTime).plus(dispatchTime);
+  }
+
+  /**
+   * @return the time elapsed between the latest watermark and the end of the poll, if the watermark is a point in time
+   */
+  public Optional<Duration> getLag() {
+    return ofNullable(lag);
+  }
+
+  @Override
+  public String toString() {
+    return "PollMetrics{listener=" + listener + ", table=" + table + ", rows=" + rows + ", connectTime=" + connectTime
+        + ", executeTime=" + executeTime + ", fetchTime=" + fetchTime + ", dispatchTime=" + dispatchTime + ", lag=" + lag + "}";
+  }
+}
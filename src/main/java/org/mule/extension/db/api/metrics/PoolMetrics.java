@@ -0,0 +1,145 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.metrics;
+
+/**
+ * Snapshot of the state of the connection pool of a database config
+ *
+ * @since 2.0.0
+ */
+public final class PoolMetrics {
+
+  private static final long[] CHECKOUT_WAIT_BUCKETS_MILLIS = {1, 5, 10, 25, 50, 100, 250, 500, 1000, 5000, Long.MAX_VALUE};
+
+  private final String pool;
+  private final int activeConnections;
+  private final int idleConnections;
+  private final int pendingCheckouts;
+  private final long checkouts;
+  private final long checkoutTimeouts;
+  private final long createdConnections;
+  private final long destroyedConnections;
+  private final int cachedStatements;
+  private final long[] checkoutWaitHistogram;
+
+  /**
+   * Creates a new instance
+   *
+   * @param pool                  the name of the pool
+   * @param activeConnections     the number of connections checked out of the pool
+   * @param idleConnections       the number of connections available in the pool
+   * @param pendingCheckouts      the number of callers waiting for a connection
+   * @param checkouts             the number of successful checkouts so far
+   * @param checkoutTimeouts      the number of checkouts which failed because no connection was available within the
+   *                              configured max wait
+   * @param createdConnections    the number of physical connections created so far
+   * @param destroyedConnections  the number of physical connections destroyed so far
+   * @param cachedStatements      the number of prepared statements held by the statement cache of the pool
+   * @param checkoutWaitHistogram the number of checkouts which waited for each of the
+   *                              {@link #getCheckoutWaitBucketsMillis() buckets}
+   */
+  public PoolMetrics(String pool, int activeConnections, int idleConnections, int pendingCheckouts, long checkouts,
+                     long checkoutTimeouts, long createdConnections, long destroyedConnections, int cachedStatements,
+                     long[] checkoutWaitHistogram) {
+    this.pool = pool;
+    this.activeConnections = activeConnections;
+    this.idleConnections = idleConnections;
+    this.pendingCheckouts = pendingCheckouts;
+    this.checkouts = checkouts;
+    this.checkoutTimeouts = checkoutTimeouts;
+    this.createdConnections = createdConnections;
+    this.destroyedConnections = destroyedConnections;
+    this.cachedStatements = cachedStatements;
+    this.checkoutWaitHistogram = checkoutWaitHistogram.clone();
+  }
+
+  /**
+   * @return the name of the pool
+   */
+  public String getPool() {
+    return pool;
+  }
+
+  /**
+   * @return the number of connections checked out of the pool
+   */
+  public int getActiveConnections() {
+    return activeConnections;
+  }
+
+  /**
+   * @return the number of connections available in the pool
+   */
+  public int getIdleConnections() {
+    return idleConnections;
+  }
+
+  /**
+   * @return the number of callers waiting for a connection
+   */
+  public int getPendingCheckouts() {
+    return pendingCheckouts;
+  }
+
+  /**
+   * @return the number of successful checkouts so far
+   */
+  public long getCheckouts() {
+    return checkouts;
+  }
+
+  /**
+   * @return the number of checkouts which failed because no connection was available within the configured max wait
+   */
+  public long getCheckoutTimeouts() {
+    return checkoutTimeouts;
+  }
+
+  /**
+   * @return the number of physical connections created so far
+   */
+  public long getCreatedConnections() {
+    return createdConnections;
+  }
+
+  /**
+   * @return the number of physical connections destroyed so far
+   */
+  public long getDestroyedConnections() {
+    return destroyedConnections;
+  }
+
+  /**
+   * @return the number of prepared statements held by the statement cache of the pool
+   */
+  public int getCachedStatements() {
+    return cachedStatements;
+  }
+
+  /**
+   * @return the number of checkouts which waited for each of the {@link #getCheckoutWaitBucketsMillis() buckets}
+   */
+  public long[] getCheckoutWaitHistogram() {
+    return checkoutWaitHistogram.clone();
+  }
+
+  /**
+   * @return the upper bounds, in milliseconds, of the buckets of the checkout wait histogram. The last bucket has no upper
+   *         bound.
+   */
+  public static long[] getCheckoutWaitBucketsMillis() {
+    return CHECKOUT_WAIT_BUCKETS_MILLIS.clone();
+  }
+
+  @Override
+  public String toString() {
+    return "PoolMetrics{pool=" + pool + ", activeConnections=" + activeConnections + ", idleConnections=" + idleConnections
+        + ", pendingCheckouts=" + pendingCheckouts + ", checkouts=" + checkouts + ", checkoutTimeouts=" + checkoutTimeouts
+        + ", createdConnections=" + createdConnections + ", destroyedConnections=" + destroyedConnections
+        + ", cachedStatements=" + cachedStatements + "}";
+  }
+}
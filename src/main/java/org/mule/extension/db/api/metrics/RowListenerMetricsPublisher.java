@@ -0,0 +1,36 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.metrics;
+
+/**
+ * Receives the metrics of the table row listeners, so that they can be published to any monitoring system.
+ * <p>
+ * Implementations are discovered through {@link java.util.ServiceLoader} when each listener starts, using the context class
+ * loader of the application, so they just need to be listed in a
+ * {@code META-INF/services/org.mule.extension.db.api.metrics.RowListenerMetricsPublisher} file. They are invoked from the
+ * polling threads, so they need to be thread safe and shouldn't block.
+ *
+ * @since 2.0.0
+ */
+public interface RowListenerMetricsPublisher {
+
+  /**
+   * Invoked once a poll completes
+   *
+   * @param metrics the measurements of the poll
+   */
+  void pollCompleted(PollMetrics metrics);
+
+  /**
+   * Invoked when the runtime rejects one of the messages generated by a listener, either because it was already being
+   * processed or because of its watermark
+   *
+   * @param listener the name of the listener
+   * @param table    the table which is polled by the listener
+   */
+  default void itemRejected(String listener, String table) {}
+}
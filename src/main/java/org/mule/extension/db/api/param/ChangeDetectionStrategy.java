@@ -0,0 +1,33 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.param;
+
+/**
+ * The ways in which a table row listener can detect the rows which changed since its previous poll.
+ *
+ * @since 2.0.0
+ */
+public enum ChangeDetectionStrategy {
+
+  /**
+   * Rows are selected from the table itself, filtered by the value of a watermark column when one is configured
+   */
+  WATERMARK,
+
+  /**
+   * Insert, update and delete triggers on the table record the ID of each changed row into a journal table. Polls read the
+   * journal in sequence order and join back to the table, so their cost depends on the number of changes rather than on the
+   * size of the table
+   */
+  TRIGGER_JOURNAL,
+
+  /**
+   * The whole table is read on each poll and a hash of each row is compared with the one obtained by the previous poll. Requires
+   * no changes to the database, at the cost of reading the whole table
+   */
+  SNAPSHOT_DIFF
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.api.param;
+
+import static org.mule.runtime.api.meta.ExpressionSupport.NOT_SUPPORTED;
+
+import org.mule.extension.db.internal.util.ExcludeFromGeneratedCoverage;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+
+/**
+ * One of the tables polled by a listener which polls many tables at once
+ *
+ * @since 2.0.0
+ */
+@ExcludeFromGeneratedCoverage
+public class PolledTable {
+
+  public PolledTable() {}
+
+  public PolledTable(String table, String watermarkColumn, String idColumn) {
+    this.table = table;
+    this.watermarkColumn = watermarkColumn;
+    this.idColumn = idColumn;
+  }
+
+  /**
+   * The name of the table to select from
+   */
+  @Parameter
+  @Expression(NOT_SUPPORTED)
+  private String table;
+
+  /**
+   * The name of the column to use for watermark. Values taken from this column will be used to filter the contents of the next
+   * poll, so that only rows with a greater watermark value are processed.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  private String watermarkColumn;
+
+  /**
+   * The name of the column to consider as row ID. If provided, the same row is not processed twice by concurrent polls.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  private String idColumn;
+
+  public String getTable() {
+    return table;
+  }
+
+  public void setTable(String table) {
+    this.table = table;
+  }
+
+  public String getWatermarkColumn() {
+    return watermarkColumn;
+  }
+
+  public void setWatermarkColumn(String watermarkColumn) {
+    this.watermarkColumn = watermarkColumn;
+  }
+
+  public String getIdColumn() {
+    return idColumn;
+  }
+
+  public void setIdColumn(String idColumn) {
+    this.idColumn = idColumn;
+  }
+}
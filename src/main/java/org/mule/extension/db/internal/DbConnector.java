@@ -11,7 +11,12 @@ import org.mule.db.commons.api.exception.connection.ConnectionCreationException;
 import org.mule.db.commons.api.exception.connection.DbError;
 import org.mule.db.commons.internal.DbFunctions;
 import org.mule.db.commons.internal.exception.DbExceptionHandler;
+import org.mule.extension.db.api.TableRowAttributes;
 import org.mule.extension.db.api.logger.LoggerApiPackage;
+import org.mule.extension.db.api.metrics.ConnectionPoolMetricsPublisher;
+import org.mule.extension.db.api.metrics.PollMetrics;
+import org.mule.extension.db.api.metrics.PoolMetrics;
+import org.mule.extension.db.api.metrics.RowListenerMetricsPublisher;
 import org.mule.extension.db.api.param.BulkQueryDefinition;
 import org.mule.extension.db.api.param.QueryDefinition;
 import org.mule.extension.db.api.param.StoredProcedureCall;
@@ -25,6 +30,8 @@ import org.mule.extension.db.internal.lifecycle.DbCompositeLifecycleListener;
 import org.mule.extension.db.internal.operation.DbBulkOperations;
 import org.mule.extension.db.internal.operation.DbDdlOperations;
 import org.mule.extension.db.internal.operation.DbDmlOperations;
+import org.mule.extension.db.internal.source.BatchRowListener;
+import org.mule.extension.db.internal.source.MultiTableRowListener;
 import org.mule.extension.db.internal.source.RowListener;
 import org.mule.runtime.extension.api.annotation.Export;
 import org.mule.runtime.extension.api.annotation.ExpressionFunctions;
@@ -49,7 +56,7 @@ import static org.mule.sdk.api.meta.JavaVersion.JAVA_8;
  */
 @Extension(name = "Database")
 @Operations({DbBulkOperations.class, DbDdlOperations.class, DbDmlOperations.class})
-@Sources(RowListener.class)
+@Sources({RowListener.class, BatchRowListener.class, MultiTableRowListener.class})
 @ConnectionProviders({DbDataSourceReferenceConnectionProvider.class, DbGenericConnectionProvider.class,
     DerbyConnectionProvider.class, MySqlConnectionProvider.class, OracleDbConnectionProvider.class,
     SqlServerConnectionProvider.class})
@@ -59,7 +66,8 @@ import static org.mule.sdk.api.meta.JavaVersion.JAVA_8;
 @OnException(DbExceptionHandler.class)
 @Export(
     classes = {QueryDefinition.class, StoredProcedureCall.class, BulkQueryDefinition.class, ConnectionCreationException.class,
-        LoggerApiPackage.class})
+        LoggerApiPackage.class, TableRowAttributes.class, PollMetrics.class, RowListenerMetricsPublisher.class, PoolMetrics.class,
+        ConnectionPoolMetricsPublisher.class})
 @JavaVersionSupport({JAVA_8, JAVA_11, JAVA_17})
 @OnArtifactLifecycle(DbCompositeLifecycleListener.class)
 public class DbConnector extends AbstractDbConnector {
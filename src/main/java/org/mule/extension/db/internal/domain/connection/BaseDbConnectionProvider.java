@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.connection.DbConnectionProvider;
+import org.mule.extension.db.internal.domain.connection.pool.ConnectionPoolStatistics;
+import org.mule.extension.db.internal.domain.connection.pool.ConnectionPoolSupport;
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.lifecycle.InitialisationException;
+import org.mule.runtime.api.scheduler.SchedulerService;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+
+/**
+ * Base class for the connection providers which create their own pool out of a {@code DbPoolingProfile}. Pools the
+ * connections with the engine selected by the profile, gets the pool ready as its startup mode says and keeps the
+ * {@link ConnectionPoolStatistics} of the pool.
+ *
+ * @since 2.0.0
+ */
+public abstract class BaseDbConnectionProvider extends DbConnectionProvider {
+
+  private final ConnectionPoolSupport poolSupport = new ConnectionPoolSupport(this, this::getPoolingProfile);
+
+  @Inject
+  private ConfigurationProperties configurationProperties;
+
+  @Inject
+  private SchedulerService schedulerService;
+
+  @Override
+  public void initialise() throws InitialisationException {
+    poolSupport.initialise(super::initialise, this::getConfiguredDataSource, configurationProperties,
+                           schedulerService);
+  }
+
+  @Override
+  public java.util.Optional<DataSource> getDataSource() {
+    return poolSupport.dataSource(getDataSourceConfig());
+  }
+
+  @Override
+  public DbConnection connect() throws ConnectionException {
+    return poolSupport.connect(super::connect);
+  }
+
+  @Override
+  public void disconnect(DbConnection connection) {
+    poolSupport.disconnect(super::disconnect, connection);
+  }
+
+  @Override
+  public void dispose() {
+    poolSupport.dispose(super::dispose);
+  }
+
+  /**
+   * @return the statistics of the pool, or {@code null} if the provider was not initialised yet
+   */
+  public ConnectionPoolStatistics getPoolStatistics() {
+    return poolSupport.getStatistics();
+  }
+}
@@ -24,6 +24,7 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import java.sql.Connection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
 
 /**
  * {@link ConnectionProvider} implementation which creates DB connections from a referenced {@link
@@ -38,12 +39,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DbDataSourceReferenceConnectionProvider extends DataSourceReferenceConnectionProvider {
 
   private final Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache = new ConcurrentHashMap<>();
+  private final Map<String, Lock> lobFieldsResolutionLocks = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, String> resolvedDbTypeNamesCache = new ConcurrentHashMap<>();
 
   @Override
   protected DbConnection createDbConnection(Connection connection) throws Exception {
     if (isOracle(connection)) {
-      return new OracleDbConnection(connection, super.resolveCustomTypes(), resolvedDbTypesCache,
+      return new OracleDbConnection(connection, super.resolveCustomTypes(), resolvedDbTypesCache, lobFieldsResolutionLocks,
                                     cachedTemplates, resolvedDbTypeNamesCache);
     } else {
       return super.createDbConnection(connection);
@@ -18,7 +18,6 @@ import static org.mule.extension.db.internal.domain.connection.derby.DerbyConnec
 import static org.mule.runtime.api.meta.ExternalLibraryType.JAR;
 import static org.mule.runtime.extension.api.annotation.param.ParameterGroup.CONNECTION;
 
-import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Arrays;
@@ -26,7 +25,7 @@ import java.util.Arrays;
 import org.mule.db.commons.api.exception.connection.DbError;
 import org.mule.db.commons.internal.domain.connection.DataSourceConfig;
 import org.mule.db.commons.internal.domain.connection.DbConnection;
-import org.mule.db.commons.internal.domain.connection.DbConnectionProvider;
+import org.mule.extension.db.internal.domain.connection.BaseDbConnectionProvider;
 import org.mule.runtime.extension.api.annotation.Alias;
 import org.mule.runtime.extension.api.annotation.ExternalLib;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
@@ -41,7 +40,7 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 @Alias("derby")
 @ExternalLib(name = "Derby JDBC Driver", description = "A JDBC driver which supports connecting to a Derby Database",
     nameRegexpMatcher = DRIVER_FILE_NAME_PATTERN, requiredClassName = DERBY_DRIVER_CLASS, type = JAR, coordinates = DERBY_GAV)
-public class DerbyConnectionProvider extends DbConnectionProvider {
+public class DerbyConnectionProvider extends BaseDbConnectionProvider {
 
   private static final String FAILED_TO_START_DATABASE = "Failed to start database";
   private static final String NOT_FOUND = "not found";
@@ -52,11 +51,6 @@ public class DerbyConnectionProvider extends DbConnectionProvider {
   private DerbyConnectionParameters derbyParameters;
 
 
-  @Override
-  public java.util.Optional<DataSource> getDataSource() {
-    return empty();
-  }
-
   @Override
   public java.util.Optional<DataSourceConfig> getDataSourceConfig() {
     return ofNullable(mapDataSourceConfig(derbyParameters));
@@ -14,6 +14,11 @@ import org.mule.db.commons.internal.domain.connection.DbConnection;
 import org.mule.db.commons.internal.domain.connection.generic.GenericConnectionProvider;
 import org.mule.db.commons.internal.domain.type.ResolvedDbType;
 import org.mule.extension.db.internal.domain.connection.oracle.OracleDbConnection;
+import org.mule.extension.db.internal.domain.connection.pool.ConnectionPoolSupport;
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.lifecycle.InitialisationException;
+import org.mule.runtime.api.scheduler.SchedulerService;
 import org.mule.runtime.extension.api.annotation.Alias;
 import org.mule.runtime.extension.api.annotation.ExternalLib;
 
@@ -23,6 +28,10 @@ import org.mule.runtime.api.connection.ConnectionProvider;
 import java.sql.Connection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
 
 /**
  * {@link ConnectionProvider} that creates connections for any kind of database using a JDBC URL
@@ -35,13 +44,47 @@ import java.util.concurrent.ConcurrentHashMap;
 public class DbGenericConnectionProvider extends GenericConnectionProvider {
 
   private final Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache = new ConcurrentHashMap<>();
+  private final Map<String, Lock> lobFieldsResolutionLocks = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, String> resolvedDbTypeNamesCache = new ConcurrentHashMap<>();
+  private final ConnectionPoolSupport poolSupport = new ConnectionPoolSupport(this, this::getPoolingProfile);
+
+  @Inject
+  private ConfigurationProperties configurationProperties;
+
+  @Inject
+  private SchedulerService schedulerService;
+
+  @Override
+  public void initialise() throws InitialisationException {
+    poolSupport.initialise(super::initialise, this::getConfiguredDataSource, configurationProperties,
+                           schedulerService);
+  }
+
+  @Override
+  public java.util.Optional<DataSource> getDataSource() {
+    return poolSupport.dataSource(getDataSourceConfig());
+  }
+
+  @Override
+  public DbConnection connect() throws ConnectionException {
+    return poolSupport.connect(super::connect);
+  }
+
+  @Override
+  public void disconnect(DbConnection connection) {
+    poolSupport.disconnect(super::disconnect, connection);
+  }
+
+  @Override
+  public void dispose() {
+    poolSupport.dispose(super::dispose);
+  }
 
   @Override
   protected DbConnection createDbConnection(Connection connection) throws Exception {
     if (isOracle(connection)) {
-      return new OracleDbConnection(connection, resolveCustomTypes(), resolvedDbTypesCache, cachedTemplates,
-                                    resolvedDbTypeNamesCache);
+      return new OracleDbConnection(connection, resolveCustomTypes(), resolvedDbTypesCache, lobFieldsResolutionLocks,
+                                    cachedTemplates, resolvedDbTypeNamesCache);
     } else {
       return super.createDbConnection(connection);
     }
@@ -18,11 +18,10 @@ import static org.mule.runtime.api.meta.ExternalLibraryType.JAR;
 import static org.mule.runtime.extension.api.annotation.param.ParameterGroup.CONNECTION;
 
 import java.sql.SQLException;
-import javax.sql.DataSource;
 
 import org.mule.db.commons.api.exception.connection.DbError;
 import org.mule.db.commons.internal.domain.connection.DataSourceConfig;
-import org.mule.db.commons.internal.domain.connection.DbConnectionProvider;
+import org.mule.extension.db.internal.domain.connection.BaseDbConnectionProvider;
 import org.mule.runtime.extension.api.annotation.Alias;
 import org.mule.runtime.extension.api.annotation.ExternalLib;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
@@ -38,7 +37,7 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 @ExternalLib(name = "MySQL JDBC Driver", description = "A JDBC driver which supports connecting to the MySQL Database",
     nameRegexpMatcher = DRIVER_FILE_NAME_PATTERN, requiredClassName = MYSQL_DRIVER_CLASS, type = JAR,
     coordinates = MYSQL_GAV)
-public class MySqlConnectionProvider extends DbConnectionProvider {
+public class MySqlConnectionProvider extends BaseDbConnectionProvider {
 
   private static final String ACCESS_DENIED = "Access denied";
   private static final String UNKNOWN_DATABASE = "Unknown database";
@@ -49,11 +48,6 @@ public class MySqlConnectionProvider extends DbConnectionProvider {
   @ParameterGroup(name = CONNECTION)
   private MySqlConnectionParameters mySqlParameters;
 
-  @Override
-  public java.util.Optional<DataSource> getDataSource() {
-    return empty();
-  }
-
   @Override
   public java.util.Optional<DataSourceConfig> getDataSourceConfig() {
     return ofNullable(mapDataSourceConfig(mySqlParameters));
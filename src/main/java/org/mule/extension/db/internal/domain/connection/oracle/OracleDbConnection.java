@@ -45,6 +45,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import oracle.jdbc.OracleConnection;
@@ -84,6 +86,7 @@ public class OracleDbConnection extends DefaultDbConnection {
   private static final int PARAM_NAME_COLUMN_INDEX = 4;
 
   private final Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache;
+  private final Map<String, Lock> lobFieldsResolutionLocks;
   private final ConcurrentHashMap<String, String> resolvedDbTypeNamesCache;
 
 
@@ -91,8 +94,25 @@ public class OracleDbConnection extends DefaultDbConnection {
                             Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache,
                             Cache<String, QueryTemplate> cachedTemplates,
                             ConcurrentHashMap<String, String> resolvedDbTypeNamesCache) {
+    this(jdbcConnection, customDataTypes, resolvedDbTypesCache, new ConcurrentHashMap<>(), cachedTemplates,
+         resolvedDbTypeNamesCache);
+  }
+
+  /**
+   * @param lobFieldsResolutionLocks the locks which serialize the resolution of the LOB fields of each type, shared by the
+   *                                 connections sharing {@code resolvedDbTypesCache} so that they don't query the catalog for
+   *                                 the same type at once. Locks rather than monitors, as they are held while querying the
+   *                                 database and virtual threads blocked on a monitor pin their carrier. A lock is only kept
+   *                                 while its type is being resolved.
+   */
+  public OracleDbConnection(Connection jdbcConnection, List<DbType> customDataTypes,
+                            Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache,
+                            Map<String, Lock> lobFieldsResolutionLocks,
+                            Cache<String, QueryTemplate> cachedTemplates,
+                            ConcurrentHashMap<String, String> resolvedDbTypeNamesCache) {
     super(jdbcConnection, customDataTypes, cachedTemplates);
     this.resolvedDbTypesCache = resolvedDbTypesCache;
+    this.lobFieldsResolutionLocks = lobFieldsResolutionLocks;
     this.resolvedDbTypeNamesCache = resolvedDbTypeNamesCache;
   }
 
@@ -204,7 +224,9 @@ public class OracleDbConnection extends DefaultDbConnection {
     if (logger.isDebugEnabled()) {
       logger.debug("Obtaining LobFieldsDataTypeInfo");
     }
-    synchronized (resolvedDbTypesCache) {
+    Lock lock = lobFieldsResolutionLocks.computeIfAbsent(typeName, name -> new ReentrantLock());
+    lock.lock();
+    try {
       if (this.resolvedDbTypesCache.containsKey(typeName)) {
         return resolvedDbTypesCache.get(typeName);
       }
@@ -237,6 +259,10 @@ public class OracleDbConnection extends DefaultDbConnection {
       }
       resolvedDbTypesCache.put(typeName, dataTypes);
       return dataTypes;
+    } finally {
+      // Whoever waits on the lock finds the type in the cache, or resolves it again if this resolution failed
+      lobFieldsResolutionLocks.remove(typeName, lock);
+      lock.unlock();
     }
   }
 
@@ -20,18 +20,18 @@ import static org.mule.runtime.core.api.lifecycle.LifecycleUtils.initialiseIfNee
 import static org.mule.runtime.extension.api.annotation.param.ParameterGroup.CONNECTION;
 import static org.mule.extension.db.internal.util.MigrationUtils.mapDataSourceConfig;
 
-import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 import org.mule.db.commons.api.exception.connection.DbError;
 import org.mule.db.commons.internal.domain.connection.DataSourceConfig;
 import org.mule.db.commons.internal.domain.connection.DbConnection;
-import org.mule.db.commons.internal.domain.connection.DbConnectionProvider;
 import org.mule.db.commons.internal.domain.type.ResolvedDbType;
+import org.mule.extension.db.internal.domain.connection.BaseDbConnectionProvider;
 import org.mule.extension.db.internal.util.ExcludeFromGeneratedCoverage;
 import org.mule.runtime.api.lifecycle.InitialisationException;
 import org.mule.runtime.extension.api.annotation.Alias;
@@ -48,7 +48,7 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 @Alias("oracle")
 @ExternalLib(name = "Oracle JDBC Driver", description = "A JDBC driver which supports connecting to an Oracle Database",
     nameRegexpMatcher = DRIVER_FILE_NAME_PATTERN, requiredClassName = DRIVER_CLASS_NAME, type = JAR)
-public class OracleDbConnectionProvider extends DbConnectionProvider {
+public class OracleDbConnectionProvider extends BaseDbConnectionProvider {
 
   private static final String INVALID_CREDENTIALS_ORACLE_CODE = "ORA-01017";
   private static final String UNKNOWN_SID_ORACLE_CODE = "ORA-12505";
@@ -60,6 +60,7 @@ public class OracleDbConnectionProvider extends DbConnectionProvider {
   private OracleConnectionParameters oracleConnectionParameters;
 
   Map<String, Map<Integer, ResolvedDbType>> resolvedDbTypesCache = new ConcurrentHashMap<>();
+  Map<String, Lock> lobFieldsResolutionLocks = new ConcurrentHashMap<>();
   private final ConcurrentHashMap<String, String> resolvedDbTypeNamesCache = new ConcurrentHashMap<>();
 
   @Override
@@ -69,11 +70,6 @@ public class OracleDbConnectionProvider extends DbConnectionProvider {
     initialiseIfNeeded(oracleConnectionParameters.getTlsContextFactory());
   }
 
-  @Override
-  public java.util.Optional<DataSource> getDataSource() {
-    return empty();
-  }
-
   @Override
   public java.util.Optional<DataSourceConfig> getDataSourceConfig() {
     return ofNullable(mapDataSourceConfig(oracleConnectionParameters));
@@ -81,7 +77,7 @@ public class OracleDbConnectionProvider extends DbConnectionProvider {
 
   @Override
   protected DbConnection createDbConnection(Connection connection) throws Exception {
-    return new OracleDbConnection(connection, super.resolveCustomTypes(), resolvedDbTypesCache,
+    return new OracleDbConnection(connection, super.resolveCustomTypes(), resolvedDbTypesCache, lobFieldsResolutionLocks,
                                   super.cachedTemplates, resolvedDbTypeNamesCache);
   }
 
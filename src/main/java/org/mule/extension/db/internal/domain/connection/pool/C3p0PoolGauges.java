@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import java.sql.SQLException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link PoolGauges} of the c3p0 pools created out of a {@code DbPoolingProfile}.
+ * <p>
+ * c3p0 doesn't count the physical connections it creates and destroys, so they are derived from the changes in the size of
+ * the pool observed each time the gauges are read. Connections replaced between two reads are not accounted for.
+ *
+ * @since 2.0.0
+ */
+final class C3p0PoolGauges implements PoolGauges {
+
+  private final PooledDataSource dataSource;
+  private final Lock lock = new ReentrantLock();
+  private int lastSize = -1;
+  private long created;
+  private long destroyed;
+
+  C3p0PoolGauges(PooledDataSource dataSource) {
+    this.dataSource = dataSource;
+  }
+
+  @Override
+  public String poolName() {
+    return dataSource.getDataSourceName();
+  }
+
+  @Override
+  public int activeConnections() {
+    try {
+      return dataSource.getNumBusyConnectionsDefaultUser();
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public int idleConnections() {
+    try {
+      return dataSource.getNumIdleConnectionsDefaultUser();
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public int pendingCheckouts() {
+    try {
+      return dataSource.getNumThreadsAwaitingCheckoutDefaultUser();
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public long createdConnections() {
+    lock.lock();
+    try {
+      observeSize();
+      return created;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public long destroyedConnections() {
+    lock.lock();
+    try {
+      observeSize();
+      return destroyed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int cachedStatements() {
+    try {
+      return dataSource.getStatementCacheNumStatementsDefaultUser();
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
+  private void observeSize() {
+    int size;
+    try {
+      size = dataSource.getNumConnectionsDefaultUser();
+    } catch (SQLException e) {
+      return;
+    }
+
+    int delta = size - Math.max(lastSize, 0);
+    if (delta > 0) {
+      created += delta;
+    } else {
+      destroyed -= delta;
+    }
+    lastSize = size;
+  }
+}
@@ -0,0 +1,616 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.NClob;
+import java.sql.PreparedStatement;
+import java.sql.SQLClientInfoException;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.SQLXML;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The {@link Connection} a caller gets when it checks a {@link PooledConnection} out of a {@link ConcurrentBagPool}.
+ * <p>
+ * Its {@link #close()} gives the connection back to the pool, after which it can't be used, so that a caller can't affect the
+ * connection after handing it back. The statements and the metadata obtained through it are wrapped as well, so that they
+ * lead back to it instead of the physical connection and the statements a caller leaves open are closed when the connection
+ * is given back. Every other method is delegated to the physical connection.
+ *
+ * @since 2.0.0
+ */
+final class CheckedOutConnection implements Connection {
+
+  private final PooledConnection pooledConnection;
+  private final Connection delegate;
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  CheckedOutConnection(PooledConnection pooledConnection, Connection delegate) {
+    this.pooledConnection = pooledConnection;
+    this.delegate = delegate;
+  }
+
+  /**
+   * Marks the connection as broken if the given error means it can't be used anymore
+   *
+   * @param e an error thrown by the physical connection or by one of its statements, metadata or result sets
+   * @return the same error
+   */
+  <E extends SQLException> E checkException(E e) {
+    return pooledConnection.checkException(e);
+  }
+
+  void statementOpened(Statement statement) {
+    pooledConnection.statementOpened(statement);
+  }
+
+  void statementClosed(Statement statement) {
+    pooledConnection.statementClosed(statement);
+  }
+
+  private void checkOpen() throws SQLException {
+    if (closed.get()) {
+      throw new SQLException("The connection was already returned to the pool", "08003");
+    }
+  }
+
+  @Override
+  public Statement createStatement() throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutStatement(this, delegate.createStatement());
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public CallableStatement prepareCall(String sql) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutCallableStatement(this, delegate.prepareCall(sql));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public String nativeSQL(String sql) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.nativeSQL(sql);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setAutoCommit(boolean autoCommit) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setAutoCommit(autoCommit);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean getAutoCommit() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getAutoCommit();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void commit() throws SQLException {
+    checkOpen();
+    try {
+      delegate.commit();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void rollback() throws SQLException {
+    checkOpen();
+    try {
+      delegate.rollback();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    if (closed.compareAndSet(false, true)) {
+      pooledConnection.checkin();
+    }
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    try {
+      return closed.get() || delegate.isClosed();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public DatabaseMetaData getMetaData() throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutDatabaseMetaData(this, delegate.getMetaData());
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setReadOnly(boolean readOnly) throws SQLException {
+    checkOpen();
+    pooledConnection.markDirty();
+    try {
+      delegate.setReadOnly(readOnly);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean isReadOnly() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.isReadOnly();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setCatalog(String catalog) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setCatalog(catalog);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public String getCatalog() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getCatalog();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setTransactionIsolation(int level) throws SQLException {
+    checkOpen();
+    pooledConnection.markDirty();
+    try {
+      delegate.setTransactionIsolation(level);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getTransactionIsolation() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getTransactionIsolation();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getWarnings();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    checkOpen();
+    try {
+      delegate.clearWarnings();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Statement createStatement(int resultSetType, int resultSetConcurrency) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql, resultSetType, resultSetConcurrency));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutCallableStatement(this, delegate.prepareCall(sql, resultSetType, resultSetConcurrency));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Map<String, Class<?>> getTypeMap() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getTypeMap();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setTypeMap(Map<String, Class<?>> map) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setTypeMap(map);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setHoldability(int holdability) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setHoldability(holdability);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getHoldability() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getHoldability();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Savepoint setSavepoint() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.setSavepoint();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Savepoint setSavepoint(String name) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.setSavepoint(name);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void rollback(Savepoint savepoint) throws SQLException {
+    checkOpen();
+    try {
+      delegate.rollback(savepoint);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void releaseSavepoint(Savepoint savepoint) throws SQLException {
+    checkOpen();
+    try {
+      delegate.releaseSavepoint(savepoint);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Statement createStatement(int resultSetType, int resultSetConcurrency, int resultSetHoldability) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutStatement(this, delegate.createStatement(resultSetType, resultSetConcurrency, resultSetHoldability));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency,
+                                            int resultSetHoldability) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql, resultSetType, resultSetConcurrency,
+                                                                             resultSetHoldability));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public CallableStatement prepareCall(String sql, int resultSetType, int resultSetConcurrency,
+                                       int resultSetHoldability) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutCallableStatement(this, delegate.prepareCall(sql, resultSetType, resultSetConcurrency,
+                                                                        resultSetHoldability));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql, autoGeneratedKeys));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql, int[] columnIndexes) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql, columnIndexes));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public PreparedStatement prepareStatement(String sql, String[] columnNames) throws SQLException {
+    checkOpen();
+    try {
+      return new CheckedOutPreparedStatement(this, delegate.prepareStatement(sql, columnNames));
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Clob createClob() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createClob();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Blob createBlob() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createBlob();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public NClob createNClob() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createNClob();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public SQLXML createSQLXML() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createSQLXML();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean isValid(int timeout) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.isValid(timeout);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setClientInfo(String name, String value) throws SQLClientInfoException {
+    if (closed.get()) {
+      throw new SQLClientInfoException("The connection was already returned to the pool", "08003", null);
+    }
+    try {
+      delegate.setClientInfo(name, value);
+    } catch (SQLClientInfoException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setClientInfo(Properties properties) throws SQLClientInfoException {
+    if (closed.get()) {
+      throw new SQLClientInfoException("The connection was already returned to the pool", "08003", null);
+    }
+    try {
+      delegate.setClientInfo(properties);
+    } catch (SQLClientInfoException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public String getClientInfo(String name) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getClientInfo(name);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Properties getClientInfo() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getClientInfo();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Array createArrayOf(String typeName, Object[] elements) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createArrayOf(typeName, elements);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public Struct createStruct(String typeName, Object[] attributes) throws SQLException {
+    checkOpen();
+    try {
+      return delegate.createStruct(typeName, attributes);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setSchema(String schema) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setSchema(schema);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public String getSchema() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getSchema();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void abort(Executor executor) throws SQLException {
+    checkOpen();
+    try {
+      delegate.abort(executor);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setNetworkTimeout(Executor executor, int milliseconds) throws SQLException {
+    checkOpen();
+    try {
+      delegate.setNetworkTimeout(executor, milliseconds);
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getNetworkTimeout() throws SQLException {
+    checkOpen();
+    try {
+      return delegate.getNetworkTimeout();
+    } catch (SQLException e) {
+      throw pooledConnection.checkException(e);
+    }
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    checkOpen();
+    return delegate.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    checkOpen();
+    return delegate.isWrapperFor(iface);
+  }
+
+  @Override
+  public String toString() {
+    return "Pooled " + delegate;
+  }
+}
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLWarning;
+import java.sql.Statement;
+
+/**
+ * A {@link Statement} obtained through a {@link CheckedOutConnection}. Its {@link #getConnection()} and its result sets lead
+ * back to the connection the caller checked out instead of the physical one, and it's tracked as open until it's closed, so
+ * that it's closed when the connection is given back if the caller doesn't. Every other method is delegated to the physical
+ * statement.
+ *
+ * @since 2.0.0
+ */
+class CheckedOutStatement implements Statement {
+
+  final CheckedOutConnection connection;
+  private final Statement delegate;
+
+  CheckedOutStatement(CheckedOutConnection connection, Statement delegate) {
+    this.connection = connection;
+    this.delegate = delegate;
+    connection.statementOpened(delegate);
+  }
+
+  /**
+   * @param resultSet a result set of the physical statement, or {@code null}
+   * @return a wrapper of the result set which leads back to this statement, or {@code null} if there was no result set
+   */
+  ResultSet wrap(ResultSet resultSet) {
+    return resultSet != null ? new CheckedOutResultSet(connection, this, resultSet) : null;
+  }
+
+  @Override
+  public ResultSet executeQuery(String sql) throws SQLException {
+    try {
+      return wrap(delegate.executeQuery(sql));
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int executeUpdate(String sql) throws SQLException {
+    try {
+      return delegate.executeUpdate(sql);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void close() throws SQLException {
+    connection.statementClosed(delegate);
+    try {
+      delegate.close();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getMaxFieldSize() throws SQLException {
+    try {
+      return delegate.getMaxFieldSize();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setMaxFieldSize(int max) throws SQLException {
+    try {
+      delegate.setMaxFieldSize(max);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getMaxRows() throws SQLException {
+    try {
+      return delegate.getMaxRows();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setMaxRows(int max) throws SQLException {
+    try {
+      delegate.setMaxRows(max);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setEscapeProcessing(boolean enable) throws SQLException {
+    try {
+      delegate.setEscapeProcessing(enable);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getQueryTimeout() throws SQLException {
+    try {
+      return delegate.getQueryTimeout();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setQueryTimeout(int seconds) throws SQLException {
+    try {
+      delegate.setQueryTimeout(seconds);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void cancel() throws SQLException {
+    try {
+      delegate.cancel();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public SQLWarning getWarnings() throws SQLException {
+    try {
+      return delegate.getWarnings();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void clearWarnings() throws SQLException {
+    try {
+      delegate.clearWarnings();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setCursorName(String name) throws SQLException {
+    try {
+      delegate.setCursorName(name);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean execute(String sql) throws SQLException {
+    try {
+      return delegate.execute(sql);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public ResultSet getResultSet() throws SQLException {
+    try {
+      return wrap(delegate.getResultSet());
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getUpdateCount() throws SQLException {
+    try {
+      return delegate.getUpdateCount();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean getMoreResults() throws SQLException {
+    try {
+      return delegate.getMoreResults();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setFetchDirection(int direction) throws SQLException {
+    try {
+      delegate.setFetchDirection(direction);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getFetchDirection() throws SQLException {
+    try {
+      return delegate.getFetchDirection();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setFetchSize(int rows) throws SQLException {
+    try {
+      delegate.setFetchSize(rows);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getFetchSize() throws SQLException {
+    try {
+      return delegate.getFetchSize();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getResultSetConcurrency() throws SQLException {
+    try {
+      return delegate.getResultSetConcurrency();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getResultSetType() throws SQLException {
+    try {
+      return delegate.getResultSetType();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void addBatch(String sql) throws SQLException {
+    try {
+      delegate.addBatch(sql);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void clearBatch() throws SQLException {
+    try {
+      delegate.clearBatch();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int[] executeBatch() throws SQLException {
+    try {
+      return delegate.executeBatch();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return connection;
+  }
+
+  @Override
+  public boolean getMoreResults(int current) throws SQLException {
+    try {
+      return delegate.getMoreResults(current);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public ResultSet getGeneratedKeys() throws SQLException {
+    try {
+      return wrap(delegate.getGeneratedKeys());
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int executeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+    try {
+      return delegate.executeUpdate(sql, autoGeneratedKeys);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int executeUpdate(String sql, int[] columnIndexes) throws SQLException {
+    try {
+      return delegate.executeUpdate(sql, columnIndexes);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int executeUpdate(String sql, String[] columnNames) throws SQLException {
+    try {
+      return delegate.executeUpdate(sql, columnNames);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean execute(String sql, int autoGeneratedKeys) throws SQLException {
+    try {
+      return delegate.execute(sql, autoGeneratedKeys);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean execute(String sql, int[] columnIndexes) throws SQLException {
+    try {
+      return delegate.execute(sql, columnIndexes);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean execute(String sql, String[] columnNames) throws SQLException {
+    try {
+      return delegate.execute(sql, columnNames);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public int getResultSetHoldability() throws SQLException {
+    try {
+      return delegate.getResultSetHoldability();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean isClosed() throws SQLException {
+    try {
+      return delegate.isClosed();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setPoolable(boolean poolable) throws SQLException {
+    try {
+      delegate.setPoolable(poolable);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean isPoolable() throws SQLException {
+    try {
+      return delegate.isPoolable();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void closeOnCompletion() throws SQLException {
+    try {
+      delegate.closeOnCompletion();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public boolean isCloseOnCompletion() throws SQLException {
+    try {
+      return delegate.isCloseOnCompletion();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long getLargeUpdateCount() throws SQLException {
+    try {
+      return delegate.getLargeUpdateCount();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public void setLargeMaxRows(long max) throws SQLException {
+    try {
+      delegate.setLargeMaxRows(max);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long getLargeMaxRows() throws SQLException {
+    try {
+      return delegate.getLargeMaxRows();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long[] executeLargeBatch() throws SQLException {
+    try {
+      return delegate.executeLargeBatch();
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql) throws SQLException {
+    try {
+      return delegate.executeLargeUpdate(sql);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, int autoGeneratedKeys) throws SQLException {
+    try {
+      return delegate.executeLargeUpdate(sql, autoGeneratedKeys);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, int[] columnIndexes) throws SQLException {
+    try {
+      return delegate.executeLargeUpdate(sql, columnIndexes);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public long executeLargeUpdate(String sql, String[] columnNames) throws SQLException {
+    try {
+      return delegate.executeLargeUpdate(sql, columnNames);
+    } catch (SQLException e) {
+      throw connection.checkException(e);
+    }
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    return delegate.unwrap(iface);
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) throws SQLException {
+    return delegate.isWrapperFor(iface);
+  }
+
+  @Override
+  public String toString() {
+    return "Pooled " + delegate;
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.mule.extension.db.api.metrics.PoolMetrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free histogram of the time callers wait for a connection, using the buckets defined by
+ * {@link PoolMetrics#getCheckoutWaitBucketsMillis()}
+ *
+ * @since 2.0.0
+ */
+final class CheckoutWaitHistogram {
+
+  private final long[] bounds = PoolMetrics.getCheckoutWaitBucketsMillis();
+  private final AtomicLongArray counts = new AtomicLongArray(bounds.length);
+
+  void record(long waitNanos) {
+    long millis = NANOSECONDS.toMillis(waitNanos);
+    int bucket = 0;
+    while (bucket < bounds.length - 1 && millis >= bounds[bucket]) {
+      bucket++;
+    }
+    counts.incrementAndGet(bucket);
+  }
+
+  long[] counts() {
+    long[] snapshot = new long[counts.length()];
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+    }
+    return snapshot;
+  }
+
+  /**
+   * Estimates a percentile of the recorded waits
+   *
+   * @param percentile a value between 0 and 1
+   * @return the upper bound, in milliseconds, of the bucket holding the {@code percentile}, -1 if the bucket has no upper bound
+   *         or 0 if nothing was recorded yet
+   */
+  long percentileMillis(double percentile) {
+    long[] snapshot = counts();
+    long total = 0;
+    for (long count : snapshot) {
+      total += count;
+    }
+    if (total == 0) {
+      return 0;
+    }
+
+    long rank = (long) Math.ceil(percentile * total);
+    long accumulated = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      accumulated += snapshot[i];
+      if (accumulated >= rank && snapshot[i] > 0) {
+        return bounds[i] == Long.MAX_VALUE ? -1 : bounds[i];
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+
+import static org.mule.extension.db.internal.util.VirtualThreads.isCurrentThreadVirtual;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Lock free collection of pooled entries, in the style of the HikariCP bag.
+ * <p>
+ * Each entry carries its own state, so borrowing is just a compare and set on it. A thread first looks into the entries it
+ * returned itself, which are likely to be free and hot in its caches, then scans the shared entries and only then waits for
+ * another thread to hand an entry over. Waiting threads are served directly by the threads which return entries, without
+ * going through the shared list.
+ * <p>
+ * Nothing in the bag waits on a monitor, so virtual threads can borrow entries without pinning their carrier. Virtual threads
+ * don't keep the entries they return, though: they are usually short lived and too many, so the entries would be lost to the
+ * rest of the threads rather than reused.
+ *
+ * @param <T> the type of the entries
+ * @since 2.0.0
+ */
+final class ConcurrentBag<T extends ConcurrentBag.Entry> {
+
+  private static final int MAX_THREAD_LOCAL_ENTRIES = 16;
+  private static final long MAX_POLL_NANOS = SECONDS.toNanos(1);
+
+  /**
+   * An entry of the bag
+   */
+  abstract static class Entry {
+
+    static final int NOT_IN_USE = 0;
+    static final int IN_USE = 1;
+    static final int REMOVED = -1;
+    static final int RESERVED = -2;
+
+    private static final AtomicIntegerFieldUpdater<Entry> STATE = AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+    private volatile int state = NOT_IN_USE;
+
+    boolean compareAndSetState(int expected, int update) {
+      return STATE.compareAndSet(this, expected, update);
+    }
+
+    int getState() {
+      return state;
+    }
+
+    void setState(int update) {
+      state = update;
+    }
+  }
+
+  /**
+   * Gets notified when a thread starts waiting for an entry, so that the owner of the bag can add more
+   */
+  @FunctionalInterface
+  interface Listener {
+
+    /**
+     * @param waiting the number of threads waiting for an entry
+     */
+    void addBagItem(int waiting);
+  }
+
+  private final CopyOnWriteArrayList<T> sharedList = new CopyOnWriteArrayList<>();
+  private final ThreadLocal<List<WeakReference<T>>> threadList = ThreadLocal.withInitial(ArrayList::new);
+  private final SynchronousQueue<T> handoffQueue = new SynchronousQueue<>(true);
+  private final AtomicInteger waiters = new AtomicInteger();
+  private final Listener listener;
+  private volatile boolean closed;
+
+  ConcurrentBag(Listener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Borrows an entry
+   *
+   * @param timeout how long to wait for an entry if none is available
+   * @param unit    the unit of the {@code timeout}
+   * @return a borrowed entry, or {@code null} if none became available within the {@code timeout}
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  T borrow(long timeout, TimeUnit unit) throws InterruptedException {
+    if (!isCurrentThreadVirtual()) {
+      List<WeakReference<T>> owned = threadList.get();
+      for (int i = owned.size() - 1; i >= 0; i--) {
+        T entry = owned.remove(i).get();
+        if (entry != null && entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE)) {
+          return entry;
+        }
+      }
+    }
+
+    int waiting = waiters.incrementAndGet();
+    try {
+      for (T entry : sharedList) {
+        if (entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE)) {
+          if (waiting > 1) {
+            // This thread may have taken an entry another waiter was about to get
+            listener.addBagItem(waiting - 1);
+          }
+          return entry;
+        }
+      }
+
+      listener.addBagItem(waiting);
+
+      long remaining = unit.toNanos(timeout);
+      while (remaining > 0 && !closed) {
+        long start = nanoTime();
+        // Waits in slices, so that waiting threads notice when the bag gets closed
+        T entry = handoffQueue.poll(Math.min(remaining, MAX_POLL_NANOS), NANOSECONDS);
+        if (entry != null && entry.compareAndSetState(Entry.NOT_IN_USE, Entry.IN_USE)) {
+          return entry;
+        }
+        remaining -= nanoTime() - start;
+      }
+
+      return null;
+    } finally {
+      waiters.decrementAndGet();
+    }
+  }
+
+  /**
+   * Gives a borrowed entry back to the bag, handing it over to a waiting thread if there's any
+   *
+   * @param entry a borrowed entry
+   */
+  void requite(T entry) {
+    entry.setState(Entry.NOT_IN_USE);
+
+    for (int i = 0; waiters.get() > 0; i++) {
+      if (entry.getState() != Entry.NOT_IN_USE || handoffQueue.offer(entry)) {
+        return;
+      } else if ((i & 0xff) == 0xff) {
+        parkNanos(MICROSECONDS.toNanos(10));
+      } else {
+        Thread.yield();
+      }
+    }
+
+    if (!isCurrentThreadVirtual()) {
+      List<WeakReference<T>> owned = threadList.get();
+      if (owned.size() < MAX_THREAD_LOCAL_ENTRIES) {
+        owned.add(new WeakReference<>(entry));
+      }
+    }
+  }
+
+  /**
+   * Adds a new entry to the bag, handing it over to a waiting thread if there's any
+   *
+   * @param entry the new entry
+   */
+  void add(T entry) {
+    if (closed) {
+      throw new IllegalStateException("The bag is closed");
+    }
+
+    sharedList.add(entry);
+
+    // Spin until a waiter takes it or there are no waiters left
+    while (waiters.get() > 0 && entry.getState() == Entry.NOT_IN_USE && !handoffQueue.offer(entry)) {
+      Thread.yield();
+    }
+  }
+
+  /**
+   * Removes an entry which was borrowed or reserved
+   *
+   * @param entry the entry to remove
+   * @return whether the entry was removed
+   */
+  boolean remove(T entry) {
+    if (!entry.compareAndSetState(Entry.IN_USE, Entry.REMOVED) && !entry.compareAndSetState(Entry.RESERVED, Entry.REMOVED)
+        && !closed) {
+      return false;
+    }
+
+    return sharedList.remove(entry);
+  }
+
+  /**
+   * Reserves an idle entry so that it can't be borrowed, for instance to evict it
+   *
+   * @param entry the entry to reserve
+   * @return whether the entry was idle and is now reserved
+   */
+  boolean reserve(T entry) {
+    return entry.compareAndSetState(Entry.NOT_IN_USE, Entry.RESERVED);
+  }
+
+  /**
+   * Makes a reserved entry available again
+   *
+   * @param entry a reserved entry
+   */
+  void unreserve(T entry) {
+    if (entry.compareAndSetState(Entry.RESERVED, Entry.NOT_IN_USE)) {
+      // Serve any thread which started waiting meanwhile
+      while (waiters.get() > 0 && entry.getState() == Entry.NOT_IN_USE && !handoffQueue.offer(entry)) {
+        Thread.yield();
+      }
+    }
+  }
+
+  /**
+   * @param state a state
+   * @return the entries currently in the given {@code state}
+   */
+  List<T> values(int state) {
+    List<T> values = new ArrayList<>();
+    for (T entry : sharedList) {
+      if (entry.getState() == state) {
+        values.add(entry);
+      }
+    }
+    return values;
+  }
+
+  /**
+   * @return all the entries, whatever their state
+   */
+  List<T> values() {
+    return new ArrayList<>(sharedList);
+  }
+
+  int getCount(int state) {
+    int count = 0;
+    for (T entry : sharedList) {
+      if (entry.getState() == state) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  int size() {
+    return sharedList.size();
+  }
+
+  int getWaitingThreadCount() {
+    return waiters.get();
+  }
+
+  /**
+   * Closes the bag, so that no more entries can be added and waiting threads give up
+   */
+  void close() {
+    closed = true;
+  }
+}
@@ -0,0 +1,554 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.mule.extension.db.internal.domain.connection.pool.ConcurrentBag.Entry.IN_USE;
+import static org.mule.extension.db.internal.domain.connection.pool.ConcurrentBag.Entry.NOT_IN_USE;
+
+import org.mule.extension.db.api.config.PoolSizing;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pool which keeps its connections in a {@link ConcurrentBag}, so that checking connections out and in doesn't
+ * take any lock.
+ * <p>
+ * Honors the same settings of the pooling profile as c3p0 does: the pool keeps at least {@code minPoolSize} connections and
+ * never more than {@code maxPoolSize}, callers wait up to {@code maxWait} for a connection when the pool is exhausted and
+ * connections idle for longer than {@code maxIdleTime} are discarded, as long as that doesn't take the pool below its
+ * minimum size. Connections are created in the background, as callers start waiting for them.
+ * <p>
+ * The pool has no threads of its own: its housekeeping and the creation of connections run on a scheduler of the runtime,
+ * which the owner of the pool stops once the pool is closed.
+ * <p>
+ * When {@code testConnectionOnCheckout} is set, connections are validated with {@link Connection#isValid(int)} on checkout,
+ * unless they were known to work within the validation window. Idle connections can also be validated in the background.
+ * <p>
+ * In {@link PoolSizing#ADAPTIVE adaptive} sizing mode the pool doesn't grow straight up to {@code maxPoolSize}, but up to a
+ * limit which a {@link PoolSizer} adjusts periodically within the configured sizes.
+ *
+ * @since 2.0.0
+ */
+public final class ConcurrentBagPool implements DataSource, PoolGauges, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrentBagPool.class);
+
+  private static final int VALIDATION_TIMEOUT_SECONDS = 5;
+  private static final long WAIT_SLICE_NANOS = MILLISECONDS.toNanos(500);
+  private static final long HOUSEKEEPING_PERIOD_NANOS = SECONDS.toNanos(30);
+  private static final long MIN_HOUSEKEEPING_PERIOD_NANOS = SECONDS.toNanos(1);
+
+  /**
+   * Creates the physical connections of the pool
+   */
+  @FunctionalInterface
+  public interface ConnectionFactory {
+
+    Connection create() throws SQLException;
+  }
+
+  /**
+   * Prepares a new connection before it joins the pool
+   */
+  @FunctionalInterface
+  public interface Warmup {
+
+    void warm(Connection connection) throws SQLException;
+  }
+
+  private final String name;
+  private final PoolSettings settings;
+  private final ConnectionFactory factory;
+  private final ConcurrentBag<PooledConnection> bag = new ConcurrentBag<>(this::addBagItem);
+  private final ScheduledExecutorService scheduler;
+  private final List<Future<?>> periodicTasks = new CopyOnWriteArrayList<>();
+  private final AtomicInteger totalConnections = new AtomicInteger();
+  private final AtomicInteger pendingCreations = new AtomicInteger();
+  private final AtomicLong createdConnections = new AtomicLong();
+  private final AtomicLong destroyedConnections = new AtomicLong();
+  private final PoolSizer sizer;
+
+  private volatile SQLException lastCreationFailure;
+  private volatile boolean closed;
+  private long lastResize = nanoTime();
+
+  /**
+   * Creates a new pool. The pool starts empty, it gets filled up to its minimum size by {@link #fillToMinimum()} or
+   * {@link #prewarm(int, Warmup, long)}, or else by its first housekeeping.
+   *
+   * @param name      the name of the pool
+   * @param settings  the pooling settings
+   * @param factory   creates the physical connections
+   * @param scheduler runs the housekeeping of the pool and creates its connections
+   */
+  public ConcurrentBagPool(String name, PoolSettings settings, ConnectionFactory factory, ScheduledExecutorService scheduler) {
+    if (settings.getMaxPoolSize() < 1 || settings.getMinPoolSize() > settings.getMaxPoolSize()) {
+      throw new IllegalArgumentException(format("Invalid pool sizes for pool '%s': min is %d, max is %d", name,
+                                                settings.getMinPoolSize(), settings.getMaxPoolSize()));
+    }
+
+    this.name = name;
+    this.settings = settings;
+    this.factory = factory;
+    this.scheduler = scheduler;
+
+    long housekeepingPeriod = settings.getMaxIdleNanos() > 0
+        ? Math.max(MIN_HOUSEKEEPING_PERIOD_NANOS, min(HOUSEKEEPING_PERIOD_NANOS, settings.getMaxIdleNanos() / 2))
+        : HOUSEKEEPING_PERIOD_NANOS;
+    schedule(this::houseKeep, housekeepingPeriod);
+    if (settings.getSizing() == PoolSizing.ADAPTIVE) {
+      sizer = new PoolSizer(settings.getMinPoolSize(), settings.getMaxPoolSize());
+      schedule(this::resize, settings.getSizingIntervalNanos());
+    } else {
+      sizer = null;
+    }
+    if (settings.getIdleValidationNanos() > 0) {
+      schedule(this::validateIdle, settings.getIdleValidationNanos());
+    }
+  }
+
+  private void schedule(Runnable task, long periodNanos) {
+    periodicTasks.add(scheduler.scheduleWithFixedDelay(task, periodNanos, periodNanos, NANOSECONDS));
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    long start = nanoTime();
+    long maxWait = settings.getMaxWaitNanos() > 0 ? settings.getMaxWaitNanos() : Long.MAX_VALUE;
+
+    try {
+      for (long remaining = maxWait; remaining > 0 && !closed; remaining = maxWait - (nanoTime() - start)) {
+        PooledConnection entry = bag.borrow(min(remaining, WAIT_SLICE_NANOS), NANOSECONDS);
+        if (entry != null) {
+          if (settings.isTestConnectionOnCheckout() && !entry.isFresh(settings.getValidationWindowNanos())
+              && !entry.validate(VALIDATION_TIMEOUT_SECONDS)) {
+            discard(entry);
+            continue;
+          }
+          if (sizer != null) {
+            sizer.checkedOut(nanoTime() - start);
+          }
+          return entry.checkout();
+        }
+
+        // Don't keep the caller waiting when the database can't be reached at all
+        SQLException failure = lastCreationFailure;
+        if (failure != null && totalConnections.get() == 0 && pendingCreations.get() == 0) {
+          throw new SQLException(format("Could not create a connection for pool '%s'. %s", name, failure.getMessage()),
+                                 failure.getSQLState(), failure.getErrorCode(), failure);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException(format("Interrupted while waiting for a connection of pool '%s'", name), e);
+    }
+
+    if (closed) {
+      throw new SQLException(format("Pool '%s' is closed", name));
+    }
+
+    if (sizer != null) {
+      sizer.timedOut(nanoTime() - start);
+    }
+    throw new SQLTimeoutException(format("Timed out after %d ms waiting for a connection of pool '%s' (active: %d, idle: %d, "
+        + "waiting: %d)", NANOSECONDS.toMillis(nanoTime() - start), name, activeConnections(), idleConnections(),
+                                         pendingCheckouts()),
+                                  lastCreationFailure);
+  }
+
+  /**
+   * Takes back a connection which was checked out of the pool
+   */
+  void release(PooledConnection entry) {
+    if (sizer != null) {
+      sizer.released(nanoTime() - entry.getCheckedOutAt());
+    }
+
+    if (!entry.isBroken()) {
+      try {
+        entry.reset();
+      } catch (SQLException | RuntimeException e) {
+        LOGGER.debug(format("Discarding a connection of pool '%s' which could not be reset. %s", name, e.getMessage()), e);
+        entry.markBroken();
+      }
+    }
+
+    entry.accessed();
+    if (entry.isBroken() || closed) {
+      discard(entry);
+    } else {
+      bag.requite(entry);
+    }
+  }
+
+  private void discard(PooledConnection entry) {
+    if (bag.remove(entry)) {
+      totalConnections.decrementAndGet();
+      destroyedConnections.incrementAndGet();
+      entry.close();
+
+      if (!closed) {
+        int waiting = bag.getWaitingThreadCount();
+        if (waiting > 0) {
+          addBagItem(waiting);
+        } else {
+          fillToMinimum();
+        }
+      }
+    }
+  }
+
+  private void addBagItem(int waiting) {
+    if (!closed && pendingCreations.get() < waiting) {
+      submitCreation();
+    }
+  }
+
+  /**
+   * Starts creating connections in the background until the pool reaches its minimum size
+   */
+  void fillToMinimum() {
+    int missing = settings.getMinPoolSize() - totalConnections.get() - pendingCreations.get();
+    for (int i = 0; i < missing; i++) {
+      submitCreation();
+    }
+  }
+
+  /**
+   * Fills the pool up to its minimum size creating connections in parallel, and waits for them to be ready
+   *
+   * @param parallelism  the maximum number of connections to create at once
+   * @param warmup       runs on each new connection before it joins the pool
+   * @param timeoutNanos how long to wait for the connections
+   * @return the number of connections which were created
+   * @throws InterruptedException if the thread was interrupted while waiting
+   */
+  int prewarm(int parallelism, Warmup warmup, long timeoutNanos) throws InterruptedException {
+    int missing = settings.getMinPoolSize() - totalConnections.get() - pendingCreations.get();
+    if (missing <= 0) {
+      return 0;
+    }
+
+    AtomicInteger created = new AtomicInteger();
+    ConnectionFactory warmedUp = () -> {
+      Connection connection = factory.create();
+      try {
+        warmup.warm(connection);
+      } catch (SQLException | RuntimeException e) {
+        LOGGER.warn(format("Warmup of a connection of pool '%s' failed. %s", name, e.getMessage()));
+      }
+      return connection;
+    };
+
+    // A few creators take the missing connections one at a time, so that the shared scheduler isn't flooded
+    pendingCreations.addAndGet(missing);
+    AtomicInteger unclaimed = new AtomicInteger(missing);
+    int creators = min(missing, parallelism);
+    CountDownLatch finished = new CountDownLatch(creators);
+    Runnable creator = () -> {
+      try {
+        while (unclaimed.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+          if (createConnection(warmedUp)) {
+            created.incrementAndGet();
+          }
+        }
+      } finally {
+        finished.countDown();
+      }
+    };
+
+    try {
+      for (int i = 0; i < creators; i++) {
+        try {
+          scheduler.execute(creator);
+        } catch (RuntimeException e) {
+          // Rejected because the scheduler is stopping, the creations it would have claimed are dropped below
+          finished.countDown();
+        }
+      }
+      finished.await(timeoutNanos, NANOSECONDS);
+    } finally {
+      // Creations which didn't even start won't be pending anymore
+      pendingCreations.addAndGet(-unclaimed.getAndSet(0));
+    }
+
+    return created.get();
+  }
+
+  private void submitCreation() {
+    pendingCreations.incrementAndGet();
+    try {
+      scheduler.execute(() -> createConnection(factory));
+    } catch (RuntimeException e) {
+      // Rejected because the scheduler is stopping along with the pool
+      pendingCreations.decrementAndGet();
+    }
+  }
+
+  /**
+   * Creates a connection and adds it to the bag. Must be preceded by an increment of the pending creations.
+   *
+   * @return whether the connection was created
+   */
+  private boolean createConnection(ConnectionFactory connectionFactory) {
+    try {
+      if (closed) {
+        return false;
+      }
+
+      if (totalConnections.incrementAndGet() > maxConnections()) {
+        totalConnections.decrementAndGet();
+        return false;
+      }
+
+      PooledConnection entry;
+      try {
+        entry = new PooledConnection(this, connectionFactory.create());
+      } catch (SQLException e) {
+        totalConnections.decrementAndGet();
+        lastCreationFailure = e;
+        LOGGER.warn(format("Could not create a connection for pool '%s'. %s", name, e.getMessage()));
+        return false;
+      } catch (RuntimeException e) {
+        totalConnections.decrementAndGet();
+        lastCreationFailure = new SQLException(e.getMessage(), e);
+        LOGGER.warn(format("Could not create a connection for pool '%s'. %s", name, e.getMessage()), e);
+        return false;
+      }
+
+      lastCreationFailure = null;
+      createdConnections.incrementAndGet();
+      try {
+        bag.add(entry);
+      } catch (IllegalStateException e) {
+        // The pool was closed meanwhile
+        totalConnections.decrementAndGet();
+        destroyedConnections.incrementAndGet();
+        entry.close();
+        return false;
+      }
+      return true;
+    } finally {
+      pendingCreations.decrementAndGet();
+    }
+  }
+
+  /**
+   * Discards the connections which were idle for too long and tops the pool up to its minimum size
+   */
+  void houseKeep() {
+    try {
+      if (settings.getMaxIdleNanos() > 0) {
+        long now = nanoTime();
+        int removable = totalConnections.get() - settings.getMinPoolSize();
+        for (PooledConnection entry : bag.values(NOT_IN_USE)) {
+          if (removable <= 0) {
+            break;
+          }
+          if (now - entry.getLastAccessed() > settings.getMaxIdleNanos() && bag.reserve(entry)) {
+            discard(entry);
+            removable--;
+          }
+        }
+      }
+
+      fillToMinimum();
+    } catch (RuntimeException e) {
+      LOGGER.warn(format("Housekeeping of pool '%s' failed. %s", name, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Adjusts the limit of a pool in {@link PoolSizing#ADAPTIVE adaptive} mode. Idle connections beyond a lower limit are
+   * discarded, the ones in use on a later adjustment once they are returned. Callers already waiting get new connections up
+   * to a higher limit, as the bag only asks for connections when callers start waiting.
+   */
+  void resize() {
+    try {
+      long now = nanoTime();
+      int previous = sizer.getLimit();
+      int limit = sizer.adjust(now - lastResize, bag.getWaitingThreadCount());
+      lastResize = now;
+      if (limit != previous) {
+        LOGGER.debug(format("Pool '%s' now holds up to %d connections, it held up to %d", name, limit, previous));
+      }
+
+      for (PooledConnection entry : bag.values(NOT_IN_USE)) {
+        if (totalConnections.get() <= limit) {
+          break;
+        }
+        if (bag.reserve(entry)) {
+          discard(entry);
+        }
+      }
+
+      int missing = min(bag.getWaitingThreadCount(), limit - totalConnections.get()) - pendingCreations.get();
+      for (int i = 0; i < missing; i++) {
+        submitCreation();
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn(format("Resizing of pool '%s' failed. %s", name, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * @return how many connections the pool may hold for now
+   */
+  int maxConnections() {
+    return sizer != null ? sizer.getLimit() : settings.getMaxPoolSize();
+  }
+
+  /**
+   * Validates the idle connections which were not known to work for a whole validation interval, off the request path.
+   * Each connection is reserved while being validated, so that no caller gets it meanwhile.
+   */
+  void validateIdle() {
+    try {
+      long now = nanoTime();
+      for (PooledConnection entry : bag.values(NOT_IN_USE)) {
+        if (closed) {
+          return;
+        }
+        if (now - entry.getLastVerified() >= settings.getIdleValidationNanos() && bag.reserve(entry)) {
+          if (entry.validate(VALIDATION_TIMEOUT_SECONDS)) {
+            bag.unreserve(entry);
+          } else {
+            LOGGER.debug(format("Discarding an idle connection of pool '%s' which is no longer valid", name));
+            discard(entry);
+          }
+        }
+      }
+    } catch (RuntimeException e) {
+      LOGGER.warn(format("Validation of the idle connections of pool '%s' failed. %s", name, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Closes the pool. Idle connections are closed right away and the ones in use as they are returned.
+   */
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+    bag.close();
+    for (Future<?> task : periodicTasks) {
+      task.cancel(false);
+    }
+    for (PooledConnection entry : bag.values()) {
+      if (bag.reserve(entry)) {
+        discard(entry);
+      }
+    }
+  }
+
+  @Override
+  public String poolName() {
+    return name;
+  }
+
+  @Override
+  public int activeConnections() {
+    return bag.getCount(IN_USE);
+  }
+
+  @Override
+  public int idleConnections() {
+    return bag.getCount(NOT_IN_USE);
+  }
+
+  @Override
+  public int pendingCheckouts() {
+    return bag.getWaitingThreadCount();
+  }
+
+  @Override
+  public long createdConnections() {
+    return createdConnections.get();
+  }
+
+  @Override
+  public long destroyedConnections() {
+    return destroyedConnections.get();
+  }
+
+  @Override
+  public int cachedStatements() {
+    return -1;
+  }
+
+  int totalConnections() {
+    return totalConnections.get();
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    throw new SQLFeatureNotSupportedException("The pool only provides connections for its configured user");
+  }
+
+  @Override
+  public PrintWriter getLogWriter() {
+    return null;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) {
+    // Logging goes through SLF4J
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) {
+    // The login timeout is set on the driver
+  }
+
+  @Override
+  public int getLoginTimeout() {
+    return 0;
+  }
+
+  @Override
+  public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> type) throws SQLException {
+    if (type.isInstance(this)) {
+      return type.cast(this);
+    }
+    throw new SQLException(format("Pool '%s' is not a wrapper for %s", name, type.getName()));
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> type) {
+    return type.isInstance(this);
+  }
+}
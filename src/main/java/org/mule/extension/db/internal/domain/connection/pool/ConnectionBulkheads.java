@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import org.mule.runtime.api.connection.ConnectionException;
+import org.slf4j.MDC;
+
+import java.sql.SQLTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Splits the connections of a pool among its {@link WorkloadClassSettings workload classes}, so that each class gets its reserved
+ * connections no matter what the others do, and can't hold more than its max.
+ * <p>
+ * Each class admits as many checkouts as its max connections through a fair semaphore, so checkouts of a class are served in
+ * order, and rejects the rest once its max wait elapses. An admitted checkout then takes one of the reserved connections of
+ * its class, or else one of the connections nobody reserved, waiting for them up to the max wait of the pool. Components
+ * which don't belong to any class form a default class with no reserved connections, limited only by the unreserved ones.
+ * <p>
+ * As the total admitted never exceeds the max pool size, which the pool can always grow to since its size is
+ * {@link org.mule.extension.db.api.config.PoolSizing#FIXED fixed}, the pool itself always has a connection for an admitted checkout, although it may have to
+ * wait for it to be returned.
+ *
+ * @since 2.0.0
+ */
+final class ConnectionBulkheads {
+
+  /**
+   * The MDC entry the runtime sets with the path of the component processing an event
+   */
+  private static final String PROCESSOR_PATH = "processorPath";
+  private static final String DEFAULT_CLASS = "default";
+  private static final long WAIT_SLICE_NANOS = MILLISECONDS.toNanos(50);
+
+  /**
+   * The right of a checkout to hold a connection, which must be released when the connection is returned
+   */
+  interface Permit {
+
+    void release();
+  }
+
+  private static final class Compartment {
+
+    private final WorkloadClassSettings workloadClass;
+    private final Semaphore admission;
+    private final Semaphore reserved;
+    private final AtomicLong rejected = new AtomicLong();
+
+    private Compartment(WorkloadClassSettings workloadClass) {
+      this.workloadClass = workloadClass;
+      this.admission = new Semaphore(workloadClass.getMaxConnections(), true);
+      this.reserved = new Semaphore(workloadClass.getMinConnections());
+    }
+  }
+
+  private final String pool;
+  private final long maxWaitNanos;
+  private final List<Compartment> compartments = new ArrayList<>();
+  private final Compartment defaultCompartment;
+  private final Semaphore unreserved;
+
+  /**
+   * @param pool     the name of the pool
+   * @param settings the settings of the pool, which define its workload classes
+   */
+  ConnectionBulkheads(String pool, PoolSettings settings) {
+    this.pool = pool;
+    this.maxWaitNanos = settings.getMaxWaitNanos();
+
+    int reserved = 0;
+    for (WorkloadClassSettings workloadClass : settings.getWorkloadClasses()) {
+      compartments.add(new Compartment(workloadClass));
+      reserved += workloadClass.getMinConnections();
+    }
+
+    int maxPoolSize = settings.getMaxPoolSize();
+    defaultCompartment =
+        new Compartment(new WorkloadClassSettings(DEFAULT_CLASS, new ArrayList<>(), 0, maxPoolSize, maxWaitNanos));
+    unreserved = new Semaphore(maxPoolSize - reserved, true);
+  }
+
+  /**
+   * Admits a checkout of the component processing the current event
+   *
+   * @return the permit of the checkout
+   * @throws ConnectionException if the workload class of the component is saturated or no connection became available within
+   *                             the max wait of the pool
+   */
+  Permit acquire() throws ConnectionException {
+    Compartment compartment = compartmentOf(MDC.get(PROCESSOR_PATH));
+    String name = compartment.workloadClass.getName();
+    boolean limited = compartment != defaultCompartment;
+    Semaphore taken = null;
+    try {
+      // tryAcquire() without a timeout would barge ahead of the waiting checkouts, which breaks the fairness of the class
+      if (limited && !compartment.admission.tryAcquire(compartment.workloadClass.getMaxWaitNanos(), NANOSECONDS)) {
+        compartment.rejected.incrementAndGet();
+        throw new ConnectionException(format("Workload class '%s' of pool '%s' is saturated, all of its %d connections are in "
+            + "use", name, pool, compartment.workloadClass.getMaxConnections()));
+      }
+
+      try {
+        taken = takeConnection(compartment);
+      } finally {
+        if (taken == null && limited) {
+          compartment.admission.release();
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ConnectionException(format("Interrupted while waiting for a connection of pool '%s' for workload class '%s'",
+                                           pool, name),
+                                    e);
+    }
+
+    if (taken == null) {
+      throw new ConnectionException(format("Timed out waiting for a connection of pool '%s' for workload class '%s'", pool, name),
+                                    new SQLTimeoutException());
+    }
+
+    Semaphore connection = taken;
+    return () -> {
+      connection.release();
+      if (limited) {
+        compartment.admission.release();
+      }
+    };
+  }
+
+  private Compartment compartmentOf(String processorPath) {
+    if (processorPath != null && !processorPath.isEmpty()) {
+      String flow = processorPath.split("/", 2)[0];
+      for (Compartment compartment : compartments) {
+        if (compartment.workloadClass.matches(flow, processorPath)) {
+          return compartment;
+        }
+      }
+    }
+    return defaultCompartment;
+  }
+
+  /**
+   * Takes one of the reserved connections of the class or, if all are taken, one of the unreserved ones. While waiting for an
+   * unreserved connection it keeps checking the reserved ones, as they may be returned first.
+   *
+   * @return the semaphore the connection was taken from, or {@code null} if none became available within the max wait
+   */
+  private Semaphore takeConnection(Compartment compartment) throws InterruptedException {
+    long deadline = nanoTime() + maxWaitNanos;
+    while (true) {
+      if (compartment.reserved.tryAcquire()) {
+        return compartment.reserved;
+      }
+
+      long slice = maxWaitNanos == 0 ? WAIT_SLICE_NANOS : min(WAIT_SLICE_NANOS, deadline - nanoTime());
+      if (slice < 0) {
+        return null;
+      }
+      if (unreserved.tryAcquire(slice, NANOSECONDS)) {
+        return unreserved;
+      }
+      if (maxWaitNanos != 0 && deadline - nanoTime() <= 0) {
+        return compartment.reserved.tryAcquire() ? compartment.reserved : null;
+      }
+    }
+  }
+
+  /**
+   * @return the number of checkouts the given workload class rejected because it was saturated
+   */
+  long getRejectedCheckouts(String workloadClass) {
+    return compartments.stream().filter(compartment -> compartment.workloadClass.getName().equals(workloadClass))
+        .mapToLong(compartment -> compartment.rejected.get()).sum();
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.String.format;
+import static java.lang.System.lineSeparator;
+import static java.lang.System.nanoTime;
+import static java.util.Comparator.comparingLong;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of who holds each connection checked out of a pool, so that it can tell who to blame when the pool is
+ * exhausted or a connection is held for too long.
+ * <p>
+ * Tracking a checkout only costs recording the flow, the thread and the time it happened. Capturing the stack of the
+ * checkout is much more expensive, so it's only done for one checkout in {@link PoolSettings#getCheckoutStackSampling() N}.
+ * <p>
+ * Reports are logged as a snapshot of the current holders, longest held first, and are rate limited so that an exhausted
+ * pool doesn't flood the log.
+ *
+ * @since 2.0.0
+ */
+final class ConnectionLeakTracker {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionLeakTracker.class);
+
+  /**
+   * The MDC entries the runtime sets while processing an event
+   */
+  private static final String PROCESSOR_PATH = "processorPath";
+  private static final String CORRELATION_ID = "correlationId";
+
+  private static final long MIN_REPORT_INTERVAL_NANOS = SECONDS.toNanos(10);
+
+  /**
+   * A checked out connection, as seen when it was checked out
+   */
+  static final class Holder {
+
+    private final String flow;
+    private final String correlationId;
+    private final String thread;
+    private final long since;
+    private final Throwable checkoutStack;
+    private volatile boolean reported;
+
+    private Holder(String flow, String correlationId, String thread, long since, Throwable checkoutStack) {
+      this.flow = flow;
+      this.correlationId = correlationId;
+      this.thread = thread;
+      this.since = since;
+      this.checkoutStack = checkoutStack;
+    }
+
+    /**
+     * @return the flow which checked the connection out, or {@code null} if it's unknown
+     */
+    String getFlow() {
+      return flow;
+    }
+
+    /**
+     * @return the correlation id of the event being processed when the connection was checked out, or {@code null} if it's
+     *         unknown
+     */
+    String getCorrelationId() {
+      return correlationId;
+    }
+
+    String getThread() {
+      return thread;
+    }
+
+    long heldNanos(long now) {
+      return now - since;
+    }
+
+    /**
+     * @return the stack of the checkout, or {@code null} if it was not sampled
+     */
+    Throwable getCheckoutStack() {
+      return checkoutStack;
+    }
+
+    private String describe(long now) {
+      return format("held for %d ms by flow '%s' (event %s) on thread '%s'", NANOSECONDS.toMillis(heldNanos(now)),
+                    flow != null ? flow : "unknown", correlationId != null ? correlationId : "unknown", thread);
+    }
+  }
+
+  private final String pool;
+  private final long stackSampling;
+  private final long holdThresholdNanos;
+  private final Map<Object, Holder> holders = new ConcurrentHashMap<>();
+  private final AtomicLong checkouts = new AtomicLong();
+  private final AtomicLong lastScan = new AtomicLong(nanoTime());
+  private final AtomicLong lastExhaustionReport = new AtomicLong(nanoTime() - MIN_REPORT_INTERVAL_NANOS);
+
+  /**
+   * @param pool               the name of the pool
+   * @param stackSampling      capture the stack of one checkout in this many, zero meaning never
+   * @param holdThresholdNanos how long a connection can be held before it's reported, zero meaning forever
+   */
+  ConnectionLeakTracker(String pool, long stackSampling, long holdThresholdNanos) {
+    this.pool = pool;
+    this.stackSampling = stackSampling;
+    this.holdThresholdNanos = holdThresholdNanos;
+  }
+
+  /**
+   * Records that the current thread checked out the given connection
+   */
+  void checkedOut(Object connection) {
+    long count = checkouts.incrementAndGet();
+    Throwable stack = stackSampling > 0 && count % stackSampling == 0
+        ? new Throwable(format("Checkout of a connection of pool '%s'", pool))
+        : null;
+    String processorPath = MDC.get(PROCESSOR_PATH);
+    String flow = processorPath != null && !processorPath.isEmpty() ? processorPath.split("/", 2)[0] : null;
+
+    long now = nanoTime();
+    holders.put(connection, new Holder(flow, MDC.get(CORRELATION_ID), Thread.currentThread().getName(), now, stack));
+    scanIfDue(now);
+  }
+
+  /**
+   * Records that the given connection was given back to the pool
+   */
+  void checkedIn(Object connection) {
+    Holder holder = holders.remove(connection);
+    if (holder != null && holder.reported) {
+      LOGGER.warn(format("Connection of pool '%s' previously reported as held for too long was returned after being %s",
+                         pool, holder.describe(nanoTime())));
+    }
+  }
+
+  /**
+   * Reports the current holders because a checkout timed out, unless they were reported very recently
+   */
+  void exhausted() {
+    long last = lastExhaustionReport.get();
+    long now = nanoTime();
+    if (now - last < MIN_REPORT_INTERVAL_NANOS || !lastExhaustionReport.compareAndSet(last, now)) {
+      return;
+    }
+
+    LOGGER.warn(report(format("Connection pool '%s' is exhausted", pool), now));
+  }
+
+  /**
+   * Looks for connections held past the threshold. Leaked connections are never checked in, so rather than depending on a
+   * thread of its own it runs as part of the checkouts, at most once every half the threshold.
+   */
+  private void scanIfDue(long now) {
+    if (holdThresholdNanos == 0) {
+      return;
+    }
+
+    long last = lastScan.get();
+    if (now - last < holdThresholdNanos / 2 || !lastScan.compareAndSet(last, now)) {
+      return;
+    }
+
+    boolean newlyReported = false;
+    for (Holder holder : holders.values()) {
+      if (!holder.reported && holder.heldNanos(now) >= holdThresholdNanos) {
+        holder.reported = true;
+        newlyReported = true;
+      }
+    }
+
+    if (newlyReported) {
+      LOGGER.warn(report(format("Connections of pool '%s' held for longer than %d ms", pool,
+                                NANOSECONDS.toMillis(holdThresholdNanos)),
+                         now));
+    }
+  }
+
+  /**
+   * @return the current holders, longest held first
+   */
+  List<Holder> holders() {
+    return holders.values().stream().sorted(comparingLong(holder -> holder.since)).collect(toList());
+  }
+
+  /**
+   * @return a description of each of the current holders, longest held first
+   */
+  String[] describeHolders() {
+    long now = nanoTime();
+    return holders().stream().map(holder -> holder.describe(now)).toArray(String[]::new);
+  }
+
+  private String report(String reason, long now) {
+    List<Holder> current = holders();
+    StringBuilder report = new StringBuilder(reason).append(". Checked out connections: ").append(current.size());
+    for (Holder holder : current) {
+      report.append(lineSeparator()).append("  - ").append(holder.describe(now));
+      if (holder.checkoutStack != null) {
+        for (StackTraceElement element : holder.checkoutStack.getStackTrace()) {
+          report.append(lineSeparator()).append("      at ").append(element);
+        }
+      }
+    }
+    return report.toString();
+  }
+}
@@ -0,0 +1,340 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.time.Duration.ofNanos;
+
+import static org.mule.extension.db.internal.util.MBeans.objectName;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.extension.db.api.metrics.ConnectionPoolMetricsPublisher;
+import org.mule.extension.db.api.metrics.PoolMetrics;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.mchange.v2.c3p0.PooledDataSource;
+
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.sql.DataSource;
+
+/**
+ * Keeps the metrics of the connection pool of a database config, exposes them through JMX and hands them over to the
+ * {@link ConnectionPoolMetricsPublisher}s available to the application.
+ * <p>
+ * Checkout waits and timeouts are measured around each connection request, while the rest of the state is read from the pool
+ * itself through its {@link PoolGauges}. Each checkout is also handed over to a {@link ConnectionLeakTracker}, which reports
+ * who holds the connections of the pool when it gets exhausted.
+ *
+ * @since 2.0.0
+ */
+public final class ConnectionPoolStatistics implements ConnectionPoolStatisticsMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolStatistics.class);
+
+  /**
+   * Obtains a connection from a pool
+   */
+  @FunctionalInterface
+  public interface Checkout {
+
+    DbConnection connect() throws ConnectionException;
+  }
+
+  private final String pool;
+  private final PoolGauges gauges;
+  private final List<ConnectionPoolMetricsPublisher> publishers;
+  private final long sampleIntervalNanos;
+  private final CheckoutWaitHistogram waits = new CheckoutWaitHistogram();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong checkouts = new AtomicLong();
+  private final AtomicLong timeouts = new AtomicLong();
+  private final AtomicLong lastSample;
+  private final ConnectionLeakTracker leakTracker;
+
+  private ObjectName objectName;
+
+  /**
+   * Creates the statistics of the pool behind the given {@code dataSource}
+   *
+   * @param dataSource  the data source configured by a connection provider
+   * @param defaultName the name to use if the pool has none
+   * @param settings    the pooling settings of the provider
+   * @return the statistics of the pool
+   */
+  public static ConnectionPoolStatistics of(DataSource dataSource, String defaultName, PoolSettings settings) {
+    PoolGauges gauges = null;
+    if (dataSource instanceof PoolGauges) {
+      gauges = (PoolGauges) dataSource;
+    } else if (dataSource instanceof PooledDataSource) {
+      gauges = new C3p0PoolGauges((PooledDataSource) dataSource);
+    }
+
+    String name = gauges != null && gauges.poolName() != null ? gauges.poolName() : defaultName;
+    return new ConnectionPoolStatistics(name, gauges, loadPublishers(),
+                                        new ConnectionLeakTracker(name, settings.getCheckoutStackSampling(),
+                                                                  settings.getLeakDetectionThresholdNanos()));
+  }
+
+  ConnectionPoolStatistics(String pool, PoolGauges gauges, List<ConnectionPoolMetricsPublisher> publishers) {
+    this(pool, gauges, publishers, new ConnectionLeakTracker(pool, 0, 0));
+  }
+
+  ConnectionPoolStatistics(String pool, PoolGauges gauges, List<ConnectionPoolMetricsPublisher> publishers,
+                           ConnectionLeakTracker leakTracker) {
+    this.pool = pool;
+    this.leakTracker = leakTracker;
+    this.gauges = gauges;
+    this.publishers = publishers;
+    this.sampleIntervalNanos = publishers.stream().map(ConnectionPoolMetricsPublisher::getSampleInterval)
+        .mapToLong(Duration::toNanos).min().orElse(Long.MAX_VALUE);
+    this.lastSample = new AtomicLong(nanoTime());
+  }
+
+  private static List<ConnectionPoolMetricsPublisher> loadPublishers() {
+    List<ConnectionPoolMetricsPublisher> loaded = new ArrayList<>();
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    try {
+      ServiceLoader.load(ConnectionPoolMetricsPublisher.class, classLoader).forEach(loaded::add);
+    } catch (Throwable t) {
+      LOGGER.warn(format("Could not load the connection pool metrics publishers. %s", t.getMessage()), t);
+    }
+
+    return loaded;
+  }
+
+  /**
+   * Obtains a connection, measuring the time the caller waits for it
+   *
+   * @param checkout obtains the connection from the pool
+   * @return the obtained connection
+   * @throws ConnectionException if the connection could not be obtained
+   */
+  public DbConnection checkout(Checkout checkout) throws ConnectionException {
+    long start = nanoTime();
+    DbConnection connection;
+    try {
+      connection = checkout.connect();
+    } catch (ConnectionException e) {
+      if (isTimeout(e)) {
+        timedOut(nanoTime() - start);
+      }
+      throw e;
+    }
+
+    leakTracker.checkedOut(connection);
+    checkedOut(nanoTime() - start);
+    return connection;
+  }
+
+  /**
+   * Records that a connection obtained through {@link #checkout(Checkout)} was given back to the pool
+   *
+   * @param connection the returned connection
+   */
+  public void checkedIn(DbConnection connection) {
+    leakTracker.checkedIn(connection);
+    inFlight.decrementAndGet();
+  }
+
+  void checkedOut(long waitNanos) {
+    inFlight.incrementAndGet();
+    checkouts.incrementAndGet();
+    waits.record(waitNanos);
+    for (ConnectionPoolMetricsPublisher publisher : publishers) {
+      try {
+        publisher.checkedOut(pool, ofNanos(waitNanos));
+      } catch (RuntimeException e) {
+        publishFailed(publisher, e);
+      }
+    }
+
+    sampleIfDue();
+  }
+
+  void timedOut(long waitNanos) {
+    timeouts.incrementAndGet();
+    leakTracker.exhausted();
+    for (ConnectionPoolMetricsPublisher publisher : publishers) {
+      try {
+        publisher.checkoutTimedOut(pool, ofNanos(waitNanos));
+      } catch (RuntimeException e) {
+        publishFailed(publisher, e);
+      }
+    }
+  }
+
+  private void sampleIfDue() {
+    if (publishers.isEmpty()) {
+      return;
+    }
+
+    long last = lastSample.get();
+    long now = nanoTime();
+    if (now - last < sampleIntervalNanos || !lastSample.compareAndSet(last, now)) {
+      return;
+    }
+
+    PoolMetrics metrics = snapshot();
+    for (ConnectionPoolMetricsPublisher publisher : publishers) {
+      try {
+        publisher.sampled(metrics);
+      } catch (RuntimeException e) {
+        publishFailed(publisher, e);
+      }
+    }
+  }
+
+  private void publishFailed(ConnectionPoolMetricsPublisher publisher, RuntimeException e) {
+    LOGGER.warn(format("Metrics publisher %s failed to publish the metrics of pool '%s'. %s", publisher.getClass().getName(),
+                       pool, e.getMessage()),
+                e);
+  }
+
+  /**
+   * Tells whether a connection failed because the pool was exhausted for the whole max wait. Pools report it in different
+   * ways, c3p0 for instance as a generic {@link java.sql.SQLException} caused by its own {@code TimeoutException}.
+   */
+  static boolean isTimeout(Throwable error) {
+    for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLTimeoutException || cause.getClass().getSimpleName().equals("TimeoutException")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the current state of the pool
+   */
+  public PoolMetrics snapshot() {
+    return new PoolMetrics(pool, getActiveConnections(), getIdleConnections(), getPendingCheckouts(), getCheckoutCount(),
+                           getCheckoutTimeoutCount(), getCreatedConnectionCount(), getDestroyedConnectionCount(),
+                           getCachedStatementCount(), getCheckoutWaitHistogram());
+  }
+
+  /**
+   * Registers these statistics in the platform MBean server. Failing to do so doesn't prevent the pool from working, so it is
+   * just logged. An MBean already registered with the same name is left alone, as it belongs to someone else.
+   *
+   * @param artifact the name of the application the pool belongs to, or {@code null} if it's unknown
+   */
+  public void register(String artifact) {
+    try {
+      ObjectName name = objectName("ConnectionPool", artifact, pool);
+      getPlatformMBeanServer().registerMBean(this, name);
+      objectName = name;
+    } catch (InstanceAlreadyExistsException e) {
+      LOGGER.warn(format("Not registering the statistics of pool '%s' in JMX, another MBean is registered as %s", pool,
+                         e.getMessage()));
+    } catch (JMException | RuntimeException e) {
+      LOGGER.warn(format("Could not register the statistics of pool '%s' in JMX. %s", pool, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Unregisters these statistics from the platform MBean server, if they were registered
+   */
+  public void unregister() {
+    if (objectName == null) {
+      return;
+    }
+
+    try {
+      getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (JMException | RuntimeException e) {
+      LOGGER.debug(format("Could not unregister the statistics of pool '%s' from JMX. %s", pool, e.getMessage()), e);
+    } finally {
+      objectName = null;
+    }
+  }
+
+  /**
+   * @return the name of the pool
+   */
+  public String getPool() {
+    return pool;
+  }
+
+  @Override
+  public int getActiveConnections() {
+    return gauges != null ? gauges.activeConnections() : inFlight.get();
+  }
+
+  @Override
+  public int getIdleConnections() {
+    return gauges != null ? gauges.idleConnections() : -1;
+  }
+
+  @Override
+  public int getPendingCheckouts() {
+    return gauges != null ? gauges.pendingCheckouts() : -1;
+  }
+
+  @Override
+  public long getCheckoutCount() {
+    return checkouts.get();
+  }
+
+  @Override
+  public long getCheckoutTimeoutCount() {
+    return timeouts.get();
+  }
+
+  @Override
+  public long getCreatedConnectionCount() {
+    return gauges != null ? gauges.createdConnections() : -1;
+  }
+
+  @Override
+  public long getDestroyedConnectionCount() {
+    return gauges != null ? gauges.destroyedConnections() : -1;
+  }
+
+  @Override
+  public int getCachedStatementCount() {
+    return gauges != null ? gauges.cachedStatements() : -1;
+  }
+
+  @Override
+  public long[] getCheckoutWaitHistogram() {
+    return waits.counts();
+  }
+
+  @Override
+  public long[] getCheckoutWaitBucketsMillis() {
+    return PoolMetrics.getCheckoutWaitBucketsMillis();
+  }
+
+  @Override
+  public long getCheckoutWaitMedianMillis() {
+    return waits.percentileMillis(0.5);
+  }
+
+  @Override
+  public long getCheckoutWait99thPercentileMillis() {
+    return waits.percentileMillis(0.99);
+  }
+
+  @Override
+  public String[] getConnectionHolders() {
+    return leakTracker.describeHolders();
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+/**
+ * JMX view of the {@link ConnectionPoolStatistics} of a database config
+ *
+ * @since 2.0.0
+ */
+public interface ConnectionPoolStatisticsMBean {
+
+  /**
+   * @return the number of connections checked out of the pool
+   */
+  int getActiveConnections();
+
+  /**
+   * @return the number of connections available in the pool, or -1 if the pool doesn't report it
+   */
+  int getIdleConnections();
+
+  /**
+   * @return the number of callers waiting for a connection, or -1 if the pool doesn't report it
+   */
+  int getPendingCheckouts();
+
+  /**
+   * @return the number of successful checkouts
+   */
+  long getCheckoutCount();
+
+  /**
+   * @return the number of checkouts which timed out because the pool was exhausted
+   */
+  long getCheckoutTimeoutCount();
+
+  /**
+   * @return the number of physical connections created, or -1 if the pool doesn't report it
+   */
+  long getCreatedConnectionCount();
+
+  /**
+   * @return the number of physical connections destroyed, or -1 if the pool doesn't report it
+   */
+  long getDestroyedConnectionCount();
+
+  /**
+   * @return the number of prepared statements held by the statement cache of the pool, or -1 if the pool doesn't report it
+   */
+  int getCachedStatementCount();
+
+  /**
+   * @return the number of checkouts which waited for each of the buckets of {@link #getCheckoutWaitBucketsMillis()}
+   */
+  long[] getCheckoutWaitHistogram();
+
+  /**
+   * @return the upper bounds, in milliseconds, of the buckets of the checkout wait histogram
+   */
+  long[] getCheckoutWaitBucketsMillis();
+
+  /**
+   * @return the upper bound, in milliseconds, of the median checkout wait
+   */
+  long getCheckoutWaitMedianMillis();
+
+  /**
+   * @return the upper bound, in milliseconds, of the 99th percentile of the checkout wait, or -1 if it exceeds the largest
+   *         bucket
+   */
+  long getCheckoutWait99thPercentileMillis();
+
+  /**
+   * @return who holds each of the connections checked out through the connector, longest held first
+   */
+  String[] getConnectionHolders();
+}
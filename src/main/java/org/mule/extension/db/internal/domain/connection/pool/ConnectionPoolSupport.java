@@ -0,0 +1,507 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.Integer.toHexString;
+import static java.lang.String.format;
+import static java.lang.Math.min;
+import static java.lang.System.identityHashCode;
+import static java.lang.System.nanoTime;
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.mule.extension.db.internal.util.MBeans.artifactName;
+import static org.mule.extension.db.internal.util.VirtualThreads.isCurrentThreadVirtual;
+import static org.mule.runtime.api.scheduler.SchedulerConfig.config;
+
+import org.mule.db.commons.internal.domain.connection.DataSourceConfig;
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.extension.db.api.config.PoolEngine;
+import org.mule.extension.db.api.config.PoolSizing;
+import org.mule.extension.db.api.config.PoolStartup;
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.lifecycle.InitialisationException;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+/**
+ * Pooling concerns shared by the connection providers of the connector, whatever the base class they extend from the
+ * database client. Providers hold an instance and delegate each of their lifecycle and connection methods to the method of
+ * the same name, passing the implementation of their superclass, so that all the pooling logic lives here.
+ *
+ * @since 2.0.0
+ */
+public final class ConnectionPoolSupport {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPoolSupport.class);
+
+  private static final int MAX_PREWARM_PARALLELISM = 16;
+  private static final long PREWARM_TIMEOUT_NANOS = SECONDS.toNanos(60);
+
+  /**
+   * The scheduler which runs the JDBC work of each connection checked out from any pool. Entries are removed as the
+   * connections are returned, so it never holds more than the connections in use.
+   */
+  private static final Map<DbConnection, Scheduler> JDBC_SCHEDULERS = new ConcurrentHashMap<>();
+
+  /**
+   * Initialises a connection provider
+   */
+  @FunctionalInterface
+  public interface Initialiser {
+
+    void initialise() throws InitialisationException;
+  }
+
+  private final Object provider;
+  private final Supplier<DatabasePoolingProfile> poolingProfile;
+  private final Map<DbConnection, ConnectionBulkheads.Permit> permits = new ConcurrentHashMap<>();
+
+  /**
+   * Guards the lifecycle of the pool. A lock rather than a monitor, as it's held while connecting to the database when the
+   * pool starts lazily, and virtual threads blocked on a monitor pin their carrier.
+   */
+  private final Lock lock = new ReentrantLock();
+
+  private PoolSettings settings;
+  private ConcurrentBagPool pool;
+  private Initialiser initialiser;
+  private Supplier<DataSource> configuredDataSource;
+  private String artifact;
+  private SchedulerService schedulerService;
+  private Scheduler scheduler;
+  private volatile Scheduler jdbcScheduler;
+  private volatile ConnectionPoolStatistics statistics;
+  private volatile ConnectionBulkheads bulkheads;
+  private volatile boolean started;
+  private volatile boolean pinningWarned;
+
+  /**
+   * @param provider       the connection provider which delegates to this instance
+   * @param poolingProfile supplies the pooling profile of the provider, which is read once the provider was configured
+   */
+  public ConnectionPoolSupport(Object provider, Supplier<DatabasePoolingProfile> poolingProfile) {
+    this.provider = provider;
+    this.poolingProfile = poolingProfile;
+  }
+
+  /**
+   * Creates the pool of the provider when its pooling profile selects an engine other than c3p0
+   *
+   * @param config the configuration of the data source of the provider
+   * @return the pooled data source, or an empty value if the database client should create its own
+   */
+  public Optional<DataSource> dataSource(Optional<DataSourceConfig> config) {
+    lock.lock();
+    try {
+      if (pool != null) {
+        return of(pool);
+      }
+
+      PoolSettings settings = getSettings();
+      if (settings.getEngine() == PoolEngine.C3P0 || !config.isPresent()) {
+        if (settings.getSizing() == PoolSizing.ADAPTIVE) {
+          LOGGER.warn(format("Pool engine %s doesn't support %s sizing, the pool of %s will have a fixed size", PoolEngine.C3P0,
+                             PoolSizing.ADAPTIVE, provider));
+        }
+        return empty();
+      }
+
+      if (config.get().isUseXaTransactions() || config.get().getTlsContextFactory().isPresent()) {
+        LOGGER.warn(format("Pool engine %s doesn't support XA transactions nor TLS, using %s for %s instead",
+                           settings.getEngine(), PoolEngine.C3P0, provider));
+        return empty();
+      }
+
+      pool = new ConcurrentBagPool(defaultPoolName(), settings, connectionFactory(config.get()), scheduler());
+      return of(pool);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Initialises the provider and gets its pool ready as its {@link PoolStartup} mode says. In {@link PoolStartup#LAZY lazy}
+   * mode that happens on the first connection instead.
+   *
+   * @param initialiser          initialises the provider, usually the {@code initialise} method of the provider superclass
+   * @param configuredDataSource supplies the data source the provider ended up using, once initialised
+   * @param properties           the configuration properties of the application the provider belongs to, if injected
+   * @param schedulerService     provides the threads which create the connections of the pool and keep it
+   * @throws InitialisationException if the provider could not be initialised
+   */
+  public void initialise(Initialiser initialiser, Supplier<DataSource> configuredDataSource, ConfigurationProperties properties,
+                         SchedulerService schedulerService)
+      throws InitialisationException {
+    this.initialiser = initialiser;
+    this.configuredDataSource = configuredDataSource;
+    this.artifact = artifactName(properties);
+    this.schedulerService = schedulerService;
+
+    if (getSettings().getStartup() == PoolStartup.LAZY) {
+      LOGGER.debug(format("Deferring the creation of the pool of %s until it's first used", provider));
+      return;
+    }
+
+    start();
+  }
+
+  private void start() throws InitialisationException {
+    initialiser.initialise();
+    started = true;
+
+    DataSource dataSource = configuredDataSource.get();
+    if (getSettings().getStartup() == PoolStartup.PREWARM) {
+      prewarm(dataSource);
+    } else if (pool != null) {
+      pool.fillToMinimum();
+    }
+
+    jdbcScheduler = jdbcScheduler();
+
+    ConnectionPoolStatistics poolStatistics = ConnectionPoolStatistics.of(dataSource, defaultPoolName(), getSettings());
+    if (!getSettings().getWorkloadClasses().isEmpty()) {
+      bulkheads = new ConnectionBulkheads(poolStatistics.getPool(), getSettings());
+    }
+    poolStatistics.register(artifact);
+    statistics = poolStatistics;
+  }
+
+  private ConnectionPoolStatistics startLazily() throws ConnectionException {
+    lock.lock();
+    try {
+      if (statistics == null) {
+        start();
+      }
+      return statistics;
+    } catch (InitialisationException e) {
+      throw new ConnectionException(format("Could not create the pool of %s. %s", provider, e.getMessage()), e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Creates the minimum number of connections of the pool in parallel, warming each of them up with the configured query.
+   * Failures are just logged, as they would happen later on anyway if the database can't be reached.
+   */
+  private void prewarm(DataSource dataSource) {
+    int connections = getSettings().getMinPoolSize();
+    if (connections <= 0) {
+      return;
+    }
+
+    String warmupQuery = getSettings().getWarmupQuery();
+    ConcurrentBagPool.Warmup warmup = connection -> {
+      if (warmupQuery != null) {
+        try (Statement statement = connection.createStatement()) {
+          statement.execute(warmupQuery);
+        }
+      }
+    };
+
+    long start = nanoTime();
+    try {
+      int created = pool != null
+          ? pool.prewarm(MAX_PREWARM_PARALLELISM, warmup, PREWARM_TIMEOUT_NANOS)
+          : prewarm(dataSource, connections, warmup, scheduler());
+      LOGGER.info(format("Prewarmed %d of %d connections of %s in %d ms", created, connections, provider,
+                         NANOSECONDS.toMillis(nanoTime() - start)));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn(format("Interrupted while prewarming the pool of %s", provider));
+    }
+  }
+
+  /**
+   * Prewarms a pool which is not under control of the connector by checking out connections in parallel and holding them
+   * until all were obtained, so that the pool has to create each of them. A few checkers take the connections one at a time,
+   * so that the scheduler isn't flooded.
+   */
+  private static int prewarm(DataSource dataSource, int connections, ConcurrentBagPool.Warmup warmup, Executor executor)
+      throws InterruptedException {
+    AtomicInteger unclaimed = new AtomicInteger(connections);
+    AtomicInteger created = new AtomicInteger();
+    AtomicBoolean abandoned = new AtomicBoolean();
+    Queue<Connection> held = new ConcurrentLinkedQueue<>();
+    int checkers = min(connections, MAX_PREWARM_PARALLELISM);
+    CountDownLatch finished = new CountDownLatch(checkers);
+    Runnable checker = () -> {
+      try {
+        while (!abandoned.get() && unclaimed.getAndUpdate(count -> count > 0 ? count - 1 : 0) > 0) {
+          Connection connection = dataSource.getConnection();
+          try {
+            warmup.warm(connection);
+          } catch (SQLException | RuntimeException e) {
+            LOGGER.warn(format("Warmup of a pooled connection failed. %s", e.getMessage()));
+          }
+          held.add(connection);
+          created.incrementAndGet();
+          if (abandoned.get()) {
+            // Obtained after giving up on the prewarm, so nobody else would return it to the pool
+            closeAll(held);
+          }
+        }
+      } catch (SQLException | RuntimeException e) {
+        LOGGER.warn(format("Could not prewarm a pooled connection. %s", e.getMessage()));
+      } finally {
+        finished.countDown();
+      }
+    };
+
+    try {
+      for (int i = 0; i < checkers; i++) {
+        try {
+          executor.execute(checker);
+        } catch (RuntimeException e) {
+          finished.countDown();
+        }
+      }
+      finished.await(PREWARM_TIMEOUT_NANOS, NANOSECONDS);
+      return created.get();
+    } finally {
+      abandoned.set(true);
+      closeAll(held);
+    }
+  }
+
+  private static void closeAll(Queue<Connection> connections) {
+    Connection connection;
+    while ((connection = connections.poll()) != null) {
+      try {
+        connection.close();
+      } catch (SQLException e) {
+        // Already closed
+      }
+    }
+  }
+
+  /**
+   * Obtains a connection from the pool, within the limits of the workload class of the current component if the pool has any
+   *
+   * @param checkout obtains the connection, usually the {@code connect} method of the provider superclass
+   * @return the connection
+   * @throws ConnectionException if the connection could not be obtained
+   */
+  public DbConnection connect(ConnectionPoolStatistics.Checkout checkout) throws ConnectionException {
+    ConnectionPoolStatistics poolStatistics = statistics;
+    if (poolStatistics == null) {
+      poolStatistics = startLazily();
+    }
+
+    if (pool == null && !pinningWarned && isCurrentThreadVirtual()) {
+      pinningWarned = true;
+      LOGGER.warn(format("%s is used from virtual threads, but its %s pool waits for connections on monitors, which pin the "
+          + "carrier threads. Consider setting the pool engine of its pooling profile to %s", provider, PoolEngine.C3P0,
+                         PoolEngine.CONCURRENT_BAG));
+    }
+
+    ConnectionBulkheads poolBulkheads = bulkheads;
+    DbConnection connection = poolBulkheads == null ? poolStatistics.checkout(checkout) : poolStatistics.checkout(() -> {
+      ConnectionBulkheads.Permit permit = poolBulkheads.acquire();
+      try {
+        DbConnection bulkheadConnection = checkout.connect();
+        permits.put(bulkheadConnection, permit);
+        return bulkheadConnection;
+      } catch (ConnectionException | RuntimeException e) {
+        permit.release();
+        throw e;
+      }
+    });
+
+    Scheduler connectionScheduler = jdbcScheduler;
+    if (connectionScheduler != null) {
+      JDBC_SCHEDULERS.put(connection, connectionScheduler);
+    }
+    return connection;
+  }
+
+  /**
+   * @param connection a connection checked out from a provider of the connector
+   * @return the scheduler to run the JDBC work on the connection without blocking the caller, or an empty value if the
+   *         connection doesn't come from a provider which delegates to this class
+   */
+  public static Optional<Scheduler> jdbcScheduler(DbConnection connection) {
+    return Optional.ofNullable(JDBC_SCHEDULERS.get(connection));
+  }
+
+  /**
+   * Gives a connection back to the pool and records it, even if the provider failed to release it
+   *
+   * @param disconnector releases the connection, usually the {@code disconnect} method of the provider superclass
+   * @param connection   the returned connection
+   */
+  public void disconnect(Consumer<DbConnection> disconnector, DbConnection connection) {
+    try {
+      disconnector.accept(connection);
+    } finally {
+      disconnected(connection);
+    }
+  }
+
+  private void disconnected(DbConnection connection) {
+    JDBC_SCHEDULERS.remove(connection);
+
+    ConnectionBulkheads.Permit permit = permits.remove(connection);
+    if (permit != null) {
+      permit.release();
+    }
+
+    // A lazy pool which didn't start yet has no statistics to report to
+    ConnectionPoolStatistics poolStatistics = statistics;
+    if (poolStatistics != null) {
+      poolStatistics.checkedIn(connection);
+    }
+  }
+
+  /**
+   * Disposes the provider, if it was ever initialised, and releases the pool and its statistics
+   *
+   * @param disposer disposes the provider, usually the {@code dispose} method of the provider superclass
+   */
+  public void dispose(Runnable disposer) {
+    lock.lock();
+    try {
+      if (statistics != null) {
+        statistics.unregister();
+      }
+      if (pool != null) {
+        pool.close();
+        pool = null;
+      }
+      if (started) {
+        disposer.run();
+        started = false;
+      }
+      if (scheduler != null) {
+        scheduler.stop();
+        scheduler = null;
+      }
+      if (jdbcScheduler != null) {
+        jdbcScheduler.stop();
+        jdbcScheduler = null;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return the statistics of the pool, or {@code null} if the provider was not initialised yet
+   */
+  public ConnectionPoolStatistics getStatistics() {
+    return statistics;
+  }
+
+  /**
+   * The scheduler the pool creates and keeps its connections on. An IO one, as that is blocking work.
+   */
+  private Scheduler scheduler() {
+    if (scheduler == null) {
+      scheduler = schedulerService.ioScheduler(config().withName("db-pool-" + defaultPoolName()));
+    }
+    return scheduler;
+  }
+
+  /**
+   * The scheduler the JDBC work of non blocking operations runs on, dedicated to the pool so that a slow database doesn't
+   * take the threads of the rest of the application. A task always holds a connection checked out from the pool, so there
+   * are never more tasks than the max pool size, which is then the number of threads the scheduler needs. Its queue only
+   * takes the work which arrives while the thread that released a connection is still finishing its task.
+   */
+  private Scheduler jdbcScheduler() {
+    int maxPoolSize = getSettings().getMaxPoolSize();
+    return schedulerService.customScheduler(config().withName("db-jdbc-" + defaultPoolName())
+        .withMaxConcurrentTasks(maxPoolSize), maxPoolSize);
+  }
+
+  private PoolSettings getSettings() {
+    if (settings == null) {
+      settings = PoolSettings.of(poolingProfile.get());
+    }
+    return settings;
+  }
+
+  private String defaultPoolName() {
+    return provider.getClass().getSimpleName() + "@" + toHexString(identityHashCode(provider));
+  }
+
+  /**
+   * Creates connections as the database client does for c3p0: through the configured driver, loaded from the application,
+   * with the configured credentials and transaction isolation.
+   */
+  static ConcurrentBagPool.ConnectionFactory connectionFactory(DataSourceConfig config) {
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    Properties properties = new Properties();
+    if (config.getUser() != null) {
+      properties.setProperty("user", config.getUser());
+    }
+    if (config.getPassword() != null) {
+      properties.setProperty("password", config.getPassword());
+    }
+    int transactionIsolation = config.getTransactionIsolation() != null ? config.getTransactionIsolation().getCode() : -1;
+
+    return new ConcurrentBagPool.ConnectionFactory() {
+
+      private volatile Driver driver;
+
+      @Override
+      public Connection create() throws SQLException {
+        Connection connection = config.getDriverClassName() != null
+            ? connect(config.getUrl(), properties)
+            : DriverManager.getConnection(config.getUrl(), properties);
+        if (connection == null) {
+          throw new SQLException(format("Driver %s does not accept URL %s", config.getDriverClassName(), config.getUrl()));
+        }
+
+        if (transactionIsolation > Connection.TRANSACTION_NONE) {
+          connection.setTransactionIsolation(transactionIsolation);
+        }
+        return connection;
+      }
+
+      private Connection connect(String url, Properties properties) throws SQLException {
+        if (driver == null) {
+          try {
+            driver = (Driver) Class.forName(config.getDriverClassName(), true, classLoader).getDeclaredConstructor().newInstance();
+          } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new SQLException(format("Could not load driver %s. %s", config.getDriverClassName(), e.getMessage()), e);
+          }
+        }
+        return driver.connect(url, properties);
+      }
+    };
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+/**
+ * Reads the state of a connection pool. Implementations may be invoked concurrently and return -1 for any value the pool
+ * doesn't report.
+ *
+ * @since 2.0.0
+ */
+public interface PoolGauges {
+
+  /**
+   * @return the name of the pool, or {@code null} if it has none
+   */
+  String poolName();
+
+  /**
+   * @return the number of connections checked out of the pool
+   */
+  int activeConnections();
+
+  /**
+   * @return the number of connections available in the pool
+   */
+  int idleConnections();
+
+  /**
+   * @return the number of callers waiting for a connection
+   */
+  int pendingCheckouts();
+
+  /**
+   * @return the number of physical connections created so far
+   */
+  long createdConnections();
+
+  /**
+   * @return the number of physical connections destroyed so far
+   */
+  long destroyedConnections();
+
+  /**
+   * @return the number of prepared statements held by the statement cache of the pool
+   */
+  int cachedStatements();
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import org.mule.extension.db.api.config.DbPoolingProfile;
+import org.mule.extension.db.api.config.PoolEngine;
+import org.mule.extension.db.api.config.PoolSizing;
+import org.mule.extension.db.api.config.PoolStartup;
+import org.mule.runtime.api.config.DatabasePoolingProfile;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pooling settings of a connection provider, as configured in its pooling profile and validated.
+ * <p>
+ * The additional properties of the profile are not read here, they are only passed through to c3p0.
+ *
+ * @since 2.0.0
+ */
+public final class PoolSettings {
+
+  private final PoolEngine engine;
+  private final int minPoolSize;
+  private final int maxPoolSize;
+  private final long maxWaitNanos;
+  private final long maxIdleNanos;
+  private final boolean testConnectionOnCheckout;
+  private final PoolStartup startup;
+  private final String warmupQuery;
+  private final long validationWindowNanos;
+  private final long idleValidationNanos;
+  private final long leakDetectionThresholdNanos;
+  private final long checkoutStackSampling;
+  private final PoolSizing sizing;
+  private final long sizingIntervalNanos;
+  private final List<WorkloadClassSettings> workloadClasses;
+
+  /**
+   * @param minPoolSize              the min number of connections of the pool
+   * @param maxPoolSize              the max number of connections of the pool
+   * @param maxWaitNanos             how long a caller waits for a connection when the pool is exhausted
+   * @param maxIdleNanos             how long a connection can stay idle before it's discarded
+   * @param testConnectionOnCheckout whether connections are tested on checkout
+   * @param profile                  the pooling profile which holds the settings specific to this connector
+   * @throws IllegalArgumentException if any of the settings has an invalid value
+   */
+  PoolSettings(int minPoolSize, int maxPoolSize, long maxWaitNanos, long maxIdleNanos, boolean testConnectionOnCheckout,
+               DbPoolingProfile profile) {
+    this.engine = profile.getPoolEngine() != null ? profile.getPoolEngine() : PoolEngine.C3P0;
+    this.minPoolSize = minPoolSize;
+    this.maxPoolSize = maxPoolSize;
+    this.maxWaitNanos = maxWaitNanos;
+    this.maxIdleNanos = maxIdleNanos;
+    this.testConnectionOnCheckout = testConnectionOnCheckout;
+    this.startup = profile.getPoolStartup() != null ? profile.getPoolStartup() : PoolStartup.DEFAULT;
+    String query = profile.getWarmupQuery();
+    this.warmupQuery = query != null && !query.trim().isEmpty() ? query.trim() : null;
+    this.validationWindowNanos = MILLISECONDS.toNanos(nonNegative("validationWindow", profile.getValidationWindow()));
+    this.idleValidationNanos = MILLISECONDS.toNanos(nonNegative("idleValidationInterval", profile.getIdleValidationInterval()));
+    this.leakDetectionThresholdNanos =
+        MILLISECONDS.toNanos(nonNegative("leakDetectionThreshold", profile.getLeakDetectionThreshold()));
+    this.checkoutStackSampling = nonNegative("checkoutStackSampling", profile.getCheckoutStackSampling());
+    this.sizing = profile.getPoolSizing() != null ? profile.getPoolSizing() : PoolSizing.FIXED;
+    if (profile.getSizingInterval() <= 0) {
+      throw new IllegalArgumentException(format("Invalid value '%d' for pooling profile parameter 'sizingInterval', a positive "
+          + "number was expected", profile.getSizingInterval()));
+    }
+    this.sizingIntervalNanos = MILLISECONDS.toNanos(profile.getSizingInterval());
+    this.workloadClasses = WorkloadClassSettings.of(profile.getWorkloadClasses(), maxPoolSize);
+    if (sizing == PoolSizing.ADAPTIVE && !workloadClasses.isEmpty()) {
+      // The bulkheads admit as many checkouts as the max pool size, which a pool with a lower limit may never serve
+      throw new IllegalArgumentException(format("Pool sizing can't be %s when workload classes are defined",
+                                                PoolSizing.ADAPTIVE));
+    }
+  }
+
+  /**
+   * Reads the settings of a pooling profile
+   *
+   * @param profile the pooling profile of a connection provider, or {@code null} for the default settings. Only a
+   *                {@link DbPoolingProfile} has the settings other than c3p0's.
+   * @return its settings
+   * @throws IllegalArgumentException if any of the settings has an invalid value
+   */
+  static PoolSettings of(DatabasePoolingProfile profile) {
+    if (profile == null) {
+      return new PoolSettings(0, 5, 0, 0, true, new DbPoolingProfile());
+    }
+
+    TimeUnit maxWaitUnit = profile.getMaxWaitUnit() != null ? profile.getMaxWaitUnit() : SECONDS;
+    long maxWaitNanos = maxWaitUnit.toNanos(profile.getMaxWait());
+    if (!(profile instanceof DbPoolingProfile)) {
+      return new PoolSettings(profile.getMinPoolSize(), profile.getMaxPoolSize(), maxWaitNanos, 0, true,
+                              new DbPoolingProfile());
+    }
+
+    DbPoolingProfile dbProfile = (DbPoolingProfile) profile;
+    return new PoolSettings(dbProfile.getMinPoolSize(), dbProfile.getMaxPoolSize(), maxWaitNanos,
+                            SECONDS.toNanos(dbProfile.getMaxIdleTime()), dbProfile.getTestConnectionOnCheckout(), dbProfile);
+  }
+
+  private static long nonNegative(String parameter, long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException(format("Invalid value '%d' for pooling profile parameter '%s', a non negative number "
+          + "was expected", value, parameter));
+    }
+    return value;
+  }
+
+  public PoolEngine getEngine() {
+    return engine;
+  }
+
+  public int getMinPoolSize() {
+    return minPoolSize;
+  }
+
+  public int getMaxPoolSize() {
+    return maxPoolSize;
+  }
+
+  /**
+   * @return how long a caller waits for a connection when the pool is exhausted, zero meaning indefinitely
+   */
+  public long getMaxWaitNanos() {
+    return maxWaitNanos;
+  }
+
+  /**
+   * @return how long a connection can stay idle before it's discarded, zero meaning forever
+   */
+  public long getMaxIdleNanos() {
+    return maxIdleNanos;
+  }
+
+  public boolean isTestConnectionOnCheckout() {
+    return testConnectionOnCheckout;
+  }
+
+  public PoolStartup getStartup() {
+    return startup;
+  }
+
+  /**
+   * @return the query to run on each connection created while prewarming the pool, or {@code null} if there's none
+   */
+  public String getWarmupQuery() {
+    return warmupQuery;
+  }
+
+  /**
+   * @return how long a connection which is known to work is trusted without validating it again on checkout
+   */
+  public long getValidationWindowNanos() {
+    return validationWindowNanos;
+  }
+
+  /**
+   * @return how often idle connections are validated in the background, zero meaning never
+   */
+  public long getIdleValidationNanos() {
+    return idleValidationNanos;
+  }
+
+  /**
+   * @return how long a connection can be held before the holders of the pool are reported, zero meaning forever
+   */
+  public long getLeakDetectionThresholdNanos() {
+    return leakDetectionThresholdNanos;
+  }
+
+  /**
+   * @return capture the stack of one checkout in this many, zero meaning never
+   */
+  public long getCheckoutStackSampling() {
+    return checkoutStackSampling;
+  }
+
+  public PoolSizing getSizing() {
+    return sizing;
+  }
+
+  /**
+   * @return how often a pool in {@link PoolSizing#ADAPTIVE adaptive} mode adjusts its size
+   */
+  public long getSizingIntervalNanos() {
+    return sizingIntervalNanos;
+  }
+
+  /**
+   * @return the workload classes which share the pool, if any
+   */
+  List<WorkloadClassSettings> getWorkloadClasses() {
+    return workloadClasses;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Works out how many connections a pool in {@link org.mule.extension.db.api.config.PoolSizing#ADAPTIVE adaptive} mode may hold, from what its callers went
+ * through since the last adjustment.
+ * <p>
+ * The time a connection is held for is taken as the latency of the database, and the lowest latency seen so far as what it
+ * takes when the database is not loaded. On each adjustment the limit:
+ * <ul>
+ * <li>grows while callers spend a significant time waiting for connections and the latency stays close to its baseline,
+ * which means the database has room for more concurrent work;</li>
+ * <li>shrinks when the latency climbs well above its baseline. By Little's law the database is working on
+ * {@code throughput * latency} requests at once, and at its baseline latency it would deliver the same throughput with
+ * {@code throughput * baseline} connections, so any connection beyond that only queues in the database;</li>
+ * <li>shrinks when part of the connections stayed idle for the whole period, even at its busiest.</li>
+ * </ul>
+ * The limit never leaves the configured minimum and maximum sizes of the pool.
+ *
+ * @since 2.0.0
+ */
+final class PoolSizer {
+
+  /**
+   * Waiting for more than this fraction of the time connections are held is significant
+   */
+  private static final double SIGNIFICANT_WAIT_RATIO = 0.1;
+
+  /**
+   * The database keeps up as long as the latency is within this factor of its baseline
+   */
+  private static final double STEADY_LATENCY_RATIO = 1.2;
+
+  /**
+   * The database is overloaded once the latency goes beyond this factor of its baseline
+   */
+  private static final double OVERLOADED_LATENCY_RATIO = 1.5;
+
+  /**
+   * How much of the way to the latest latency the baseline moves on each adjustment, so that it follows lasting changes of
+   * the workload instead of holding on to a single fast period forever
+   */
+  private static final double BASELINE_DRIFT = 0.05;
+
+  private final int minSize;
+  private final int maxSize;
+  private final LongAdder checkouts = new LongAdder();
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder releases = new LongAdder();
+  private final LongAdder holdNanos = new LongAdder();
+  private final AtomicInteger inUse = new AtomicInteger();
+  private final AtomicInteger peakInUse = new AtomicInteger();
+
+  private volatile int limit;
+  private double baselineLatencyNanos = -1;
+
+  /**
+   * @param minSize the minimum size of the pool
+   * @param maxSize the maximum size of the pool
+   */
+  PoolSizer(int minSize, int maxSize) {
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.limit = max(1, minSize);
+  }
+
+  /**
+   * @return the number of connections the pool may hold for now
+   */
+  int getLimit() {
+    return limit;
+  }
+
+  /**
+   * Records a checkout
+   *
+   * @param waitedNanos how long the caller waited for the connection
+   */
+  void checkedOut(long waitedNanos) {
+    checkouts.increment();
+    waitNanos.add(waitedNanos);
+    peakInUse.accumulateAndGet(inUse.incrementAndGet(), Math::max);
+  }
+
+  /**
+   * Records a caller which gave up waiting for a connection
+   *
+   * @param waitedNanos how long the caller waited
+   */
+  void timedOut(long waitedNanos) {
+    checkouts.increment();
+    waitNanos.add(waitedNanos);
+  }
+
+  /**
+   * Records that a connection was given back
+   *
+   * @param heldNanos how long the connection was held for
+   */
+  void released(long heldNanos) {
+    inUse.decrementAndGet();
+    releases.increment();
+    holdNanos.add(heldNanos);
+  }
+
+  /**
+   * Adjusts the limit to what was observed since the previous adjustment. Must not be invoked concurrently.
+   *
+   * @param periodNanos how long ago the previous adjustment was
+   * @param waiting     the number of callers waiting for a connection right now
+   * @return the new limit
+   */
+  int adjust(long periodNanos, int waiting) {
+    long periodCheckouts = checkouts.sumThenReset();
+    long periodWait = waitNanos.sumThenReset();
+    long periodReleases = releases.sumThenReset();
+    long periodHold = holdNanos.sumThenReset();
+    int peak = peakInUse.getAndSet(inUse.get());
+
+    int current = limit;
+    int next = current;
+    if (periodReleases > 0 && periodCheckouts > 0) {
+      double latency = (double) periodHold / periodReleases;
+      double wait = (double) periodWait / periodCheckouts;
+      if (baselineLatencyNanos < 0 || latency < baselineLatencyNanos) {
+        baselineLatencyNanos = latency;
+      } else {
+        baselineLatencyNanos += (latency - baselineLatencyNanos) * BASELINE_DRIFT;
+      }
+
+      double latencyRatio = latency / baselineLatencyNanos;
+      if (latencyRatio > OVERLOADED_LATENCY_RATIO) {
+        double throughput = (double) periodReleases / periodNanos;
+        int needed = (int) ceil(throughput * baselineLatencyNanos * STEADY_LATENCY_RATIO);
+        // Back off at most by half at once, the latency may have gone up for reasons other than the load
+        next = min(current, max(needed, current / 2));
+      } else if (wait > latency * SIGNIFICANT_WAIT_RATIO) {
+        if (latencyRatio <= STEADY_LATENCY_RATIO) {
+          next = current + max(1, current / 2);
+        }
+      } else if (peak < current) {
+        next = current - max(1, (current - peak) / 2);
+      }
+    } else if (waiting > 0) {
+      // Nothing was given back to tell how the database does, but callers are stuck
+      next = current + 1;
+    } else if (peak < current) {
+      next = current - max(1, (current - peak) / 2);
+    }
+
+    limit = max(max(1, minSize), min(maxSize, next));
+    return limit;
+  }
+}
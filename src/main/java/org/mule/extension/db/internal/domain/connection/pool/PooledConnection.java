@@ -0,0 +1,203 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.System.nanoTime;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A physical connection held by a {@link ConcurrentBagPool}.
+ * <p>
+ * Each checkout gets its own {@link CheckedOutConnection}, which wraps the physical connection, so that a caller can't
+ * affect the connection after handing it back. The statements a caller leaves open are closed when the connection is given
+ * back.
+ *
+ * @since 2.0.0
+ */
+final class PooledConnection extends ConcurrentBag.Entry {
+
+  private static final String CONNECTION_EXCEPTION_SQL_STATE_CLASS = "08";
+
+  private final ConcurrentBagPool pool;
+  private final Connection connection;
+  private final int defaultTransactionIsolation;
+  private final Set<Statement> openStatements = ConcurrentHashMap.newKeySet();
+  private volatile long lastAccessed = nanoTime();
+  private volatile long lastVerified = lastAccessed;
+  private volatile long checkedOutAt;
+  private volatile boolean broken;
+  private volatile boolean dirty;
+
+  PooledConnection(ConcurrentBagPool pool, Connection connection) throws SQLException {
+    this.pool = pool;
+    this.connection = connection;
+    this.defaultTransactionIsolation = connection.getTransactionIsolation();
+  }
+
+  /**
+   * @return a new wrapper of the connection for the caller which just borrowed it
+   */
+  Connection checkout() {
+    checkedOutAt = nanoTime();
+    return new CheckedOutConnection(this, connection);
+  }
+
+  /**
+   * Gives the connection back to the pool, once the caller which borrowed it closed its {@link CheckedOutConnection}
+   */
+  void checkin() {
+    pool.release(this);
+  }
+
+  /**
+   * Restores the state the connection had when it was created, rolling back any pending work
+   *
+   * @throws SQLException if the connection could not be reset
+   */
+  void reset() throws SQLException {
+    closeOpenStatements();
+
+    if (!connection.getAutoCommit()) {
+      connection.rollback();
+      connection.setAutoCommit(true);
+    }
+
+    if (dirty) {
+      if (connection.getTransactionIsolation() != defaultTransactionIsolation) {
+        connection.setTransactionIsolation(defaultTransactionIsolation);
+      }
+      if (connection.isReadOnly()) {
+        connection.setReadOnly(false);
+      }
+      dirty = false;
+    }
+
+    connection.clearWarnings();
+  }
+
+  private void closeOpenStatements() {
+    for (Statement statement : openStatements) {
+      try {
+        statement.close();
+      } catch (SQLException | RuntimeException e) {
+        // The caller is done with it anyway
+      }
+    }
+    openStatements.clear();
+  }
+
+  /**
+   * Checks that the connection still works
+   *
+   * @param timeoutSeconds how long to wait for the database to answer
+   * @return whether the connection is valid
+   */
+  boolean validate(int timeoutSeconds) {
+    try {
+      if (connection.isValid(timeoutSeconds)) {
+        lastVerified = nanoTime();
+        return true;
+      }
+    } catch (SQLException e) {
+      // Not valid then
+    }
+    return false;
+  }
+
+  /**
+   * @param windowNanos how long a connection is trusted after it was known to work
+   * @return whether the connection was created, used without errors or validated within the given window
+   */
+  boolean isFresh(long windowNanos) {
+    return windowNanos > 0 && nanoTime() - lastVerified < windowNanos;
+  }
+
+  void close() {
+    try {
+      connection.close();
+    } catch (SQLException | RuntimeException e) {
+      // The connection is being discarded anyway
+    }
+  }
+
+  Connection getConnection() {
+    return connection;
+  }
+
+  long getLastAccessed() {
+    return lastAccessed;
+  }
+
+  long getLastVerified() {
+    return lastVerified;
+  }
+
+  /**
+   * @return when the connection was last checked out
+   */
+  long getCheckedOutAt() {
+    return checkedOutAt;
+  }
+
+  /**
+   * Records that the connection was given back to the pool. It counts as verified if no fatal error happened while in use.
+   */
+  void accessed() {
+    lastAccessed = nanoTime();
+    if (!broken) {
+      lastVerified = lastAccessed;
+    }
+  }
+
+  boolean isBroken() {
+    return broken;
+  }
+
+  void markBroken() {
+    broken = true;
+  }
+
+  /**
+   * Records that the transaction isolation or the read only flag of the connection were changed, so that they are restored
+   * when the connection is given back
+   */
+  void markDirty() {
+    dirty = true;
+  }
+
+  void statementOpened(Statement statement) {
+    openStatements.add(statement);
+  }
+
+  void statementClosed(Statement statement) {
+    openStatements.remove(statement);
+  }
+
+  /**
+   * Marks the connection as broken if the given error means it can't be used anymore
+   *
+   * @param e an error thrown by the connection or by one of its statements, metadata or result sets
+   * @return the same error, for the caller to throw
+   */
+  <E extends SQLException> E checkException(E e) {
+    if (isFatal(e)) {
+      broken = true;
+    }
+    return e;
+  }
+
+  private static boolean isFatal(SQLException e) {
+    return e instanceof SQLNonTransientConnectionException
+        || (e.getSQLState() != null && e.getSQLState().startsWith(CONNECTION_EXCEPTION_SQL_STATE_CLASS));
+  }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import org.mule.extension.db.api.config.WorkloadClass;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * The settings of a {@link WorkloadClass} of a pool, validated and ready to match the components which belong to it
+ *
+ * @since 2.0.0
+ */
+final class WorkloadClassSettings {
+
+  private final String name;
+  private final List<Pattern> flows;
+  private final int minConnections;
+  private final int maxConnections;
+  private final long maxWaitNanos;
+
+  WorkloadClassSettings(String name, List<Pattern> flows, int minConnections, int maxConnections, long maxWaitNanos) {
+    this.name = name;
+    this.flows = flows;
+    this.minConnections = minConnections;
+    this.maxConnections = maxConnections;
+    this.maxWaitNanos = maxWaitNanos;
+  }
+
+  /**
+   * Validates the workload classes of a pooling profile
+   *
+   * @param workloadClasses the workload classes, or {@code null} if there are none
+   * @param maxPoolSize     the max size of the pool the classes share
+   * @return the settings of the classes, in the same order
+   * @throws IllegalArgumentException if any class is not properly defined, two classes have the same name, or the classes
+   *                                  reserve more connections than the pool has
+   */
+  static List<WorkloadClassSettings> of(List<WorkloadClass> workloadClasses, int maxPoolSize) {
+    if (workloadClasses == null) {
+      return emptyList();
+    }
+
+    List<WorkloadClassSettings> classes = new ArrayList<>();
+    Set<String> names = new HashSet<>();
+    int reserved = 0;
+    for (WorkloadClass workloadClass : workloadClasses) {
+      WorkloadClassSettings settings = of(workloadClass, maxPoolSize);
+      if (!names.add(settings.getName())) {
+        throw new IllegalArgumentException(format("Workload class '%s' is defined more than once", settings.getName()));
+      }
+      reserved += settings.getMinConnections();
+      classes.add(settings);
+    }
+
+    if (reserved > maxPoolSize) {
+      throw new IllegalArgumentException(format("Workload classes reserve %d connections, but the pool can't have more than %d",
+                                                reserved, maxPoolSize));
+    }
+    return unmodifiableList(classes);
+  }
+
+  private static WorkloadClassSettings of(WorkloadClass workloadClass, int maxPoolSize) {
+    String name = workloadClass.getName();
+    if (name == null || name.trim().isEmpty()) {
+      throw new IllegalArgumentException("Workload classes must have a name");
+    }
+
+    List<Pattern> patterns = new ArrayList<>();
+    if (workloadClass.getFlows() != null) {
+      for (String flow : workloadClass.getFlows()) {
+        if (flow != null && !flow.trim().isEmpty()) {
+          patterns.add(glob(flow.trim()));
+        }
+      }
+    }
+    if (patterns.isEmpty()) {
+      throw new IllegalArgumentException(format("Workload class '%s' must define its flows", name));
+    }
+
+    int minConnections = workloadClass.getMinConnections();
+    int maxConnections = workloadClass.getMaxConnections() != null ? workloadClass.getMaxConnections() : maxPoolSize;
+    if (minConnections < 0 || maxConnections < 1 || minConnections > maxConnections || maxConnections > maxPoolSize) {
+      throw new IllegalArgumentException(format("Workload class '%s' must have between 1 and %d max connections, and no more "
+          + "min connections than max connections", name, maxPoolSize));
+    }
+
+    if (workloadClass.getMaxWait() < 0) {
+      throw new IllegalArgumentException(format("Workload class '%s' can't have a negative max wait", name));
+    }
+    long maxWaitNanos = MILLISECONDS.toNanos(workloadClass.getMaxWait());
+    return new WorkloadClassSettings(name, unmodifiableList(patterns), minConnections, maxConnections, maxWaitNanos);
+  }
+
+  private static Pattern glob(String pattern) {
+    StringBuilder regex = new StringBuilder();
+    String[] literals = pattern.split("\\*", -1);
+    for (int i = 0; i < literals.length; i++) {
+      if (i > 0) {
+        regex.append(".*");
+      }
+      if (!literals[i].isEmpty()) {
+        regex.append(Pattern.quote(literals[i]));
+      }
+    }
+    return Pattern.compile(regex.toString());
+  }
+
+  /**
+   * Tells whether the component at the given path belongs to this class, either because its whole flow does or because it's
+   * assigned by itself
+   *
+   * @param flow          the name of the flow
+   * @param processorPath the path of the component within the flow
+   */
+  boolean matches(String flow, String processorPath) {
+    for (Pattern pattern : flows) {
+      if (pattern.matcher(flow).matches() || pattern.matcher(processorPath).matches()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  int getMinConnections() {
+    return minConnections;
+  }
+
+  int getMaxConnections() {
+    return maxConnections;
+  }
+
+  long getMaxWaitNanos() {
+    return maxWaitNanos;
+  }
+}
@@ -20,20 +20,19 @@ import static org.mule.extension.db.internal.domain.connection.sqlserver.SqlServ
 import static org.mule.extension.db.internal.domain.connection.sqlserver.SqlServerConnectionProvider.MSSQL_GAV;
 import static org.mule.runtime.api.meta.ExternalLibraryType.JAR;
 import static org.mule.runtime.extension.api.annotation.param.ParameterGroup.CONNECTION;
-import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
 import org.mule.db.commons.api.exception.connection.DbError;
 import org.mule.db.commons.internal.domain.connection.DataSourceConfig;
 import org.mule.db.commons.internal.domain.connection.DbConnection;
-import org.mule.db.commons.internal.domain.connection.DbConnectionProvider;
+import org.mule.extension.db.internal.domain.connection.BaseDbConnectionProvider;
 import org.mule.runtime.extension.api.annotation.Alias;
 import org.mule.runtime.extension.api.annotation.ExternalLib;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 
 /**
- * {@link DbConnectionProvider} implementation for Microsoft SQL Server Databases
+ * {@link org.mule.db.commons.internal.domain.connection.DbConnectionProvider} implementation for Microsoft SQL Server Databases
  *
  * @since 1.1.0
  */
@@ -43,7 +42,7 @@ import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
     description = "A JDBC driver which supports connecting to an Microsoft SQL Server Database",
     requiredClassName = DRIVER_CLASS_NAME, type = JAR, coordinates = MSSQL_GAV,
     nameRegexpMatcher = DRIVER_FILE_NAME_PATTERN)
-public class SqlServerConnectionProvider extends DbConnectionProvider {
+public class SqlServerConnectionProvider extends BaseDbConnectionProvider {
 
   static final String DRIVER_CLASS_NAME = "com.microsoft.sqlserver.jdbc.SQLServerDriver";
   static final String MSSQL_GAV = "com.microsoft.sqlserver:mssql-jdbc:7.0.0.jre8";
@@ -59,11 +58,6 @@ public class SqlServerConnectionProvider extends DbConnectionProvider {
     return new SqlServerConnection(connection, super.resolveCustomTypes(), super.cachedTemplates);
   }
 
-  @Override
-  public java.util.Optional<DataSource> getDataSource() {
-    return empty();
-  }
-
   @Override
   public java.util.Optional<DataSourceConfig> getDataSourceConfig() {
     return ofNullable(mapDataSourceConfig(connectionParameters));
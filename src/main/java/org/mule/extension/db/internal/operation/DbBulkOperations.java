@@ -21,10 +21,12 @@ import org.mule.runtime.extension.api.annotation.param.Content;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
 import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
 import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
 import org.mule.runtime.extension.api.runtime.streaming.StreamingHelper;
 import org.mule.extension.db.api.param.BulkQueryDefinition;
 import org.mule.extension.db.api.param.BulkScript;
 import org.mule.extension.db.api.param.QuerySettings;
+import org.mule.extension.db.internal.domain.connection.pool.ConnectionPoolSupport;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -46,10 +48,12 @@ import static org.mule.extension.db.internal.util.MigrationUtils.mapQuerySetting
 public class DbBulkOperations implements Initialisable {
 
   private BulkOperations bulkOperations;
+  private JdbcExecutor jdbcExecutor;
 
   @Override
   public void initialise() throws InitialisationException {
     this.bulkOperations = new BulkOperations.Builder().build();
+    this.jdbcExecutor = new JdbcExecutor(ConnectionPoolSupport::jdbcScheduler);
   }
 
   /**
@@ -122,6 +126,87 @@ public class DbBulkOperations implements Initialisable {
     return bulkOperations.bulkDelete(bulkInputParameters, mapBulkQueryDefinition(query), connector, connection, streamingHelper);
   }
 
+  /**
+   * Allows executing one insert statement various times using different parameter bindings, just like {@link #bulkInsert},
+   * without blocking the calling thread while the statement runs.
+   *
+   * @param query a {@link BulkQueryDefinition} as a parameter group
+   * @param bulkInputParameters A {@link List} of {@link Map}s in which every list item represents a row to be inserted, and the map
+   *        contains the parameter names as keys and the value the parameter is bound to.
+   * @param connector the acting connector
+   * @param connection the acting connection
+   * @param callback completes the operation with an array of update counts containing one element for each executed command.
+   *        The elements of the array are ordered according to the order in which commands were added to the batch.
+   *
+   * @since 2.0.0
+   */
+  public void bulkInsertAsync(@DisplayName("Input Parameters") @Content @Placement(
+      order = 1) @TypeResolver(DbInputMetadataResolver.class) List<Map<String, Object>> bulkInputParameters,
+                              @ParameterGroup(name = QUERY_GROUP) BulkQueryDefinition query,
+                              @Config AbstractDbConnector connector,
+                              @Connection DbConnection connection,
+                              StreamingHelper streamingHelper,
+                              CompletionCallback<int[], Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> bulkOperations.bulkInsert(bulkInputParameters, mapBulkQueryDefinition(query), connector,
+                                                         connection, streamingHelper),
+                         callback);
+  }
+
+  /**
+   * Allows executing one update statement various times using different parameter bindings, just like {@link #bulkUpdate},
+   * without blocking the calling thread while the statement runs.
+   *
+   * @param query a {@link BulkQueryDefinition} as a parameter group
+   * @param bulkInputParameters A {@link List} of {@link Map}s in which every list item represents a row to be inserted, and the map
+   *        contains the parameter names as keys and the value the parameter is bound to.
+   * @param connector the acting connector
+   * @param connection the acting connection
+   * @param callback completes the operation with an array of update counts containing one element for each executed command.
+   *        The elements of the array are ordered according to the order in which commands were added to the batch.
+   *
+   * @since 2.0.0
+   */
+  public void bulkUpdateAsync(@DisplayName("Input Parameters") @Content @Placement(
+      order = 1) @TypeResolver(DbInputMetadataResolver.class) List<Map<String, Object>> bulkInputParameters,
+                              @ParameterGroup(name = QUERY_GROUP) BulkQueryDefinition query,
+                              @Config AbstractDbConnector connector,
+                              @Connection DbConnection connection,
+                              StreamingHelper streamingHelper,
+                              CompletionCallback<int[], Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> bulkOperations.bulkUpdate(bulkInputParameters, mapBulkQueryDefinition(query), connector,
+                                                         connection, streamingHelper),
+                         callback);
+  }
+
+  /**
+   * Allows executing one delete statement various times using different parameter bindings, just like {@link #bulkDelete},
+   * without blocking the calling thread while the statement runs.
+   *
+   * @param query a {@link BulkQueryDefinition} as a parameter group
+   * @param bulkInputParameters A {@link List} of {@link Map}s in which every list item represents a row to be inserted, and the map
+   *        contains the parameter names as keys and the value the parameter is bound to.
+   * @param connector the acting connector
+   * @param connection the acting connection
+   * @param callback completes the operation with an array of update counts containing one element for each executed command.
+   *        The elements of the array are ordered according to the order in which commands were added to the batch.
+   *
+   * @since 2.0.0
+   */
+  public void bulkDeleteAsync(@DisplayName("Input Parameters") @Content @Placement(
+      order = 1) @TypeResolver(DbInputMetadataResolver.class) List<Map<String, Object>> bulkInputParameters,
+                              @ParameterGroup(name = QUERY_GROUP) BulkQueryDefinition query,
+                              @Config AbstractDbConnector connector,
+                              @Connection DbConnection connection,
+                              StreamingHelper streamingHelper,
+                              CompletionCallback<int[], Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> bulkOperations.bulkDelete(bulkInputParameters, mapBulkQueryDefinition(query), connector,
+                                                         connection, streamingHelper),
+                         callback);
+  }
+
   /**
    * Executes a SQL script in one single Database statement. The script is executed as provided by the user, without any parameter
    * binding.
@@ -23,6 +23,7 @@ import org.mule.extension.db.api.StatementResult;
 import org.mule.extension.db.api.param.QueryDefinition;
 import org.mule.extension.db.api.param.StoredProcedureCall;
 import org.mule.extension.db.internal.domain.autogeneratedkey.DbAutoGenerateKeysAttributes;
+import org.mule.extension.db.internal.domain.connection.pool.ConnectionPoolSupport;
 import org.mule.runtime.api.lifecycle.Initialisable;
 import org.mule.runtime.api.lifecycle.InitialisationException;
 import org.mule.runtime.extension.api.annotation.Streaming;
@@ -33,6 +34,7 @@ import org.mule.runtime.extension.api.annotation.param.Connection;
 import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
 import org.mule.runtime.extension.api.annotation.param.display.Placement;
 import org.mule.runtime.extension.api.runtime.operation.FlowListener;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
 import org.mule.runtime.extension.api.runtime.streaming.PagingProvider;
 import org.mule.runtime.extension.api.runtime.streaming.StreamingHelper;
 
@@ -51,10 +53,12 @@ import java.util.Map;
 public class DbDmlOperations implements Initialisable {
 
   private DmlOperations dmlOperations;
+  private JdbcExecutor jdbcExecutor;
 
   @Override
   public void initialise() throws InitialisationException {
     dmlOperations = new DmlOperations.Builder().build();
+    jdbcExecutor = new JdbcExecutor(ConnectionPoolSupport::jdbcScheduler);
   }
 
   /**
@@ -62,6 +66,10 @@ public class DbDmlOperations implements Initialisable {
    *
    * Streaming is automatically applied to avoid preemptive consumption of such results, which may lead
    * to performance and memory issues.
+   * <p>
+   * Unlike {@link #insertAsync}, {@link #updateAsync} and {@link #deleteAsync}, select has no non blocking version and always
+   * blocks the calling thread while the query runs: it returns a {@link PagingProvider}, which the runtime pulls pages from
+   * as the results are consumed, and paged operations can't complete through a {@link CompletionCallback}.
    *
    * @param query     a {@link QueryDefinition} as a parameter group
    * @param connector the acting connector
@@ -160,6 +168,72 @@ public class DbDmlOperations implements Initialisable {
     return dmlOperations.delete(mapQueryDefinition(query), connector, connection, streamingHelper);
   }
 
+  /**
+   * Inserts data into a Database, just like {@link #insert}, without blocking the calling thread while the statement runs.
+   *
+   * @param query                      {@link QueryDefinition} as a parameter group
+   * @param autoGenerateKeysAttributes an {@link DbAutoGenerateKeysAttributes} as a parameter group
+   * @param connector                  the acting connector
+   * @param connection                 the acting connection
+   * @param callback                   completes the operation with a {@link StatementResult}
+   *
+   * @since 2.0.0
+   */
+  public void insertAsync(@ParameterGroup(name = QUERY_GROUP) @Placement(tab = ADVANCED_TAB) QueryDefinition query,
+                          @ParameterGroup(name = AUTO_GENERATE_KEYS) DbAutoGenerateKeysAttributes autoGenerateKeysAttributes,
+                          @Config AbstractDbConnector connector,
+                          @Connection DbConnection connection,
+                          StreamingHelper streamingHelper,
+                          CompletionCallback<StatementResult, Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> new StatementResult(dmlOperations.insert(mapQueryDefinition(query), autoGenerateKeysAttributes,
+                                                                        connector, connection, streamingHelper)),
+                         callback);
+  }
+
+  /**
+   * Updates data in a database, just like {@link #update}, without blocking the calling thread while the statement runs.
+   *
+   * @param query                      {@link QueryDefinition} as a parameter group
+   * @param autoGenerateKeysAttributes an {@link DbAutoGenerateKeysAttributes} as a parameter group
+   * @param connector                  the acting connector
+   * @param connection                 the acting connection
+   * @param callback                   completes the operation with a {@link StatementResult}
+   *
+   * @since 2.0.0
+   */
+  public void updateAsync(@ParameterGroup(name = QUERY_GROUP) QueryDefinition query,
+                          @ParameterGroup(name = AUTO_GENERATE_KEYS) DbAutoGenerateKeysAttributes autoGenerateKeysAttributes,
+                          @Config AbstractDbConnector connector,
+                          @Connection DbConnection connection,
+                          StreamingHelper streamingHelper,
+                          CompletionCallback<StatementResult, Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> new StatementResult(dmlOperations.update(mapQueryDefinition(query), autoGenerateKeysAttributes,
+                                                                        connector, connection, streamingHelper)),
+                         callback);
+  }
+
+  /**
+   * Deletes data in a database, just like {@link #delete}, without blocking the calling thread while the statement runs.
+   *
+   * @param query      {@link QueryDefinition} as a parameter group
+   * @param connector  the acting connector
+   * @param connection the acting connection
+   * @param callback   completes the operation with the number of affected rows
+   *
+   * @since 2.0.0
+   */
+  public void deleteAsync(@ParameterGroup(name = QUERY_GROUP) QueryDefinition query,
+                          @Config AbstractDbConnector connector,
+                          @Connection DbConnection connection,
+                          StreamingHelper streamingHelper,
+                          CompletionCallback<Integer, Void> callback) {
+    jdbcExecutor.execute(connection,
+                         () -> dmlOperations.delete(mapQueryDefinition(query), connector, connection, streamingHelper),
+                         callback);
+  }
+
   /**
    * Invokes a Stored Procedure on the database.
    * <p>
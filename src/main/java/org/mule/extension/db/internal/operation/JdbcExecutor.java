@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.operation;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.slf4j.MDC;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Runs the JDBC work of non blocking operations on the scheduler of the pool their connection comes from, so that the threads
+ * which process events don't wait for the database. Each pool has a scheduler of its own, with as many threads as
+ * connections, so a slow database only holds the threads of its own pool.
+ * <p>
+ * Work the scheduler rejects fails its operation instead of running on the calling thread.
+ * <p>
+ * Work on a connection which takes part in a transaction runs on the calling thread, as the runtime runs transactions on a
+ * single thread. So does the work on a connection which doesn't come from a pool of the connector, as there is no scheduler
+ * sized for it.
+ *
+ * @since 2.0.0
+ */
+public final class JdbcExecutor {
+
+  /**
+   * JDBC work which produces the output of an operation
+   *
+   * @param <T> the type of the output
+   */
+  @FunctionalInterface
+  public interface JdbcTask<T> {
+
+    T run() throws Exception;
+  }
+
+  private final Function<DbConnection, Optional<? extends Executor>> schedulers;
+
+  /**
+   * @param schedulers provides the scheduler to run the work on a connection, if it has one
+   */
+  public JdbcExecutor(Function<DbConnection, Optional<? extends Executor>> schedulers) {
+    this.schedulers = schedulers;
+  }
+
+  /**
+   * Runs the given task and completes the operation with its output
+   *
+   * @param connection the connection the task works on
+   * @param task       the JDBC work of the operation
+   * @param callback   completes the operation
+   * @param <T>        the type of the output of the operation
+   */
+  public <T> void execute(DbConnection connection, JdbcTask<T> task, CompletionCallback<T, Void> callback) {
+    Optional<? extends Executor> scheduler = schedulers.apply(connection);
+    if (!scheduler.isPresent() || isTransactional(connection)) {
+      run(task, callback);
+      return;
+    }
+
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    Map<String, String> context = MDC.getCopyOfContextMap();
+    try {
+      scheduler.get().execute(() -> {
+        Thread thread = Thread.currentThread();
+        ClassLoader original = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        if (context != null) {
+          MDC.setContextMap(context);
+        }
+        try {
+          run(task, callback);
+        } finally {
+          MDC.clear();
+          thread.setContextClassLoader(original);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      callback.error(e);
+    }
+  }
+
+  private static <T> void run(JdbcTask<T> task, CompletionCallback<T, Void> callback) {
+    T output;
+    try {
+      output = task.run();
+    } catch (Throwable t) {
+      callback.error(t);
+      return;
+    }
+    callback.success(Result.<T, Void>builder().output(output).build());
+  }
+
+  private static boolean isTransactional(DbConnection connection) {
+    try {
+      return !connection.getJdbcConnection().getAutoCommit();
+    } catch (SQLException e) {
+      // Let the task itself fail on the broken connection, on the calling thread as it may be in a transaction
+      return true;
+    }
+  }
+}
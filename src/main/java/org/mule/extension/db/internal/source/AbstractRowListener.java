@@ -0,0 +1,1097 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.query.Query;
+import org.mule.db.commons.internal.domain.statement.QueryStatementFactory;
+import org.mule.extension.db.api.param.ChangeDetectionStrategy;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowFilter;
+import org.mule.runtime.api.component.ConfigurationProperties;
+import org.mule.runtime.api.component.location.ComponentLocation;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.exception.DefaultMuleException;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.api.scheduler.SchedulerService;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.execution.OnError;
+import org.mule.runtime.extension.api.annotation.execution.OnSuccess;
+import org.mule.runtime.extension.api.annotation.execution.OnTerminate;
+import org.mule.runtime.extension.api.annotation.metadata.MetadataKeyId;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.display.Placement;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.annotation.param.display.Text;
+import org.mule.runtime.extension.api.annotation.values.OfValues;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.source.PollContext;
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.inject.Inject;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.String.join;
+import static java.lang.System.identityHashCode;
+import static java.util.Collections.singletonMap;
+import static java.util.Locale.ROOT;
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.mule.extension.db.api.param.ChangeDetectionStrategy.SNAPSHOT_DIFF;
+import static org.mule.extension.db.api.param.ChangeDetectionStrategy.TRIGGER_JOURNAL;
+import static org.mule.extension.db.internal.util.MBeans.artifactName;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.mule.runtime.api.meta.ExpressionSupport.NOT_SUPPORTED;
+import static org.mule.runtime.extension.api.annotation.param.display.Placement.ADVANCED_TAB;
+
+/**
+ * Base class for the polling sources which select from a table at a regular interval.
+ * <p>
+ * Optionally, watermark and id columns can be provided. If a watermark column is provided, the values taken from that column
+ * will be used to filter the contents of the next poll, so that only rows with a greater watermark value are returned. If an
+ * id column is provided, this component will automatically make sure that the same row is not picked twice by concurrent polls
+ * <p>
+ * Rows are dispatched while the cursor is being read, so only the rows buffered by the driver (as defined by the fetch size)
+ * are held in memory at any given time, regardless of how many rows the poll returns.
+ * <p>
+ * When a catch up batch size is configured, rows are read in watermark order through bounded queries. As long as those queries
+ * return full batches, more of them are issued within the same poll, each one starting after the last row of the previous one,
+ * until the table is drained or the catch up time budget is exhausted.
+ * <p>
+ * When a composite watermark is used, the watermark is made of both the watermark and ID columns, so that each poll resumes
+ * right after the last processed row, even if many rows share the same watermark value.
+ * <p>
+ * The statements issued by the listener are built when it starts and their templates are resolved only once, so that a
+ * steady state poll just binds the new watermark to an already prepared statement.
+ * <p>
+ * When a query is provided, it's issued instead of selecting all the rows of the table, so that the database applies any joins
+ * and filters it defines, and only the watermark and last ID values bound to it change from one poll to the next.
+ * <p>
+ * Only the listed columns are selected when a column projection is configured, which avoids transferring large columns the
+ * flow never reads.
+ * <p>
+ * When changes are detected through a trigger journal, polls read the journal table populated by triggers on the table, in
+ * sequence order, and join back to the table, so that their cost depends on the number of changes instead of the size of the
+ * table, and deleted rows are detected too.
+ * <p>
+ * When a poll is split into segments, each segment reads a disjoint subset of the rows through its own connection, in
+ * parallel, and the rows are merged back in watermark order before being dispatched.
+ * <p>
+ * When consumed rows are deleted or marked, the rows whose messages were successfully processed are deleted or marked in bulk
+ * by the next poll, so that draining a table, such as an outbox, doesn't cost an extra statement per row.
+ * <p>
+ * When a claim column is configured, many listeners can compete for the rows of the table, each poll claiming and reading only
+ * the rows nobody else claimed, so that throughput scales with the number of cluster nodes.
+ * <p>
+ * Each listener keeps metrics of its polls, such as the number of rows read, the time spent on each phase of the poll and the
+ * lag behind its latest temporal watermark, which are exposed through JMX and handed over to any
+ * {@link org.mule.extension.db.api.metrics.RowListenerMetricsPublisher} available to the application.
+ * <p>
+ * When a maximum poll interval is configured, polls triggered by the scheduling strategy are skipped, without even obtaining
+ * a connection, for as long as the backlog observed by the previous polls suggests there's nothing new to read.
+ * <p>
+ * How the table is read by each poll is up to a {@link PollStrategy}, picked when the listener starts out of its configuration,
+ * while how the rows are turned into messages is up to each implementation, through the {@link RowDispatcher} it provides
+ * for each poll.
+ *
+ * @param <T> the type of the generated messages payload
+ * @since 2.0.0
+ */
+public abstract class AbstractRowListener<T> extends AbstractTableListener<T, Void> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractRowListener.class);
+  public static final String WATERMARK_PARAM_NAME = "watermark";
+  public static final String LAST_ID_PARAM_NAME = "lastId";
+  public static final String SEGMENT_PARAM_NAME = "segment";
+  private static final String IN_FLIGHT_IDS_VARIABLE = "inFlightIds";
+  private static final String IN_FLIGHT_ROWS_VARIABLE = "inFlightRows";
+  private static final int MAX_IN_FLIGHT_IDS = 16384;
+
+  /**
+   * The name of the table to select from
+   */
+  @Parameter
+  @MetadataKeyId
+  private String table;
+
+  /**
+   * The name of the column to use for watermark. Values taken from this column will be used to filter the contents of the next
+   * poll, so that only rows with a greater watermark value are processed.
+   */
+  @Parameter
+  @Optional
+  @OfValues(ColumnValueProvider.class)
+  @Summary("The name of the column used for watermark")
+  private String watermarkColumn;
+
+  /**
+   * The name of the column to consider as row ID. If provided, this component will make sure that the same row is not
+   * processed twice by concurrent polls.
+   */
+  @Parameter
+  @Optional
+  @Summary("The name of the column to consider as row ID")
+  @OfValues(ColumnValueProvider.class)
+  private String idColumn;
+
+  /**
+   * Whether to use the combination of the watermark and ID columns as watermark. When enabled, each poll resumes right after
+   * the last processed row, ordering rows by watermark and then by ID, so that rows sharing the same watermark value are
+   * neither skipped nor read again. Requires both watermark and ID columns, and the ID column to be unique. Note that the
+   * watermark stored by a listener which didn't use a composite watermark can't be reused once this is enabled.
+   */
+  @Parameter
+  @Optional(defaultValue = "false")
+  @Expression(NOT_SUPPORTED)
+  @Summary("Whether to use the combination of the watermark and ID columns as watermark")
+  private boolean compositeWatermark = false;
+
+  /**
+   * How the rows which changed since the previous poll are detected. When using a trigger journal, triggers which record the
+   * changed rows into a journal table are installed on the table when the listener starts, unless they already exist. Each
+   * generated message then holds the current values of a changed row, or just its ID if it was deleted, plus the
+   * {@code CHANGE_OPERATION} (INSERT, UPDATE or DELETE) and {@code CHANGE_SEQUENCE} of the change. Requires an ID column, and
+   * no watermark column since the journal sequence is used as watermark.
+   * <p>
+   * When using a snapshot diff, each poll reads the whole table and only generates messages for the rows inserted, updated or
+   * deleted since the previous poll, plus their {@code CHANGE_OPERATION}. Messages for deleted rows only hold the ID, as a
+   * string. The snapshot is kept off the heap, in memory mapped temporary files, and is rebuilt by the first poll after the
+   * listener starts, which reports every row as inserted only if {@link #emitExistingRows} is set. Requires a unique ID
+   * column, and no watermark column nor catch up batches.
+   */
+  @Parameter
+  @Optional(defaultValue = "WATERMARK")
+  @Expression(NOT_SUPPORTED)
+  @Summary("How the rows which changed since the previous poll are detected")
+  private ChangeDetectionStrategy changeDetection = ChangeDetectionStrategy.WATERMARK;
+
+  /**
+   * Whether the first poll after the listener starts reports every row already in the table as inserted when detecting
+   * changes through a snapshot diff. Otherwise that poll only takes the snapshot of the table, and the changes are reported
+   * from the next poll on, which means that the changes made while the listener was stopped are not reported.
+   */
+  @Parameter
+  @Optional(defaultValue = "false")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("Whether the first snapshot diff reports every row already in the table as inserted")
+  private boolean emitExistingRows = false;
+
+  /**
+   * The name of the journal table used when detecting changes through a trigger journal. Defaults to the name of the table
+   * followed by {@code _CHANGES}.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("The name of the journal table used when detecting changes through a trigger journal")
+  private String journalTable;
+
+  /**
+   * How long a change missing from the journal sequence is waited for when detecting changes through a trigger journal.
+   * Sequence numbers are assigned when the changes are made rather than when they are committed, so changes with greater
+   * numbers can be read first, and the watermark is held before the missing one meanwhile. Once this time elapses, the number
+   * is taken as skipped by the database, as it happens when a transaction rolls back. Needs to be longer than the longest
+   * transaction which changes the table.
+   */
+  @Parameter
+  @Optional(defaultValue = "60")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private long journalGapTimeout = 60;
+
+  /**
+   * A {@link TimeUnit} which qualifies the {@link #journalGapTimeout}
+   */
+  @Parameter
+  @Optional(defaultValue = "SECONDS")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private TimeUnit journalGapTimeoutUnit = TimeUnit.SECONDS;
+
+  /**
+   * The name of the column which holds the claims of the rows. When provided, many listeners, possibly running on different
+   * cluster nodes, can compete for the rows of the table: each poll claims the rows nobody else claimed and processes only
+   * those. The claim of a row is finalized once its message is successfully processed, so that the row is never processed
+   * again, and released if its processing fails, so that the row can be claimed again. The column needs to be a string of at
+   * least 36 characters, initially null. Requires an ID column and a claim expiration column, and no watermark column since
+   * the claims already determine which rows are pending. The maximum number of rows of the advanced query settings limits how
+   * many rows each poll claims.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @OfValues(ColumnValueProvider.class)
+  @Summary("The name of the column which holds the claims of the rows, for listeners competing for the rows of the table")
+  private String claimColumn;
+
+  /**
+   * The name of the timestamp column which holds the time at which the claim of each row expires, so that rows claimed by a
+   * listener which is no longer running can be claimed again.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @OfValues(ColumnValueProvider.class)
+  @Summary("The name of the column which holds the time at which the claim of each row expires")
+  private String claimExpirationColumn;
+
+  /**
+   * Amount of time a claim lasts unless the processing of its row completes before.
+   */
+  @Parameter
+  @Optional(defaultValue = "5")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private long claimTimeout = 5;
+
+  /**
+   * A {@link TimeUnit} which qualifies the {@link #claimTimeout}
+   */
+  @Parameter
+  @Optional(defaultValue = "MINUTES")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private TimeUnit claimTimeoutUnit = TimeUnit.MINUTES;
+
+  /**
+   * Whether to delete the rows once their messages are successfully processed, which drains the table as it's being read, as
+   * needed by outbox tables. Consumed rows are deleted in bulk, in a single transaction, by the next poll, and are skipped by
+   * the polls which read them in the meantime. The batch listener deletes the rows of each batch as soon as its message is
+   * processed instead. Rows consumed but not deleted yet are only known to the running application, so if it stops abruptly
+   * they are delivered again once it's back, which flows need to tolerate. Requires an ID column, and is not supported together
+   * with change detection strategies other than watermark.
+   */
+  @Parameter
+  @Optional(defaultValue = "false")
+  @Expression(NOT_SUPPORTED)
+  @Summary("Whether to delete the rows once their messages are successfully processed")
+  private boolean deleteConsumedRows = false;
+
+  /**
+   * Statement which marks a row as consumed once its message is successfully processed, referencing the ID of the row through
+   * the {@code :id} parameter, for example {@code UPDATE OUTBOX SET SENT = 1 WHERE ID = :id}. Like deleted rows, consumed rows
+   * are marked in bulk, as a single batch, by the next poll, and are skipped by the polls which read them in the meantime, so
+   * the statement needs to make them no longer match the poll. The batch listener marks the rows of each batch as soon as its
+   * message is processed instead. Rows consumed but not marked yet are only known to the running application, so if it stops
+   * abruptly they are delivered again once it's back, which flows need to tolerate. Requires an ID column, and is not supported
+   * together with deleting the consumed rows or change detection strategies other than watermark.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @Summary("Statement which marks a row as consumed once its message is successfully processed, using the :id parameter")
+  private String consumedRowsStatement;
+
+  /**
+   * Query to poll the table with, instead of selecting all of its rows, so that joins, filters and hints are applied by the
+   * database. When a watermark column is configured, the query needs to filter its rows through the {@code :watermark}
+   * parameter, plus the {@code :lastId} parameter when using a composite watermark. Until a watermark is obtained those
+   * parameters are bound to null, so the query needs to account for it, for example
+   * {@code SELECT * FROM ORDERS O JOIN CUSTOMERS C ON O.CUSTOMER = C.ID WHERE O.SEQ > COALESCE(:watermark, 0)}. The rows still
+   * need to include the watermark and ID columns. The table is still used for metadata. Not supported together with a column projection, catch up batches,
+   * segments, claims or change detection strategies other than watermark.
+   */
+  @Parameter
+  @Optional
+  @Text
+  @Expression(NOT_SUPPORTED)
+  @Summary("Query to poll the table with, filtering by the :watermark parameter when a watermark column is configured")
+  private String sql;
+
+  /**
+   * Comma separated list of the columns to select. The watermark and ID columns are always selected, even if they are not
+   * listed. When not provided, all columns are selected.
+   */
+  @Parameter
+  @Optional
+  @OfValues(ColumnValueProvider.class)
+  @Summary("Comma separated list of the columns to select. All columns are selected if not provided")
+  private String columns;
+
+  /**
+   * Maximum number of rows each query returns. When set, rows are read in watermark order using the row limiting syntax of the
+   * database, and new queries are issued within the same poll for as long as they keep returning full batches. When all the
+   * rows of a batch share the same watermark value, the rows with that value are read at once by a query with no limit.
+   * Requires a watermark column.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("Maximum number of rows each query returns while catching up with the table")
+  private Integer catchUpBatchSize;
+
+  /**
+   * Maximum amount of time a single poll keeps issuing queries while catching up with the table. Rows left behind are picked
+   * up by the next poll.
+   */
+  @Parameter
+  @Optional(defaultValue = "30")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private long maxCatchUpTime = 30;
+
+  /**
+   * A {@link TimeUnit} which qualifies the {@link #maxCatchUpTime}
+   */
+  @Parameter
+  @Optional(defaultValue = "SECONDS")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private TimeUnit maxCatchUpTimeUnit = TimeUnit.SECONDS;
+
+  /**
+   * Maximum amount of time between two polls. When set, the polling interval adapts to the backlog of the table: it backs off
+   * exponentially towards this maximum while polls find no rows, and tightens back towards the frequency of the scheduling
+   * strategy as soon as polls find rows, straight away when they can't read all the available rows.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("Maximum amount of time between polls, which enables adapting the polling interval to the table backlog")
+  private Long maxPollInterval;
+
+  /**
+   * A {@link TimeUnit} which qualifies the {@link #maxPollInterval}
+   */
+  @Parameter
+  @Optional(defaultValue = "SECONDS")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  private TimeUnit maxPollIntervalUnit = TimeUnit.SECONDS;
+
+  /**
+   * Maximum number of rows whose messages are being processed at any given time. Once reached, polls wait for messages to
+   * complete before dispatching more rows, keeping their cursor open meanwhile. A message made of more rows than this limit
+   * waits for every other message to complete.
+   * <p>
+   * When not set, rows are only held back by the max concurrency of the flow, which blocks the poll until the flow can take
+   * another message. Flows without max concurrency take rows as fast as the poll reads them.
+   */
+  @Parameter
+  @Optional
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("Maximum number of rows whose messages are being processed at any given time")
+  private Integer maxRowsInFlight;
+
+  /**
+   * Number of segments each poll is split into. Each segment reads the rows whose ID modulo the number of segments equals the
+   * index of the segment, through its own connection and in parallel with the rest. Rows are merged in watermark order, so
+   * that the watermark never advances past a row a segment didn't read yet. Requires a numeric ID column, and is not supported
+   * together with catch up batches, claims or change detection strategies other than watermark.
+   * <p>
+   * When max rows is set, each segment reads up to that many rows. Unless the watermark is composite, max rows must then be
+   * greater than the number of rows of a segment which share a watermark value, or the poll can't advance past that value.
+   */
+  @Parameter
+  @Optional(defaultValue = "1")
+  @Expression(NOT_SUPPORTED)
+  @Placement(tab = ADVANCED_TAB)
+  @Summary("Number of segments each poll is split into, which are read in parallel")
+  private int segments = 1;
+
+  @Inject
+  private SchedulerService schedulerService;
+
+  @Inject
+  private ConfigurationProperties configurationProperties;
+
+  private ComponentLocation location;
+
+  private ChangeJournal journal;
+  private JournalSequence journalSequence;
+  private RowClaimer claimer;
+  private PollStrategy strategy;
+  private InFlightIds inFlightIds;
+  private InFlightRows inFlightRows;
+  private String cursorColumn;
+  private String projection;
+  private QueryStatementFactory statementFactory;
+  private QueryStatementFactory watermarkGroupStatementFactory;
+  private volatile Map<PollShape, PollStatement> statements;
+  private volatile AdaptivePollSchedule schedule;
+  private RowListenerStatistics statistics;
+  private volatile PollTimings timings;
+
+  @Override
+  protected void doStart() throws MuleException {
+    if (compositeWatermark && (watermarkColumn == null || idColumn == null)) {
+      throw new IllegalArgumentException(format("Both watermark and ID columns are required in order to use a composite watermark "
+          + "for table '%s'", table));
+    }
+
+    if (changeDetection == TRIGGER_JOURNAL && (idColumn == null || watermarkColumn != null || compositeWatermark)) {
+      throw new IllegalArgumentException(format("An ID column and no watermark column are required in order to detect changes "
+          + "on table '%s' through a trigger journal", table));
+    }
+
+    if (changeDetection == SNAPSHOT_DIFF && (idColumn == null || watermarkColumn != null || compositeWatermark
+        || catchUpBatchSize != null)) {
+      throw new IllegalArgumentException(format("An ID column, and no watermark column nor catch up batch size, are required in "
+          + "order to detect changes on table '%s' through a snapshot diff", table));
+    }
+
+    if (claimColumn != null && (idColumn == null || claimExpirationColumn == null || watermarkColumn != null
+        || catchUpBatchSize != null || changeDetection != ChangeDetectionStrategy.WATERMARK)) {
+      throw new IllegalArgumentException(format("ID and claim expiration columns are required, and no watermark column, catch up "
+          + "batch size nor change detection strategy are supported, in order to claim rows from table '%s'", table));
+    }
+
+    if ((deleteConsumedRows || consumedRowsStatement != null) && (idColumn == null || (deleteConsumedRows
+        && consumedRowsStatement != null) || changeDetection != ChangeDetectionStrategy.WATERMARK)) {
+      throw new IllegalArgumentException(format("An ID column and either deleting the consumed rows or a statement which marks "
+          + "them are required, and no change detection strategy is supported, in order to consume rows of table '%s'", table));
+    }
+
+    ConsumedRowMarker marker = deleteConsumedRows || consumedRowsStatement != null
+        ? new ConsumedRowMarker(table, idColumn, consumedRowsStatement)
+        : null;
+
+    if (sql != null) {
+      validateSql();
+    }
+
+    claimer = claimColumn != null
+        ? new RowClaimer(table, idColumn, claimColumn, claimExpirationColumn, claimTimeoutUnit.toMillis(claimTimeout))
+        : null;
+
+    journal = changeDetection == TRIGGER_JOURNAL
+        ? new ChangeJournal(table, idColumn, journalTable != null ? journalTable : table + "_CHANGES")
+        : null;
+    journalSequence = journal != null ? new JournalSequence(journalGapTimeoutUnit.toNanos(journalGapTimeout)) : null;
+    cursorColumn = journal != null ? ChangeJournal.SEQUENCE_COLUMN : watermarkColumn;
+    // Rows are skipped by the value of their ID column as read from the cursor, which is only known to be there and to be the
+    // ID of the item when the listener builds the query itself
+    inFlightIds = idColumn != null && journal == null && changeDetection != SNAPSHOT_DIFF && sql == null
+        ? new InFlightIds(MAX_IN_FLIGHT_IDS)
+        : null;
+
+    if (catchUpBatchSize != null) {
+      if (cursorColumn == null) {
+        throw new IllegalArgumentException(format("A watermark column is required in order to catch up with table '%s' in batches",
+                                                  table));
+      }
+
+      if (catchUpBatchSize < 1) {
+        throw new IllegalArgumentException(format("Catch up batch size must be greater than zero, but %d was found",
+                                                  catchUpBatchSize));
+      }
+    }
+
+    if (segments < 1) {
+      throw new IllegalArgumentException(format("Segments must be greater than zero, but %d was found", segments));
+    }
+
+    if (segments > 1 && (idColumn == null || catchUpBatchSize != null || claimer != null
+        || changeDetection != ChangeDetectionStrategy.WATERMARK)) {
+      throw new IllegalArgumentException(format("An ID column is required, and no catch up batch size, claims nor change "
+          + "detection strategy are supported, in order to poll table '%s' in segments", table));
+    }
+
+    if (maxPollInterval != null && maxPollInterval < 1) {
+      throw new IllegalArgumentException(format("Max poll interval must be greater than zero, but %d was found",
+                                                maxPollInterval));
+    }
+
+    if (maxRowsInFlight != null && maxRowsInFlight < 1) {
+      throw new IllegalArgumentException(format("Max rows in flight must be greater than zero, but %d was found",
+                                                maxRowsInFlight));
+    }
+
+    if (journal != null) {
+      installJournal();
+    }
+
+    super.doStart();
+    inFlightRows = maxRowsInFlight != null ? new InFlightRows(maxRowsInFlight) : null;
+    strategy = createStrategy(marker);
+    projection = buildProjection();
+    statementFactory = createStatementFactory(limit(getSettings().getMaxRows(), catchUpBatchSize));
+    watermarkGroupStatementFactory = catchUpBatchSize != null ? createStatementFactory(null) : null;
+    // The row limiting and modulo syntaxes depend on the database, so catch up and segment statements are built on the first poll
+    statements = catchUpBatchSize == null && segments == 1 ? compileStatements(null) : null;
+    schedule = maxPollInterval != null
+        ? new AdaptivePollSchedule(maxPollIntervalUnit.toNanos(maxPollInterval), nanoTime())
+        : null;
+
+    statistics = new RowListenerStatistics(artifactName(configurationProperties),
+                                           location != null ? location.getLocation() : table + "@" + identityHashCode(this),
+                                           table, this::getEffectivePollIntervalMillis, this::getBacklogEstimate);
+    statistics.register();
+  }
+
+  /**
+   * Creates the strategy the polls read the table through, layering the journal and the marking of the consumed rows on top of
+   * the strategy which reads the rows
+   */
+  private PollStrategy createStrategy(ConsumedRowMarker marker) throws MuleException {
+    Integer maxRows = getSettings().getMaxRows();
+    PollStrategy pollStrategy;
+    if (changeDetection == SNAPSHOT_DIFF) {
+      try {
+        pollStrategy = new SnapshotDiffStrategy(table, idColumn, emitExistingRows);
+      } catch (IOException e) {
+        throw new DefaultMuleException(format("Could not allocate the snapshot of table '%s'. %s", table, e.getMessage()), e);
+      }
+    } else if (claimer != null) {
+      pollStrategy = new ClaimStrategy(table, idColumn, claimColumn, claimer, maxRows, getConnectionProvider());
+    } else if (catchUpBatchSize != null) {
+      // The journal sequence is unique for each change, just like a composite watermark
+      pollStrategy = new CatchUpStrategy(table, catchUpBatchSize, maxCatchUpTimeUnit.toNanos(maxCatchUpTime), this::watermarkOf,
+                                         compositeWatermark || journal != null);
+    } else if (segments > 1) {
+      Function<Map<String, Object>, Serializable> watermark = cursorColumn != null ? this::watermarkOf : null;
+      pollStrategy = new SegmentStrategy(segments, schedulerService.ioScheduler(), watermark, compositeWatermark, maxRows,
+                                         getConnectionProvider());
+    } else {
+      pollStrategy = new WatermarkStrategy(maxRows);
+    }
+
+    if (journal != null) {
+      pollStrategy = new JournalStrategy(journal, journalSequence, pollStrategy);
+    }
+
+    if (marker != null) {
+      pollStrategy = new ConsumedRowsStrategy(table, idColumn, marker, marksConsumedRowsOnCompletion(), getConnectionProvider(),
+                                              pollStrategy);
+    }
+
+    return pollStrategy;
+  }
+
+  private void validateSql() {
+    if (columns != null || catchUpBatchSize != null || segments > 1 || claimColumn != null
+        || changeDetection != ChangeDetectionStrategy.WATERMARK) {
+      throw new IllegalArgumentException(format("No column projection, catch up batch size, segments, claims nor change "
+          + "detection strategy are supported in order to poll table '%s' with a query", table));
+    }
+
+    if (watermarkColumn != null && !references(sql, WATERMARK_PARAM_NAME)) {
+      throw new IllegalArgumentException(format("The query which polls table '%s' needs to filter its rows through the :%s "
+          + "parameter, since a watermark column is configured", table, WATERMARK_PARAM_NAME));
+    }
+
+    if (compositeWatermark && !references(sql, LAST_ID_PARAM_NAME)) {
+      throw new IllegalArgumentException(format("The query which polls table '%s' needs to filter its rows through the :%s "
+          + "parameter, since a composite watermark is configured", table, LAST_ID_PARAM_NAME));
+    }
+  }
+
+  private static boolean references(String query, String parameter) {
+    return Pattern.compile(":" + parameter + "\\b").matcher(query).find();
+  }
+
+  private void installJournal() throws MuleException {
+    ConnectionProvider<DbConnection> connectionProvider = getConnectionProvider();
+    DbConnection connection = connectionProvider.connect();
+    try {
+      journal.install(connection);
+    } catch (SQLException e) {
+      throw new DefaultMuleException(format("Could not install the change journal of table '%s'. %s", table, e.getMessage()),
+                                     e);
+    } finally {
+      connectionProvider.disconnect(connection);
+    }
+  }
+
+  @Override
+  protected void doStop() {
+    statements = null;
+    schedule = null;
+
+    if (inFlightRows != null) {
+      inFlightRows.close();
+    }
+
+    if (statistics != null) {
+      statistics.unregister();
+    }
+
+    if (strategy != null) {
+      strategy.stop();
+    }
+  }
+
+  @Override
+  protected boolean isDue(long start) {
+    AdaptivePollSchedule currentSchedule = schedule;
+    return currentSchedule == null || currentSchedule.isDue(start);
+  }
+
+  @Override
+  protected void poll(PollContext<T, Void> pollContext, DbConnection connection, long start) throws Exception {
+    PollTimings pollTimings = new PollTimings();
+    pollTimings.connected(nanoTime() - start);
+    timings = pollTimings;
+
+    Serializable watermark = pollContext.getWatermark().orElse(null);
+    WatermarkTracker dispatcher = new WatermarkTracker(createDispatcher(pollContext), watermark);
+    PollOutcome outcome = strategy.poll(new Poll(new TableStatements(), connection, watermark, dispatcher,
+                                                 pollContext::isSourceStopping));
+
+    dispatcher.complete();
+    statistics.pollCompleted(outcome.getRows(), pollTimings, dispatcher.latest);
+
+    AdaptivePollSchedule currentSchedule = schedule;
+    if (currentSchedule != null) {
+      currentSchedule.onPoll(start, outcome);
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug(format("Poll of table '%s' read %d rows. Effective polling interval is %d ms, "
+            + "estimated backlog is %d rows", table, outcome.getRows(),
+                            NANOSECONDS.toMillis(currentSchedule.getEffectiveIntervalNanos()),
+                            currentSchedule.getBacklogEstimate()));
+      }
+    }
+  }
+
+  @Override
+  protected String describeTables() {
+    return format("table '%s'", table);
+  }
+
+  private Map<PollShape, PollStatement> compiledStatements(DbConnection connection) throws SQLException {
+    Map<PollShape, PollStatement> compiled = statements;
+    if (compiled == null) {
+      compiled = compileStatements(RowLimitDialect.of(connection));
+      statements = compiled;
+    }
+
+    return compiled;
+  }
+
+  /**
+   * @return the time elapsed between the starts of the last two polls, in milliseconds, when the polling interval adapts to the
+   *         table backlog. Zero otherwise
+   */
+  public long getEffectivePollIntervalMillis() {
+    AdaptivePollSchedule currentSchedule = schedule;
+    return currentSchedule != null ? NANOSECONDS.toMillis(currentSchedule.getEffectiveIntervalNanos()) : 0;
+  }
+
+  /**
+   * @return an estimate of the number of rows the last poll left behind when the polling interval adapts to the table backlog.
+   *         Zero otherwise
+   */
+  public long getBacklogEstimate() {
+    AdaptivePollSchedule currentSchedule = schedule;
+    return currentSchedule != null ? currentSchedule.getBacklogEstimate() : 0;
+  }
+
+  /**
+   * Obtains the ID of the given {@code row}. When detecting changes through a trigger journal, the ID identifies the change
+   * rather than the row, so that successive changes to the same row are not discarded as duplicates. When detecting changes
+   * through a snapshot diff there's no ID, since the snapshot already guarantees that each version of a row is read once.
+   *
+   * @param row a row read by a poll
+   * @return the value of the ID column as a {@link String}, or {@code null} if there's no ID column or no value for it
+   */
+  protected String idOf(Map<String, Object> row) {
+    if (idColumn == null || changeDetection == SNAPSHOT_DIFF) {
+      return null;
+    }
+
+    Object id = row.get(journal != null ? ChangeJournal.SEQUENCE_COLUMN : idColumn);
+    if (id == null) {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug(format(
+                            "A null ID value was obtained for row %s. Idempotency will not be enforced for this row", row));
+      }
+
+      return null;
+    }
+
+    return id.toString();
+  }
+
+  /**
+   * Obtains the watermark of the given {@code row}
+   *
+   * @param row a row read by a poll
+   * @return the watermark value, or {@code null} if there's no watermark column or no valid value for it
+   */
+  protected Serializable watermarkOf(Map<String, Object> row) {
+    if (cursorColumn == null) {
+      return null;
+    }
+
+    Object watermark = row.get(cursorColumn);
+    if (watermark == null) {
+      if (LOGGER.isDebugEnabled()) {
+        LOGGER.debug(format(
+                            "A null watermark value was obtained for row %s. Watermark value won't be updated for this row",
+                            row));
+      }
+
+      return null;
+    }
+
+    if (!(watermark instanceof Serializable)) {
+      LOGGER.error(format("Watermark values need to be serializable, but a value of type %s was found instead for row %s",
+                          watermark.getClass().getName(), row));
+      return null;
+    }
+
+    if (journalSequence != null) {
+      return journalSequence.watermarkOf((Serializable) watermark);
+    }
+
+    if (compositeWatermark) {
+      Object id = row.get(idColumn);
+      return new CompositeWatermark((Serializable) watermark, id instanceof Serializable ? (Serializable) id : null);
+    }
+
+    return (Serializable) watermark;
+  }
+
+  private Map<PollShape, PollStatement> compileStatements(RowLimitDialect dialect) {
+    Map<PollShape, PollStatement> compiled = new EnumMap<>(PollShape.class);
+    if (sql != null) {
+      // The same query serves every poll, only the values bound to its parameters change
+      PollStatement statement = new PollStatement(sql);
+      compiled.put(PollShape.ALL, statement);
+      compiled.put(PollShape.AFTER_WATERMARK, statement);
+      compiled.put(PollShape.AFTER_CURSOR, statement);
+      return compiled;
+    }
+
+    if (claimer != null) {
+      compiled.put(PollShape.CLAIMED, new PollStatement(buildSql(PollShape.CLAIMED, dialect)));
+      return compiled;
+    }
+
+    compiled.put(PollShape.ALL, new PollStatement(buildSql(PollShape.ALL, dialect)));
+    if (cursorColumn != null) {
+      compiled.put(PollShape.AFTER_WATERMARK, new PollStatement(buildSql(PollShape.AFTER_WATERMARK, dialect)));
+    }
+
+    if (compositeWatermark) {
+      compiled.put(PollShape.AFTER_CURSOR, new PollStatement(buildSql(PollShape.AFTER_CURSOR, dialect)));
+    } else if (catchUpBatchSize != null && journal == null) {
+      compiled.put(PollShape.AT_WATERMARK, new PollStatement(buildSql(PollShape.AT_WATERMARK, dialect)));
+    }
+
+    return compiled;
+  }
+
+  private String buildSql(PollShape shape, RowLimitDialect dialect) {
+    if (journal != null) {
+      return buildJournalSql(shape, dialect);
+    }
+
+    StringBuilder sql = new StringBuilder("SELECT ").append(projection).append(" FROM ").append(table);
+    if (shape == PollShape.AFTER_CURSOR) {
+      sql.append(" WHERE (").append(watermarkColumn).append(" > :").append(WATERMARK_PARAM_NAME)
+          .append(" OR (").append(watermarkColumn).append(" = :").append(WATERMARK_PARAM_NAME)
+          .append(" AND ").append(idColumn).append(" > :").append(LAST_ID_PARAM_NAME).append("))");
+    } else if (shape == PollShape.AFTER_WATERMARK) {
+      sql.append(" WHERE ").append(watermarkColumn).append(" > :").append(WATERMARK_PARAM_NAME);
+    } else if (shape == PollShape.AT_WATERMARK) {
+      // All the rows sharing a watermark value need to be read at once, so there's neither order nor limit
+      return sql.append(" WHERE ").append(watermarkColumn).append(" = :").append(WATERMARK_PARAM_NAME).toString();
+    } else if (shape == PollShape.CLAIMED) {
+      sql.append(" WHERE ").append(claimer.getClaimedCondition());
+    }
+
+    if (segments > 1) {
+      sql.append(shape == PollShape.ALL ? " WHERE " : " AND ").append(dialect.modulo(idColumn, segments))
+          .append(" = :").append(SEGMENT_PARAM_NAME);
+    }
+
+    if (changeDetection == SNAPSHOT_DIFF) {
+      return sql.append(" ORDER BY ").append(idColumn).toString();
+    }
+
+    // Segments are merged in watermark order, so each of them needs to read its rows in that order
+    if (catchUpBatchSize == null && (segments == 1 || watermarkColumn == null)) {
+      return sql.toString();
+    }
+
+    sql.append(" ORDER BY ").append(watermarkColumn);
+    if (compositeWatermark) {
+      sql.append(", ").append(idColumn);
+    }
+
+    return catchUpBatchSize != null ? dialect.limit(sql.toString(), catchUpBatchSize) : sql.toString();
+  }
+
+  private String buildJournalSql(PollShape shape, RowLimitDialect dialect) {
+    String sequence = journal.getSequenceExpression();
+    StringBuilder sql = new StringBuilder(journal.select(projection));
+    if (shape == PollShape.AFTER_WATERMARK) {
+      sql.append(" WHERE ").append(sequence).append(" > :").append(WATERMARK_PARAM_NAME);
+    }
+
+    sql.append(" ORDER BY ").append(sequence);
+    return catchUpBatchSize != null ? dialect.limit(sql.toString(), catchUpBatchSize) : sql.toString();
+  }
+
+  private String buildProjection() {
+    if (isBlank(columns)) {
+      return journal != null ? journal.qualify("*") : "*";
+    }
+
+    Set<String> projected = new LinkedHashSet<>();
+    Set<String> normalized = new HashSet<>();
+    Stream.concat(Stream.of(columns.split(",")), Stream.of(watermarkColumn, idColumn, claimColumn))
+        .filter(column -> !isBlank(column))
+        .map(String::trim)
+        .filter(column -> normalized.add(column.toUpperCase(ROOT)))
+        .map(column -> journal != null ? journal.qualify(column) : column)
+        .forEach(projected::add);
+
+    return join(", ", projected);
+  }
+
+  /**
+   * @return the lowest of the given limits, any of which may be {@code null} for no limit
+   */
+  private static Integer limit(Integer maxRows, Integer batchSize) {
+    if (maxRows == null || batchSize == null) {
+      return maxRows != null ? maxRows : batchSize;
+    }
+
+    return min(maxRows, batchSize);
+  }
+
+  private int select(DbConnection connection, Map<PollShape, PollStatement> compiled, Serializable watermark, Integer segment,
+                     RowConsumer rowConsumer)
+      throws SQLException {
+    Map<String, Object> parameters = new HashMap<>();
+    if (segment != null) {
+      parameters.put(SEGMENT_PARAM_NAME, segment);
+    }
+
+    PollShape shape = PollShape.ALL;
+    if (watermark instanceof CompositeWatermark) {
+      CompositeWatermark cursor = (CompositeWatermark) watermark;
+      parameters.put(WATERMARK_PARAM_NAME, cursor.getWatermark());
+      if (cursor.getId() != null) {
+        parameters.put(LAST_ID_PARAM_NAME, cursor.getId());
+        shape = PollShape.AFTER_CURSOR;
+      } else {
+        shape = PollShape.AFTER_WATERMARK;
+      }
+    } else if (watermark != null) {
+      parameters.put(WATERMARK_PARAM_NAME, watermark);
+      shape = PollShape.AFTER_WATERMARK;
+    }
+
+    // The parameters of a query provided by the user are bound even before a watermark is obtained
+    if (sql != null && watermarkColumn != null) {
+      parameters.putIfAbsent(WATERMARK_PARAM_NAME, null);
+      if (compositeWatermark) {
+        parameters.putIfAbsent(LAST_ID_PARAM_NAME, null);
+      }
+    }
+
+    return execute(connection, statementFactory, compiled.get(shape), parameters, rowConsumer);
+  }
+
+  private int execute(DbConnection connection, QueryStatementFactory queryStatementFactory, PollStatement statement,
+                      Map<String, Object> parameters, RowConsumer rowConsumer)
+      throws SQLException {
+    Query query = statement.resolve(parameters, getConfig(), connection);
+    // Rows whose messages are being processed would be rejected by the runtime anyway, so they are skipped before being built
+    RowFilter rowFilter = inFlightIds != null ? this::isInFlight : null;
+
+    return read(connection, queryStatementFactory, query, rowConsumer, rowFilter, timings);
+  }
+
+  private boolean isInFlight(ResultSet resultSet) throws SQLException {
+    Object id = resultSet.getObject(idColumn);
+    return id != null && inFlightIds.contains(id.toString());
+  }
+
+  /**
+   * Keeps track of the rows an item was created from, so that polls skip them while the item is being processed, and they can
+   * be acknowledged once its processing completes. Needs to be invoked by the {@link RowDispatcher} for each item it creates,
+   * and waits for room when the rows in flight reached their limit.
+   *
+   * @param callbackContext the {@link SourceCallbackContext} of the item
+   * @param rows            the rows the item was created from
+   */
+  protected void track(SourceCallbackContext callbackContext, List<Map<String, Object>> rows) {
+    if (inFlightIds != null) {
+      List<String> added = new ArrayList<>(rows.size());
+      for (Map<String, Object> row : rows) {
+        String id = idOf(row);
+        if (id != null && inFlightIds.add(id)) {
+          added.add(id);
+        }
+      }
+
+      callbackContext.addVariable(IN_FLIGHT_IDS_VARIABLE, added);
+    }
+
+    InFlightRows limit = inFlightRows;
+    if (limit != null) {
+      // Released into the same instance it was taken from, even if the listener was restarted in the meantime
+      int taken = acquire(limit, rows.size());
+      callbackContext.addVariable(IN_FLIGHT_ROWS_VARIABLE, (Runnable) () -> limit.release(taken));
+    }
+
+    strategy.track(callbackContext, rows);
+  }
+
+  @OnSuccess
+  public void onSuccess(SourceCallbackContext callbackContext) {
+    strategy.acknowledge(callbackContext, true);
+  }
+
+  @OnError
+  public void onError(SourceCallbackContext callbackContext) {
+    strategy.acknowledge(callbackContext, false);
+  }
+
+  @OnTerminate
+  public void onTerminate(SourceCallbackContext callbackContext) {
+    release(callbackContext);
+  }
+
+  private void release(SourceCallbackContext callbackContext) {
+    List<String> ids = callbackContext.<List<String>>getVariable(IN_FLIGHT_IDS_VARIABLE).orElse(null);
+    if (inFlightIds != null && ids != null) {
+      ids.forEach(inFlightIds::remove);
+    }
+
+    callbackContext.<Runnable>getVariable(IN_FLIGHT_ROWS_VARIABLE).ifPresent(Runnable::run);
+  }
+
+  private int acquire(InFlightRows rows, int count) {
+    try {
+      return rows.acquire(count);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return 0;
+    }
+  }
+
+  /**
+   * Whether the consumed rows are marked as soon as their message is processed rather than by the next poll. Marking them later
+   * amortizes its cost across many messages, at the expense of a wider window in which an abrupt stop delivers them again.
+   *
+   * @return {@code false} by default
+   */
+  protected boolean marksConsumedRowsOnCompletion() {
+    return false;
+  }
+
+  /**
+   * Creates the {@link RowDispatcher} which turns the rows read by a poll into items of the given {@code pollContext}
+   *
+   * @param pollContext the context of the current poll
+   * @return a {@link RowDispatcher}
+   */
+  protected abstract RowDispatcher createDispatcher(PollContext<T, Void> pollContext);
+
+  @Override
+  public void onRejectedItem(Result<T, Void> result, SourceCallbackContext sourceCallbackContext) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Row has been rejected for processing: {}", result.getOutput());
+    }
+
+    release(sourceCallbackContext);
+    // Rejected rows are not coming back through the callbacks, so their claim is released right away instead of expiring
+    strategy.acknowledge(sourceCallbackContext, false);
+    if (statistics != null) {
+      statistics.itemRejected();
+    }
+  }
+
+  /**
+   * {@link RowDispatcher} which keeps track of the latest watermark among the dispatched rows, so that the lag of the listener
+   * can be measured
+   */
+  private final class WatermarkTracker implements RowDispatcher {
+
+    private final RowDispatcher delegate;
+    private final boolean tracking;
+    private Serializable latest;
+
+    private WatermarkTracker(RowDispatcher delegate, Serializable watermark) {
+      this.delegate = delegate;
+      // The journal sequence is not a point in time, so it's not worth tracking
+      this.tracking = watermarkColumn != null;
+      this.latest = watermark;
+    }
+
+    @Override
+    public boolean accept(Map<String, Object> row) {
+      if (tracking) {
+        latest = latest(latest, watermarkOf(row));
+      }
+
+      return delegate.accept(row);
+    }
+
+    @Override
+    public int getHeldRows() {
+      return delegate.getHeldRows();
+    }
+
+    @Override
+    public boolean complete() {
+      return delegate.complete();
+    }
+  }
+
+  /**
+   * The different statements a poll can issue, depending on the watermark obtained from previous polls
+   */
+  private enum PollShape {
+    ALL, AFTER_WATERMARK, AFTER_CURSOR, AT_WATERMARK, CLAIMED
+  }
+
+  /**
+   * The statements the polls read the table through
+   */
+  private final class TableStatements implements Poll.Statements {
+
+    @Override
+    public int select(DbConnection connection, Serializable watermark, Integer segment, RowConsumer consumer)
+        throws SQLException {
+      return AbstractRowListener.this.select(connection, compiledStatements(connection), watermark, segment, consumer);
+    }
+
+    @Override
+    public int selectAt(DbConnection connection, Serializable watermark, RowConsumer consumer) throws SQLException {
+      return execute(connection, watermarkGroupStatementFactory, compiledStatements(connection).get(PollShape.AT_WATERMARK),
+                     singletonMap(WATERMARK_PARAM_NAME, watermark), consumer);
+    }
+
+    @Override
+    public int selectClaimed(DbConnection connection, String token, RowConsumer consumer) throws SQLException {
+      return execute(connection, statementFactory, compiledStatements(connection).get(PollShape.CLAIMED),
+                     singletonMap(RowClaimer.CLAIM_TOKEN_PARAM_NAME, token), consumer);
+    }
+  }
+}
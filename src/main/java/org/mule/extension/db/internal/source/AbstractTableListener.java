@@ -0,0 +1,254 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.db.commons.AbstractDbConnector;
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.executor.SelectExecutor;
+import org.mule.db.commons.internal.domain.query.Query;
+import org.mule.db.commons.internal.domain.statement.QueryStatementFactory;
+import org.mule.db.commons.internal.result.row.NonStreamingInsensitiveMapRowHandler;
+import org.mule.extension.db.api.param.QuerySettings;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowFilter;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.extension.api.annotation.param.Config;
+import org.mule.runtime.extension.api.annotation.param.Connection;
+import org.mule.runtime.extension.api.annotation.param.DefaultEncoding;
+import org.mule.runtime.extension.api.annotation.param.NullSafe;
+import org.mule.runtime.extension.api.annotation.param.ParameterGroup;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.source.PollContext;
+import org.mule.runtime.extension.api.runtime.source.PollingSource;
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static org.mule.db.commons.internal.operation.BaseDbOperations.DEFAULT_FETCH_SIZE;
+import static org.mule.runtime.api.meta.model.parameter.ParameterGroupModel.ADVANCED;
+import static org.mule.runtime.extension.api.runtime.source.PollContext.PollItemStatus.SOURCE_STOPPING;
+
+/**
+ * Base class for the polling sources which select from one or many tables at a regular interval.
+ * <p>
+ * It takes care of what every poll does regardless of how the tables are read: obtaining the connection of the poll and
+ * releasing it afterwards, building the statement factories out of the advanced query settings, streaming the rows of each
+ * query to a consumer as the cursor is read, and handing the generated messages over to the {@link PollContext}.
+ *
+ * @param <T> the type of the generated messages payload
+ * @param <A> the type of the generated messages attributes
+ * @since 2.0.0
+ */
+public abstract class AbstractTableListener<T, A> extends PollingSource<T, A> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTableListener.class);
+
+  @DefaultEncoding
+  private String encoding;
+
+  @ParameterGroup(name = ADVANCED)
+  @NullSafe
+  private QuerySettings settings;
+
+  @Config
+  private AbstractDbConnector config;
+
+  @Connection
+  private ConnectionProvider<DbConnection> connectionProvider;
+
+  private Charset charset;
+
+  @Override
+  protected void doStart() throws MuleException {
+    charset = Charset.forName(encoding);
+  }
+
+  @Override
+  public void poll(PollContext<T, A> pollContext) {
+    if (pollContext.isSourceStopping()) {
+      return;
+    }
+
+    long start = nanoTime();
+    if (!isDue(start)) {
+      return;
+    }
+
+    DbConnection connection;
+    try {
+      connection = connectionProvider.connect();
+    } catch (Exception e) {
+      if (e instanceof ConnectionException) {
+        pollContext.onConnectionException((ConnectionException) e);
+      }
+      LOGGER.error(format("Could not obtain connection while trying to poll %s. %s", describeTables(), e.getMessage()), e);
+      return;
+    }
+
+    try {
+      poll(pollContext, connection, start);
+    } catch (Exception e) {
+      LOGGER.error(format("Failed to query %s for new rows. %s", describeTables(), e.getMessage()), e);
+    } finally {
+      connectionProvider.disconnect(connection);
+    }
+  }
+
+  /**
+   * Decides whether a poll triggered by the scheduling strategy actually reads the tables, before its connection is obtained
+   *
+   * @param start the time at which the poll started, as given by {@link System#nanoTime()}
+   * @return {@code true} by default
+   */
+  protected boolean isDue(long start) {
+    return true;
+  }
+
+  /**
+   * Reads the tables through the connection of the poll, which is released once this method returns
+   *
+   * @param pollContext the context of the current poll
+   * @param connection  the connection of the poll
+   * @param start       the time at which the poll started, as given by {@link System#nanoTime()}
+   * @throws Exception if the tables could not be read
+   */
+  protected abstract void poll(PollContext<T, A> pollContext, DbConnection connection, long start) throws Exception;
+
+  /**
+   * @return the tables the listener polls, as they are referred to in log messages, such as {@code table 'ORDERS'}
+   */
+  protected abstract String describeTables();
+
+  /**
+   * Creates the factory of the statements which read the tables, out of the advanced query settings
+   *
+   * @param maxRows the maximum number of rows each statement returns, or {@code null} for no limit
+   * @return a {@link QueryStatementFactory}
+   */
+  protected QueryStatementFactory createStatementFactory(Integer maxRows) {
+    QueryStatementFactory factory = new QueryStatementFactory();
+    factory.setFetchSize(settings.getFetchSize() != null ? settings.getFetchSize() : DEFAULT_FETCH_SIZE);
+    factory.setQueryTimeout(new Long(settings.getQueryTimeoutUnit().toSeconds(settings.getQueryTimeout())).intValue());
+    if (maxRows != null) {
+      factory.setMaxRows(maxRows);
+    }
+
+    return factory;
+  }
+
+  /**
+   * Executes a query, handing its rows over to the given {@code consumer} as the cursor is read, so that only the rows
+   * buffered by the driver are held in memory at any given time
+   *
+   * @param connection       the acting connection
+   * @param statementFactory the factory of the statement which executes the query
+   * @param query            the query to execute
+   * @param consumer         the consumer of the rows
+   * @param filter           a filter which discards rows before they are built, or {@code null} to build every row
+   * @param timings          the timings of the poll, which get the time spent executing the query, or {@code null}
+   * @return the number of rows read, including the discarded ones
+   * @throws SQLException if the query could not be executed
+   */
+  protected int read(DbConnection connection, QueryStatementFactory statementFactory, Query query, RowConsumer consumer,
+                     RowFilter filter, PollTimings timings)
+      throws SQLException {
+    StreamingRowResultSetHandler resultSetHandler =
+        new StreamingRowResultSetHandler(new NonStreamingInsensitiveMapRowHandler(connection, charset), consumer, filter);
+
+    long start = nanoTime();
+    Object rows = new SelectExecutor(statementFactory, resultSetHandler).execute(connection, query);
+
+    if (timings != null) {
+      timings.executed(nanoTime() - start, resultSetHandler.getReadNanos(), resultSetHandler.getConsumeNanos());
+    }
+
+    return rows instanceof Integer ? (Integer) rows : 0;
+  }
+
+  /**
+   * Hands a message over to the {@link PollContext}
+   *
+   * @param pollContext the context of the current poll
+   * @param id          the ID of the message, or {@code null} if idempotency is not enforced for it
+   * @param watermark   the watermark of the message, or {@code null} if it doesn't update the watermark
+   * @param result      the payload and attributes of the message
+   * @param dispatched  invoked with the {@link SourceCallbackContext} of the message once it's created, or {@code null}
+   * @return whether the source keeps accepting messages
+   */
+  protected static <T, A> boolean dispatch(PollContext<T, A> pollContext, String id, Serializable watermark,
+                                           Result<T, A> result, Consumer<SourceCallbackContext> dispatched) {
+    return pollContext.accept(item -> {
+      if (id != null) {
+        item.setId(id);
+      }
+
+      if (watermark != null) {
+        item.setWatermark(watermark);
+      }
+
+      item.setResult(result);
+      if (dispatched != null) {
+        dispatched.accept(item.getSourceCallbackContext());
+      }
+    }) != SOURCE_STOPPING;
+  }
+
+  /**
+   * Returns the greatest of two watermark values, any of which may be {@code null}
+   */
+  @SuppressWarnings("unchecked")
+  protected static Serializable latest(Serializable watermark, Serializable other) {
+    if (watermark == null || other == null) {
+      return watermark == null ? other : watermark;
+    }
+
+    return ((Comparable<Serializable>) other).compareTo(watermark) > 0 ? other : watermark;
+  }
+
+  protected QuerySettings getSettings() {
+    return settings;
+  }
+
+  protected AbstractDbConnector getConfig() {
+    return config;
+  }
+
+  protected ConnectionProvider<DbConnection> getConnectionProvider() {
+    return connectionProvider;
+  }
+
+  /**
+   * Receives the rows read by a poll, in the order they are read, and dispatches them to the {@link PollContext}
+   */
+  protected interface RowDispatcher extends RowConsumer {
+
+    /**
+     * @return how many of the accepted rows are still held by the dispatcher, without having been dispatched yet
+     */
+    default int getHeldRows() {
+      return 0;
+    }
+
+    /**
+     * Invoked once the poll has successfully read all its rows, so that any rows still held by the dispatcher get dispatched
+     *
+     * @return whether the held rows were dispatched
+     */
+    default boolean complete() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Decides which of the polls triggered by the scheduling strategy of a polling source are actually executed, so that the
+ * effective polling interval adapts to the observed backlog.
+ * <p>
+ * Each poll which returns no rows doubles the interval, up to a maximum. Each poll which returns rows halves it, down to the
+ * frequency of the scheduling strategy, which is the minimum interval since polls are never triggered more often than that,
+ * so that a table which becomes busy after being idle is soon polled at full pace again. Each poll which could not read all
+ * the available rows takes the interval straight back to that frequency. The back off starts from that frequency too, as
+ * observed between triggered polls.
+ * <p>
+ * Since triggers don't happen at exact times, a poll is considered due when it is triggered closer to its scheduled time than
+ * to the next trigger.
+ *
+ * @since 2.0.0
+ */
+final class AdaptivePollSchedule {
+
+  private final long maxIntervalNanos;
+
+  private long intervalNanos = 0;
+  private long nextPollNanos;
+  private Long lastPollNanos;
+  private Long lastTriggerNanos;
+  private long triggerIntervalNanos = 0;
+  private volatile long effectiveIntervalNanos = 0;
+  private volatile long backlogEstimate = 0;
+
+  /**
+   * @param maxIntervalNanos the maximum amount of time between two executed polls
+   * @param nowNanos         the current value of {@link System#nanoTime()}
+   */
+  AdaptivePollSchedule(long maxIntervalNanos, long nowNanos) {
+    this.maxIntervalNanos = maxIntervalNanos;
+    this.nextPollNanos = nowNanos;
+  }
+
+  /**
+   * @param nowNanos the current value of {@link System#nanoTime()}
+   * @return whether a poll triggered at the given time should be executed
+   */
+  synchronized boolean isDue(long nowNanos) {
+    if (lastTriggerNanos != null) {
+      long sinceLastTrigger = nowNanos - lastTriggerNanos;
+      triggerIntervalNanos = triggerIntervalNanos == 0 ? sinceLastTrigger : min(triggerIntervalNanos, sinceLastTrigger);
+    }
+
+    lastTriggerNanos = nowNanos;
+    return nowNanos - nextPollNanos + triggerIntervalNanos / 2 >= 0;
+  }
+
+  /**
+   * Adapts the interval to the outcome of an executed poll
+   *
+   * @param startNanos the value of {@link System#nanoTime()} when the poll started
+   * @param outcome    what the poll read
+   */
+  synchronized void onPoll(long startNanos, PollOutcome outcome) {
+    if (outcome.getRows() == 0) {
+      intervalNanos = min(maxIntervalNanos, max(triggerIntervalNanos, intervalNanos) * 2);
+    } else if (!outcome.isDrained()) {
+      intervalNanos = 0;
+    } else {
+      intervalNanos = intervalNanos / 2 < triggerIntervalNanos ? 0 : intervalNanos / 2;
+    }
+
+    if (lastPollNanos != null) {
+      effectiveIntervalNanos = startNanos - lastPollNanos;
+    }
+
+    lastPollNanos = startNanos;
+    nextPollNanos = startNanos + intervalNanos;
+    backlogEstimate = outcome.isDrained() ? 0 : outcome.getRows();
+  }
+
+  /**
+   * @return the time elapsed between the starts of the last two executed polls, in nanoseconds. Zero until two polls have been
+   *         executed
+   */
+  long getEffectiveIntervalNanos() {
+    return effectiveIntervalNanos;
+  }
+
+  /**
+   * @return the number of rows which the last poll was not able to read, as a lower bound estimate. Zero if the last poll read
+   *         all the available rows
+   */
+  long getBacklogEstimate() {
+    return backlogEstimate;
+  }
+}
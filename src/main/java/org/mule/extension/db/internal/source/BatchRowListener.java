@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.metadata.MetadataScope;
+import org.mule.runtime.extension.api.annotation.param.Optional;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.annotation.source.ClusterSupport;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.source.PollContext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.lang.String.format;
+import static java.lang.String.join;
+import static org.mule.runtime.api.meta.ExpressionSupport.NOT_SUPPORTED;
+import static org.mule.runtime.extension.api.annotation.source.SourceClusterSupport.DEFAULT_PRIMARY_NODE_ONLY;
+
+/**
+ * Selects from a table at a regular interval and generates one message per each batch of up to {@link #batchSize} obtained
+ * rows.
+ * <p>
+ * Watermark and id columns work just like in the {@link RowListener}, but are tracked per batch: the watermark of a batch is the
+ * greatest watermark among its rows, and its ID is made of the IDs of all its rows, so idempotency is only enforced for batches
+ * in which every row has an ID.
+ *
+ * @since 2.0.0
+ */
+@MetadataScope(outputResolver = BatchRowListenerMetadataResolver.class, keysResolver = TableKeyResolver.class)
+@DisplayName("On Table Row Batch")
+@Summary("Triggers a message per each batch of rows in a table")
+@Alias("batch-listener")
+@ClusterSupport(DEFAULT_PRIMARY_NODE_ONLY)
+public class BatchRowListener extends AbstractRowListener<List<Map<String, Object>>> {
+
+  /**
+   * Maximum number of rows per generated message
+   */
+  @Parameter
+  @Optional(defaultValue = "100")
+  @Expression(NOT_SUPPORTED)
+  @Summary("Maximum number of rows per generated message")
+  private int batchSize = 100;
+
+  @Override
+  protected void doStart() throws MuleException {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException(format("Batch size must be greater than zero, but %d was found", batchSize));
+    }
+
+    super.doStart();
+  }
+
+  /**
+   * Each message already carries many rows, so marking them right away costs little and keeps them from being delivered again
+   * after an abrupt stop
+   */
+  @Override
+  protected boolean marksConsumedRowsOnCompletion() {
+    return true;
+  }
+
+  @Override
+  protected RowDispatcher createDispatcher(PollContext<List<Map<String, Object>>, Void> pollContext) {
+    return new RowBatchDispatcher(pollContext);
+  }
+
+  private final class RowBatchDispatcher implements RowDispatcher {
+
+    private final PollContext<List<Map<String, Object>>, Void> pollContext;
+    private List<Map<String, Object>> rows = new ArrayList<>(batchSize);
+
+    private RowBatchDispatcher(PollContext<List<Map<String, Object>>, Void> pollContext) {
+      this.pollContext = pollContext;
+    }
+
+    @Override
+    public boolean accept(Map<String, Object> row) {
+      rows.add(row);
+      return rows.size() < batchSize || dispatch();
+    }
+
+    @Override
+    public int getHeldRows() {
+      return rows.size();
+    }
+
+    @Override
+    public boolean complete() {
+      return rows.isEmpty() || dispatch();
+    }
+
+    private boolean dispatch() {
+      List<Map<String, Object>> batch = rows;
+      rows = new ArrayList<>(batchSize);
+
+      List<String> ids = new ArrayList<>(batch.size());
+      Serializable watermark = null;
+      for (Map<String, Object> row : batch) {
+        String id = idOf(row);
+        if (id != null) {
+          ids.add(id);
+        }
+
+        watermark = latest(watermark, watermarkOf(row));
+      }
+
+      // The batch is only identified by its rows when all of them have an ID
+      return AbstractTableListener.dispatch(pollContext, ids.size() == batch.size() ? join(",", ids) : null, watermark,
+                                            Result.<List<Map<String, Object>>, Void>builder().output(batch).build(),
+                                            callbackContext -> track(callbackContext, batch));
+    }
+  }
+}
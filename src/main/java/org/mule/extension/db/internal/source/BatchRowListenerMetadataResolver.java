@@ -0,0 +1,32 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.metadata.api.model.MetadataType;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.metadata.MetadataContext;
+import org.mule.runtime.api.metadata.MetadataResolvingException;
+
+/**
+ * Metadata resolver for the {@link BatchRowListener}, which outputs an array of the rows described by the
+ * {@link RowListenerMetadataResolver}
+ *
+ * @since 2.0.0
+ */
+public class BatchRowListenerMetadataResolver extends RowListenerMetadataResolver {
+
+  @Override
+  public MetadataType getOutputType(MetadataContext context, String table)
+      throws MetadataResolvingException, ConnectionException {
+    return context.getTypeBuilder().arrayType().of(super.getOutputType(context, table)).build();
+  }
+
+  @Override
+  public String getResolverName() {
+    return "BatchRowListenerResolver";
+  }
+}
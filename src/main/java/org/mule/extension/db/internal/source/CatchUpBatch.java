@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Optional.ofNullable;
+
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * {@link RowConsumer} for one of the bounded queries a {@link RowListener} issues while catching up with a table.
+ * <p>
+ * Rows are expected in watermark order. Rows sharing the greatest watermark seen so far are held back until a row with a
+ * greater watermark shows up, because when the batch turns out to be full, the rows of that last watermark value which didn't
+ * fit in it would be skipped by the next batch. In that case the held rows are discarded and the next batch starts from the
+ * watermark of the last dispatched row, so they are read again together with the rest of their group. When the whole batch
+ * shares a single watermark, nothing is dispatched either, since the group needs to be read at once by an unbounded query.
+ * <p>
+ * Whether the batch is full depends on the rows its query returned, including the ones which were skipped before reaching the
+ * batch, such as the ones being processed.
+ * <p>
+ * When the cursor is unique for each row, as it happens with a {@link CompositeWatermark}, no rows need to be held back and
+ * every row is dispatched as soon as it is read.
+ *
+ * @since 2.0.0
+ */
+final class CatchUpBatch implements RowConsumer {
+
+  private final int size;
+  private final Function<Map<String, Object>, Serializable> cursor;
+  private final boolean uniqueCursor;
+  private final RowConsumer delegate;
+  private final List<Map<String, Object>> pending = new ArrayList<>();
+
+  private Serializable pendingWatermark;
+  private Serializable lastWatermark;
+  private boolean full = false;
+  private boolean stopped = false;
+
+  /**
+   * @param size         the maximum amount of rows the query for this batch returns
+   * @param cursor       obtains the value the rows are ordered by
+   * @param uniqueCursor whether the {@code cursor} yields a different value for each row
+   * @param delegate     the {@link RowConsumer} the rows are dispatched to
+   */
+  CatchUpBatch(int size, Function<Map<String, Object>, Serializable> cursor, boolean uniqueCursor, RowConsumer delegate) {
+    this.size = size;
+    this.cursor = cursor;
+    this.uniqueCursor = uniqueCursor;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public boolean accept(Map<String, Object> row) {
+    Serializable watermark = cursor.apply(row);
+    if (uniqueCursor) {
+      if (!delegate.accept(row)) {
+        stopped = true;
+      } else if (watermark != null) {
+        lastWatermark = watermark;
+      }
+
+      return !stopped;
+    }
+
+    if (!pending.isEmpty() && !Objects.equals(watermark, pendingWatermark)) {
+      flush();
+    }
+
+    pending.add(row);
+    pendingWatermark = watermark;
+
+    return !stopped;
+  }
+
+  /**
+   * Completes the batch once its query has been fully read. Held rows are dispatched unless the batch is full, in which case
+   * they are left for the next batch, or for an unbounded query if the whole batch shares the same watermark, since there is
+   * no way of resuming in the middle of it.
+   *
+   * @param read the number of rows the query of the batch returned, including the ones which didn't reach the batch
+   * @return whether the batch is full of rows sharing the {@link #getHeldWatermark() held watermark}, which need to be read by
+   *         an unbounded query
+   */
+  boolean complete(int read) {
+    full = read >= size;
+    if (stopped || uniqueCursor) {
+      return false;
+    }
+
+    if (!isFull()) {
+      flush();
+      return false;
+    }
+
+    boolean singleWatermark = lastWatermark == null && !pending.isEmpty() && pendingWatermark != null;
+    if (lastWatermark == null && !singleWatermark) {
+      // Rows without a watermark can't be read again, so they can only be dispatched
+      flush();
+    }
+
+    pending.clear();
+    return singleWatermark;
+  }
+
+  /**
+   * @return whether the query returned as many rows as the batch size, meaning that more rows are probably available
+   */
+  boolean isFull() {
+    return !stopped && full;
+  }
+
+  /**
+   * @return the watermark of the rows held back by the batch, if any
+   */
+  Optional<Serializable> getHeldWatermark() {
+    return ofNullable(pendingWatermark);
+  }
+
+  /**
+   * @return the watermark of the last dispatched row, if any
+   */
+  Optional<Serializable> getLastWatermark() {
+    return ofNullable(lastWatermark);
+  }
+
+  private void flush() {
+    for (Map<String, Object> row : pending) {
+      if (!delegate.accept(row)) {
+        stopped = true;
+        break;
+      }
+    }
+
+    if (pendingWatermark != null) {
+      lastWatermark = pendingWatermark;
+    }
+
+    pending.clear();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * {@link PollStrategy} which reads the rows in watermark order through bounded queries. As long as those queries return full
+ * batches, more of them are issued within the same poll, each one starting after the last row of the previous one, until the
+ * table is drained or the time budget of the poll is exhausted.
+ * <p>
+ * When all the rows of a batch share the same watermark value, the rows with that value are read at once by a query with no
+ * limit, see {@link CatchUpBatch}.
+ *
+ * @since 2.0.0
+ */
+final class CatchUpStrategy implements PollStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CatchUpStrategy.class);
+
+  private final String table;
+  private final int batchSize;
+  private final long maxCatchUpNanos;
+  private final Function<Map<String, Object>, Serializable> watermark;
+  private final boolean uniqueCursor;
+
+  /**
+   * @param table           the table being read
+   * @param batchSize       the maximum number of rows each query returns
+   * @param maxCatchUpNanos the maximum amount of time a poll keeps issuing queries, in nanoseconds
+   * @param watermark       obtains the watermark of a row
+   * @param uniqueCursor    whether the {@code watermark} yields a different value for each row
+   */
+  CatchUpStrategy(String table, int batchSize, long maxCatchUpNanos, Function<Map<String, Object>, Serializable> watermark,
+                  boolean uniqueCursor) {
+    this.table = table;
+    this.batchSize = batchSize;
+    this.maxCatchUpNanos = maxCatchUpNanos;
+    this.watermark = watermark;
+    this.uniqueCursor = uniqueCursor;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws SQLException {
+    long deadline = nanoTime() + maxCatchUpNanos;
+    Serializable current = poll.getWatermark();
+    int rows = 0;
+
+    CatchUpBatch batch;
+    boolean advanced;
+    do {
+      batch = new CatchUpBatch(batchSize, watermark, uniqueCursor, poll.getDispatcher());
+      int read = poll.select(poll.getConnection(), current, null, batch);
+
+      Serializable previous = current;
+      if (batch.complete(read)) {
+        // Resuming after that watermark would skip the rows of the group which didn't fit in the batch
+        Serializable group = batch.getHeldWatermark().get();
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug(format("All the %d rows read from table '%s' share the same watermark value, reading all the rows with "
+              + "that value at once. Consider increasing the catch up batch size", batchSize, table));
+        }
+
+        read = poll.selectAt(group, poll.getDispatcher());
+        current = group;
+      } else {
+        current = batch.getLastWatermark().orElse(current);
+      }
+
+      rows += read;
+      // The watermark is held before a gap of the journal sequence, reading again from there would only return the same rows
+      advanced = !Objects.equals(previous, current);
+    } while (batch.isFull() && advanced && nanoTime() < deadline && !poll.isStopping());
+
+    return new PollOutcome(rows, !batch.isFull());
+  }
+}
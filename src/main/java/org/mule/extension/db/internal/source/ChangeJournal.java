@@ -0,0 +1,278 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.sql.Types.BINARY;
+import static java.sql.Types.CHAR;
+import static java.sql.Types.DECIMAL;
+import static java.sql.Types.NCHAR;
+import static java.sql.Types.NUMERIC;
+import static java.sql.Types.NVARCHAR;
+import static java.sql.Types.VARBINARY;
+import static java.sql.Types.VARCHAR;
+import static java.util.Arrays.asList;
+import static java.util.Locale.ROOT;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+
+import java.io.Serializable;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Journal table into which database triggers record the ID of each row inserted, updated or deleted on a table, together with
+ * the kind of change and a sequence number assigned by the database.
+ * <p>
+ * The journal is read in sequence order and joined back to the journaled table, so each read row holds the current values of
+ * the changed row, or just its ID if it was deleted. Changes to the value of the ID column itself are recorded as an update of
+ * the row with the new ID.
+ *
+ * @since 2.0.0
+ */
+final class ChangeJournal {
+
+  /**
+   * Key under which the sequence number of the change is added to each row
+   */
+  static final String SEQUENCE_COLUMN = "CHANGE_SEQUENCE";
+
+  /**
+   * Key under which the name of the {@link Operation} which changed the row is added to each row
+   */
+  static final String OPERATION_COLUMN = "CHANGE_OPERATION";
+
+  private static final String ROW_ID_COLUMN = "CHANGE_ROW_ID";
+  private static final String JOURNAL_ALIAS = "J";
+  private static final String SOURCE_ALIAS = "S";
+  private static final List<String> JOURNAL_COLUMNS = asList("SEQ", "ROW_ID", "OPERATION");
+
+  private final String table;
+  private final String idColumn;
+  private final String journalTable;
+
+  /**
+   * @param table        the journaled table
+   * @param idColumn     the column which identifies each row of the {@code table}
+   * @param journalTable the name of the journal table
+   */
+  ChangeJournal(String table, String idColumn, String journalTable) {
+    this.table = table;
+    this.idColumn = idColumn;
+    this.journalTable = journalTable;
+  }
+
+  /**
+   * Creates the journal table and the triggers which populate it, unless they already exist
+   *
+   * @param connection the acting connection
+   * @throws SQLException             if the journal could not be installed
+   * @throws IllegalArgumentException if the ID column doesn't exist, or a table which is not a journal already exists with the
+   *                                  name of the journal table
+   */
+  void install(DbConnection connection) throws SQLException {
+    ChangeJournalDialect dialect = ChangeJournalDialect.of(connection);
+    Connection jdbcConnection = connection.getJdbcConnection();
+    DatabaseMetaData metaData = jdbcConnection.getMetaData();
+
+    try (Statement statement = jdbcConnection.createStatement()) {
+      Set<String> journalColumns = columnsOf(metaData, journalTable);
+      if (journalColumns.isEmpty()) {
+        statement.execute(dialect.createJournal(journalTable, idTypeOf(metaData)));
+      } else if (!journalColumns.containsAll(JOURNAL_COLUMNS)) {
+        throw new IllegalArgumentException(format("Table '%s' already exists but it's not a change journal, it should have "
+            + "columns %s but has %s instead", journalTable, JOURNAL_COLUMNS, journalColumns));
+      }
+
+      for (Operation operation : Operation.values()) {
+        String trigger = journalTable + "_" + operation.getCode();
+        if (!dialect.triggerExists(jdbcConnection, trigger)) {
+          statement.execute(dialect.createTrigger(trigger, operation, table, journalTable, idColumn));
+        }
+      }
+    }
+
+    if (!jdbcConnection.getAutoCommit()) {
+      jdbcConnection.commit();
+    }
+  }
+
+  /**
+   * Creates the {@code SELECT} which reads the journal joined to the journaled table, without filters nor ordering
+   *
+   * @param projection the columns of the journaled table to select, already {@link #qualify(String) qualified}
+   * @return a {@code SELECT} statement
+   */
+  String select(String projection) {
+    return format("SELECT %s AS %s, %s.OPERATION AS %s, %s.ROW_ID AS %s, %s FROM %s %s LEFT JOIN %s %s ON %s = %s.ROW_ID",
+                  getSequenceExpression(), SEQUENCE_COLUMN, JOURNAL_ALIAS, OPERATION_COLUMN, JOURNAL_ALIAS, ROW_ID_COLUMN,
+                  projection, journalTable, JOURNAL_ALIAS, table, SOURCE_ALIAS, qualify(idColumn), JOURNAL_ALIAS);
+  }
+
+  /**
+   * @return the expression which refers to the sequence of the journal within the {@link #select(String)} statement
+   */
+  String getSequenceExpression() {
+    return JOURNAL_ALIAS + ".SEQ";
+  }
+
+  /**
+   * @param column a column of the journaled table, or {@code *}
+   * @return the expression which refers to that column within the {@link #select(String)} statement
+   */
+  String qualify(String column) {
+    return SOURCE_ALIAS + "." + column;
+  }
+
+  /**
+   * Turns a row read through the {@link #select(String)} statement into the row to dispatch, which holds the columns of the
+   * journaled table, its ID even when the row was deleted, and the {@link #SEQUENCE_COLUMN} and {@link #OPERATION_COLUMN}.
+   *
+   * @param row a row read from the journal
+   * @return the given {@code row}, modified
+   */
+  Map<String, Object> toChange(Map<String, Object> row) {
+    Object rowId = row.remove(ROW_ID_COLUMN);
+    if (row.get(idColumn) == null) {
+      row.put(idColumn, rowId);
+    }
+
+    row.put(OPERATION_COLUMN, Operation.of(row.get(OPERATION_COLUMN)).name());
+    return row;
+  }
+
+  /**
+   * Deletes the journal entries which were already dispatched
+   *
+   * @param connection the acting connection
+   * @param sequence   the watermark of the listener, which {@link JournalSequence} holds before any entry which may still
+   *                   show up
+   * @throws SQLException if the entries could not be deleted
+   */
+  void prune(DbConnection connection, Serializable sequence) throws SQLException {
+    Connection jdbcConnection = connection.getJdbcConnection();
+    try (PreparedStatement statement = jdbcConnection.prepareStatement("DELETE FROM " + journalTable + " WHERE SEQ <= ?")) {
+      statement.setObject(1, sequence);
+      statement.executeUpdate();
+    }
+
+    if (!jdbcConnection.getAutoCommit()) {
+      jdbcConnection.commit();
+    }
+  }
+
+  private String idTypeOf(DatabaseMetaData metaData) throws SQLException {
+    for (String tableName : casingsOf(table)) {
+      for (String columnName : casingsOf(idColumn)) {
+        try (ResultSet column = metaData.getColumns(null, null, tableName, columnName)) {
+          if (column.next()) {
+            return typeOf(column);
+          }
+        }
+      }
+    }
+
+    throw new IllegalArgumentException(format("Column '%s' was not found in table '%s'", idColumn, table));
+  }
+
+  private static String typeOf(ResultSet column) throws SQLException {
+    String type = column.getString("TYPE_NAME");
+    switch (column.getInt("DATA_TYPE")) {
+      case CHAR:
+      case NCHAR:
+      case VARCHAR:
+      case NVARCHAR:
+      case BINARY:
+      case VARBINARY:
+        return format("%s(%d)", type, column.getInt("COLUMN_SIZE"));
+      case DECIMAL:
+      case NUMERIC:
+        return format("%s(%d, %d)", type, column.getInt("COLUMN_SIZE"), column.getInt("DECIMAL_DIGITS"));
+      default:
+        return type;
+    }
+  }
+
+  private static Set<String> columnsOf(DatabaseMetaData metaData, String tableName) throws SQLException {
+    Set<String> columns = new HashSet<>();
+    for (String name : casingsOf(tableName)) {
+      try (ResultSet resultSet = metaData.getColumns(null, null, name, null)) {
+        while (resultSet.next()) {
+          columns.add(resultSet.getString("COLUMN_NAME").toUpperCase(ROOT));
+        }
+      }
+
+      if (!columns.isEmpty()) {
+        break;
+      }
+    }
+
+    return columns;
+  }
+
+  /**
+   * Unquoted identifiers are stored in upper case by some databases and in lower case by others, while catalog lookups are
+   * case sensitive
+   */
+  private static Set<String> casingsOf(String identifier) {
+    Set<String> casings = new LinkedHashSet<>();
+    casings.add(identifier);
+    casings.add(identifier.toUpperCase(ROOT));
+    casings.add(identifier.toLowerCase(ROOT));
+    return casings;
+  }
+
+  /**
+   * The kinds of changes recorded in the journal
+   */
+  enum Operation {
+
+    INSERT("I", true), UPDATE("U", true), DELETE("D", false);
+
+    private final String code;
+    private final boolean newRow;
+
+    Operation(String code, boolean newRow) {
+      this.code = code;
+      this.newRow = newRow;
+    }
+
+    /**
+     * @return the code which represents this operation in the journal
+     */
+    String getCode() {
+      return code;
+    }
+
+    /**
+     * @return whether the trigger of this operation reads the ID from the new version of the row, as opposed to the old one
+     */
+    boolean isNewRow() {
+      return newRow;
+    }
+
+    static Operation of(Object code) {
+      String value = code != null ? code.toString().trim() : null;
+      for (Operation operation : values()) {
+        if (operation.code.equals(value)) {
+          return operation;
+        }
+      }
+
+      throw new IllegalStateException(format("Unknown change journal operation '%s'", code));
+    }
+  }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.util.Locale.ROOT;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.extension.db.internal.source.ChangeJournal.Operation;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * The different syntaxes used to create the journal table and triggers of a {@link ChangeJournal}.
+ *
+ * @since 2.0.0
+ */
+enum ChangeJournalDialect {
+
+  /**
+   * Apache Derby
+   */
+  DERBY {
+
+    @Override
+    String sequenceDefinition() {
+      return "BIGINT GENERATED ALWAYS AS IDENTITY PRIMARY KEY";
+    }
+
+    @Override
+    String createTrigger(String name, Operation operation, String table, String journalTable, String idColumn) {
+      String transitionRow = operation.isNewRow() ? "NEW" : "OLD";
+      return format("CREATE TRIGGER %s AFTER %s ON %s REFERENCING %s AS CHANGED FOR EACH ROW "
+          + "INSERT INTO %s (ROW_ID, OPERATION) VALUES (CHANGED.%s, '%s')", name, operation.name(), table, transitionRow,
+                    journalTable, idColumn, operation.getCode());
+    }
+
+    @Override
+    boolean triggerExists(Connection connection, String name) throws SQLException {
+      return exists(connection, "SELECT 1 FROM SYS.SYSTRIGGERS T JOIN SYS.SYSSCHEMAS S ON T.SCHEMAID = S.SCHEMAID "
+          + "WHERE S.SCHEMANAME = CURRENT SCHEMA AND T.TRIGGERNAME = ?", name.toUpperCase(ROOT));
+    }
+  },
+
+  /**
+   * MySQL and MariaDB
+   */
+  MYSQL {
+
+    @Override
+    String sequenceDefinition() {
+      return "BIGINT AUTO_INCREMENT PRIMARY KEY";
+    }
+
+    @Override
+    String createTrigger(String name, Operation operation, String table, String journalTable, String idColumn) {
+      String transitionRow = operation.isNewRow() ? "NEW" : "OLD";
+      return format("CREATE TRIGGER %s AFTER %s ON %s FOR EACH ROW "
+          + "INSERT INTO %s (ROW_ID, OPERATION) VALUES (%s.%s, '%s')", name, operation.name(), table, journalTable,
+                    transitionRow, idColumn, operation.getCode());
+    }
+
+    @Override
+    boolean triggerExists(Connection connection, String name) throws SQLException {
+      return exists(connection, "SELECT 1 FROM information_schema.TRIGGERS "
+          + "WHERE TRIGGER_SCHEMA = DATABASE() AND TRIGGER_NAME = ?", name);
+    }
+  };
+
+  /**
+   * @return the column definition of the journal sequence, which needs to be assigned by the database in insertion order
+   */
+  abstract String sequenceDefinition();
+
+  /**
+   * Creates the statement which installs the trigger recording one kind of change
+   *
+   * @param name         the name of the trigger
+   * @param operation    the kind of change the trigger records
+   * @param table        the table the trigger is installed on
+   * @param journalTable the journal table the trigger writes to
+   * @param idColumn     the column which identifies each row of the {@code table}
+   * @return a {@code CREATE TRIGGER} statement
+   */
+  abstract String createTrigger(String name, Operation operation, String table, String journalTable, String idColumn);
+
+  /**
+   * @param connection the acting connection
+   * @param name       the name of a trigger
+   * @return whether a trigger with the given {@code name} exists in the current schema
+   * @throws SQLException if the database catalog cannot be queried
+   */
+  abstract boolean triggerExists(Connection connection, String name) throws SQLException;
+
+  /**
+   * Creates the statement which creates the journal table
+   *
+   * @param journalTable the name of the journal table
+   * @param idType       the SQL type of the ID column of the journaled table
+   * @return a {@code CREATE TABLE} statement
+   */
+  String createJournal(String journalTable, String idType) {
+    return format("CREATE TABLE %s (SEQ %s, ROW_ID %s NOT NULL, OPERATION CHAR(1) NOT NULL)", journalTable,
+                  sequenceDefinition(), idType);
+  }
+
+  private static boolean exists(Connection connection, String sql, String name) throws SQLException {
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      statement.setString(1, name);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        return resultSet.next();
+      }
+    }
+  }
+
+  /**
+   * Resolves the dialect to use for the database behind the given {@code connection}
+   *
+   * @param connection the acting connection
+   * @return a {@link ChangeJournalDialect}
+   * @throws SQLException             if the database metadata cannot be obtained
+   * @throws IllegalArgumentException if change journals are not supported for the database
+   */
+  static ChangeJournalDialect of(DbConnection connection) throws SQLException {
+    String product = connection.getJdbcConnection().getMetaData().getDatabaseProductName();
+    String normalized = product.toLowerCase(ROOT);
+
+    if (normalized.contains("derby")) {
+      return DERBY;
+    } else if (normalized.contains("mysql") || normalized.contains("mariadb")) {
+      return MYSQL;
+    }
+
+    throw new IllegalArgumentException(format("Trigger based change journals are not supported for %s databases", product));
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PollStrategy} which claims the rows nobody else claimed before reading them, so that many listeners can compete for
+ * the rows of a table, see {@link RowClaimer}. The claim of the rows of a message is finalized once the message is
+ * successfully processed, and released otherwise.
+ *
+ * @since 2.0.0
+ */
+final class ClaimStrategy implements PollStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ClaimStrategy.class);
+  private static final String CLAIM_TOKEN_VARIABLE = "claimToken";
+  private static final String CLAIMED_IDS_VARIABLE = "claimedRowIds";
+
+  private final String table;
+  private final String idColumn;
+  private final String claimColumn;
+  private final RowClaimer claimer;
+  private final Integer maxRows;
+  private final ConnectionProvider<DbConnection> connectionProvider;
+
+  /**
+   * @param table              the table the rows are claimed from
+   * @param idColumn           the column which identifies each row of the {@code table}
+   * @param claimColumn        the column which holds the claim token
+   * @param claimer            the {@link RowClaimer} of the {@code table}
+   * @param maxRows            the maximum number of rows each poll claims, or {@code null} for no limit
+   * @param connectionProvider provides the connections the claims are finalized or released through
+   */
+  ClaimStrategy(String table, String idColumn, String claimColumn, RowClaimer claimer, Integer maxRows,
+                ConnectionProvider<DbConnection> connectionProvider) {
+    this.table = table;
+    this.idColumn = idColumn;
+    this.claimColumn = claimColumn;
+    this.claimer = claimer;
+    this.maxRows = maxRows;
+    this.connectionProvider = connectionProvider;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws SQLException {
+    String token = claimer.claim(poll.getConnection(), maxRows);
+    int rows = poll.selectClaimed(token, poll.getDispatcher());
+    return new PollOutcome(rows, maxRows == null || rows < maxRows);
+  }
+
+  @Override
+  public void track(SourceCallbackContext callbackContext, List<Map<String, Object>> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+
+    List<Object> ids = new ArrayList<>(rows.size());
+    for (Map<String, Object> row : rows) {
+      ids.add(row.get(idColumn));
+    }
+
+    callbackContext.addVariable(CLAIM_TOKEN_VARIABLE, rows.get(0).get(claimColumn));
+    callbackContext.addVariable(CLAIMED_IDS_VARIABLE, ids);
+  }
+
+  @Override
+  public void acknowledge(SourceCallbackContext callbackContext, boolean success) {
+    List<Object> ids = callbackContext.<List<Object>>getVariable(CLAIMED_IDS_VARIABLE).orElse(null);
+    String token = callbackContext.<String>getVariable(CLAIM_TOKEN_VARIABLE).orElse(null);
+    if (ids == null || token == null) {
+      return;
+    }
+
+    DbConnection connection = null;
+    try {
+      connection = connectionProvider.connect();
+      if (success) {
+        claimer.complete(connection, token, ids);
+      } else {
+        claimer.release(connection, token, ids);
+      }
+    } catch (Exception e) {
+      LOGGER.error(format("Could not %s the claim of rows %s of table '%s', they will be available again once the claim "
+          + "expires. %s", success ? "finalize" : "release", ids, table, e.getMessage()), e);
+    } finally {
+      if (connection != null) {
+        connectionProvider.disconnect(connection);
+      }
+    }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Watermark of a {@link RowListener} made of the values of its watermark and ID columns, which allows a poll to resume right
+ * after the last processed row even when many rows share the same watermark value.
+ * <p>
+ * Instances are ordered by watermark and then by ID, which is the same order in which the listener reads the rows. Null
+ * components are considered lower than any other value.
+ *
+ * @since 2.0.0
+ */
+public final class CompositeWatermark implements Serializable, Comparable<CompositeWatermark> {
+
+  private static final long serialVersionUID = 4720152285063791537L;
+
+  private final Serializable watermark;
+  private final Serializable id;
+
+  public CompositeWatermark(Serializable watermark, Serializable id) {
+    this.watermark = watermark;
+    this.id = id;
+  }
+
+  /**
+   * @return the value of the watermark column
+   */
+  public Serializable getWatermark() {
+    return watermark;
+  }
+
+  /**
+   * @return the value of the ID column
+   */
+  public Serializable getId() {
+    return id;
+  }
+
+  @Override
+  public int compareTo(CompositeWatermark other) {
+    int result = compare(watermark, other.watermark);
+    return result != 0 ? result : compare(id, other.id);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Serializable value, Serializable other) {
+    if (value == null || other == null) {
+      return value == null ? (other == null ? 0 : -1) : 1;
+    }
+
+    if (!(value instanceof Comparable)) {
+      throw new IllegalStateException(format("Watermark values need to be comparable, but a value of type %s was found",
+                                             value.getClass().getName()));
+    }
+
+    return ((Comparable<Object>) value).compareTo(other);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof CompositeWatermark)) {
+      return false;
+    }
+
+    CompositeWatermark that = (CompositeWatermark) obj;
+    return Objects.equals(watermark, that.watermark) && Objects.equals(id, that.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(watermark, id);
+  }
+
+  @Override
+  public String toString() {
+    return "(" + watermark + ", " + id + ")";
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.lang.String.join;
+import static java.util.Collections.nCopies;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Marks the rows of a table as consumed once their messages are successfully processed, either by deleting them or by running
+ * a statement provided by the user for each of them.
+ * <p>
+ * Consumed rows are not marked right away. Their IDs are held until the next {@link #flush(DbConnection)}, which marks all of
+ * them at once, in a single transaction, through either one batch of the user statement or {@code DELETE ... WHERE ID IN}
+ * statements of up to {@link #IN_LIST_SIZE} IDs each. That way the cost of marking the rows is paid once per poll rather than
+ * once per row. Until then, {@link #isPending(Object)} allows polls to skip the rows which were already consumed.
+ *
+ * @since 2.0.0
+ */
+final class ConsumedRowMarker {
+
+  /**
+   * Name of the parameter through which the ID of each consumed row is bound to the user statement
+   */
+  static final String ID_PARAM_NAME = "id";
+
+  /**
+   * Maximum number of IDs listed in a single {@code DELETE} statement, which keeps it within the limits of every database
+   */
+  static final int IN_LIST_SIZE = 500;
+
+  private static final Pattern ID_PARAM_PATTERN = Pattern.compile(":" + ID_PARAM_NAME + "\\b");
+
+  private final String table;
+  private final String idColumn;
+  private final String sql;
+  private final int idOccurrences;
+  private final Set<Object> pending = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @param table     the table the rows belong to
+   * @param idColumn  the column which identifies each row of the {@code table}
+   * @param statement the statement which marks a row as consumed, referencing its ID through the {@link #ID_PARAM_NAME}
+   *                  parameter, or {@code null} to delete the consumed rows
+   */
+  ConsumedRowMarker(String table, String idColumn, String statement) {
+    this.table = table;
+    this.idColumn = idColumn;
+
+    if (statement != null) {
+      Matcher matcher = ID_PARAM_PATTERN.matcher(statement);
+      int occurrences = 0;
+      while (matcher.find()) {
+        occurrences++;
+      }
+
+      if (occurrences == 0) {
+        throw new IllegalArgumentException(format("The statement which marks the consumed rows of table '%s' needs to reference "
+            + "the ID of the row through the :%s parameter", table, ID_PARAM_NAME));
+      }
+
+      this.sql = matcher.replaceAll("?");
+      this.idOccurrences = occurrences;
+    } else {
+      this.sql = null;
+      this.idOccurrences = 0;
+    }
+  }
+
+  /**
+   * Registers rows which were successfully consumed, so that they are marked by the next {@link #flush(DbConnection)}
+   *
+   * @param ids the IDs of the rows
+   * @return the number of rows pending to be marked
+   */
+  int consumed(Collection<Object> ids) {
+    pending.addAll(ids);
+    return pending.size();
+  }
+
+  /**
+   * @param id the ID of a row
+   * @return whether the row was consumed but not yet marked
+   */
+  boolean isPending(Object id) {
+    return id != null && pending.contains(id);
+  }
+
+  /**
+   * Marks every pending row as consumed, in a single transaction. Rows are only forgotten once the transaction commits, so
+   * that if marking them fails they are marked by the next flush instead.
+   *
+   * @param connection the acting connection
+   * @return the number of marked rows
+   * @throws SQLException if the rows could not be marked
+   */
+  synchronized int flush(DbConnection connection) throws SQLException {
+    if (pending.isEmpty()) {
+      return 0;
+    }
+
+    List<Object> ids = new ArrayList<>(pending);
+    Connection jdbcConnection = connection.getJdbcConnection();
+    boolean autoCommit = jdbcConnection.getAutoCommit();
+    jdbcConnection.setAutoCommit(false);
+    try {
+      if (sql != null) {
+        update(jdbcConnection, ids);
+      } else {
+        delete(jdbcConnection, ids);
+      }
+
+      jdbcConnection.commit();
+    } catch (SQLException e) {
+      jdbcConnection.rollback();
+      throw e;
+    } finally {
+      jdbcConnection.setAutoCommit(autoCommit);
+    }
+
+    pending.removeAll(ids);
+    return ids.size();
+  }
+
+  private void update(Connection jdbcConnection, List<Object> ids) throws SQLException {
+    try (PreparedStatement statement = jdbcConnection.prepareStatement(sql)) {
+      for (Object id : ids) {
+        for (int i = 1; i <= idOccurrences; i++) {
+          statement.setObject(i, id);
+        }
+
+        statement.addBatch();
+      }
+
+      statement.executeBatch();
+    }
+  }
+
+  private void delete(Connection jdbcConnection, List<Object> ids) throws SQLException {
+    PreparedStatement statement = null;
+    int preparedSize = 0;
+    try {
+      for (int from = 0; from < ids.size(); from += IN_LIST_SIZE) {
+        int size = min(IN_LIST_SIZE, ids.size() - from);
+        // Every chunk but the last one has the same size, so the statement is prepared at most twice
+        if (size != preparedSize) {
+          if (statement != null) {
+            statement.close();
+          }
+
+          statement = jdbcConnection.prepareStatement(format("DELETE FROM %s WHERE %s IN (%s)", table, idColumn,
+                                                             join(", ", nCopies(size, "?"))));
+          preparedSize = size;
+        }
+
+        for (int i = 0; i < size; i++) {
+          statement.setObject(i + 1, ids.get(from + i));
+        }
+
+        statement.executeUpdate();
+      }
+    } finally {
+      if (statement != null) {
+        statement.close();
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PollStrategy} layered on top of another one, which marks the rows as consumed once their messages are successfully
+ * processed, see {@link ConsumedRowMarker}.
+ * <p>
+ * Consumed rows are marked by the next poll, unless too many of them pile up in the meantime or they are marked on completion,
+ * and the polls which read them in the meantime skip them.
+ *
+ * @since 2.0.0
+ */
+final class ConsumedRowsStrategy implements PollStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConsumedRowsStrategy.class);
+  private static final String CONSUMED_IDS_VARIABLE = "consumedRowIds";
+  private static final int FLUSH_THRESHOLD = 1000;
+
+  private final String table;
+  private final String idColumn;
+  private final ConsumedRowMarker marker;
+  private final boolean markOnCompletion;
+  private final ConnectionProvider<DbConnection> connectionProvider;
+  private final PollStrategy delegate;
+
+  /**
+   * @param table              the table the rows belong to
+   * @param idColumn           the column which identifies each row of the {@code table}
+   * @param marker             the {@link ConsumedRowMarker} of the {@code table}
+   * @param markOnCompletion   whether the rows are marked as soon as their message is processed rather than by the next poll
+   * @param connectionProvider provides the connections the rows are marked through outside of a poll
+   * @param delegate           the strategy which reads the rows
+   */
+  ConsumedRowsStrategy(String table, String idColumn, ConsumedRowMarker marker, boolean markOnCompletion,
+                       ConnectionProvider<DbConnection> connectionProvider, PollStrategy delegate) {
+    this.table = table;
+    this.idColumn = idColumn;
+    this.marker = marker;
+    this.markOnCompletion = markOnCompletion;
+    this.connectionProvider = connectionProvider;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws Exception {
+    flush(poll.getConnection());
+    // Rows consumed since the last flush are still there, but were already processed
+    return delegate.poll(poll.filter(consumer -> row -> marker.isPending(row.get(idColumn)) || consumer.accept(row)));
+  }
+
+  @Override
+  public void track(SourceCallbackContext callbackContext, List<Map<String, Object>> rows) {
+    delegate.track(callbackContext, rows);
+    if (rows.isEmpty()) {
+      return;
+    }
+
+    List<Object> ids = new ArrayList<>(rows.size());
+    for (Map<String, Object> row : rows) {
+      ids.add(row.get(idColumn));
+    }
+
+    callbackContext.addVariable(CONSUMED_IDS_VARIABLE, ids);
+  }
+
+  @Override
+  public void acknowledge(SourceCallbackContext callbackContext, boolean success) {
+    delegate.acknowledge(callbackContext, success);
+
+    List<Object> ids = callbackContext.<List<Object>>getVariable(CONSUMED_IDS_VARIABLE).orElse(null);
+    if (success && ids != null && (marker.consumed(ids) >= FLUSH_THRESHOLD || markOnCompletion)) {
+      flush();
+    }
+  }
+
+  @Override
+  public void stop() {
+    flush();
+    delegate.stop();
+  }
+
+  private void flush() {
+    DbConnection connection;
+    try {
+      connection = connectionProvider.connect();
+    } catch (ConnectionException e) {
+      LOGGER.error(format("Could not obtain connection while trying to mark the consumed rows of table '%s', they will be "
+          + "marked by the next poll. %s", table, e.getMessage()), e);
+      return;
+    }
+
+    try {
+      flush(connection);
+    } finally {
+      connectionProvider.disconnect(connection);
+    }
+  }
+
+  private void flush(DbConnection connection) {
+    try {
+      int marked = marker.flush(connection);
+      if (marked > 0 && LOGGER.isDebugEnabled()) {
+        LOGGER.debug(format("Marked %d consumed rows of table '%s'", marked, table));
+      }
+    } catch (SQLException e) {
+      LOGGER.error(format("Could not mark the consumed rows of table '%s', they will be marked by the next poll. %s", table,
+                          e.getMessage()),
+                   e);
+    }
+  }
+}
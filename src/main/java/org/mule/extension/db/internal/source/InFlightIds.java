@@ -0,0 +1,137 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.Integer.highestOneBit;
+
+/**
+ * Bounded set of the IDs of the rows whose messages are being processed, which allows a poll to skip those rows as soon as
+ * they are read, instead of building a message for each of them only to have the runtime reject it as a duplicate.
+ * <p>
+ * IDs are kept in an open addressing table keyed by a 64 bit hash, so that a lookup which misses, which is what happens for
+ * almost every row of a poll, only compares primitives. Hits are confirmed against the ID itself, so a row is never skipped
+ * unless its ID is actually being processed. Once the set is full, new IDs are just not added, which only means that their
+ * duplicates are rejected by the runtime, as they would be without this set.
+ *
+ * @since 2.0.0
+ */
+final class InFlightIds {
+
+  private static final long EMPTY = 0L;
+
+  private final long[] hashes;
+  private final String[] ids;
+  private final int mask;
+  private final int maxSize;
+  private int size = 0;
+
+  /**
+   * @param maxSize the maximum number of IDs to hold
+   */
+  InFlightIds(int maxSize) {
+    // At most half of the slots are used, which keeps probe sequences short
+    int slots = highestOneBit(Math.max(maxSize, 1) * 4 - 1);
+    this.hashes = new long[slots];
+    this.ids = new String[slots];
+    this.mask = slots - 1;
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @param id the ID of a row whose message is about to be processed
+   * @return whether the ID was added, as opposed to being already present or the set being full
+   */
+  synchronized boolean add(String id) {
+    long hash = hash(id);
+    int slot = (int) hash & mask;
+    while (hashes[slot] != EMPTY) {
+      if (hashes[slot] == hash && ids[slot].equals(id)) {
+        return false;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    if (size >= maxSize) {
+      return false;
+    }
+
+    hashes[slot] = hash;
+    ids[slot] = id;
+    size++;
+    return true;
+  }
+
+  /**
+   * @param id the ID of a row
+   * @return whether the message of the row is being processed
+   */
+  synchronized boolean contains(String id) {
+    return find(id, hash(id)) >= 0;
+  }
+
+  /**
+   * @param id the ID of a row whose message was processed
+   */
+  synchronized void remove(String id) {
+    int slot = find(id, hash(id));
+    if (slot < 0) {
+      return;
+    }
+
+    // Shifts back the entries which follow the removed one in its probe sequence, so that they can still be found
+    int next = (slot + 1) & mask;
+    while (hashes[next] != EMPTY) {
+      int home = (int) hashes[next] & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        hashes[slot] = hashes[next];
+        ids[slot] = ids[next];
+        slot = next;
+      }
+
+      next = (next + 1) & mask;
+    }
+
+    hashes[slot] = EMPTY;
+    ids[slot] = null;
+    size--;
+  }
+
+  /**
+   * @return the number of IDs held
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  private int find(String id, long hash) {
+    int slot = (int) hash & mask;
+    while (hashes[slot] != EMPTY) {
+      if (hashes[slot] == hash && ids[slot].equals(id)) {
+        return slot;
+      }
+
+      slot = (slot + 1) & mask;
+    }
+
+    return -1;
+  }
+
+  private static long hash(String id) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < id.length(); i++) {
+      hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+
+    // Zero marks empty slots
+    return hash != EMPTY ? hash : 1L;
+  }
+}
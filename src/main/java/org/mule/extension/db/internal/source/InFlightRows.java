@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.Math.min;
+
+/**
+ * Bounds the number of rows whose messages are being processed at any given time. A poll which finds no room for the rows of
+ * its next message waits for the messages in flight to complete, which holds the cursor of the poll right where it is, instead
+ * of reading rows faster than the flow can process them.
+ * <p>
+ * A message made of more rows than the bound takes the whole bound, so that it can still be dispatched once every other
+ * message completes.
+ *
+ * @since 2.0.0
+ */
+final class InFlightRows {
+
+  private final int maxRows;
+  private int rows = 0;
+  private boolean closed = false;
+
+  /**
+   * @param maxRows the maximum number of rows in flight
+   */
+  InFlightRows(int maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  /**
+   * Waits until there's room for the rows of a message which is about to be dispatched, or until this instance is closed
+   *
+   * @param count the number of rows of the message
+   * @return the number of rows taken, which need to be released once the message completes
+   * @throws InterruptedException if interrupted while waiting
+   */
+  synchronized int acquire(int count) throws InterruptedException {
+    int taken = min(count, maxRows);
+    while (rows + taken > maxRows) {
+      if (closed) {
+        return 0;
+      }
+
+      wait();
+    }
+
+    rows += taken;
+    return taken;
+  }
+
+  /**
+   * @param taken the number of rows taken for a message which completed
+   */
+  synchronized void release(int taken) {
+    if (taken > 0) {
+      rows -= taken;
+      notifyAll();
+    }
+  }
+
+  /**
+   * Lets any poll waiting for room go on, since the messages in flight might never complete once the listener is stopped
+   */
+  synchronized void close() {
+    closed = true;
+    notifyAll();
+  }
+
+  /**
+   * @return the number of rows in flight
+   */
+  synchronized int size() {
+    return rows;
+  }
+}
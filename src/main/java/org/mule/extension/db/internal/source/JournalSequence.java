@@ -0,0 +1,172 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Follows the sequence numbers the polls read from a {@link ChangeJournal}, so that the watermark never moves past a change
+ * which may still show up.
+ * <p>
+ * Sequence numbers are assigned when the triggers insert into the journal, not when their transactions commit, so a change can
+ * become visible after changes with greater numbers were already read. A missing number is taken as a change in flight until
+ * the gap timeout elapses, after which it's taken as a number the database skipped, as it happens when a transaction rolls
+ * back. While a gap is open:
+ * <ul>
+ * <li>the watermark of the changes read past it is held right before the gap, so neither the next polls nor the pruning of the
+ * journal go past it;</li>
+ * <li>the changes read past it are remembered once dispatched, so that the polls which read them again don't dispatch them
+ * twice.</li>
+ * </ul>
+ * Polls of a listener never overlap, so this class is not thread safe.
+ *
+ * @since 2.0.0
+ */
+final class JournalSequence {
+
+  private final long gapTimeoutNanos;
+  private final NavigableMap<Long, Gap> gaps = new TreeMap<>();
+  private final NavigableSet<Long> dispatchedAhead = new TreeSet<>();
+
+  private Long next;
+  private Long held;
+
+  /**
+   * @param gapTimeoutNanos how long a missing sequence number is waited for
+   */
+  JournalSequence(long gapTimeoutNanos) {
+    this.gapTimeoutNanos = gapTimeoutNanos;
+  }
+
+  /**
+   * Starts following a poll
+   *
+   * @param watermark the watermark the poll reads the journal from, or {@code null} if there's none yet, in which case the
+   *                  first change read starts the sequence
+   */
+  void startPoll(Serializable watermark) {
+    held = null;
+    next = watermark != null ? toLong(watermark) + 1 : null;
+    if (next == null) {
+      return;
+    }
+
+    dispatchedAhead.headSet(next, false).clear();
+    for (Iterator<Map.Entry<Long, Gap>> iterator = gaps.headMap(next, false).entrySet().iterator(); iterator.hasNext();) {
+      if (iterator.next().getValue().last < next) {
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Takes a change read by the poll into account. Changes need to be read in sequence order.
+   *
+   * @param sequence the sequence number of the change
+   * @param now      the current {@link System#nanoTime()}
+   * @return whether the change needs to be dispatched, as opposed to having been dispatched by a previous poll already
+   */
+  boolean read(Serializable sequence, long now) {
+    long value = toLong(sequence);
+    if (held == null) {
+      if (next == null) {
+        next = value;
+      }
+
+      while (next < value) {
+        Gap gap = gapAt(next, value - 1, now);
+        if (now - gap.since < gapTimeoutNanos) {
+          held = next - 1;
+          break;
+        }
+
+        // Nobody committed that number for too long, so it's taken as skipped
+        next = Math.min(value, gap.last + 1);
+      }
+
+      if (held == null) {
+        next = value + 1;
+      }
+    }
+
+    return !dispatchedAhead.contains(value);
+  }
+
+  /**
+   * Records that a change was dispatched
+   *
+   * @param sequence the sequence number of the change
+   */
+  void dispatched(Serializable sequence) {
+    long value = toLong(sequence);
+    if (held != null && value > held) {
+      dispatchedAhead.add(value);
+    }
+  }
+
+  /**
+   * @param sequence the sequence number of a change read by the current poll
+   * @return the watermark of the change, which is its sequence number unless it was read past a gap, in which case it's the
+   *         sequence number right before the gap, of the same type as the given {@code sequence}
+   */
+  Serializable watermarkOf(Serializable sequence) {
+    if (held == null || toLong(sequence) <= held) {
+      return sequence;
+    }
+
+    if (sequence instanceof Integer) {
+      return held.intValue();
+    } else if (sequence instanceof BigDecimal) {
+      return BigDecimal.valueOf(held);
+    } else if (sequence instanceof BigInteger) {
+      return BigInteger.valueOf(held);
+    }
+
+    return held;
+  }
+
+  private Gap gapAt(long first, long last, long now) {
+    Map.Entry<Long, Gap> entry = gaps.floorEntry(first);
+    if (entry != null && entry.getValue().last >= first) {
+      return entry.getValue();
+    }
+
+    Gap gap = new Gap(last, now);
+    gaps.put(first, gap);
+    return gap;
+  }
+
+  private static long toLong(Serializable sequence) {
+    if (sequence instanceof Number) {
+      return ((Number) sequence).longValue();
+    }
+
+    return Long.parseLong(sequence.toString().trim());
+  }
+
+  /**
+   * A range of missing sequence numbers, keyed by its first number
+   */
+  private static final class Gap {
+
+    private final long last;
+    private final long since;
+
+    private Gap(long last, long since) {
+      this.last = last;
+      this.since = since;
+    }
+  }
+}
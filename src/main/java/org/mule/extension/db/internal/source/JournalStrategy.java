@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.System.nanoTime;
+
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link PollStrategy} layered on top of the one which reads a {@link ChangeJournal} in sequence order, which turns the rows of
+ * the journal into changes and follows their {@link JournalSequence}, so that changes which show up behind a gap are neither
+ * missed nor dispatched twice.
+ * <p>
+ * Each poll first prunes the changes up to the watermark of the poll, since they were already processed.
+ *
+ * @since 2.0.0
+ */
+final class JournalStrategy implements PollStrategy {
+
+  private final ChangeJournal journal;
+  private final JournalSequence sequence;
+  private final PollStrategy delegate;
+
+  /**
+   * @param journal  the journal being read
+   * @param sequence the sequence of the changes read from the {@code journal}
+   * @param delegate the strategy which reads the journal
+   */
+  JournalStrategy(ChangeJournal journal, JournalSequence sequence, PollStrategy delegate) {
+    this.journal = journal;
+    this.sequence = sequence;
+    this.delegate = delegate;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws Exception {
+    Serializable watermark = poll.getWatermark();
+    if (watermark != null) {
+      journal.prune(poll.getConnection(), watermark);
+    }
+
+    sequence.startPoll(watermark);
+    return delegate.poll(poll.filter(consumer -> row -> {
+      Serializable changeSequence = (Serializable) row.get(ChangeJournal.SEQUENCE_COLUMN);
+      if (!sequence.read(changeSequence, nanoTime())) {
+        return true;
+      }
+
+      boolean accepted = consumer.accept(journal.toChange(row));
+      if (accepted) {
+        sequence.dispatched(changeSequence);
+      }
+      return accepted;
+    }));
+  }
+
+  @Override
+  public void track(SourceCallbackContext callbackContext, List<Map<String, Object>> rows) {
+    delegate.track(callbackContext, rows);
+  }
+
+  @Override
+  public void acknowledge(SourceCallbackContext callbackContext, boolean success) {
+    delegate.acknowledge(callbackContext, success);
+  }
+
+  @Override
+  public void stop() {
+    delegate.stop();
+  }
+}
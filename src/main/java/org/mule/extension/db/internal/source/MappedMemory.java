@@ -0,0 +1,104 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable memory region backed by a memory mapped temporary file, so that its contents live outside of the Java heap and can
+ * be paged out by the operating system.
+ * <p>
+ * The region is mapped in fixed size pages. Longs and ints need to be aligned to their size, so that they never span two
+ * pages. The file is deleted once the region is closed.
+ *
+ * @since 2.0.0
+ */
+final class MappedMemory implements Closeable {
+
+  private static final int PAGE_SHIFT = 26;
+  private static final long PAGE_SIZE = 1L << PAGE_SHIFT;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+  private final FileChannel channel;
+  private final List<MappedByteBuffer> pages = new ArrayList<>();
+
+  /**
+   * Creates a new, zero filled, region
+   *
+   * @param prefix prefix of the name of the backing temporary file
+   * @throws IOException if the backing file cannot be created
+   */
+  MappedMemory(String prefix) throws IOException {
+    Path file = Files.createTempFile(prefix, ".bin");
+    channel = FileChannel.open(file, READ, WRITE, DELETE_ON_CLOSE);
+  }
+
+  /**
+   * Makes sure that the region is at least {@code size} bytes long. Newly available bytes are zero.
+   *
+   * @param size the size of the region, in bytes
+   * @throws IOException if the backing file cannot be mapped
+   */
+  void ensureCapacity(long size) throws IOException {
+    while ((long) pages.size() << PAGE_SHIFT < size) {
+      pages.add(channel.map(READ_WRITE, (long) pages.size() << PAGE_SHIFT, PAGE_SIZE));
+    }
+  }
+
+  long getLong(long offset) {
+    return page(offset).getLong((int) (offset & PAGE_MASK));
+  }
+
+  void putLong(long offset, long value) {
+    page(offset).putLong((int) (offset & PAGE_MASK), value);
+  }
+
+  int getInt(long offset) {
+    return page(offset).getInt((int) (offset & PAGE_MASK));
+  }
+
+  void putInt(long offset, int value) {
+    page(offset).putInt((int) (offset & PAGE_MASK), value);
+  }
+
+  byte get(long offset) {
+    return page(offset).get((int) (offset & PAGE_MASK));
+  }
+
+  void put(long offset, byte value) {
+    page(offset).put((int) (offset & PAGE_MASK), value);
+  }
+
+  void put(long offset, byte[] bytes) {
+    for (int i = 0; i < bytes.length; i++) {
+      put(offset + i, bytes[i]);
+    }
+  }
+
+  private MappedByteBuffer page(long offset) {
+    return pages.get((int) (offset >>> PAGE_SHIFT));
+  }
+
+  @Override
+  public void close() throws IOException {
+    // Mapped pages are released once they are garbage collected
+    pages.clear();
+    channel.close();
+  }
+}
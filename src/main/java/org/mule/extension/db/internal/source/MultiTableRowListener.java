@@ -0,0 +1,219 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.query.Query;
+import org.mule.db.commons.internal.domain.statement.QueryStatementFactory;
+import org.mule.extension.db.api.TableRowAttributes;
+import org.mule.extension.db.api.param.PolledTable;
+import org.mule.runtime.api.exception.MuleException;
+import org.mule.runtime.extension.api.annotation.Alias;
+import org.mule.runtime.extension.api.annotation.Expression;
+import org.mule.runtime.extension.api.annotation.param.Parameter;
+import org.mule.runtime.extension.api.annotation.param.display.DisplayName;
+import org.mule.runtime.extension.api.annotation.param.display.Summary;
+import org.mule.runtime.extension.api.annotation.source.ClusterSupport;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.source.PollContext;
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static java.lang.String.format;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+import static java.util.Locale.ROOT;
+import static org.mule.extension.db.internal.source.AbstractRowListener.WATERMARK_PARAM_NAME;
+import static org.mule.runtime.api.meta.ExpressionSupport.NOT_SUPPORTED;
+import static org.mule.runtime.extension.api.annotation.source.SourceClusterSupport.DEFAULT_PRIMARY_NODE_ONLY;
+
+/**
+ * Selects from many tables at a regular interval and generates one message per each obtained row, with the name of the table
+ * the row was read from as attributes.
+ * <p>
+ * All the tables are read one after the other through the same connection, within the same poll, so polling many small tables
+ * costs a single connection checkout and a single scheduled task per interval, instead of one per table. Each table has its
+ * own optional watermark and ID columns, which work as they do for a single table listener.
+ *
+ * @since 2.0.0
+ */
+@DisplayName("On Table Row (Multiple Tables)")
+@Summary("Triggers a message per each row in any of many tables, polling all of them at once")
+@Alias("multi-table-listener")
+@ClusterSupport(DEFAULT_PRIMARY_NODE_ONLY)
+public class MultiTableRowListener extends AbstractTableListener<Map<String, Object>, TableRowAttributes> {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(MultiTableRowListener.class);
+
+  /**
+   * The tables to select from, each one with its own optional watermark and ID columns
+   */
+  @Parameter
+  @Expression(NOT_SUPPORTED)
+  @Summary("The tables to select from, each one with its own optional watermark and ID columns")
+  private List<PolledTable> tables;
+
+  private QueryStatementFactory statementFactory;
+  private List<TablePoll> polls;
+
+  @Override
+  protected void doStart() throws MuleException {
+    if (tables == null || tables.isEmpty()) {
+      throw new IllegalArgumentException("At least one table is required in order to poll many tables");
+    }
+
+    Set<String> names = new HashSet<>();
+    List<TablePoll> tablePolls = new ArrayList<>(tables.size());
+    for (PolledTable table : tables) {
+      if (!names.add(table.getTable().toUpperCase(ROOT))) {
+        throw new IllegalArgumentException(format("Table '%s' can't be polled more than once by the same listener",
+                                                  table.getTable()));
+      }
+
+      tablePolls.add(new TablePoll(table));
+    }
+
+    super.doStart();
+    statementFactory = createStatementFactory(getSettings().getMaxRows());
+    polls = tablePolls;
+  }
+
+  @Override
+  protected void doStop() {
+    polls = null;
+  }
+
+  @Override
+  protected void poll(PollContext<Map<String, Object>, TableRowAttributes> pollContext, DbConnection connection, long start) {
+    Serializable stored = pollContext.getWatermark().orElse(null);
+    TableDispatcher dispatcher = new TableDispatcher(pollContext, stored instanceof MultiTableWatermark
+        ? (MultiTableWatermark) stored
+        : MultiTableWatermark.empty());
+
+    for (TablePoll tablePoll : polls) {
+      if (pollContext.isSourceStopping() || dispatcher.stopped) {
+        return;
+      }
+
+      // A table which can't be read doesn't prevent the rest of them from being polled
+      try {
+        tablePoll.select(connection, dispatcher);
+      } catch (Exception e) {
+        LOGGER.error(format("Failed to query table '%s' for new rows. %s", tablePoll.table, e.getMessage()), e);
+      }
+    }
+  }
+
+  @Override
+  protected String describeTables() {
+    List<String> names = new ArrayList<>(tables.size());
+    for (PolledTable table : tables) {
+      names.add(table.getTable());
+    }
+
+    return "tables " + names;
+  }
+
+  @Override
+  public void onRejectedItem(Result<Map<String, Object>, TableRowAttributes> result,
+                             SourceCallbackContext sourceCallbackContext) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("Row of table '{}' has been rejected for processing: {}", result.getAttributes()
+          .map(TableRowAttributes::getTable).orElse(null), result.getOutput());
+    }
+  }
+
+  /**
+   * The statements which read one of the tables, along with its configuration
+   */
+  private final class TablePoll {
+
+    private final String table;
+    private final String watermarkColumn;
+    private final String idColumn;
+    private final PollStatement all;
+    private final PollStatement afterWatermark;
+
+    private TablePoll(PolledTable polledTable) {
+      table = polledTable.getTable();
+      watermarkColumn = polledTable.getWatermarkColumn();
+      idColumn = polledTable.getIdColumn();
+      all = new PollStatement("SELECT * FROM " + table);
+      afterWatermark = watermarkColumn != null
+          ? new PollStatement(format("SELECT * FROM %s WHERE %s > :%s", table, watermarkColumn, WATERMARK_PARAM_NAME))
+          : null;
+    }
+
+    private void select(DbConnection connection, TableDispatcher dispatcher) throws SQLException {
+      Serializable watermark = watermarkColumn != null ? dispatcher.watermark.get(table) : null;
+      Query query = watermark != null
+          ? afterWatermark.resolve(singletonMap(WATERMARK_PARAM_NAME, watermark), getConfig(), connection)
+          : all.resolve(emptyMap(), getConfig(), connection);
+
+      read(connection, statementFactory, query, row -> dispatcher.dispatch(this, row), null, null);
+    }
+
+    private Serializable watermarkOf(Map<String, Object> row) {
+      Object watermark = row.get(watermarkColumn);
+      if (watermark instanceof Serializable) {
+        return (Serializable) watermark;
+      }
+
+      if (watermark != null) {
+        LOGGER.error(format("Watermark values need to be serializable, but a value of type %s was found instead for row %s "
+            + "of table '%s'", watermark.getClass().getName(), row, table));
+      }
+
+      return null;
+    }
+  }
+
+  /**
+   * Dispatches the rows of every table of a poll, keeping track of the watermark of each table up to the last dispatched row
+   */
+  private static final class TableDispatcher {
+
+    private final PollContext<Map<String, Object>, TableRowAttributes> pollContext;
+    private MultiTableWatermark watermark;
+    private boolean stopped = false;
+
+    private TableDispatcher(PollContext<Map<String, Object>, TableRowAttributes> pollContext,
+                            MultiTableWatermark watermark) {
+      this.pollContext = pollContext;
+      this.watermark = watermark;
+    }
+
+    private boolean dispatch(TablePoll tablePoll, Map<String, Object> row) {
+      Serializable rowWatermark = null;
+      if (tablePoll.watermarkColumn != null) {
+        watermark = watermark.with(tablePoll.table,
+                                   latest(watermark.get(tablePoll.table), tablePoll.watermarkOf(row)));
+        rowWatermark = watermark;
+      }
+
+      Object id = tablePoll.idColumn != null ? row.get(tablePoll.idColumn) : null;
+      // IDs are only unique within each table, and rows of tables without watermark are not filtered by it
+      stopped = !AbstractTableListener.dispatch(pollContext, id != null ? tablePoll.table + ":" + id : null, rowWatermark,
+                                                Result.<Map<String, Object>, TableRowAttributes>builder()
+                                                    .output(row)
+                                                    .attributes(new TableRowAttributes(tablePoll.table))
+                                                    .build(),
+                                                null);
+
+      return !stopped;
+    }
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableMap;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Watermark of a {@link MultiTableRowListener}, made of the watermark of each of its tables.
+ * <p>
+ * A poll reads its tables one after the other, and each row it dispatches carries the watermark of every table up to that row,
+ * so the watermarks of the rows of a poll form a chain in which each one is greater than or equal to the previous one for every
+ * table. Instances are ordered lexicographically by table name, comparing the watermarks of the tables in name order until one
+ * differs, which is a total order and agrees with that chain: a watermark which is greater or equal for every table, and
+ * greater for at least one, is always the greater one. Missing components are considered lower than any other value.
+ *
+ * @since 2.0.0
+ */
+public final class MultiTableWatermark implements Serializable, Comparable<MultiTableWatermark> {
+
+  private static final long serialVersionUID = -3196431862284051357L;
+
+  private static final MultiTableWatermark EMPTY = new MultiTableWatermark(new TreeMap<>());
+
+  private final Map<String, Serializable> watermarks;
+
+  private MultiTableWatermark(Map<String, Serializable> watermarks) {
+    this.watermarks = unmodifiableMap(watermarks);
+  }
+
+  /**
+   * @return a watermark without any value for any table
+   */
+  public static MultiTableWatermark empty() {
+    return EMPTY;
+  }
+
+  /**
+   * @param table the name of a table
+   * @return the watermark of the {@code table}, or {@code null} if there's none
+   */
+  public Serializable get(String table) {
+    return watermarks.get(table);
+  }
+
+  /**
+   * @return the watermark of each table, by table name
+   */
+  public Map<String, Serializable> getWatermarks() {
+    return watermarks;
+  }
+
+  /**
+   * @param table     the name of a table
+   * @param watermark the new watermark of the {@code table}
+   * @return a copy of this watermark in which the {@code table} has the given {@code watermark}
+   */
+  public MultiTableWatermark with(String table, Serializable watermark) {
+    if (watermark == null || watermark.equals(watermarks.get(table))) {
+      return this;
+    }
+
+    Map<String, Serializable> updated = new TreeMap<>(watermarks);
+    updated.put(table, watermark);
+    return new MultiTableWatermark(updated);
+  }
+
+  @Override
+  public int compareTo(MultiTableWatermark other) {
+    Set<String> tables = new TreeSet<>(watermarks.keySet());
+    tables.addAll(other.watermarks.keySet());
+
+    for (String table : tables) {
+      int result = compare(watermarks.get(table), other.watermarks.get(table));
+      if (result != 0) {
+        return result;
+      }
+    }
+
+    return 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Serializable value, Serializable other) {
+    if (value == null || other == null) {
+      return value == null ? (other == null ? 0 : -1) : 1;
+    }
+
+    if (!(value instanceof Comparable)) {
+      throw new IllegalStateException(format("Watermark values need to be comparable, but a value of type %s was found",
+                                             value.getClass().getName()));
+    }
+
+    return ((Comparable<Object>) value).compareTo(other);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof MultiTableWatermark)) {
+      return false;
+    }
+
+    return watermarks.equals(((MultiTableWatermark) obj).watermarks);
+  }
+
+  @Override
+  public int hashCode() {
+    return watermarks.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return watermarks.toString();
+  }
+}
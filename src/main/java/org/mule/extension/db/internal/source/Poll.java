@@ -0,0 +1,143 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.extension.db.internal.source.AbstractTableListener.RowDispatcher;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * A poll in progress, as seen by a {@link PollStrategy}: the connection and watermark it started with, the dispatcher of the
+ * rows it reads, and the statements of the listener through which it reads them.
+ *
+ * @since 2.0.0
+ */
+final class Poll {
+
+  private final Statements statements;
+  private final DbConnection connection;
+  private final Serializable watermark;
+  private final RowDispatcher dispatcher;
+  private final BooleanSupplier stopping;
+  private final UnaryOperator<RowConsumer> filter;
+
+  /**
+   * @param statements the statements of the listener
+   * @param connection the connection of the poll
+   * @param watermark  the watermark the poll starts from, or {@code null} if there's none yet
+   * @param dispatcher the dispatcher of the rows read by the poll
+   * @param stopping   tells whether the source is stopping
+   */
+  Poll(Statements statements, DbConnection connection, Serializable watermark, RowDispatcher dispatcher,
+       BooleanSupplier stopping) {
+    this(statements, connection, watermark, dispatcher, stopping, UnaryOperator.identity());
+  }
+
+  private Poll(Statements statements, DbConnection connection, Serializable watermark, RowDispatcher dispatcher,
+               BooleanSupplier stopping, UnaryOperator<RowConsumer> filter) {
+    this.statements = statements;
+    this.connection = connection;
+    this.watermark = watermark;
+    this.dispatcher = dispatcher;
+    this.stopping = stopping;
+    this.filter = filter;
+  }
+
+  /**
+   * Creates the same poll, except that the rows read by each of its statements go through the given {@code filter} before
+   * reaching the consumer the statement was issued with
+   *
+   * @param filter wraps the consumer of each statement
+   * @return a {@link Poll}
+   */
+  Poll filter(UnaryOperator<RowConsumer> filter) {
+    UnaryOperator<RowConsumer> current = this.filter;
+    return new Poll(statements, connection, watermark, dispatcher, stopping, consumer -> current.apply(filter.apply(consumer)));
+  }
+
+  /**
+   * Reads the rows after the given {@code watermark}
+   *
+   * @param connection the acting connection
+   * @param watermark  the watermark to read from, or {@code null} to read every row
+   * @param segment    the index of the segment to read, or {@code null} if the poll is not split into segments
+   * @param consumer   the consumer of the rows
+   * @return the number of rows read
+   * @throws SQLException if the rows could not be read
+   */
+  int select(DbConnection connection, Serializable watermark, Integer segment, RowConsumer consumer) throws SQLException {
+    return statements.select(connection, watermark, segment, filter.apply(consumer));
+  }
+
+  /**
+   * Reads the rows after the watermark of the poll, through its connection
+   *
+   * @param consumer the consumer of the rows
+   * @return the number of rows read
+   * @throws SQLException if the rows could not be read
+   */
+  int select(RowConsumer consumer) throws SQLException {
+    return select(connection, watermark, null, consumer);
+  }
+
+  /**
+   * Reads all the rows which share the given {@code watermark} value at once, regardless of the limits of the other statements
+   *
+   * @param watermark the watermark value
+   * @param consumer  the consumer of the rows
+   * @return the number of rows read
+   * @throws SQLException if the rows could not be read
+   */
+  int selectAt(Serializable watermark, RowConsumer consumer) throws SQLException {
+    return statements.selectAt(connection, watermark, filter.apply(consumer));
+  }
+
+  /**
+   * Reads the rows claimed with the given {@code token} which were not finalized yet
+   *
+   * @param token    the token of the claim
+   * @param consumer the consumer of the rows
+   * @return the number of rows read
+   * @throws SQLException if the rows could not be read
+   */
+  int selectClaimed(String token, RowConsumer consumer) throws SQLException {
+    return statements.selectClaimed(connection, token, filter.apply(consumer));
+  }
+
+  DbConnection getConnection() {
+    return connection;
+  }
+
+  Serializable getWatermark() {
+    return watermark;
+  }
+
+  RowDispatcher getDispatcher() {
+    return dispatcher;
+  }
+
+  boolean isStopping() {
+    return stopping.getAsBoolean();
+  }
+
+  /**
+   * The statements through which a listener reads its table
+   */
+  interface Statements {
+
+    int select(DbConnection connection, Serializable watermark, Integer segment, RowConsumer consumer) throws SQLException;
+
+    int selectAt(DbConnection connection, Serializable watermark, RowConsumer consumer) throws SQLException;
+
+    int selectClaimed(DbConnection connection, String token, RowConsumer consumer) throws SQLException;
+  }
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+/**
+ * Summary of what a poll read from the database
+ *
+ * @since 2.0.0
+ */
+final class PollOutcome {
+
+  private final int rows;
+  private final boolean drained;
+
+  /**
+   * @param rows    the number of rows read
+   * @param drained whether all the available rows were read, as opposed to the poll stopping because of a limit
+   */
+  PollOutcome(int rows, boolean drained) {
+    this.rows = rows;
+    this.drained = drained;
+  }
+
+  int getRows() {
+    return rows;
+  }
+
+  boolean isDrained() {
+    return drained;
+  }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.stream.Collectors.toList;
+import static org.mule.extension.db.internal.util.MigrationUtils.mapParameterizedStatementDefinition;
+
+import org.mule.db.commons.AbstractDbConnector;
+import org.mule.db.commons.api.param.ParameterizedStatementDefinition;
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.query.Query;
+import org.mule.db.commons.internal.domain.query.QueryParamValue;
+import org.mule.db.commons.internal.domain.query.QueryTemplate;
+import org.mule.db.commons.internal.resolver.query.ParameterizedQueryResolver;
+import org.mule.db.commons.internal.resolver.query.QueryResolver;
+import org.mule.extension.db.api.param.QueryDefinition;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A statement which a polling source issues over and over, only changing the values of its parameters.
+ * <p>
+ * The SQL text is fixed when the statement is created and its {@link QueryTemplate} is resolved through the
+ * {@link ParameterizedQueryResolver} only the first time it is executed. After that, each execution just binds the new parameter
+ * values to the already resolved template. Because the SQL text never changes, pooled connections with statement caching
+ * enabled also reuse the server side prepared statement, so that a steady state poll only costs a bind and an execute.
+ *
+ * @since 2.0.0
+ */
+final class PollStatement {
+
+  private static final QueryResolver<ParameterizedStatementDefinition> QUERY_RESOLVER = new ParameterizedQueryResolver<>();
+
+  private final String sql;
+  private final QueryResolver<ParameterizedStatementDefinition> queryResolver;
+  private volatile QueryTemplate template;
+
+  PollStatement(String sql) {
+    this(sql, QUERY_RESOLVER);
+  }
+
+  PollStatement(String sql, QueryResolver<ParameterizedStatementDefinition> queryResolver) {
+    this.sql = sql;
+    this.queryResolver = queryResolver;
+  }
+
+  /**
+   * Creates the {@link Query} to execute
+   *
+   * @param parameters the values of the statement parameters, by name
+   * @param config     the acting config
+   * @param connection the acting connection
+   * @return a {@link Query}
+   */
+  Query resolve(Map<String, Object> parameters, AbstractDbConnector config, DbConnection connection) {
+    QueryTemplate resolvedTemplate = template;
+    if (resolvedTemplate != null) {
+      List<QueryParamValue> values = resolvedTemplate.getInputParams().stream()
+          .map(param -> new QueryParamValue(param.getName(), parameters.get(param.getName())))
+          .collect(toList());
+
+      return new Query(resolvedTemplate, values);
+    }
+
+    QueryDefinition queryDefinition = new QueryDefinition();
+    queryDefinition.setSql(sql);
+    parameters.forEach(queryDefinition::addInputParameter);
+
+    Query query = queryResolver.resolve(mapParameterizedStatementDefinition(queryDefinition), config, connection, null);
+    template = query.getQueryTemplate();
+
+    return query;
+  }
+
+  /**
+   * @return the SQL text of this statement
+   */
+  String getSql() {
+    return sql;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.runtime.extension.api.runtime.source.SourceCallbackContext;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A way in which the polls of an {@link AbstractRowListener} read the rows of its table, such as catching up in batches or
+ * claiming rows, or a concern layered on top of one of those, such as marking the consumed rows. Strategies layered on top of
+ * another one wrap it, so that each listener polls through a single strategy.
+ * <p>
+ * Besides reading the rows, a strategy may keep track of the rows each message was created from, in order to acknowledge
+ * them once the processing of the message completes.
+ *
+ * @since 2.0.0
+ */
+interface PollStrategy {
+
+  /**
+   * Reads the rows of a poll, handing them over to its dispatcher
+   *
+   * @param poll the poll in progress
+   * @return the outcome of the poll
+   * @throws Exception if the rows could not be read
+   */
+  PollOutcome poll(Poll poll) throws Exception;
+
+  /**
+   * Keeps track of the rows a message was created from, so that they can be acknowledged once its processing completes
+   *
+   * @param callbackContext the {@link SourceCallbackContext} of the message
+   * @param rows            the rows the message was created from
+   */
+  default void track(SourceCallbackContext callbackContext, List<Map<String, Object>> rows) {}
+
+  /**
+   * Acknowledges the rows of a message once its processing completes, or once it's rejected
+   *
+   * @param callbackContext the {@link SourceCallbackContext} of the message
+   * @param success         whether the message was successfully processed
+   */
+  default void acknowledge(SourceCallbackContext callbackContext, boolean success) {}
+
+  /**
+   * Releases anything the strategy holds once the listener stops
+   */
+  default void stop() {}
+}
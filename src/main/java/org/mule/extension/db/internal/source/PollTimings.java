@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates the time a poll spends on each of its phases. Statements of the same poll may run on different threads, as it
+ * happens with segments, so every phase can be accumulated concurrently.
+ *
+ * @since 2.0.0
+ */
+final class PollTimings {
+
+  private final AtomicLong connectNanos = new AtomicLong();
+  private final AtomicLong executeNanos = new AtomicLong();
+  private final AtomicLong fetchNanos = new AtomicLong();
+  private final AtomicLong dispatchNanos = new AtomicLong();
+
+  void connected(long nanos) {
+    connectNanos.addAndGet(nanos);
+  }
+
+  /**
+   * Accounts for a statement execution, including the reading of its results
+   *
+   * @param totalNanos    the time elapsed since the statement started until its results were fully read
+   * @param readNanos     the part of the {@code totalNanos} spent reading the results, including the dispatch of the rows
+   * @param dispatchNanos the part of the {@code readNanos} spent dispatching rows
+   */
+  void executed(long totalNanos, long readNanos, long dispatchNanos) {
+    executeNanos.addAndGet(totalNanos - readNanos);
+    fetchNanos.addAndGet(readNanos - dispatchNanos);
+    this.dispatchNanos.addAndGet(dispatchNanos);
+  }
+
+  long getConnectNanos() {
+    return connectNanos.get();
+  }
+
+  long getExecuteNanos() {
+    return executeNanos.get();
+  }
+
+  long getFetchNanos() {
+    return fetchNanos.get();
+  }
+
+  long getDispatchNanos() {
+    return dispatchNanos.get();
+  }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.util.Locale.ROOT;
+import static java.util.UUID.randomUUID;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Claims rows of a table on behalf of one of many competing listeners, possibly running on different cluster nodes, so that
+ * each row is processed by only one of them.
+ * <p>
+ * Claims are kept in two columns of the table: the claim column holds a token which identifies the poll which claimed the row,
+ * and the claim expiration column holds the time at which the claim expires if it's not finalized before. A row can be claimed
+ * when it was never claimed or its claim expired. Expirations are set and checked against the clock of the database, so that
+ * competing listeners agree on them even if the clocks of their nodes drift apart. Finalizing a claim clears its expiration, so that the row is never claimed
+ * again, while releasing it clears both columns, so that the row can be claimed right away.
+ * <p>
+ * On databases which support {@code SELECT ... FOR UPDATE SKIP LOCKED}, the candidate rows are locked while they are being
+ * claimed, so that concurrent polls pick disjoint sets of rows. On the rest, each candidate row is claimed through a
+ * conditional update, and rows concurrently claimed by someone else are just left out of the poll.
+ *
+ * @since 2.0.0
+ */
+final class RowClaimer {
+
+  /**
+   * Name of the parameter through which the claim token is bound to the statement which reads the claimed rows
+   */
+  static final String CLAIM_TOKEN_PARAM_NAME = "claimToken";
+
+  private static final int MYSQL_SKIP_LOCKED_VERSION = 8;
+  private static final int POSTGRESQL_SKIP_LOCKED_MAJOR_VERSION = 9;
+  private static final int POSTGRESQL_SKIP_LOCKED_MINOR_VERSION = 5;
+  private static final int MARIADB_SKIP_LOCKED_MAJOR_VERSION = 10;
+  private static final int MARIADB_SKIP_LOCKED_MINOR_VERSION = 6;
+
+  /**
+   * The MySQL driver reports MariaDB servers as MySQL, with a version such as {@code 5.5.5-10.6.12-MariaDB}, where the actual
+   * version comes right before the {@code MariaDB} suffix
+   */
+  private static final Pattern MARIADB_VERSION = Pattern.compile("(\\d+)\\.(\\d+)[.\\d]*-MariaDB", Pattern.CASE_INSENSITIVE);
+
+  private final String table;
+  private final String idColumn;
+  private final String claimColumn;
+  private final String expirationColumn;
+  private final long leaseMillis;
+  private final String claimableCondition;
+
+  /**
+   * @param table            the table to claim rows from
+   * @param idColumn         the column which identifies each row of the {@code table}
+   * @param claimColumn      the column which holds the claim token
+   * @param expirationColumn the column which holds the claim expiration
+   * @param leaseMillis      the amount of time a claim lasts unless it's finalized, in milliseconds
+   */
+  RowClaimer(String table, String idColumn, String claimColumn, String expirationColumn, long leaseMillis) {
+    this.table = table;
+    this.idColumn = idColumn;
+    this.claimColumn = claimColumn;
+    this.expirationColumn = expirationColumn;
+    this.leaseMillis = leaseMillis;
+    this.claimableCondition = format("(%s IS NULL OR %s < CURRENT_TIMESTAMP)", claimColumn, expirationColumn);
+  }
+
+  /**
+   * Claims the rows which are not claimed by anyone else
+   *
+   * @param connection the acting connection
+   * @param maxRows    the maximum number of rows to claim, or {@code null} to claim every available row
+   * @return the token of the claim, which the rows read through {@link #getClaimedCondition()} are claimed with
+   * @throws SQLException if the rows could not be claimed
+   */
+  String claim(DbConnection connection, Integer maxRows) throws SQLException {
+    Connection jdbcConnection = connection.getJdbcConnection();
+    boolean skipLocked = supportsSkipLocked(jdbcConnection.getMetaData());
+    String token = randomUUID().toString();
+
+    boolean autoCommit = jdbcConnection.getAutoCommit();
+    jdbcConnection.setAutoCommit(false);
+    try {
+      List<Object> candidates = new ArrayList<>();
+      Timestamp now = null;
+      // The current time of the database comes along with the candidates, as there's no portable way to select it on its own
+      String candidatesSql = format("SELECT %s, CURRENT_TIMESTAMP FROM %s WHERE %s", idColumn, table, claimableCondition);
+      try (PreparedStatement statement =
+          jdbcConnection.prepareStatement(skipLocked ? candidatesSql + " FOR UPDATE SKIP LOCKED" : candidatesSql)) {
+        if (maxRows != null) {
+          statement.setMaxRows(maxRows);
+        }
+
+        try (ResultSet resultSet = statement.executeQuery()) {
+          while (resultSet.next()) {
+            candidates.add(resultSet.getObject(1));
+            if (now == null) {
+              now = resultSet.getTimestamp(2);
+            }
+          }
+        }
+      }
+
+      if (!candidates.isEmpty()) {
+        // The claimable condition is checked again, since without row locks a concurrent poll may have claimed the row
+        String claimSql = format("UPDATE %s SET %s = ?, %s = ? WHERE %s = ? AND %s", table, claimColumn, expirationColumn,
+                                 idColumn, claimableCondition);
+        Timestamp expiration = new Timestamp(now.getTime() + leaseMillis);
+        try (PreparedStatement statement = jdbcConnection.prepareStatement(claimSql)) {
+          for (Object id : candidates) {
+            statement.setString(1, token);
+            statement.setTimestamp(2, expiration);
+            statement.setObject(3, id);
+            statement.addBatch();
+          }
+
+          statement.executeBatch();
+        }
+      }
+
+      jdbcConnection.commit();
+    } catch (SQLException e) {
+      jdbcConnection.rollback();
+      throw e;
+    } finally {
+      jdbcConnection.setAutoCommit(autoCommit);
+    }
+
+    return token;
+  }
+
+  /**
+   * @return the condition which selects the rows claimed with the token bound to the {@link #CLAIM_TOKEN_PARAM_NAME} parameter
+   *         which were not finalized yet
+   */
+  String getClaimedCondition() {
+    return format("%s = :%s AND %s IS NOT NULL", claimColumn, CLAIM_TOKEN_PARAM_NAME, expirationColumn);
+  }
+
+  /**
+   * Finalizes the claim of the given rows, so that they are never claimed again
+   *
+   * @param connection the acting connection
+   * @param token      the token the rows were claimed with
+   * @param ids        the IDs of the rows
+   * @throws SQLException if the claims could not be finalized
+   */
+  void complete(DbConnection connection, String token, List<Object> ids) throws SQLException {
+    update(connection, format("UPDATE %s SET %s = NULL WHERE %s = ? AND %s = ?", table, expirationColumn, idColumn,
+                              claimColumn),
+           token, ids);
+  }
+
+  /**
+   * Releases the claim of the given rows, so that they can be claimed again right away
+   *
+   * @param connection the acting connection
+   * @param token      the token the rows were claimed with
+   * @param ids        the IDs of the rows
+   * @throws SQLException if the claims could not be released
+   */
+  void release(DbConnection connection, String token, List<Object> ids) throws SQLException {
+    update(connection, format("UPDATE %s SET %s = NULL, %s = NULL WHERE %s = ? AND %s = ?", table, claimColumn,
+                              expirationColumn, idColumn, claimColumn),
+           token, ids);
+  }
+
+  private void update(DbConnection connection, String sql, String token, List<Object> ids) throws SQLException {
+    if (ids.isEmpty()) {
+      return;
+    }
+
+    Connection jdbcConnection = connection.getJdbcConnection();
+    try (PreparedStatement statement = jdbcConnection.prepareStatement(sql)) {
+      for (Object id : ids) {
+        statement.setObject(1, id);
+        statement.setString(2, token);
+        statement.addBatch();
+      }
+
+      statement.executeBatch();
+    }
+
+    if (!jdbcConnection.getAutoCommit()) {
+      jdbcConnection.commit();
+    }
+  }
+
+  static boolean supportsSkipLocked(DatabaseMetaData metaData) throws SQLException {
+    String product = metaData.getDatabaseProductName().toLowerCase(ROOT);
+    String productVersion = metaData.getDatabaseProductVersion();
+    int major = metaData.getDatabaseMajorVersion();
+
+    if (product.contains("mariadb") || (productVersion != null && productVersion.toLowerCase(ROOT).contains("mariadb"))) {
+      int minor = metaData.getDatabaseMinorVersion();
+      Matcher version = productVersion != null ? MARIADB_VERSION.matcher(productVersion) : null;
+      if (version != null && version.find()) {
+        major = Integer.parseInt(version.group(1));
+        minor = Integer.parseInt(version.group(2));
+      }
+      return major > MARIADB_SKIP_LOCKED_MAJOR_VERSION
+          || (major == MARIADB_SKIP_LOCKED_MAJOR_VERSION && minor >= MARIADB_SKIP_LOCKED_MINOR_VERSION);
+    } else if (product.contains("oracle")) {
+      return true;
+    } else if (product.contains("postgres")) {
+      return major > POSTGRESQL_SKIP_LOCKED_MAJOR_VERSION || (major == POSTGRESQL_SKIP_LOCKED_MAJOR_VERSION
+          && metaData.getDatabaseMinorVersion() >= POSTGRESQL_SKIP_LOCKED_MINOR_VERSION);
+    } else if (product.contains("mysql")) {
+      return major >= MYSQL_SKIP_LOCKED_VERSION;
+    }
+
+    return false;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Locale.ROOT;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+
+/**
+ * The different ways in which a database can be asked to return only the first rows of an ordered query, along with the few
+ * other syntax differences the polling sources need to account for.
+ * <p>
+ * Databases which don't support any of the known syntaxes are handled through {@link #NONE}, in which case the limit is only
+ * enforced through {@link java.sql.Statement#setMaxRows(int)}.
+ *
+ * @since 2.0.0
+ */
+enum RowLimitDialect {
+
+  /**
+   * SQL:2008 {@code FETCH FIRST n ROWS ONLY}, supported by Derby, DB2, PostgreSQL and Oracle 12c onwards
+   */
+  FETCH_FIRST {
+
+    @Override
+    String limit(String select, int rows) {
+      return select + " FETCH FIRST " + rows + " ROWS ONLY";
+    }
+  },
+
+  /**
+   * {@code LIMIT n}, supported by MySQL, MariaDB, H2 and SQLite
+   */
+  LIMIT {
+
+    @Override
+    String limit(String select, int rows) {
+      return select + " LIMIT " + rows;
+    }
+  },
+
+  /**
+   * {@code SELECT TOP n}, supported by SQL Server
+   */
+  TOP {
+
+    @Override
+    String limit(String select, int rows) {
+      return select.replaceFirst("(?i)^SELECT ", "SELECT TOP " + rows + " ");
+    }
+
+    @Override
+    String modulo(String expression, int divisor) {
+      return "(" + expression + " % " + divisor + ")";
+    }
+  },
+
+  /**
+   * No row limiting clause is added to the query
+   */
+  NONE {
+
+    @Override
+    String limit(String select, int rows) {
+      return select;
+    }
+  };
+
+  private static final int ORACLE_FETCH_FIRST_VERSION = 12;
+
+  /**
+   * Adds the row limiting clause to a {@code SELECT} statement
+   *
+   * @param select a {@code SELECT} statement, including its {@code ORDER BY} clause if any
+   * @param rows   the maximum number of rows to return
+   * @return the limited statement
+   */
+  abstract String limit(String select, int rows);
+
+  /**
+   * Builds the expression which computes the remainder of dividing an integer expression
+   *
+   * @param expression an integer expression
+   * @param divisor    the divisor
+   * @return the modulo expression
+   */
+  String modulo(String expression, int divisor) {
+    return "MOD(" + expression + ", " + divisor + ")";
+  }
+
+  /**
+   * Resolves the dialect to use for the database behind the given {@code connection}
+   *
+   * @param connection the acting connection
+   * @return a {@link RowLimitDialect}
+   * @throws SQLException if the database metadata cannot be obtained
+   */
+  static RowLimitDialect of(DbConnection connection) throws SQLException {
+    DatabaseMetaData metaData = connection.getJdbcConnection().getMetaData();
+    String product = metaData.getDatabaseProductName().toLowerCase(ROOT);
+
+    if (product.contains("derby") || product.contains("db2") || product.contains("postgres")) {
+      return FETCH_FIRST;
+    } else if (product.contains("oracle")) {
+      return metaData.getDatabaseMajorVersion() >= ORACLE_FETCH_FIRST_VERSION ? FETCH_FIRST : NONE;
+    } else if (product.contains("mysql") || product.contains("mariadb") || product.contains("h2")
+        || product.contains("sqlite")) {
+      return LIMIT;
+    } else if (product.contains("sql server")) {
+      return TOP;
+    }
+
+    return NONE;
+  }
+}
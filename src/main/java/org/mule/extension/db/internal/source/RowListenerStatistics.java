@@ -0,0 +1,273 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.time.Duration.ofNanos;
+
+import static org.mule.extension.db.internal.util.MBeans.objectName;
+
+import org.mule.extension.db.api.metrics.PollMetrics;
+import org.mule.extension.db.api.metrics.RowListenerMetricsPublisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.sql.Time;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the metrics of a table row listener, exposes them through JMX and hands each poll measurements over to the
+ * {@link RowListenerMetricsPublisher}s available to the application.
+ *
+ * @since 2.0.0
+ */
+public final class RowListenerStatistics implements RowListenerStatisticsMBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RowListenerStatistics.class);
+
+  private final String artifact;
+  private final String listener;
+  private final String table;
+  private final List<RowListenerMetricsPublisher> publishers;
+  private final LongSupplier effectivePollInterval;
+  private final LongSupplier backlogEstimate;
+  private final AtomicLong polls = new AtomicLong();
+  private final AtomicLong rows = new AtomicLong();
+  private final AtomicLong rejectedItems = new AtomicLong();
+
+  private volatile PollMetrics lastPoll;
+  private ObjectName objectName;
+
+  /**
+   * @param artifact              the name of the application the listener belongs to, or {@code null} if it's unknown
+   * @param listener              the name of the listener
+   * @param table                 the table polled by the listener
+   * @param effectivePollInterval supplies the effective polling interval of the listener, in milliseconds
+   * @param backlogEstimate       supplies the backlog estimate of the listener
+   */
+  RowListenerStatistics(String artifact, String listener, String table, LongSupplier effectivePollInterval,
+                        LongSupplier backlogEstimate) {
+    this.artifact = artifact;
+    this.listener = listener;
+    this.table = table;
+    this.effectivePollInterval = effectivePollInterval;
+    this.backlogEstimate = backlogEstimate;
+    this.publishers = loadPublishers();
+  }
+
+  private static List<RowListenerMetricsPublisher> loadPublishers() {
+    List<RowListenerMetricsPublisher> loaded = new ArrayList<>();
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    try {
+      ServiceLoader.load(RowListenerMetricsPublisher.class, classLoader).forEach(loaded::add);
+    } catch (Throwable t) {
+      LOGGER.warn(format("Could not load the row listener metrics publishers. %s", t.getMessage()), t);
+    }
+
+    return loaded;
+  }
+
+  /**
+   * Registers these statistics in the platform MBean server. Failing to do so doesn't prevent the listener from working, so it
+   * is just logged. An MBean already registered with the same name is left alone, as it belongs to someone else.
+   */
+  void register() {
+    try {
+      ObjectName name = objectName("RowListener", artifact, listener);
+      getPlatformMBeanServer().registerMBean(this, name);
+      objectName = name;
+    } catch (InstanceAlreadyExistsException e) {
+      LOGGER.warn(format("Not registering the statistics of listener '%s' in JMX, another MBean is registered as %s", listener,
+                         e.getMessage()));
+    } catch (JMException | RuntimeException e) {
+      LOGGER.warn(format("Could not register the statistics of listener '%s' in JMX. %s", listener, e.getMessage()), e);
+    }
+  }
+
+  /**
+   * Unregisters these statistics from the platform MBean server, if they were registered
+   */
+  void unregister() {
+    if (objectName == null) {
+      return;
+    }
+
+    try {
+      getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (JMException | RuntimeException e) {
+      LOGGER.debug(format("Could not unregister the statistics of listener '%s' from JMX. %s", listener, e.getMessage()), e);
+    } finally {
+      objectName = null;
+    }
+  }
+
+  /**
+   * Records a completed poll
+   *
+   * @param readRows        the number of rows the poll read
+   * @param timings         the time the poll spent on each of its phases
+   * @param latestWatermark the latest watermark as of the end of the poll, if any
+   */
+  void pollCompleted(int readRows, PollTimings timings, Serializable latestWatermark) {
+    PollMetrics metrics = new PollMetrics(listener, table, readRows, ofNanos(timings.getConnectNanos()),
+                                          ofNanos(timings.getExecuteNanos()), ofNanos(timings.getFetchNanos()),
+                                          ofNanos(timings.getDispatchNanos()), lagOf(latestWatermark, Instant.now()));
+    polls.incrementAndGet();
+    rows.addAndGet(readRows);
+    lastPoll = metrics;
+
+    for (RowListenerMetricsPublisher publisher : publishers) {
+      try {
+        publisher.pollCompleted(metrics);
+      } catch (RuntimeException e) {
+        LOGGER.warn(format("Metrics publisher %s failed to publish the metrics of listener '%s'. %s",
+                           publisher.getClass().getName(), listener, e.getMessage()),
+                    e);
+      }
+    }
+  }
+
+  /**
+   * Records a message which was rejected by the runtime
+   */
+  void itemRejected() {
+    rejectedItems.incrementAndGet();
+    for (RowListenerMetricsPublisher publisher : publishers) {
+      try {
+        publisher.itemRejected(listener, table);
+      } catch (RuntimeException e) {
+        LOGGER.warn(format("Metrics publisher %s failed to publish the metrics of listener '%s'. %s",
+                           publisher.getClass().getName(), listener, e.getMessage()),
+                    e);
+      }
+    }
+  }
+
+  /**
+   * Obtains the time elapsed since the given watermark
+   *
+   * @param watermark a watermark value
+   * @param now       the current instant
+   * @return the time elapsed since the {@code watermark}, or {@code null} if it's not a point in time
+   */
+  static Duration lagOf(Serializable watermark, Instant now) {
+    if (watermark instanceof CompositeWatermark) {
+      watermark = ((CompositeWatermark) watermark).getWatermark();
+    }
+
+    Instant instant;
+    if (watermark instanceof Time) {
+      // A time of the day is not a point in time
+      return null;
+    } else if (watermark instanceof Date) {
+      // Includes java.sql.Timestamp, whose nanos are not relevant for the lag
+      instant = Instant.ofEpochMilli(((Date) watermark).getTime());
+    } else if (watermark instanceof Instant) {
+      instant = (Instant) watermark;
+    } else if (watermark instanceof LocalDateTime) {
+      instant = ((LocalDateTime) watermark).atZone(ZoneId.systemDefault()).toInstant();
+    } else if (watermark instanceof OffsetDateTime) {
+      instant = ((OffsetDateTime) watermark).toInstant();
+    } else if (watermark instanceof ZonedDateTime) {
+      instant = ((ZonedDateTime) watermark).toInstant();
+    } else {
+      return null;
+    }
+
+    return Duration.between(instant, now);
+  }
+
+  @Override
+  public String getTable() {
+    return table;
+  }
+
+  @Override
+  public long getPollCount() {
+    return polls.get();
+  }
+
+  @Override
+  public long getRowCount() {
+    return rows.get();
+  }
+
+  @Override
+  public int getLastPollRows() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getRows() : 0;
+  }
+
+  @Override
+  public long getRejectedItemCount() {
+    return rejectedItems.get();
+  }
+
+  @Override
+  public long getLastConnectMillis() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getConnectTime().toMillis() : 0;
+  }
+
+  @Override
+  public long getLastExecuteMillis() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getExecuteTime().toMillis() : 0;
+  }
+
+  @Override
+  public long getLastFetchMillis() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getFetchTime().toMillis() : 0;
+  }
+
+  @Override
+  public long getLastDispatchMillis() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getDispatchTime().toMillis() : 0;
+  }
+
+  @Override
+  public long getLagMillis() {
+    PollMetrics metrics = lastPoll;
+    return metrics != null ? metrics.getLag().map(Duration::toMillis).orElse(-1L) : -1;
+  }
+
+  @Override
+  public long getEffectivePollIntervalMillis() {
+    return effectivePollInterval.getAsLong();
+  }
+
+  @Override
+  public long getBacklogEstimate() {
+    return backlogEstimate.getAsLong();
+  }
+
+  /**
+   * @return the measurements of the last completed poll, or {@code null} if no poll completed yet
+   */
+  PollMetrics getLastPoll() {
+    return lastPoll;
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+/**
+ * JMX view of the {@link RowListenerStatistics} of a table row listener
+ *
+ * @since 2.0.0
+ */
+public interface RowListenerStatisticsMBean {
+
+  /**
+   * @return the table polled by the listener
+   */
+  String getTable();
+
+  /**
+   * @return the number of completed polls
+   */
+  long getPollCount();
+
+  /**
+   * @return the number of rows read by all polls
+   */
+  long getRowCount();
+
+  /**
+   * @return the number of rows read by the last poll
+   */
+  int getLastPollRows();
+
+  /**
+   * @return the number of messages rejected by the runtime
+   */
+  long getRejectedItemCount();
+
+  /**
+   * @return the time the last poll spent obtaining a connection, in milliseconds
+   */
+  long getLastConnectMillis();
+
+  /**
+   * @return the time the last poll spent executing statements, in milliseconds
+   */
+  long getLastExecuteMillis();
+
+  /**
+   * @return the time the last poll spent reading rows, in milliseconds
+   */
+  long getLastFetchMillis();
+
+  /**
+   * @return the time the last poll spent dispatching rows, in milliseconds
+   */
+  long getLastDispatchMillis();
+
+  /**
+   * @return the time elapsed since the latest watermark as of the last poll, in milliseconds, or -1 if the watermark is not
+   *         a point in time
+   */
+  long getLagMillis();
+
+  /**
+   * @return the time elapsed between the starts of the last two polls, in milliseconds, when the polling interval adapts to
+   *         the table backlog. Zero otherwise
+   */
+  long getEffectivePollIntervalMillis();
+
+  /**
+   * @return an estimate of the number of rows the last poll left behind when the polling interval adapts to the table backlog.
+   *         Zero otherwise
+   */
+  long getBacklogEstimate();
+}
@@ -0,0 +1,344 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Locale.ROOT;
+
+import org.mule.extension.db.internal.source.ChangeJournal.Operation;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Snapshot of the contents of a table, kept as a 64 bits hash of each row indexed by the ID of the row, which allows
+ * detecting the rows inserted, updated and deleted between two successive scans of the table.
+ * <p>
+ * The snapshot is an open addressing hash table with linear probing, stored in {@link MappedMemory} so that tables with tens
+ * of millions of rows don't take any heap. Each slot holds the hash of the row ID, the hash of the row, the scan the row was
+ * last seen by and the location of the ID in a separate key log, so that IDs are always compared exactly and deleted rows can
+ * be reported by their ID.
+ * <p>
+ * Changes are only taken into the snapshot once they are {@link #record(String, long) recorded} or {@link #remove(String)
+ * removed}, so that a change which couldn't be reported is detected again by the next scan. Instances are not thread safe.
+ *
+ * @since 2.0.0
+ */
+final class RowSnapshot implements Closeable {
+
+  private static final int SLOT_SIZE = 32;
+  private static final int KEY_HASH_OFFSET = 0;
+  private static final int ROW_HASH_OFFSET = 8;
+  private static final int KEY_OFFSET_OFFSET = 16;
+  private static final int SCAN_OFFSET = 24;
+  // The length of the key plus one, so that zero means the slot is empty
+  private static final int KEY_LENGTH_OFFSET = 28;
+  // Scans are numbered from one, so zero marks the slots of removed rows until the table is compacted
+  private static final int REMOVED = 0;
+  private static final long INITIAL_CAPACITY = 1L << 16;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private MappedMemory slots;
+  private MappedMemory keys;
+  private long capacity;
+  private long size;
+  private long removed;
+  private long keysSize;
+  private int scan = 1;
+
+  /**
+   * Creates an empty snapshot
+   *
+   * @throws IOException if the backing memory cannot be allocated
+   */
+  RowSnapshot() throws IOException {
+    allocate(INITIAL_CAPACITY);
+  }
+
+  /**
+   * Compares a row read by the current scan with the snapshot, without changing its hash. A row which is in the snapshot is
+   * taken as seen by the scan, so that it's not reported as deleted.
+   *
+   * @param key     the ID of the row
+   * @param rowHash the hash of the row, as returned by {@link #hash(Map)}
+   * @return {@link Operation#INSERT} if the row is not in the snapshot, {@link Operation#UPDATE} if its hash changed, or
+   *         {@code null} if it didn't change
+   */
+  Operation compare(String key, long rowHash) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    long slot = find(hash(keyBytes), keyBytes);
+    if (!isPresent(slot)) {
+      return Operation.INSERT;
+    }
+
+    slots.putInt(slot + SCAN_OFFSET, scan);
+    return slots.getLong(slot + ROW_HASH_OFFSET) == rowHash ? null : Operation.UPDATE;
+  }
+
+  /**
+   * Records the hash of a row read by the current scan
+   *
+   * @param key     the ID of the row
+   * @param rowHash the hash of the row, as returned by {@link #hash(Map)}
+   * @return {@link Operation#INSERT} if the row was not in the snapshot, {@link Operation#UPDATE} if its hash changed, or
+   *         {@code null} if it didn't change
+   * @throws IOException if the snapshot needs to grow and the backing memory cannot be allocated
+   */
+  Operation record(String key, long rowHash) throws IOException {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    long keyHash = hash(keyBytes);
+
+    long slot = find(keyHash, keyBytes);
+    if (isPresent(slot)) {
+      slots.putInt(slot + SCAN_OFFSET, scan);
+      if (slots.getLong(slot + ROW_HASH_OFFSET) == rowHash) {
+        return null;
+      }
+
+      slots.putLong(slot + ROW_HASH_OFFSET, rowHash);
+      return Operation.UPDATE;
+    }
+
+    if (slots.getInt(slot + KEY_LENGTH_OFFSET) != 0) {
+      // The row was removed and showed up again before the table was compacted
+      slots.putLong(slot + ROW_HASH_OFFSET, rowHash);
+      slots.putInt(slot + SCAN_OFFSET, scan);
+      removed--;
+      size++;
+      return Operation.INSERT;
+    }
+
+    if ((size + removed + 1) * 4 > capacity * 3) {
+      rebuild(capacity * 2);
+      slot = find(keyHash, keyBytes);
+    }
+
+    keys.ensureCapacity(keysSize + keyBytes.length);
+    keys.put(keysSize, keyBytes);
+    write(slots, slot, keyHash, rowHash, keysSize, scan, keyBytes.length + 1);
+    keysSize += keyBytes.length;
+    size++;
+
+    return Operation.INSERT;
+  }
+
+  /**
+   * Completes a scan which read the whole table, reporting the IDs of the rows it didn't see. The rows stay in the snapshot
+   * until they are {@link #remove(String) removed}, so the ones whose deletion couldn't be reported are reported again by the
+   * next scan.
+   *
+   * @param deleted receives the ID of each row the scan didn't see. Returning {@code false} stops reporting deleted rows.
+   */
+  void sweep(Predicate<String> deleted) {
+    boolean reporting = true;
+    for (long slot = 0; slot < capacity * SLOT_SIZE && reporting; slot += SLOT_SIZE) {
+      if (isPresent(slot) && slots.getInt(slot + SCAN_OFFSET) != scan) {
+        reporting = deleted.test(keyAt(slot));
+      }
+    }
+  }
+
+  /**
+   * Removes a deleted row from the snapshot
+   *
+   * @param key the ID of the row
+   */
+  void remove(String key) {
+    byte[] keyBytes = key.getBytes(UTF_8);
+    long slot = find(hash(keyBytes), keyBytes);
+    if (isPresent(slot)) {
+      slots.putInt(slot + SCAN_OFFSET, REMOVED);
+      removed++;
+      size--;
+    }
+  }
+
+  /**
+   * Starts a new scan of the table. Rows are considered seen only by the scan which last {@link #compare(String, long)
+   * compared} or {@link #record(String, long) recorded} them.
+   *
+   * @throws IOException if the snapshot needs to be compacted and the backing memory cannot be allocated
+   */
+  void startScan() throws IOException {
+    if (removed > 0) {
+      rebuild(capacity);
+    }
+
+    scan = scan == Integer.MAX_VALUE ? 1 : scan + 1;
+  }
+
+  /**
+   * @return the number of rows in the snapshot
+   */
+  long size() {
+    return size;
+  }
+
+  /**
+   * Computes the hash of a row. The hash doesn't depend on the order of the columns of the row.
+   *
+   * @param row a row
+   * @return a 64 bits hash of the names and values of all the columns of the row
+   */
+  static long hash(Map<String, Object> row) {
+    long hash = 0;
+    for (Map.Entry<String, Object> column : row.entrySet()) {
+      long name = hash(column.getKey().toUpperCase(ROOT));
+      Object value = column.getValue();
+      long valueHash = value == null ? 0 : value instanceof byte[] ? hash((byte[]) value) : hash(value.toString());
+      hash += mix(name * 31 + valueHash);
+    }
+
+    return mix(hash);
+  }
+
+  private static long hash(String value) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+      hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+
+    return mix(hash);
+  }
+
+  private static long hash(byte[] value) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : value) {
+      hash = (hash ^ (b & 0xff)) * FNV_PRIME;
+    }
+
+    return mix(hash);
+  }
+
+  /**
+   * The finalization step of MurmurHash3, which spreads the entropy of all bits of the hash into its lower bits
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  /**
+   * @return the slot holding the given key, or the empty slot where it would be inserted
+   */
+  private long find(long keyHash, byte[] keyBytes) {
+    long mask = capacity - 1;
+    long index = keyHash & mask;
+    while (true) {
+      long slot = index * SLOT_SIZE;
+      int keyLength = slots.getInt(slot + KEY_LENGTH_OFFSET);
+      if (keyLength == 0 || (slots.getLong(slot + KEY_HASH_OFFSET) == keyHash && keyLength == keyBytes.length + 1
+          && keyEquals(slots.getLong(slot + KEY_OFFSET_OFFSET), keyBytes))) {
+        return slot;
+      }
+
+      index = (index + 1) & mask;
+    }
+  }
+
+  private boolean isPresent(long slot) {
+    return slots.getInt(slot + KEY_LENGTH_OFFSET) != 0 && slots.getInt(slot + SCAN_OFFSET) != REMOVED;
+  }
+
+  private boolean keyEquals(long offset, byte[] keyBytes) {
+    for (int i = 0; i < keyBytes.length; i++) {
+      if (keys.get(offset + i) != keyBytes[i]) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  private String keyAt(long slot) {
+    long offset = slots.getLong(slot + KEY_OFFSET_OFFSET);
+    byte[] keyBytes = new byte[slots.getInt(slot + KEY_LENGTH_OFFSET) - 1];
+    for (int i = 0; i < keyBytes.length; i++) {
+      keyBytes[i] = keys.get(offset + i);
+    }
+
+    return new String(keyBytes, UTF_8);
+  }
+
+  private static void write(MappedMemory memory, long slot, long keyHash, long rowHash, long keyOffset, int scan,
+                            int keyLength) {
+    memory.putLong(slot + KEY_HASH_OFFSET, keyHash);
+    memory.putLong(slot + ROW_HASH_OFFSET, rowHash);
+    memory.putLong(slot + KEY_OFFSET_OFFSET, keyOffset);
+    memory.putInt(slot + SCAN_OFFSET, scan);
+    memory.putInt(slot + KEY_LENGTH_OFFSET, keyLength);
+  }
+
+  private void allocate(long newCapacity) throws IOException {
+    slots = new MappedMemory("db-row-snapshot");
+    slots.ensureCapacity(newCapacity * SLOT_SIZE);
+    keys = new MappedMemory("db-row-snapshot-keys");
+    capacity = newCapacity;
+    size = 0;
+    removed = 0;
+    keysSize = 0;
+  }
+
+  /**
+   * Moves the slots of the rows which were not removed into a new table of the given capacity, compacting the key log
+   */
+  private void rebuild(long newCapacity) throws IOException {
+    MappedMemory oldSlots = slots;
+    MappedMemory oldKeys = keys;
+    long oldCapacity = capacity;
+
+    allocate(newCapacity);
+    try {
+      long mask = capacity - 1;
+      for (long oldSlot = 0; oldSlot < oldCapacity * SLOT_SIZE; oldSlot += SLOT_SIZE) {
+        int keyLength = oldSlots.getInt(oldSlot + KEY_LENGTH_OFFSET);
+        if (keyLength == 0 || oldSlots.getInt(oldSlot + SCAN_OFFSET) == REMOVED) {
+          continue;
+        }
+
+        long keyHash = oldSlots.getLong(oldSlot + KEY_HASH_OFFSET);
+        long index = keyHash & mask;
+        while (slots.getInt(index * SLOT_SIZE + KEY_LENGTH_OFFSET) != 0) {
+          index = (index + 1) & mask;
+        }
+
+        long oldKeyOffset = oldSlots.getLong(oldSlot + KEY_OFFSET_OFFSET);
+        keys.ensureCapacity(keysSize + keyLength - 1);
+        for (int i = 0; i < keyLength - 1; i++) {
+          keys.put(keysSize + i, oldKeys.get(oldKeyOffset + i));
+        }
+
+        write(slots, index * SLOT_SIZE, keyHash, oldSlots.getLong(oldSlot + ROW_HASH_OFFSET), keysSize,
+              oldSlots.getInt(oldSlot + SCAN_OFFSET), keyLength);
+        keysSize += keyLength - 1;
+        size++;
+      }
+    } finally {
+      oldSlots.close();
+      oldKeys.close();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      slots.close();
+    } finally {
+      keys.close();
+    }
+  }
+}
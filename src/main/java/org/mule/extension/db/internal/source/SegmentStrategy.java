@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.runtime.api.connection.ConnectionProvider;
+import org.mule.runtime.api.scheduler.Scheduler;
+
+import java.io.Serializable;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * {@link PollStrategy} which splits each poll into segments, each one reading a disjoint subset of the rows through its own
+ * connection, in parallel, and merges the rows back in watermark order before dispatching them, see {@link SegmentedPoll}.
+ *
+ * @since 2.0.0
+ */
+final class SegmentStrategy implements PollStrategy {
+
+  private final int segments;
+  private final Scheduler scheduler;
+  private final Function<Map<String, Object>, Serializable> watermark;
+  private final boolean uniqueCursor;
+  private final Integer maxRows;
+  private final ConnectionProvider<DbConnection> connectionProvider;
+
+  /**
+   * @param segments           the number of segments
+   * @param scheduler          the scheduler the segments are read on, which is stopped along with the strategy
+   * @param watermark          obtains the watermark of a row, or {@code null} if the rows don't need to be merged in order
+   * @param uniqueCursor       whether the {@code watermark} yields a different value for each row
+   * @param maxRows            the maximum number of rows each segment reads, or {@code null} for no limit
+   * @param connectionProvider provides the connections of the segments
+   */
+  SegmentStrategy(int segments, Scheduler scheduler, Function<Map<String, Object>, Serializable> watermark,
+                  boolean uniqueCursor, Integer maxRows, ConnectionProvider<DbConnection> connectionProvider) {
+    this.segments = segments;
+    this.scheduler = scheduler;
+    this.watermark = watermark;
+    this.uniqueCursor = uniqueCursor;
+    this.maxRows = maxRows;
+    this.connectionProvider = connectionProvider;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws Exception {
+    SegmentedPoll segmentedPoll = new SegmentedPoll(segments, scheduler, watermark, uniqueCursor, maxRows);
+
+    return segmentedPoll.run((index, consumer) -> {
+      // The first segment reuses the connection of the poll, which is otherwise idle
+      DbConnection segmentConnection = index == 0 ? poll.getConnection() : connectionProvider.connect();
+      try {
+        return poll.select(segmentConnection, poll.getWatermark(), index, consumer);
+      } finally {
+        if (index != 0) {
+          connectionProvider.disconnect(segmentConnection);
+        }
+      }
+    }, poll.getDispatcher());
+  }
+
+  @Override
+  public void stop() {
+    scheduler.stop();
+  }
+}
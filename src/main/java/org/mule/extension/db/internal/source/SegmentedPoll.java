@@ -0,0 +1,378 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * A poll split into segments which read disjoint sets of rows in parallel, each one through its own connection, and whose
+ * rows are merged back into a single {@link RowConsumer} on the polling thread.
+ * <p>
+ * When the rows have a watermark, each segment needs to read its rows in watermark order, and the segments are merged so that
+ * rows are dispatched in watermark order too. Since a row is only dispatched once every segment has read a row at least as
+ * great, the watermark never advances past a row which was not read yet. If a segment stops before reading all its rows,
+ * either because it reached its row limit or because it failed, no rows with a greater watermark than its last row are
+ * dispatched, so the next poll resumes from the lowest watermark among the truncated segments. Unless the cursor is unique for
+ * each row, as it happens with a {@link CompositeWatermark}, rows with the same watermark as that last row are not dispatched
+ * either, since the truncated segment may hold more rows with that watermark which it didn't read, and which the next poll
+ * would skip. A segment whose row limit is reached by rows which all share a single watermark then holds the poll back, so
+ * the row limit must be greater than the number of rows of a segment which share a watermark, or else the watermark must be
+ * composite.
+ * <p>
+ * Rows flow from the segments to the polling thread through bounded queues, so the memory used by a poll doesn't depend on the
+ * number of rows it reads.
+ *
+ * @since 2.0.0
+ */
+final class SegmentedPoll {
+
+  private static final int QUEUE_CAPACITY = 256;
+
+  private final int segments;
+  private final Executor executor;
+  private final Function<Map<String, Object>, Serializable> watermark;
+  private final boolean uniqueCursor;
+  private final Integer limit;
+
+  private final List<BlockingQueue<Object>> queues;
+  private final SegmentEnd[] rejected;
+  private volatile boolean cancelled = false;
+
+  /**
+   * @param segments     the number of segments
+   * @param executor     the {@link Executor} which runs the segments
+   * @param watermark    obtains the watermark of a row, or {@code null} if the rows don't have a watermark
+   * @param uniqueCursor whether the {@code watermark} yields a different value for each row
+   * @param limit        the maximum number of rows each segment reads, or {@code null} if not limited
+   */
+  SegmentedPoll(int segments, Executor executor, Function<Map<String, Object>, Serializable> watermark, boolean uniqueCursor,
+                Integer limit) {
+    this.segments = segments;
+    this.executor = executor;
+    this.watermark = watermark;
+    this.uniqueCursor = uniqueCursor;
+    this.limit = limit;
+    this.rejected = new SegmentEnd[segments];
+    this.queues = new ArrayList<>(segments);
+    for (int i = 0; i < (watermark != null ? segments : 1); i++) {
+      queues.add(new ArrayBlockingQueue<>(QUEUE_CAPACITY));
+    }
+  }
+
+  /**
+   * Runs the poll, blocking until all of its segments finish
+   *
+   * @param segment  reads the rows of a segment
+   * @param consumer receives the merged rows
+   * @return the outcome of the poll
+   * @throws Exception if any of the segments failed, after dispatching the rows which could be safely dispatched
+   */
+  PollOutcome run(Segment segment, RowConsumer consumer) throws Exception {
+    for (int i = 0; i < segments; i++) {
+      BlockingQueue<Object> queue = queues.get(watermark != null ? i : 0);
+      int index = i;
+      try {
+        executor.execute(() -> {
+          SegmentEnd end;
+          try {
+            end = new SegmentEnd(segment.read(index, row -> !cancelled && put(queue, row)), null);
+          } catch (Throwable t) {
+            end = new SegmentEnd(0, t);
+          }
+
+          put(queue, end);
+        });
+      } catch (RejectedExecutionException e) {
+        // The end of a segment which never started can't go through the queues, which may be full
+        rejected[i] = new SegmentEnd(0, e);
+      }
+    }
+
+    Merge merge = watermark != null ? new OrderedMerge(consumer) : new UnorderedMerge(consumer);
+    try {
+      merge.run();
+    } finally {
+      cancelled = true;
+      merge.drain();
+    }
+
+    if (merge.failure != null) {
+      if (merge.failure instanceof Exception) {
+        throw (Exception) merge.failure;
+      }
+
+      throw new IllegalStateException(merge.failure);
+    }
+
+    return new PollOutcome(merge.dispatched, !merge.truncated);
+  }
+
+  private boolean put(BlockingQueue<Object> queue, Object element) {
+    try {
+      queue.put(element);
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancelled = true;
+      return false;
+    }
+  }
+
+  private boolean isTruncated(SegmentEnd end) {
+    return end.failure != null || (limit != null && end.rows >= limit);
+  }
+
+  /**
+   * Reads the rows of one segment of the poll
+   */
+  @FunctionalInterface
+  interface Segment {
+
+    /**
+     * @param index    the index of the segment, from zero to the number of segments minus one
+     * @param consumer receives the rows of the segment, in watermark order if the rows have a watermark
+     * @return the number of rows read
+     * @throws Exception if the rows could not be read
+     */
+    int read(int index, RowConsumer consumer) throws Exception;
+  }
+
+  private static final class SegmentEnd {
+
+    private final int rows;
+    private final Throwable failure;
+
+    private SegmentEnd(int rows, Throwable failure) {
+      this.rows = rows;
+      this.failure = failure;
+    }
+  }
+
+  private abstract class Merge {
+
+    final RowConsumer consumer;
+    final boolean[] ended = new boolean[segments];
+    int dispatched = 0;
+    boolean truncated = false;
+    Throwable failure;
+
+    Merge(RowConsumer consumer) {
+      this.consumer = consumer;
+    }
+
+    abstract void run() throws InterruptedException;
+
+    /**
+     * Discards the remaining rows until every segment ends, so that none of them stays blocked on a full queue
+     */
+    abstract void drain() throws InterruptedException;
+
+    boolean dispatch(Map<String, Object> row) {
+      dispatched++;
+      if (!consumer.accept(row)) {
+        truncated = true;
+        return false;
+      }
+
+      return true;
+    }
+
+    void end(int segment, SegmentEnd end) {
+      ended[segment] = true;
+      if (isTruncated(end)) {
+        truncated = true;
+      }
+
+      if (end.failure != null && failure == null) {
+        failure = end.failure;
+      }
+    }
+  }
+
+  /**
+   * Dispatches the rows in the order they arrive, for rows without watermark
+   */
+  private final class UnorderedMerge extends Merge {
+
+    private int pending = segments;
+
+    private UnorderedMerge(RowConsumer consumer) {
+      super(consumer);
+      for (SegmentEnd end : rejected) {
+        if (end != null) {
+          end(segments - pending--, end);
+        }
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    void run() throws InterruptedException {
+      BlockingQueue<Object> queue = queues.get(0);
+      while (pending > 0) {
+        Object next = queue.take();
+        if (next instanceof SegmentEnd) {
+          end(segments - pending--, (SegmentEnd) next);
+        } else if (!dispatch((Map<String, Object>) next)) {
+          return;
+        }
+      }
+    }
+
+    @Override
+    void drain() throws InterruptedException {
+      BlockingQueue<Object> queue = queues.get(0);
+      while (pending > 0) {
+        Object next = queue.take();
+        if (next instanceof SegmentEnd) {
+          end(segments - pending--, (SegmentEnd) next);
+        }
+      }
+    }
+  }
+
+  /**
+   * Dispatches the rows of all segments in watermark order
+   */
+  private final class OrderedMerge extends Merge {
+
+    private final Object[] heads = new Object[segments];
+    private final Serializable[] last = new Serializable[segments];
+    private final List<Map<String, Object>> group = new ArrayList<>();
+    private Serializable groupWatermark;
+    private Serializable cap;
+    private boolean capped = false;
+
+    private OrderedMerge(RowConsumer consumer) {
+      super(consumer);
+    }
+
+    /**
+     * Unless the cursor is unique, the rows which share a watermark are held back until every segment moves past it, as it's
+     * only then known whether a segment which gets truncated may hold more rows with that watermark.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    void run() throws InterruptedException {
+      for (int i = 0; i < segments; i++) {
+        advance(i);
+      }
+
+      while (true) {
+        int next = -1;
+        for (int i = 0; i < segments; i++) {
+          if (!ended[i] && (next == -1 || compare(watermarkOf(i), watermarkOf(next)) < 0)) {
+            next = i;
+          }
+        }
+
+        if (!group.isEmpty() && (next == -1 || compare(watermarkOf(next), groupWatermark) > 0) && !flushGroup()) {
+          return;
+        }
+
+        if (next == -1 || (capped && (cap == null || !belowCap(watermarkOf(next))))) {
+          return;
+        }
+
+        Map<String, Object> row = (Map<String, Object>) heads[next];
+        if (uniqueCursor) {
+          if (!dispatch(row)) {
+            return;
+          }
+        } else {
+          groupWatermark = watermarkOf(next);
+          group.add(row);
+        }
+
+        advance(next);
+      }
+    }
+
+    /**
+     * Dispatches the rows of the group, once every segment moved past its watermark
+     *
+     * @return whether the merge can go on
+     */
+    private boolean flushGroup() {
+      if (capped && (cap == null || !belowCap(groupWatermark))) {
+        return false;
+      }
+
+      for (Map<String, Object> row : group) {
+        if (!dispatch(row)) {
+          return false;
+        }
+      }
+
+      group.clear();
+      return true;
+    }
+
+    @Override
+    void drain() throws InterruptedException {
+      for (int i = 0; i < segments; i++) {
+        while (!ended[i]) {
+          advance(i);
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void advance(int segment) throws InterruptedException {
+      if (heads[segment] != null && !(heads[segment] instanceof SegmentEnd)) {
+        last[segment] = watermark.apply((Map<String, Object>) heads[segment]);
+      }
+
+      Object head = rejected[segment] != null ? rejected[segment] : queues.get(segment).take();
+      heads[segment] = head;
+      if (head instanceof SegmentEnd) {
+        SegmentEnd end = (SegmentEnd) head;
+        end(segment, end);
+        if (isTruncated(end) && !capped) {
+          // Rows dispatched so far are never greater than the last row of this segment, so this only narrows the cap
+          capped = true;
+          cap = last[segment];
+        } else if (isTruncated(end) && cap != null && compare(last[segment], cap) < 0) {
+          cap = last[segment];
+        }
+      }
+    }
+
+    /**
+     * Rows at the cap are only safe to dispatch when the cursor is unique, as otherwise the truncated segment may hold more
+     * rows at the cap which it didn't read
+     */
+    private boolean belowCap(Serializable value) {
+      int comparison = compare(value, cap);
+      return uniqueCursor ? comparison <= 0 : comparison < 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Serializable watermarkOf(int segment) {
+      return watermark.apply((Map<String, Object>) heads[segment]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Serializable value, Serializable other) {
+      if (value == null || other == null) {
+        return value == null ? (other == null ? 0 : -1) : 1;
+      }
+
+      return ((Comparable<Serializable>) value).compareTo(other);
+    }
+  }
+}
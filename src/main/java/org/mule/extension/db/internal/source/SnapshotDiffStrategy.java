@@ -0,0 +1,211 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.String.format;
+
+import org.mule.extension.db.internal.source.AbstractTableListener.RowDispatcher;
+import org.mule.extension.db.internal.source.ChangeJournal.Operation;
+import org.mule.extension.db.internal.source.StreamingRowResultSetHandler.RowConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@link PollStrategy} which reads the whole table on each poll and only dispatches the rows inserted, updated or deleted since
+ * the previous one, by comparing them with a {@link RowSnapshot} of the table.
+ * <p>
+ * The first poll rebuilds the snapshot, and only reports every row as inserted if the existing rows are emitted.
+ *
+ * @since 2.0.0
+ */
+final class SnapshotDiffStrategy implements PollStrategy {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotDiffStrategy.class);
+
+  private final String table;
+  private final String idColumn;
+  private volatile RowSnapshot snapshot;
+  private boolean priming;
+
+  /**
+   * @param table            the table being read
+   * @param idColumn         the column which identifies each row of the {@code table}
+   * @param emitExistingRows whether the first poll reports every row already in the table as inserted
+   * @throws IOException if the snapshot could not be allocated
+   */
+  SnapshotDiffStrategy(String table, String idColumn, boolean emitExistingRows) throws IOException {
+    this.table = table;
+    this.idColumn = idColumn;
+    this.snapshot = new RowSnapshot();
+    this.priming = !emitExistingRows;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws SQLException, IOException {
+    RowSnapshot rowSnapshot = snapshot;
+    if (rowSnapshot == null) {
+      return new PollOutcome(0, true);
+    }
+
+    synchronized (rowSnapshot) {
+      if (rowSnapshot != snapshot) {
+        // The listener was stopped and the snapshot released
+        return new PollOutcome(0, true);
+      }
+
+      rowSnapshot.startScan();
+      SnapshotDiff diff = new SnapshotDiff(rowSnapshot, poll.getDispatcher(), priming);
+      poll.select(poll.getConnection(), null, null, diff);
+      if (diff.priming) {
+        // The rows already in the table when the listener started are not changes
+        priming = false;
+        return new PollOutcome(0, true);
+      }
+
+      // Rows not seen by a scan which stopped early were not necessarily deleted
+      if (!diff.stopped) {
+        rowSnapshot.sweep(diff::deleted);
+      }
+
+      diff.complete();
+      return new PollOutcome(diff.changes, !diff.stopped);
+    }
+  }
+
+  @Override
+  public void stop() {
+    RowSnapshot rowSnapshot = snapshot;
+    if (rowSnapshot != null) {
+      snapshot = null;
+      synchronized (rowSnapshot) {
+        try {
+          rowSnapshot.close();
+        } catch (IOException e) {
+          LOGGER.warn(format("Could not release the snapshot of table '%s'. %s", table, e.getMessage()), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * {@link RowConsumer} which records each row read by a full scan of the table into a {@link RowSnapshot}, and only
+   * dispatches the ones which changed
+   */
+  private final class SnapshotDiff implements RowConsumer {
+
+    private final RowSnapshot rowSnapshot;
+    private final RowDispatcher delegate;
+    private final boolean priming;
+    private final Deque<Change> uncommitted = new ArrayDeque<>();
+    private int changes = 0;
+    private boolean stopped = false;
+
+    /**
+     * @param priming whether the rows are just recorded into the snapshot, without reporting any changes
+     */
+    private SnapshotDiff(RowSnapshot rowSnapshot, RowDispatcher delegate, boolean priming) {
+      this.rowSnapshot = rowSnapshot;
+      this.delegate = delegate;
+      this.priming = priming;
+    }
+
+    @Override
+    public boolean accept(Map<String, Object> row) {
+      Object id = row.get(idColumn);
+      if (id == null) {
+        if (LOGGER.isDebugEnabled()) {
+          LOGGER.debug(format("A null ID value was obtained for row %s. Changes to this row will not be detected", row));
+        }
+
+        return true;
+      }
+
+      String key = id.toString();
+      long rowHash = RowSnapshot.hash(row);
+      if (priming) {
+        try {
+          rowSnapshot.record(key, rowHash);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        return true;
+      }
+
+      Operation operation = rowSnapshot.compare(key, rowHash);
+      return operation == null || dispatch(row, new Change(key, rowHash, operation));
+    }
+
+    private boolean deleted(String id) {
+      Map<String, Object> row = new HashMap<>();
+      row.put(idColumn, id);
+      return dispatch(row, new Change(id, 0, Operation.DELETE));
+    }
+
+    /**
+     * Takes the changes whose rows are still held by the dispatcher into the snapshot once they are dispatched
+     */
+    private void complete() {
+      if (!stopped && delegate.complete()) {
+        commit(uncommitted.size());
+      }
+      uncommitted.clear();
+    }
+
+    private boolean dispatch(Map<String, Object> row, Change change) {
+      row.put(ChangeJournal.OPERATION_COLUMN, change.operation.name());
+      changes++;
+      uncommitted.add(change);
+      stopped = !delegate.accept(row);
+      if (stopped) {
+        // The changes not yet taken into the snapshot are detected again by the next scan
+        uncommitted.clear();
+      } else {
+        commit(uncommitted.size() - delegate.getHeldRows());
+      }
+      return !stopped;
+    }
+
+    private void commit(int dispatched) {
+      try {
+        for (int i = 0; i < dispatched; i++) {
+          Change change = uncommitted.poll();
+          if (change.operation == Operation.DELETE) {
+            rowSnapshot.remove(change.key);
+          } else {
+            rowSnapshot.record(change.key, change.rowHash);
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * A change detected by a {@link SnapshotDiff}, to be taken into the snapshot once dispatched
+   */
+  private static final class Change {
+
+    private final String key;
+    private final long rowHash;
+    private final Operation operation;
+
+    private Change(String key, long rowHash, Operation operation) {
+      this.key = key;
+      this.rowHash = rowHash;
+      this.operation = operation;
+    }
+  }
+}
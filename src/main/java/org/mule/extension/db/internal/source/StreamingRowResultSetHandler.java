@@ -0,0 +1,126 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.System.nanoTime;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.result.resultset.ResultSetHandler;
+import org.mule.db.commons.internal.result.row.RowHandler;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * {@link ResultSetHandler} which hands each row over to a {@link RowConsumer} as soon as it is read from the cursor, instead of
+ * accumulating the whole result set in memory.
+ * <p>
+ * Only the row being dispatched is materialized at any given time, plus whatever the driver buffers according to the statement
+ * fetch size, so the memory used by a poll does not depend on the amount of rows it returns. Rows a {@link RowFilter} skips
+ * are not even materialized.
+ * <p>
+ * The rows handed over are then held by the messages being processed, which the cursor is not aware of. Those are bounded by
+ * the consumer instead, which blocks while the flow can't take more messages, and the cursor just stays where it is meanwhile.
+ *
+ * @since 2.0.0
+ */
+final class StreamingRowResultSetHandler implements ResultSetHandler {
+
+  private final RowHandler rowHandler;
+  private final RowConsumer rowConsumer;
+  private final RowFilter rowFilter;
+  private long readNanos = 0;
+  private long consumeNanos = 0;
+
+  StreamingRowResultSetHandler(RowHandler rowHandler, RowConsumer rowConsumer) {
+    this(rowHandler, rowConsumer, null);
+  }
+
+  StreamingRowResultSetHandler(RowHandler rowHandler, RowConsumer rowConsumer, RowFilter rowFilter) {
+    this.rowHandler = rowHandler;
+    this.rowConsumer = rowConsumer;
+    this.rowFilter = rowFilter;
+  }
+
+  /**
+   * Reads the {@code resultSet} until it is exhausted or the {@link RowConsumer} asks to stop.
+   *
+   * @return the number of rows read, including the ones skipped by the {@link RowFilter}
+   */
+  @Override
+  public Integer processResultSet(DbConnection connection, ResultSet resultSet) throws SQLException {
+    long start = nanoTime();
+    int count = 0;
+    try {
+      while (resultSet.next()) {
+        count++;
+        if (rowFilter != null && rowFilter.skip(resultSet)) {
+          continue;
+        }
+
+        Map<String, Object> row = rowHandler.process(resultSet);
+        long consumeStart = nanoTime();
+        boolean keepReading = rowConsumer.accept(row);
+        consumeNanos += nanoTime() - consumeStart;
+        if (!keepReading) {
+          break;
+        }
+      }
+    } finally {
+      readNanos += nanoTime() - start;
+    }
+
+    return count;
+  }
+
+  /**
+   * @return the time spent reading result sets, including the time spent by the {@link RowConsumer}, in nanoseconds
+   */
+  long getReadNanos() {
+    return readNanos;
+  }
+
+  /**
+   * @return the time spent by the {@link RowConsumer}, in nanoseconds
+   */
+  long getConsumeNanos() {
+    return consumeNanos;
+  }
+
+  @Override
+  public boolean requiresMultipleOpenedResults() {
+    return false;
+  }
+
+  /**
+   * Receives the rows read by a {@link StreamingRowResultSetHandler}
+   */
+  @FunctionalInterface
+  interface RowConsumer {
+
+    /**
+     * @param row the row that was just read
+     * @return whether the cursor should keep being read
+     */
+    boolean accept(Map<String, Object> row);
+  }
+
+  /**
+   * Decides which rows are skipped before being materialized
+   */
+  @FunctionalInterface
+  interface RowFilter {
+
+    /**
+     * @param resultSet the {@link ResultSet}, positioned on the row that was just read
+     * @return whether the row should be skipped
+     * @throws SQLException if the row could not be read
+     */
+    boolean skip(ResultSet resultSet) throws SQLException;
+  }
+}
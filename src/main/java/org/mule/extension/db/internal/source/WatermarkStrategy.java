@@ -0,0 +1,33 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import java.sql.SQLException;
+
+/**
+ * {@link PollStrategy} which reads the rows after the watermark of the poll, or every row when there's no watermark, through
+ * a single statement.
+ *
+ * @since 2.0.0
+ */
+final class WatermarkStrategy implements PollStrategy {
+
+  private final Integer maxRows;
+
+  /**
+   * @param maxRows the maximum number of rows each poll reads, or {@code null} for no limit
+   */
+  WatermarkStrategy(Integer maxRows) {
+    this.maxRows = maxRows;
+  }
+
+  @Override
+  public PollOutcome poll(Poll poll) throws SQLException {
+    int rows = poll.select(poll.getDispatcher());
+    return new PollOutcome(rows, maxRows == null || rows < maxRows);
+  }
+}
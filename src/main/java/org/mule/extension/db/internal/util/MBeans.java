@@ -0,0 +1,49 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.util;
+
+import org.mule.runtime.api.component.ConfigurationProperties;
+
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+
+/**
+ * Names the MBeans of the connector. The platform MBean server is shared by all the applications deployed to a runtime, so
+ * the names include the application which registers them.
+ *
+ * @since 2.0.0
+ */
+public final class MBeans {
+
+  private static final String DOMAIN = "org.mule.extension.db";
+  private static final String ARTIFACT_NAME_PROPERTY = "app.name";
+
+  private MBeans() {}
+
+  /**
+   * @param properties the configuration properties of the application, or {@code null} if they are not available
+   * @return the name of the application, or {@code null} if it's unknown
+   */
+  public static String artifactName(ConfigurationProperties properties) {
+    return properties != null ? properties.resolveStringProperty(ARTIFACT_NAME_PROPERTY).orElse(null) : null;
+  }
+
+  /**
+   * @param type     the type of the MBean
+   * @param artifact the name of the application which registers the MBean, or {@code null} if it's unknown
+   * @param name     the name of the MBean within the application
+   * @return the name to register the MBean with
+   * @throws MalformedObjectNameException if the name can't be built
+   */
+  public static ObjectName objectName(String type, String artifact, String name) throws MalformedObjectNameException {
+    StringBuilder objectName = new StringBuilder(DOMAIN).append(":type=").append(type);
+    if (artifact != null) {
+      objectName.append(",artifact=").append(ObjectName.quote(artifact));
+    }
+    return new ObjectName(objectName.append(",name=").append(ObjectName.quote(name)).toString());
+  }
+}
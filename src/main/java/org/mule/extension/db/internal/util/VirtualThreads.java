@@ -0,0 +1,56 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.util;
+
+import static java.lang.invoke.MethodType.methodType;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+
+/**
+ * Tells virtual threads apart from platform ones. The connector runs on Java versions which don't have virtual threads, so
+ * they are detected through {@code Thread.isVirtual()} only when it exists.
+ *
+ * @since 2.0.0
+ */
+public final class VirtualThreads {
+
+  private static final MethodHandle IS_VIRTUAL = isVirtualHandle();
+
+  private VirtualThreads() {}
+
+  private static MethodHandle isVirtualHandle() {
+    try {
+      return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", methodType(boolean.class));
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param thread a thread
+   * @return whether the {@code thread} is a virtual thread
+   */
+  public static boolean isVirtual(Thread thread) {
+    if (IS_VIRTUAL == null) {
+      return false;
+    }
+
+    try {
+      return (boolean) IS_VIRTUAL.invokeExact(thread);
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /**
+   * @return whether the current thread is a virtual thread
+   */
+  public static boolean isCurrentThreadVirtual() {
+    return isVirtual(Thread.currentThread());
+  }
+}
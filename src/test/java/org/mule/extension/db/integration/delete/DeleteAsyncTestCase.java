@@ -0,0 +1,74 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.integration.delete;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.db.commons.api.exception.connection.DbError.BAD_SQL_SYNTAX;
+import static org.mule.extension.db.integration.DbTestUtil.assertExpectedUpdateCount;
+import static org.mule.extension.db.integration.model.Planet.MARS;
+import static org.mule.extension.db.integration.model.Planet.VENUS;
+
+import org.mule.extension.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.functional.api.exception.ExpectedError;
+import org.mule.runtime.api.message.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class DeleteAsyncTestCase extends AbstractDbIntegrationTestCase {
+
+  @Rule
+  public ExpectedError expectedError = ExpectedError.none();
+
+  @Override
+  protected String[] getFlowConfigurationResources() {
+    return new String[] {"integration/delete/delete-async-config.xml"};
+  }
+
+  @Test
+  public void deleteAsync() throws Exception {
+    Message response = flowRunner("deleteAsync").withPayload(VENUS.getName()).run().getMessage();
+
+    assertThat(response.getPayload().getValue(), is(1));
+    assertDeletedPlanetRecords(VENUS.getName());
+  }
+
+  @Test
+  public void bulkDeleteAsync() throws Exception {
+    List<Map<String, Object>> values = new ArrayList<>();
+    values.add(planet(VENUS.getName()));
+    values.add(planet(MARS.getName()));
+
+    Message response = flowRunner("bulkDeleteAsync").withPayload(values).run().getMessage();
+
+    assertThat(response.getPayload().getValue(), is(instanceOf(int[].class)));
+    int[] counters = (int[]) response.getPayload().getValue();
+    assertThat(counters.length, is(2));
+    assertExpectedUpdateCount(1, counters[0]);
+    assertExpectedUpdateCount(1, counters[1]);
+    assertDeletedPlanetRecords(VENUS.getName(), MARS.getName());
+  }
+
+  @Test
+  public void deleteAsyncMapsErrors() throws Exception {
+    expectedError.expectErrorType("DB", BAD_SQL_SYNTAX.name());
+    flowRunner("deleteAsyncBadSqlSyntax").run();
+  }
+
+  private static Map<String, Object> planet(String name) {
+    Map<String, Object> planet = new HashMap<>();
+    planet.put("name", name);
+    return planet;
+  }
+}
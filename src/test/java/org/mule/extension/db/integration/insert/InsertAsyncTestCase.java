@@ -0,0 +1,78 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.integration.insert;
+
+import static java.sql.Statement.SUCCESS_NO_INFO;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.db.commons.api.exception.connection.DbError.BAD_SQL_SYNTAX;
+
+import org.mule.extension.db.api.StatementResult;
+import org.mule.extension.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.functional.api.exception.ExpectedError;
+import org.mule.runtime.api.message.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class InsertAsyncTestCase extends AbstractDbIntegrationTestCase {
+
+  @Rule
+  public ExpectedError expectedError = ExpectedError.none();
+
+  @Override
+  protected String[] getFlowConfigurationResources() {
+    return new String[] {"integration/insert/insert-async-config.xml"};
+  }
+
+  @Test
+  public void insertAsync() throws Exception {
+    Message response = flowRunner("insertAsync").withPayload("Pluto").withVariable("id", 777).run().getMessage();
+
+    StatementResult result = (StatementResult) response.getPayload().getValue();
+    assertThat(result.getAffectedRows(), is(1));
+    assertThat(result.getGeneratedKeys().isEmpty(), is(true));
+    assertPlanetRecordsFromQuery("Pluto");
+  }
+
+  @Test
+  public void bulkInsertAsync() throws Exception {
+    List<Map<String, Object>> values = new ArrayList<>();
+    values.add(planet(300, "Vogsphere"));
+    values.add(planet(301, "Caprica"));
+
+    Message response = flowRunner("bulkInsertAsync").withPayload(values).run().getMessage();
+
+    assertThat(response.getPayload().getValue(), is(instanceOf(int[].class)));
+    int[] counters = (int[]) response.getPayload().getValue();
+    assertThat(counters.length, is(2));
+    assertThat(counters[0], anyOf(equalTo(1), equalTo(SUCCESS_NO_INFO)));
+    assertThat(counters[1], anyOf(equalTo(1), equalTo(SUCCESS_NO_INFO)));
+    assertPlanetRecordsFromQuery("Vogsphere", "Caprica");
+  }
+
+  @Test
+  public void insertAsyncMapsErrors() throws Exception {
+    expectedError.expectErrorType("DB", BAD_SQL_SYNTAX.name());
+    flowRunner("insertAsyncBadSqlSyntax").run();
+  }
+
+  private static Map<String, Object> planet(int position, String name) {
+    Map<String, Object> planet = new HashMap<>();
+    planet.put("position", position);
+    planet.put("name", name);
+    return planet;
+  }
+}
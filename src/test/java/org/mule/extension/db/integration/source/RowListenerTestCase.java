@@ -6,15 +6,22 @@
  */
 package org.mule.extension.db.integration.source;
 
+import static org.mule.extension.db.integration.DbTestUtil.DbType.DERBY;
+import static org.mule.extension.db.integration.DbTestUtil.DbType.MYSQL;
 import static org.mule.extension.db.integration.model.AbstractTestDatabase.ADDITIONAL_PLANET_VALUES;
 import static org.mule.extension.db.integration.model.AbstractTestDatabase.PLANET_TEST_VALUES;
+import static org.mule.extension.db.integration.model.AbstractTestDatabase.executeDdl;
 import static org.mule.runtime.api.component.location.Location.builder;
 import static org.mule.runtime.api.metadata.MetadataKeyBuilder.newKey;
 import static org.mule.tck.probe.PollingProber.check;
 
+import static org.hamcrest.CoreMatchers.anyOf;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assume.assumeThat;
 
 import org.mule.extension.db.integration.AbstractDbMetadataIntegrationTestCase;
 import org.mule.extension.db.integration.model.Planet;
@@ -27,6 +34,10 @@ import org.mule.runtime.api.metadata.resolving.MetadataResult;
 import org.mule.runtime.core.api.event.CoreEvent;
 import org.mule.runtime.core.api.processor.Processor;
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
@@ -39,6 +50,7 @@ public class RowListenerTestCase extends AbstractDbMetadataIntegrationTestCase {
 
   private static final int TIMEOUT_MILLIS = 5000;
   public static List<Map<String, Object>> PAYLOADS;
+  public static List<Integer> BATCH_SIZES;
 
   public static final class CapturePayloadProcessor implements Processor {
 
@@ -51,10 +63,24 @@ public class RowListenerTestCase extends AbstractDbMetadataIntegrationTestCase {
     }
   }
 
+  public static final class CaptureBatchProcessor implements Processor {
+
+    @Override
+    public CoreEvent process(CoreEvent event) {
+      if (PAYLOADS != null) {
+        List<Map<String, Object>> batch = (List<Map<String, Object>>) event.getMessage().getPayload().getValue();
+        BATCH_SIZES.add(batch.size());
+        PAYLOADS.addAll(batch);
+      }
+      return event;
+    }
+  }
+
   @Override
   protected void doSetUp() throws Exception {
     super.doSetUp();
     PAYLOADS = new CopyOnWriteArrayList<>();
+    BATCH_SIZES = new CopyOnWriteArrayList<>();
   }
 
   @Before
@@ -66,6 +92,7 @@ public class RowListenerTestCase extends AbstractDbMetadataIntegrationTestCase {
   protected void doTearDown() throws Exception {
     super.doTearDown();
     PAYLOADS = null;
+    BATCH_SIZES = null;
   }
 
   @Override
@@ -90,6 +117,172 @@ public class RowListenerTestCase extends AbstractDbMetadataIntegrationTestCase {
     assertNonePresent(PLANET_TEST_VALUES);
   }
 
+  @Test
+  public void listenPlanetsCatchingUp() throws Exception {
+    listenPlanets("listenPlanetsCatchingUp", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsWithCompositeWatermark() throws Exception {
+    listenPlanets("listenPlanetsWithCompositeWatermark", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsInBatches() throws Exception {
+    listenPlanets("listenPlanetsInBatches", PLANET_TEST_VALUES);
+    assertThat(BATCH_SIZES, contains(2, 1));
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsInSegments() throws Exception {
+    listenPlanets("listenPlanetsInSegments", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsFromManyTables() throws Exception {
+    listenPlanets("listenPlanetsFromManyTables", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsWithQuery() throws Exception {
+    listenPlanets("listenPlanetsWithQuery", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+  }
+
+  @Test
+  public void listenPlanetsWithColumnProjection() throws Exception {
+    listenPlanets("listenPlanetsWithColumnProjection", PLANET_TEST_VALUES);
+
+    for (Map<String, Object> payload : PAYLOADS) {
+      assertThat(payload.keySet(), containsInAnyOrder("NAME", "ID"));
+    }
+  }
+
+  @Test
+  public void listenPlanetChangesThroughJournal() throws Exception {
+    assumeThat(testDatabase.getDbType(), anyOf(is(DERBY), is(MYSQL)));
+    startFlow("listenPlanetChangesThroughJournal");
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    for (Map<String, Object> payload : PAYLOADS) {
+      assertThat((String) payload.get("CHANGE_OPERATION"), is("INSERT"));
+    }
+
+    PAYLOADS.clear();
+
+    withConnections(connection -> testDatabase.removePlanets(connection, Planet.MARS));
+
+    check(TIMEOUT_MILLIS, 500, () -> PAYLOADS.stream()
+        .anyMatch(map -> "DELETE".equals(map.get("CHANGE_OPERATION")) && map.get("ID") != null));
+  }
+
+  @Test
+  public void listenPlanetChangesThroughSnapshotDiff() throws Exception {
+    listenPlanets("listenPlanetChangesThroughSnapshotDiff", PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(testDatabase::addAdditionalPlanets);
+
+    assertAllPresent(ADDITIONAL_PLANET_VALUES);
+    assertNonePresent(PLANET_TEST_VALUES);
+
+    PAYLOADS.clear();
+
+    withConnections(connection -> testDatabase.removePlanets(connection, Planet.MARS));
+
+    check(TIMEOUT_MILLIS, 500, () -> PAYLOADS.stream()
+        .anyMatch(map -> "DELETE".equals(map.get("CHANGE_OPERATION")) && map.get("ID") != null));
+  }
+
+  @Test
+  public void listenClaimedPlanets() throws Exception {
+    assumeThat(testDatabase.getDbType(), anyOf(is(DERBY), is(MYSQL)));
+    withConnections(connection -> {
+      try {
+        executeDdl(connection, "DROP TABLE CLAIMED_PLANET");
+      } catch (SQLException e) {
+        // The table didn't exist yet
+      }
+
+      executeDdl(connection, "CREATE TABLE CLAIMED_PLANET(ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR(255), "
+          + "CLAIM VARCHAR(36), CLAIM_EXPIRATION TIMESTAMP)");
+      for (int i = 0; i < PLANET_TEST_VALUES.length; i++) {
+        executeDdl(connection, "INSERT INTO CLAIMED_PLANET(ID, NAME) VALUES (" + i + ", '" + PLANET_TEST_VALUES[i].getName()
+            + "')");
+      }
+    });
+
+    listenPlanets("listenClaimedPlanets", PLANET_TEST_VALUES);
+
+    check(TIMEOUT_MILLIS, 500, () -> countFinalizedClaims() == PLANET_TEST_VALUES.length);
+  }
+
+  @Test
+  public void listenOutboxPlanetsDeletingConsumedRows() throws Exception {
+    assumeThat(testDatabase.getDbType(), anyOf(is(DERBY), is(MYSQL)));
+    withConnections(connection -> {
+      try {
+        executeDdl(connection, "DROP TABLE OUTBOX_PLANET");
+      } catch (SQLException e) {
+        // The table didn't exist yet
+      }
+
+      executeDdl(connection, "CREATE TABLE OUTBOX_PLANET(ID INTEGER NOT NULL PRIMARY KEY, NAME VARCHAR(255))");
+      for (int i = 0; i < PLANET_TEST_VALUES.length; i++) {
+        executeDdl(connection, "INSERT INTO OUTBOX_PLANET(ID, NAME) VALUES (" + i + ", '" + PLANET_TEST_VALUES[i].getName()
+            + "')");
+      }
+    });
+
+    listenPlanets("listenOutboxPlanetsDeletingConsumedRows", PLANET_TEST_VALUES);
+
+    check(TIMEOUT_MILLIS, 500, () -> count("SELECT COUNT(*) FROM OUTBOX_PLANET") == 0);
+  }
+
   @Test
   public void idempotentListen() throws Exception {
     withConnections(connection -> testDatabase.removePlanets(connection, Planet.EARTH, Planet.MARS));
@@ -126,6 +319,21 @@ public class RowListenerTestCase extends AbstractDbMetadataIntegrationTestCase {
     return (ObjectType) metadata.get().getModel().getOutput().getType();
   }
 
+  private int countFinalizedClaims() {
+    return count("SELECT COUNT(*) FROM CLAIMED_PLANET WHERE CLAIM IS NOT NULL AND CLAIM_EXPIRATION IS NULL");
+  }
+
+  private int count(String sql) {
+    try (Connection connection = getDefaultDataSource().getConnection();
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    } catch (SQLException e) {
+      return -1;
+    }
+  }
+
   private void startFlow(String flowName) throws Exception {
     ((Startable) getFlowConstruct(flowName)).start();
   }
@@ -6,10 +6,30 @@
  */
 package org.mule.extension.db.integration.transaction;
 
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.runtime.core.api.event.CoreEvent;
+import org.mule.runtime.core.api.processor.Processor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 import org.junit.Test;
 
 public class TransactionalTestCase extends AbstractTxDbIntegrationTestCase {
 
+  private static final List<Thread> THREADS = new CopyOnWriteArrayList<>();
+
+  public static final class CaptureThreadProcessor implements Processor {
+
+    @Override
+    public CoreEvent process(CoreEvent event) {
+      THREADS.add(Thread.currentThread());
+      return event;
+    }
+  }
+
   @Override
   protected String[] getFlowConfigurationResources() {
     return new String[] {"integration/transaction/transactional-config.xml"};
@@ -44,4 +64,15 @@ public class TransactionalTestCase extends AbstractTxDbIntegrationTestCase {
     executeTransaction("rollbackOptionalTxUpdateInATxBlock");
     validateDbState(MARS);
   }
+
+  @Test
+  public void rollbackTxUpdateAsyncInATxBlock() throws Exception {
+    THREADS.clear();
+    executeTransaction("rollbackTxUpdateAsyncInATxBlock");
+    validateDbState(MARS);
+
+    // The statement ran inline, so the transaction never left the thread which started it
+    assertThat(THREADS.size(), is(2));
+    assertThat(THREADS.get(1), is(THREADS.get(0)));
+  }
 }
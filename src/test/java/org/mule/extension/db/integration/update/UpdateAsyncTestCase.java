@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.integration.update;
+
+import static java.sql.Statement.SUCCESS_NO_INFO;
+import static org.hamcrest.CoreMatchers.anyOf;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mule.db.commons.api.exception.connection.DbError.BAD_SQL_SYNTAX;
+import static org.mule.extension.db.integration.model.Planet.EARTH;
+import static org.mule.extension.db.integration.model.Planet.MARS;
+
+import org.mule.extension.db.api.StatementResult;
+import org.mule.extension.db.integration.AbstractDbIntegrationTestCase;
+import org.mule.functional.api.exception.ExpectedError;
+import org.mule.runtime.api.message.Message;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+public class UpdateAsyncTestCase extends AbstractDbIntegrationTestCase {
+
+  private static final String PLUTO = "Pluto";
+
+  @Rule
+  public ExpectedError expectedError = ExpectedError.none();
+
+  @Override
+  protected String[] getFlowConfigurationResources() {
+    return new String[] {"integration/update/update-async-config.xml"};
+  }
+
+  @Test
+  public void updateAsync() throws Exception {
+    Message response = flowRunner("updateAsync").withPayload(PLUTO).run().getMessage();
+
+    assertAffectedRows((StatementResult) response.getPayload().getValue(), 1);
+    assertPlanetRecordsFromQuery(PLUTO);
+  }
+
+  @Test
+  public void bulkUpdateAsync() throws Exception {
+    List<Map<String, Object>> values = new ArrayList<>();
+    values.add(singletonRecord("name", MARS.getName()));
+    values.add(singletonRecord("name", EARTH.getName()));
+
+    Message response = flowRunner("bulkUpdateAsync").withPayload(values).run().getMessage();
+
+    assertThat(response.getPayload().getValue(), is(instanceOf(int[].class)));
+    int[] counters = (int[]) response.getPayload().getValue();
+    assertThat(counters.length, is(2));
+    assertThat(counters[0], anyOf(equalTo(1), equalTo(SUCCESS_NO_INFO)));
+    assertThat(counters[1], anyOf(equalTo(1), equalTo(SUCCESS_NO_INFO)));
+    assertDeletedPlanetRecords(MARS.getName(), EARTH.getName());
+  }
+
+  @Test
+  public void updateAsyncMapsErrors() throws Exception {
+    expectedError.expectErrorType("DB", BAD_SQL_SYNTAX.name());
+    flowRunner("updateAsyncBadSqlSyntax").run();
+  }
+
+  private static Map<String, Object> singletonRecord(String key, Object value) {
+    Map<String, Object> record = new HashMap<>();
+    record.put(key, value);
+    return record;
+  }
+}
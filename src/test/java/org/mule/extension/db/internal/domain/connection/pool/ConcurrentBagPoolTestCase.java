@@ -0,0 +1,362 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+import org.mule.extension.db.api.config.DbPoolingProfile;
+import org.mule.extension.db.api.config.PoolEngine;
+import org.mule.extension.db.api.config.PoolSizing;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class ConcurrentBagPoolTestCase extends AbstractMuleTestCase {
+
+  private static final String URL = "jdbc:derby:memory:concurrentBagPool;create=true";
+
+  private final ScheduledExecutorService scheduler = newScheduledThreadPool(4);
+  private ConcurrentBagPool pool;
+
+  @After
+  public void closePool() {
+    if (pool != null) {
+      pool.close();
+    }
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void reusesConnections() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 2, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    for (int i = 0; i < 10; i++) {
+      try (Connection connection = pool.getConnection()) {
+        connection.createStatement().execute("VALUES 1");
+      }
+    }
+
+    assertThat(pool.createdConnections(), is(1L));
+    assertThat(pool.idleConnections(), is(1));
+    assertThat(pool.activeConnections(), is(0));
+  }
+
+  @Test
+  public void exhaustedPoolTimesOut() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 200, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    try (Connection held = pool.getConnection()) {
+      pool.getConnection();
+      fail("The pool should have been exhausted");
+    } catch (SQLTimeoutException e) {
+      assertThat(pool.createdConnections(), is(1L));
+    }
+  }
+
+  @Test
+  public void waitingCallerGetsReturnedConnection() throws Exception {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 10_000, 0), () -> DriverManager.getConnection(URL), scheduler);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Connection held = pool.getConnection();
+      Future<Boolean> waiter = executor.submit(() -> {
+        try (Connection connection = pool.getConnection()) {
+          return connection.createStatement().execute("VALUES 1");
+        }
+      });
+
+      while (pool.pendingCheckouts() == 0) {
+        Thread.sleep(5);
+      }
+      held.close();
+
+      assertThat(waiter.get(5, SECONDS), is(true));
+      assertThat(pool.createdConnections(), is(1L));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void returnedConnectionCannotBeUsed() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    Connection connection = pool.getConnection();
+    connection.close();
+    connection.close();
+
+    assertThat(connection.isClosed(), is(true));
+    try {
+      connection.createStatement();
+      fail("A returned connection should not be usable");
+    } catch (SQLException e) {
+      assertThat(e.getSQLState(), is("08003"));
+    }
+
+    try (Connection next = pool.getConnection()) {
+      assertThat(next, is(not(sameInstance(connection))));
+      assertThat(next.isClosed(), is(false));
+    }
+  }
+
+  @Test
+  public void statementsLeadBackToTheCheckedOutConnection() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    try (Connection connection = pool.getConnection()) {
+      DatabaseMetaData metaData = connection.getMetaData();
+      assertThat(metaData.getConnection(), is(sameInstance(connection)));
+
+      try (PreparedStatement statement = connection.prepareStatement("VALUES 1");
+          ResultSet resultSet = statement.executeQuery()) {
+        assertThat(statement.getConnection(), is(sameInstance(connection)));
+        assertThat(resultSet.getStatement(), is(sameInstance(statement)));
+      }
+    }
+  }
+
+  @Test
+  public void closesOpenStatementsOnReturn() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    PreparedStatement statement;
+    try (Connection connection = pool.getConnection()) {
+      statement = connection.prepareStatement("VALUES 1");
+      assertThat(statement.isClosed(), is(false));
+    }
+
+    assertThat(statement.isClosed(), is(true));
+  }
+
+  @Test
+  public void discardsConnectionsBrokenWhileInUse() throws SQLException {
+    Connection connection = validConnection();
+    Statement statement = mock(Statement.class);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.execute(anyString())).thenThrow(new SQLException("Connection reset", "08S01"));
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0), () -> connection, scheduler);
+
+    try (Connection checkedOut = pool.getConnection()) {
+      checkedOut.createStatement().execute("VALUES 1");
+      fail("The statement should have failed");
+    } catch (SQLException e) {
+      assertThat(e.getSQLState(), is("08S01"));
+    }
+
+    assertThat(pool.destroyedConnections(), is(1L));
+    verify(connection).close();
+  }
+
+  @Test
+  public void rollsBackPendingWorkOnReturn() throws SQLException {
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+
+    try (Connection connection = pool.getConnection()) {
+      connection.setAutoCommit(false);
+      connection.setReadOnly(true);
+    }
+
+    try (Connection connection = pool.getConnection()) {
+      assertThat(connection.getAutoCommit(), is(true));
+      assertThat(connection.isReadOnly(), is(false));
+    }
+  }
+
+  @Test
+  public void fillsToMinimumSize() throws InterruptedException {
+    pool = new ConcurrentBagPool("test", settings(2, 4, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+    pool.fillToMinimum();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (pool.idleConnections() < 2 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(pool.idleConnections(), is(2));
+    assertThat(pool.createdConnections(), is(2L));
+  }
+
+  @Test
+  public void prewarmsInParallel() throws InterruptedException {
+    pool = new ConcurrentBagPool("test", settings(4, 8, 1000, 0), () -> DriverManager.getConnection(URL), scheduler);
+    AtomicInteger warmedUp = new AtomicInteger();
+
+    int created = pool.prewarm(4, connection -> {
+      connection.createStatement().execute("VALUES 1");
+      warmedUp.incrementAndGet();
+    }, SECONDS.toNanos(30));
+
+    assertThat(created, is(4));
+    assertThat(warmedUp.get(), is(4));
+    assertThat(pool.idleConnections(), is(4));
+    assertThat(pool.prewarm(4, connection -> {
+    }, SECONDS.toNanos(30)), is(0));
+  }
+
+  @Test
+  public void discardsIdleConnections() throws Exception {
+    pool = new ConcurrentBagPool("test", settings(0, 2, 1000, MILLISECONDS.toNanos(1)), () -> DriverManager.getConnection(URL),
+                                 scheduler);
+
+    pool.getConnection().close();
+    Thread.sleep(10);
+    pool.houseKeep();
+
+    assertThat(pool.idleConnections(), is(0));
+    assertThat(pool.destroyedConnections(), is(1L));
+  }
+
+  @Test
+  public void skipsValidationOfFreshConnections() throws SQLException {
+    Connection connection = validConnection();
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0, profile -> profile.setValidationWindow(60000)),
+                                 () -> connection, scheduler);
+
+    for (int i = 0; i < 3; i++) {
+      pool.getConnection().close();
+    }
+
+    verify(connection, never()).isValid(anyInt());
+  }
+
+  @Test
+  public void validatesConnectionsOutsideTheWindow() throws SQLException {
+    Connection connection = validConnection();
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0, profile -> profile.setValidationWindow(0)), () -> connection,
+                                 scheduler);
+
+    for (int i = 0; i < 3; i++) {
+      pool.getConnection().close();
+    }
+
+    verify(connection, times(3)).isValid(anyInt());
+  }
+
+  @Test
+  public void discardsInvalidIdleConnectionsInTheBackground() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.isValid(anyInt())).thenReturn(false);
+    pool = new ConcurrentBagPool("test", settings(0, 1, 1000, 0, profile -> profile.setIdleValidationInterval(10)),
+                                 () -> connection, scheduler);
+    // Just created, so it's not validated on checkout
+    pool.getConnection().close();
+
+    long deadline = System.currentTimeMillis() + 5000;
+    while (pool.destroyedConnections() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+
+    assertThat(pool.destroyedConnections(), is(1L));
+    assertThat(pool.idleConnections(), is(0));
+    verify(connection).close();
+  }
+
+  @Test
+  public void failsFastWhenConnectionsCannotBeCreated() {
+    SQLException failure = new SQLException("Connection refused", "08001");
+    pool = new ConcurrentBagPool("test", settings(0, 1, 0, 0), () -> {
+      throw failure;
+    }, scheduler);
+
+    try {
+      pool.getConnection();
+      fail("The pool should not have been able to create a connection");
+    } catch (SQLException e) {
+      assertThat(e, is(not(instanceOf(SQLTimeoutException.class))));
+      assertThat(e.getCause(), is(sameInstance(failure)));
+    }
+  }
+
+  @Test
+  public void adaptivePoolGrowsForWaitingCallersAndShrinksWhenIdle() throws Exception {
+    pool = new ConcurrentBagPool("test", settings(0, 4, 10_000, 0, profile -> profile.setPoolSizing(PoolSizing.ADAPTIVE)),
+                                 () -> DriverManager.getConnection(URL), scheduler);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try (Connection held = pool.getConnection()) {
+      assertThat(pool.maxConnections(), is(1));
+      Future<Boolean> waiter = executor.submit(() -> {
+        try (Connection connection = pool.getConnection()) {
+          return connection.createStatement().execute("VALUES 1");
+        }
+      });
+
+      while (pool.pendingCheckouts() == 0) {
+        Thread.sleep(5);
+      }
+      pool.resize();
+
+      assertThat(waiter.get(5, SECONDS), is(true));
+      assertThat(pool.createdConnections(), is(2L));
+    } finally {
+      executor.shutdownNow();
+    }
+
+    for (int i = 0; i < 5; i++) {
+      pool.resize();
+    }
+    assertThat(pool.maxConnections(), is(1));
+    assertThat(pool.totalConnections(), is(1));
+  }
+
+  private static Connection validConnection() throws SQLException {
+    Connection connection = mock(Connection.class);
+    when(connection.getAutoCommit()).thenReturn(true);
+    when(connection.isValid(anyInt())).thenReturn(true);
+    return connection;
+  }
+
+  private static PoolSettings settings(int min, int max, long maxWaitMillis, long maxIdleNanos) {
+    return new PoolSettings(min, max, MILLISECONDS.toNanos(maxWaitMillis), maxIdleNanos, false, profile());
+  }
+
+  private static PoolSettings settings(int min, int max, long maxWaitMillis, long maxIdleNanos,
+                                       Consumer<DbPoolingProfile> configurer) {
+    DbPoolingProfile profile = profile();
+    configurer.accept(profile);
+    return new PoolSettings(min, max, MILLISECONDS.toNanos(maxWaitMillis), maxIdleNanos, true, profile);
+  }
+
+  private static DbPoolingProfile profile() {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setPoolEngine(PoolEngine.CONCURRENT_BAG);
+    return profile;
+  }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.System.nanoTime;
+import static java.util.Arrays.asList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+import org.mule.extension.db.api.config.DbPoolingProfile;
+import org.mule.extension.db.api.config.PoolSizing;
+import org.mule.extension.db.api.config.WorkloadClass;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.After;
+import org.junit.Test;
+import org.slf4j.MDC;
+
+public class ConnectionBulkheadsTestCase extends AbstractMuleTestCase {
+
+  @After
+  public void clearProcessorPath() {
+    MDC.remove("processorPath");
+  }
+
+  @Test
+  public void shedsSaturatedClassRightAway() throws ConnectionException {
+    WorkloadClass reporting = workloadClass("reporting", "report-*");
+    reporting.setMaxConnections(1);
+    ConnectionBulkheads bulkheads = bulkheads(4, 1000, profile(reporting));
+
+    MDC.put("processorPath", "report-daily/processors/0");
+    ConnectionBulkheads.Permit permit = bulkheads.acquire();
+
+    long start = nanoTime();
+    try {
+      bulkheads.acquire();
+      fail("Checkout should have been rejected");
+    } catch (ConnectionException e) {
+      assertThat(ConnectionPoolStatistics.isTimeout(e), is(false));
+    }
+    assertThat(NANOSECONDS.toMillis(nanoTime() - start), lessThan(500L));
+    assertThat(bulkheads.getRejectedCheckouts("reporting"), is(1L));
+
+    // Other flows are not limited by the class
+    MDC.put("processorPath", "api/processors/0");
+    bulkheads.acquire();
+    bulkheads.acquire();
+
+    permit.release();
+    MDC.put("processorPath", "report-weekly/processors/3");
+    bulkheads.acquire();
+  }
+
+  @Test
+  public void reservesMinConnections() throws ConnectionException {
+    WorkloadClass api = workloadClass("api", "api-*");
+    api.setMinConnections(1);
+    ConnectionBulkheads bulkheads = bulkheads(2, 100, profile(api));
+
+    bulkheads.acquire();
+    try {
+      bulkheads.acquire();
+      fail("The reserved connection should not have been taken");
+    } catch (ConnectionException e) {
+      assertThat(ConnectionPoolStatistics.isTimeout(e), is(true));
+    }
+
+    MDC.put("processorPath", "api-orders/processors/1");
+    ConnectionBulkheads.Permit permit = bulkheads.acquire();
+    permit.release();
+    bulkheads.acquire();
+  }
+
+  @Test
+  public void assignsSingleOperations() throws ConnectionException {
+    WorkloadClass slow = workloadClass("slow", "orders/processors/2");
+    slow.setMaxConnections(1);
+    ConnectionBulkheads bulkheads = bulkheads(4, 1000, profile(slow));
+
+    MDC.put("processorPath", "orders/processors/2");
+    bulkheads.acquire();
+    MDC.put("processorPath", "orders/processors/1");
+    bulkheads.acquire();
+    MDC.put("processorPath", "orders/processors/2");
+    try {
+      bulkheads.acquire();
+      fail("Checkout should have been rejected");
+    } catch (ConnectionException e) {
+      assertThat(bulkheads.getRejectedCheckouts("slow"), is(1L));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsReservingMoreThanThePool() {
+    WorkloadClass api = workloadClass("api", "api-*");
+    api.setMinConnections(2);
+    WorkloadClass batch = workloadClass("batch", "batch-*");
+    batch.setMinConnections(2);
+    bulkheads(3, 0, profile(api, batch));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsClassesWithoutFlows() {
+    WorkloadClass api = workloadClass("api");
+    api.setMaxConnections(2);
+    bulkheads(3, 0, profile(api));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsAdaptiveSizing() {
+    // An adaptive pool may hold fewer connections than the bulkheads admit, leaving admitted checkouts without one
+    WorkloadClass api = workloadClass("api", "api-*");
+    api.setMinConnections(2);
+    DbPoolingProfile profile = profile(api);
+    profile.setPoolSizing(PoolSizing.ADAPTIVE);
+    bulkheads(4, 0, profile);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsClassesWithTheSameName() {
+    bulkheads(3, 0, profile(workloadClass("api", "api-*"), workloadClass("api", "orders-*")));
+  }
+
+  @Test
+  public void assignsComponentsToTheFirstMatchingClass() throws ConnectionException {
+    WorkloadClass orders = workloadClass("orders", "orders/processors/2");
+    orders.setMaxConnections(1);
+    ConnectionBulkheads bulkheads = bulkheads(4, 1000, profile(orders, workloadClass("all", "*")));
+
+    MDC.put("processorPath", "orders/processors/2");
+    bulkheads.acquire();
+    try {
+      bulkheads.acquire();
+      fail("Checkout should have been rejected");
+    } catch (ConnectionException e) {
+      assertThat(bulkheads.getRejectedCheckouts("orders"), is(1L));
+    }
+  }
+
+  private static WorkloadClass workloadClass(String name, String... flows) {
+    return new WorkloadClass(name, asList(flows));
+  }
+
+  private static DbPoolingProfile profile(WorkloadClass... workloadClasses) {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setWorkloadClasses(asList(workloadClasses));
+    return profile;
+  }
+
+  private static ConnectionBulkheads bulkheads(int maxPoolSize, long maxWaitMillis, DbPoolingProfile profile) {
+    return new ConnectionBulkheads("test", new PoolSettings(0, maxPoolSize, MILLISECONDS.toNanos(maxWaitMillis), 0, true,
+                                                            profile));
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.extension.db.api.metrics.ConnectionPoolMetricsPublisher;
+import org.mule.runtime.api.connection.ConnectionException;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import org.slf4j.MDC;
+
+public class ConnectionPoolStatisticsTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void histogramBuckets() {
+    CheckoutWaitHistogram histogram = new CheckoutWaitHistogram();
+    histogram.record(MILLISECONDS.toNanos(0));
+    histogram.record(MILLISECONDS.toNanos(3));
+    histogram.record(MILLISECONDS.toNanos(5));
+    histogram.record(MILLISECONDS.toNanos(60_000));
+
+    assertThat(histogram.counts(), is(new long[] {1, 1, 1, 0, 0, 0, 0, 0, 0, 0, 1}));
+    assertThat(histogram.percentileMillis(0.5), is(5L));
+    assertThat(histogram.percentileMillis(0.25), is(1L));
+    assertThat(histogram.percentileMillis(0.99), is(-1L));
+    assertThat(new CheckoutWaitHistogram().percentileMillis(0.99), is(0L));
+  }
+
+  @Test
+  public void countsCheckouts() throws ConnectionException {
+    ConnectionPoolStatistics statistics = new ConnectionPoolStatistics("pool", null, emptyList());
+
+    DbConnection connection = statistics.checkout(() -> mock(DbConnection.class));
+    statistics.checkout(() -> mock(DbConnection.class));
+    assertThat(statistics.getCheckoutCount(), is(2L));
+    assertThat(statistics.getActiveConnections(), is(2));
+
+    statistics.checkedIn(connection);
+    assertThat(statistics.getActiveConnections(), is(1));
+    assertThat(statistics.getIdleConnections(), is(-1));
+    assertThat(statistics.snapshot().getCheckoutWaitHistogram()[0], is(2L));
+  }
+
+  @Test
+  public void countsTimeouts() {
+    ConnectionPoolMetricsPublisher publisher = mock(ConnectionPoolMetricsPublisher.class);
+    ConnectionPoolStatistics statistics = new ConnectionPoolStatistics("pool", null, singletonList(publisher));
+    SQLException c3p0Timeout = new SQLException("An attempt by a client to checkout a Connection has timed out.",
+                                                new TimeoutException());
+    ConnectionException timeout = new ConnectionException("Pool exhausted", c3p0Timeout);
+
+    try {
+      statistics.checkout(() -> {
+        throw timeout;
+      });
+      fail("Checkout should have failed");
+    } catch (ConnectionException e) {
+      assertThat(e, is(timeout));
+    }
+
+    assertThat(statistics.getCheckoutTimeoutCount(), is(1L));
+    assertThat(statistics.getCheckoutCount(), is(0L));
+    verify(publisher).checkoutTimedOut(eq("pool"), any());
+  }
+
+  @Test
+  public void detectsTimeouts() {
+    assertThat(ConnectionPoolStatistics.isTimeout(new ConnectionException("Timeout", new SQLTimeoutException())), is(true));
+    assertThat(ConnectionPoolStatistics.isTimeout(new ConnectionException("Denied", new SQLException("Access denied"))),
+               is(false));
+  }
+
+  @Test
+  public void tracksHolders() throws ConnectionException {
+    ConnectionLeakTracker tracker = new ConnectionLeakTracker("pool", 2, 0);
+    ConnectionPoolStatistics statistics = new ConnectionPoolStatistics("pool", null, emptyList(), tracker);
+
+    DbConnection first;
+    MDC.put("processorPath", "orders-flow/processors/1");
+    MDC.put("correlationId", "42");
+    try {
+      first = statistics.checkout(() -> mock(DbConnection.class));
+    } finally {
+      MDC.remove("processorPath");
+      MDC.remove("correlationId");
+    }
+    DbConnection second = statistics.checkout(() -> mock(DbConnection.class));
+
+    List<ConnectionLeakTracker.Holder> holders = tracker.holders();
+    assertThat(holders, hasSize(2));
+    assertThat(holders.get(0).getFlow(), is("orders-flow"));
+    assertThat(holders.get(0).getCorrelationId(), is("42"));
+    assertThat(holders.get(0).getThread(), is(Thread.currentThread().getName()));
+    assertThat(holders.get(0).getCheckoutStack(), is(nullValue()));
+    assertThat(holders.get(1).getFlow(), is(nullValue()));
+    assertThat(holders.get(1).getCheckoutStack(), is(notNullValue()));
+    assertThat(statistics.getConnectionHolders()[0], containsString("flow 'orders-flow'"));
+
+    statistics.checkedIn(first);
+    assertThat(tracker.holders(), hasSize(1));
+    statistics.checkedIn(second);
+    assertThat(statistics.getConnectionHolders().length, is(0));
+  }
+
+  @Test
+  public void publishesSamples() throws ConnectionException {
+    ConnectionPoolMetricsPublisher publisher = mock(ConnectionPoolMetricsPublisher.class);
+    when(publisher.getSampleInterval()).thenReturn(Duration.ZERO);
+    ConnectionPoolStatistics statistics = new ConnectionPoolStatistics("pool", null, singletonList(publisher));
+
+    statistics.checkout(() -> mock(DbConnection.class));
+
+    verify(publisher).checkedOut(eq("pool"), any());
+    verify(publisher).sampled(any());
+  }
+
+  @Test
+  public void doesNotEvictRegistrationsItDoesNotOwn() throws Exception {
+    ConnectionPoolStatistics registered = new ConnectionPoolStatistics("pool", null, emptyList());
+    ConnectionPoolStatistics other = new ConnectionPoolStatistics("pool", null, emptyList());
+    ObjectName name = new ObjectName("org.mule.extension.db:type=ConnectionPool,artifact=" + ObjectName.quote("app") + ",name="
+        + ObjectName.quote("pool"));
+
+    registered.register("app");
+    try {
+      registered.checkout(() -> mock(DbConnection.class));
+      other.register("app");
+      other.unregister();
+      assertThat(getPlatformMBeanServer().getAttribute(name, "CheckoutCount"), is(1L));
+    } finally {
+      registered.unregister();
+    }
+
+    assertThat(getPlatformMBeanServer().isRegistered(name), is(false));
+  }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.lang.Boolean.getBoolean;
+import static java.lang.String.format;
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assume.assumeThat;
+
+import org.mule.extension.db.api.config.DbPoolingProfile;
+import org.mule.extension.db.api.config.PoolEngine;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+/**
+ * Compares the throughput of the pool engines on embedded Derby as the number of concurrent callers grows. Each caller checks
+ * a connection out, runs a trivial query and checks the connection back in, in a loop.
+ * <p>
+ * Callers are platform threads, and also virtual threads when running on Java 21 or later. Engines which pin the carrier of
+ * virtual threads while waiting for a connection may stall with that many callers, which is reported instead of a throughput.
+ * <p>
+ * It only measures the checkout and checkin of the pools, on connections used straight through JDBC. It doesn't go through the
+ * operations of the connector, so it says nothing about whether the statement execution paths of the database client or the
+ * driver pin virtual threads.
+ * <p>
+ * It takes a few minutes, so it only runs when the {@code db.pool.benchmark} system property is set to {@code true}.
+ */
+public class PoolEngineBenchmarkTestCase extends AbstractMuleTestCase {
+
+  private static final String URL = "jdbc:derby:memory:poolEngineBenchmark;create=true";
+  private static final int POOL_SIZE = 16;
+  private static final int[] CALLERS = {8, 16, 32, 64, 128, 256};
+  private static final int[] VIRTUAL_CALLERS = {256, 1000, 10000};
+  private static final long WARMUP_SECONDS = 2;
+  private static final long MEASURE_SECONDS = 5;
+  private static final long STALL_SECONDS = 30;
+
+  @Test
+  public void compareEngines() throws Exception {
+    assumeThat(getBoolean("db.pool.benchmark"), is(true));
+
+    System.out.println(format("%8s %16s %16s", "callers", "c3p0 ops/s", "bag ops/s"));
+    for (int callers : CALLERS) {
+      compare(callers, () -> Executors.newFixedThreadPool(callers));
+    }
+  }
+
+  @Test
+  public void compareEnginesOnVirtualThreads() throws Exception {
+    assumeThat(getBoolean("db.pool.benchmark"), is(true));
+    Method newVirtualThreadExecutor;
+    try {
+      newVirtualThreadExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      assumeThat("Virtual threads require Java 21", false, is(true));
+      return;
+    }
+
+    System.out.println(format("%8s %16s %16s", "virtual", "c3p0 ops/s", "bag ops/s"));
+    for (int callers : VIRTUAL_CALLERS) {
+      compare(callers, () -> (ExecutorService) newVirtualThreadExecutor.invoke(null));
+    }
+  }
+
+  private void compare(int callers, Callable<ExecutorService> executorFactory) throws Exception {
+    long c3p0;
+    ComboPooledDataSource c3p0Pool = c3p0Pool();
+    try {
+      c3p0 = measure(c3p0Pool, callers, executorFactory.call());
+    } finally {
+      c3p0Pool.close();
+    }
+
+    long bag;
+    ScheduledExecutorService scheduler = newSingleThreadScheduledExecutor();
+    try (ConcurrentBagPool bagPool = bagPool(scheduler)) {
+      bag = measure(bagPool, callers, executorFactory.call());
+    } finally {
+      scheduler.shutdownNow();
+    }
+
+    System.out.println(format("%8d %16s %16s", callers, describe(c3p0), describe(bag)));
+  }
+
+  private static String describe(long throughput) {
+    return throughput < 0 ? "stalled" : Long.toString(throughput);
+  }
+
+  private static ComboPooledDataSource c3p0Pool() throws Exception {
+    ComboPooledDataSource dataSource = new ComboPooledDataSource();
+    dataSource.setDriverClass("org.apache.derby.jdbc.EmbeddedDriver");
+    dataSource.setJdbcUrl(URL);
+    dataSource.setMinPoolSize(POOL_SIZE);
+    dataSource.setInitialPoolSize(POOL_SIZE);
+    dataSource.setMaxPoolSize(POOL_SIZE);
+    dataSource.setTestConnectionOnCheckout(false);
+    return dataSource;
+  }
+
+  private static ConcurrentBagPool bagPool(ScheduledExecutorService scheduler) {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setPoolEngine(PoolEngine.CONCURRENT_BAG);
+    PoolSettings settings = new PoolSettings(POOL_SIZE, POOL_SIZE, 0, 0, false, profile);
+    return new ConcurrentBagPool("benchmark", settings, () -> DriverManager.getConnection(URL), scheduler);
+  }
+
+  /**
+   * @return the number of operations per second completed by all the callers together, or -1 if the callers didn't finish
+   *         in time
+   */
+  private static long measure(DataSource dataSource, int callers, ExecutorService executor) throws Exception {
+    AtomicBoolean measuring = new AtomicBoolean();
+    AtomicBoolean running = new AtomicBoolean(true);
+    CountDownLatch started = new CountDownLatch(callers);
+    List<Future<Long>> results = new ArrayList<>();
+    try {
+      for (int i = 0; i < callers; i++) {
+        results.add(executor.submit(() -> {
+          long operations = 0;
+          started.countDown();
+          while (running.get()) {
+            try (Connection connection = dataSource.getConnection();
+                Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("VALUES 1")) {
+              resultSet.next();
+            }
+            if (measuring.get()) {
+              operations++;
+            }
+          }
+          return operations;
+        }));
+      }
+
+      if (!started.await(STALL_SECONDS, SECONDS)) {
+        running.set(false);
+        return -1;
+      }
+      SECONDS.sleep(WARMUP_SECONDS);
+      measuring.set(true);
+      SECONDS.sleep(MEASURE_SECONDS);
+      measuring.set(false);
+      running.set(false);
+
+      long deadline = nanoTime() + SECONDS.toNanos(STALL_SECONDS);
+      long operations = 0;
+      for (Future<Long> result : results) {
+        try {
+          operations += result.get(Math.max(0, deadline - nanoTime()), NANOSECONDS);
+        } catch (TimeoutException e) {
+          return -1;
+        }
+      }
+      return operations / MEASURE_SECONDS;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.extension.db.api.config.DbPoolingProfile;
+import org.mule.extension.db.api.config.PoolEngine;
+import org.mule.extension.db.api.config.PoolSizing;
+import org.mule.extension.db.api.config.PoolStartup;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Test;
+
+public class PoolSettingsTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void defaults() {
+    PoolSettings settings = PoolSettings.of(new DbPoolingProfile());
+
+    assertThat(settings.getEngine(), is(PoolEngine.C3P0));
+    assertThat(settings.getStartup(), is(PoolStartup.DEFAULT));
+    assertThat(settings.getWarmupQuery(), is(nullValue()));
+    assertThat(settings.getValidationWindowNanos(), is(MILLISECONDS.toNanos(500)));
+    assertThat(settings.getIdleValidationNanos(), is(0L));
+    assertThat(settings.getLeakDetectionThresholdNanos(), is(0L));
+    assertThat(settings.getCheckoutStackSampling(), is(0L));
+    assertThat(settings.getSizing(), is(PoolSizing.FIXED));
+    assertThat(settings.getSizingIntervalNanos(), is(SECONDS.toNanos(5)));
+    assertThat(settings.getWorkloadClasses().isEmpty(), is(true));
+  }
+
+  @Test
+  public void readsTheTypedParameters() {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setPoolEngine(PoolEngine.CONCURRENT_BAG);
+    profile.setPoolStartup(PoolStartup.PREWARM);
+    profile.setWarmupQuery("  SELECT 1 FROM SYSIBM.SYSDUMMY1  ");
+    profile.setValidationWindow(100);
+    profile.setLeakDetectionThreshold(30000);
+    profile.setPoolSizing(PoolSizing.ADAPTIVE);
+    profile.setSizingInterval(1000);
+
+    PoolSettings settings = PoolSettings.of(profile);
+
+    assertThat(settings.getEngine(), is(PoolEngine.CONCURRENT_BAG));
+    assertThat(settings.getStartup(), is(PoolStartup.PREWARM));
+    assertThat(settings.getWarmupQuery(), is("SELECT 1 FROM SYSIBM.SYSDUMMY1"));
+    assertThat(settings.getValidationWindowNanos(), is(MILLISECONDS.toNanos(100)));
+    assertThat(settings.getLeakDetectionThresholdNanos(), is(SECONDS.toNanos(30)));
+    assertThat(settings.getSizing(), is(PoolSizing.ADAPTIVE));
+    assertThat(settings.getSizingIntervalNanos(), is(SECONDS.toNanos(1)));
+  }
+
+  @Test
+  public void ignoresTheAdditionalProperties() {
+    // The additional properties are passed through to c3p0, they don't configure the connector
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setAdditionalProperties(singletonMap("poolEngine", "CONCURRENT_BAG"));
+
+    assertThat(PoolSettings.of(profile).getEngine(), is(PoolEngine.C3P0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeValidationWindow() {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setValidationWindow(-1);
+    PoolSettings.of(profile);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsNegativeLeakDetectionThreshold() {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setLeakDetectionThreshold(-1);
+    PoolSettings.of(profile);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsZeroSizingInterval() {
+    DbPoolingProfile profile = new DbPoolingProfile();
+    profile.setSizingInterval(0);
+    PoolSettings.of(profile);
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.domain.connection.pool;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Test;
+
+public class PoolSizerTestCase extends AbstractMuleTestCase {
+
+  private static final long PERIOD = SECONDS.toNanos(1);
+
+  @Test
+  public void growsWhileCallersWaitAndLatencyHolds() {
+    PoolSizer sizer = new PoolSizer(0, 10);
+    assertThat(sizer.getLimit(), is(1));
+
+    assertThat(period(sizer, 4, 5, 10), is(2));
+    assertThat(period(sizer, 4, 5, 10), is(3));
+    assertThat(period(sizer, 4, 5, 10), is(4));
+    assertThat(period(sizer, 4, 5, 10), is(6));
+  }
+
+  @Test
+  public void doesNotGrowBeyondMaxSize() {
+    PoolSizer sizer = new PoolSizer(0, 4);
+    for (int i = 0; i < 10; i++) {
+      period(sizer, 4, 5, 10);
+    }
+
+    assertThat(sizer.getLimit(), is(4));
+  }
+
+  @Test
+  public void shrinksWhenLatencyClimbs() {
+    PoolSizer sizer = new PoolSizer(0, 10);
+    for (int i = 0; i < 4; i++) {
+      period(sizer, 4, 5, 10);
+    }
+
+    // Same throughput as before at four times the latency: more connections only queue in the database
+    assertThat(period(sizer, 4, 5, 40), is(3));
+  }
+
+  @Test
+  public void doesNotGrowWhenLatencyClimbs() {
+    PoolSizer sizer = new PoolSizer(0, 10);
+    period(sizer, 4, 5, 10);
+
+    assertThat(period(sizer, 4, 5, 13), is(2));
+  }
+
+  @Test
+  public void shrinksIdleConnectionsDownToMinSize() {
+    PoolSizer sizer = new PoolSizer(2, 10);
+    for (int i = 0; i < 4; i++) {
+      period(sizer, 4, 5, 10);
+    }
+    assertThat(sizer.getLimit(), is(9));
+
+    assertThat(sizer.adjust(PERIOD, 0), is(5));
+    assertThat(sizer.adjust(PERIOD, 0), is(3));
+    assertThat(sizer.adjust(PERIOD, 0), is(2));
+    assertThat(sizer.adjust(PERIOD, 0), is(2));
+  }
+
+  @Test
+  public void growsForStuckCallers() {
+    PoolSizer sizer = new PoolSizer(0, 10);
+    sizer.checkedOut(0);
+
+    assertThat(sizer.adjust(PERIOD, 3), is(2));
+  }
+
+  /**
+   * Runs a period of sequential checkouts and returns the limit it leads to
+   */
+  private static int period(PoolSizer sizer, int checkouts, long waitMillis, long holdMillis) {
+    for (int i = 0; i < checkouts; i++) {
+      sizer.checkedOut(MILLISECONDS.toNanos(waitMillis));
+      sizer.released(MILLISECONDS.toNanos(holdMillis));
+    }
+    return sizer.adjust(PERIOD, 0);
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.operation;
+
+import static java.util.Optional.empty;
+import static java.util.Optional.of;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.runtime.api.scheduler.Scheduler;
+import org.mule.runtime.extension.api.runtime.operation.Result;
+import org.mule.runtime.extension.api.runtime.process.CompletionCallback;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JdbcExecutorTestCase extends AbstractMuleTestCase {
+
+  private final ExecutorService ioThreads = newSingleThreadExecutor();
+
+  private Scheduler scheduler;
+  private JdbcExecutor executor;
+  private DbConnection connection;
+  private Connection jdbcConnection;
+
+  @Before
+  public void setUp() throws Exception {
+    scheduler = mock(Scheduler.class);
+    doAnswer(invocation -> {
+      ioThreads.execute(invocation.getArgument(0));
+      return null;
+    }).when(scheduler).execute(any(Runnable.class));
+    executor = new JdbcExecutor(dbConnection -> dbConnection == connection ? of(scheduler) : empty());
+    jdbcConnection = mock(Connection.class);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    connection = mock(DbConnection.class);
+    when(connection.getJdbcConnection()).thenReturn(jdbcConnection);
+  }
+
+  @After
+  public void tearDown() {
+    ioThreads.shutdownNow();
+  }
+
+  @Test
+  public void runsOffTheCallingThread() throws Exception {
+    FutureCallback<Thread> callback = new FutureCallback<>();
+    executor.execute(connection, Thread::currentThread, callback);
+
+    assertThat(callback.result.get(5, SECONDS), is(not(Thread.currentThread())));
+  }
+
+  @Test
+  public void runsTransactionsOnTheCallingThread() throws Exception {
+    when(jdbcConnection.getAutoCommit()).thenReturn(false);
+    FutureCallback<Thread> callback = new FutureCallback<>();
+    executor.execute(connection, Thread::currentThread, callback);
+
+    assertThat(callback.result.isDone(), is(true));
+    assertThat(callback.result.get(), is(Thread.currentThread()));
+  }
+
+  @Test
+  public void runsConnectionsWithoutSchedulerOnTheCallingThread() throws Exception {
+    DbConnection unpooled = mock(DbConnection.class);
+    when(unpooled.getJdbcConnection()).thenReturn(jdbcConnection);
+    FutureCallback<Thread> callback = new FutureCallback<>();
+    executor.execute(unpooled, Thread::currentThread, callback);
+
+    assertThat(callback.result.isDone(), is(true));
+    assertThat(callback.result.get(), is(Thread.currentThread()));
+  }
+
+  @Test
+  public void reportsErrors() throws Exception {
+    SQLException error = new SQLException("Table not found");
+    FutureCallback<Integer> callback = new FutureCallback<>();
+    executor.execute(connection, () -> {
+      throw error;
+    }, callback);
+
+    assertThat(callback.error.get(5, SECONDS), is(error));
+  }
+
+  @Test
+  public void reportsRejections() throws Exception {
+    doThrow(new RejectedExecutionException("Saturated")).when(scheduler).execute(any(Runnable.class));
+    FutureCallback<Integer> callback = new FutureCallback<>();
+    executor.execute(connection, () -> 1, callback);
+
+    assertThat(callback.error.get(5, SECONDS), is(instanceOf(RejectedExecutionException.class)));
+  }
+
+  private static final class FutureCallback<T> implements CompletionCallback<T, Void> {
+
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final CompletableFuture<Throwable> error = new CompletableFuture<>();
+
+    @Override
+    public void success(Result<T, Void> result) {
+      this.result.complete(result.getOutput());
+    }
+
+    @Override
+    public void error(Throwable e) {
+      error.complete(e);
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class AdaptivePollScheduleTestCase extends AbstractMuleTestCase {
+
+  private static final long FREQUENCY = 10;
+  private static final long MAX_INTERVAL = 80;
+
+  private AdaptivePollSchedule schedule;
+  private long now = 0;
+
+  @Before
+  public void setUp() {
+    schedule = new AdaptivePollSchedule(MAX_INTERVAL, now);
+    assertThat(trigger(), is(true));
+  }
+
+  @Test
+  public void backsOffWhileEmpty() {
+    poll(0, true);
+    assertThat(countSkippedTriggers(), is(0));
+
+    poll(0, true);
+    assertThat(countSkippedTriggers(), is(1));
+
+    poll(0, true);
+    assertThat(countSkippedTriggers(), is(3));
+
+    poll(0, true);
+    assertThat(countSkippedTriggers(), is(7));
+
+    poll(0, true);
+    assertThat(countSkippedTriggers(), is(7));
+  }
+
+  @Test
+  public void resetsWhenNotDrained() {
+    backOffToMax();
+
+    poll(100, false);
+    assertThat(countSkippedTriggers(), is(0));
+    assertThat(schedule.getBacklogEstimate(), is(100L));
+  }
+
+  @Test
+  public void tightensWhenIdleTableBecomesBusy() {
+    backOffToMax();
+
+    // No row limit, so every poll reads all the available rows
+    poll(5, true);
+    assertThat(countSkippedTriggers(), is(3));
+    assertThat(schedule.getBacklogEstimate(), is(0L));
+
+    poll(5, true);
+    assertThat(countSkippedTriggers(), is(1));
+
+    poll(5, true);
+    assertThat(countSkippedTriggers(), is(0));
+
+    poll(5, true);
+    assertThat(countSkippedTriggers(), is(0));
+    assertThat(schedule.getEffectiveIntervalNanos(), is(FREQUENCY));
+  }
+
+  private void backOffToMax() {
+    for (int i = 0; i < 5; i++) {
+      poll(0, true);
+      countSkippedTriggers();
+    }
+  }
+
+  private void poll(int rows, boolean drained) {
+    schedule.onPoll(now, new PollOutcome(rows, drained));
+  }
+
+  private boolean trigger() {
+    now += FREQUENCY;
+    return schedule.isDue(now);
+  }
+
+  private int countSkippedTriggers() {
+    int skipped = 0;
+    while (!trigger()) {
+      skipped++;
+    }
+
+    return skipped;
+  }
+}
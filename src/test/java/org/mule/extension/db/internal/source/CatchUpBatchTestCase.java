@@ -0,0 +1,105 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class CatchUpBatchTestCase extends AbstractMuleTestCase {
+
+  private static final String WATERMARK = "WM";
+
+  private final List<Object> dispatched = new ArrayList<>();
+
+  @Test
+  public void partialBatchDispatchesEverything() {
+    CatchUpBatch batch = read(5, 1, 2, 2);
+
+    assertThat(batch.complete(3), is(false));
+    assertThat(batch.isFull(), is(false));
+    assertThat(dispatched, contains(1, 2, 2));
+    assertThat(batch.getLastWatermark().get(), is(2));
+  }
+
+  @Test
+  public void fullBatchHoldsBackLastWatermarkGroup() {
+    CatchUpBatch batch = read(4, 1, 2, 3, 3);
+
+    assertThat(batch.complete(4), is(false));
+    assertThat(batch.isFull(), is(true));
+    assertThat(dispatched, contains(1, 2));
+    assertThat(batch.getLastWatermark().get(), is(2));
+  }
+
+  @Test
+  public void fullBatchWithSingleWatermarkIsHeldBack() {
+    CatchUpBatch batch = read(3, 7, 7, 7);
+
+    assertThat(batch.complete(3), is(true));
+    assertThat(batch.isFull(), is(true));
+    assertThat(dispatched, is(empty()));
+    assertThat(batch.getHeldWatermark().get(), is(7));
+    assertThat(batch.getLastWatermark().isPresent(), is(false));
+  }
+
+  @Test
+  public void skippedRowsCountTowardsFullBatch() {
+    // Two of the four rows returned by the query were being processed, so they never reached the batch
+    CatchUpBatch batch = read(4, 1, 2);
+
+    assertThat(batch.complete(4), is(false));
+    assertThat(batch.isFull(), is(true));
+    assertThat(dispatched, contains(1));
+    assertThat(batch.getLastWatermark().get(), is(1));
+  }
+
+  @Test
+  public void uniqueCursorIsNotHeldBack() {
+    CatchUpBatch batch = new CatchUpBatch(3, row -> (Integer) row.get(WATERMARK), true, this::dispatch);
+    asList(1, 2, 2).forEach(watermark -> batch.accept(singletonMap(WATERMARK, watermark)));
+
+    assertThat(batch.complete(3), is(false));
+    assertThat(batch.isFull(), is(true));
+    assertThat(dispatched, contains(1, 2, 2));
+    assertThat(batch.getLastWatermark().get(), is(2));
+  }
+
+  @Test
+  public void stopsWhenDelegateRefuses() {
+    CatchUpBatch batch = new CatchUpBatch(3, row -> (Integer) row.get(WATERMARK), false, row -> dispatched.add(row.get(WATERMARK)) && false);
+    assertThat(batch.accept(singletonMap(WATERMARK, 1)), is(true));
+    assertThat(batch.accept(singletonMap(WATERMARK, 2)), is(false));
+
+    assertThat(batch.complete(2), is(false));
+    assertThat(batch.isFull(), is(false));
+    assertThat(dispatched, contains(1));
+  }
+
+  private CatchUpBatch read(int size, Integer... watermarks) {
+    CatchUpBatch batch = new CatchUpBatch(size, row -> (Integer) row.get(WATERMARK), false, this::dispatch);
+    asList(watermarks).forEach(watermark -> batch.accept(singletonMap(WATERMARK, watermark)));
+    return batch;
+  }
+
+  private boolean dispatch(Map<String, Object> row) {
+    dispatched.add(row.get(WATERMARK));
+    return true;
+  }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Timestamp;
+
+import org.junit.Test;
+
+public class CompositeWatermarkTestCase extends AbstractMuleTestCase {
+
+  private static final Timestamp EARLIER = new Timestamp(1000);
+  private static final Timestamp LATER = new Timestamp(2000);
+
+  @Test
+  public void ordersByWatermarkFirst() {
+    assertThat(new CompositeWatermark(EARLIER, 10).compareTo(new CompositeWatermark(LATER, 1)), is(lessThan(0)));
+    assertThat(new CompositeWatermark(LATER, 1).compareTo(new CompositeWatermark(EARLIER, 10)), is(greaterThan(0)));
+  }
+
+  @Test
+  public void breaksTiesById() {
+    assertThat(new CompositeWatermark(LATER, 1).compareTo(new CompositeWatermark(LATER, 2)), is(lessThan(0)));
+    assertThat(new CompositeWatermark(LATER, 2).compareTo(new CompositeWatermark(LATER, 2)), is(0));
+  }
+
+  @Test
+  public void nullsAreLowest() {
+    assertThat(new CompositeWatermark(LATER, null).compareTo(new CompositeWatermark(LATER, 1)), is(lessThan(0)));
+    assertThat(new CompositeWatermark(EARLIER, 1).compareTo(new CompositeWatermark(null, 1)), is(greaterThan(0)));
+  }
+
+  @Test
+  public void equality() {
+    assertThat(new CompositeWatermark(LATER, 1).equals(new CompositeWatermark(new Timestamp(2000), 1)), is(true));
+    assertThat(new CompositeWatermark(LATER, 1).hashCode(), is(new CompositeWatermark(new Timestamp(2000), 1).hashCode()));
+  }
+}
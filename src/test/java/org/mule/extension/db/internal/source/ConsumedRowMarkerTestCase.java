@@ -0,0 +1,111 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Arrays.asList;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConsumedRowMarkerTestCase extends AbstractMuleTestCase {
+
+  private DbConnection connection;
+  private Connection jdbcConnection;
+  private PreparedStatement statement;
+
+  @Before
+  public void setUp() throws Exception {
+    statement = mock(PreparedStatement.class);
+    jdbcConnection = mock(Connection.class);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    when(jdbcConnection.prepareStatement(anyString())).thenReturn(statement);
+    connection = mock(DbConnection.class);
+    when(connection.getJdbcConnection()).thenReturn(jdbcConnection);
+  }
+
+  @Test
+  public void marksConsumedRowsInOneBatch() throws Exception {
+    ConsumedRowMarker marker = new ConsumedRowMarker("OUTBOX", "ID", "UPDATE OUTBOX SET SENT = 1 WHERE ID = :id");
+    marker.consumed(asList(1, 2));
+    marker.consumed(asList(3));
+
+    assertThat(marker.isPending(2), is(true));
+    assertThat(marker.flush(connection), is(3));
+    assertThat(marker.isPending(2), is(false));
+
+    verify(jdbcConnection).prepareStatement("UPDATE OUTBOX SET SENT = 1 WHERE ID = ?");
+    verify(statement, times(3)).addBatch();
+    verify(statement).executeBatch();
+    verify(jdbcConnection).commit();
+    verify(jdbcConnection).setAutoCommit(true);
+  }
+
+  @Test
+  public void deletesConsumedRowsInChunks() throws Exception {
+    ConsumedRowMarker marker = new ConsumedRowMarker("OUTBOX", "ID", null);
+    List<Object> ids = new ArrayList<>();
+    for (int i = 0; i < ConsumedRowMarker.IN_LIST_SIZE * 2 + 1; i++) {
+      ids.add(i);
+    }
+    marker.consumed(ids);
+
+    assertThat(marker.flush(connection), is(ids.size()));
+
+    verify(statement, times(3)).executeUpdate();
+    verify(jdbcConnection, times(2)).prepareStatement(anyString());
+    verify(jdbcConnection).prepareStatement("DELETE FROM OUTBOX WHERE ID IN (?)");
+    verify(jdbcConnection).commit();
+  }
+
+  @Test
+  public void keepsRowsPendingWhenMarkingFails() throws Exception {
+    when(statement.executeBatch()).thenThrow(new SQLException("Deadlock"));
+    ConsumedRowMarker marker = new ConsumedRowMarker("OUTBOX", "ID", "DELETE FROM OUTBOX WHERE ID = :id");
+    marker.consumed(asList(1));
+
+    try {
+      marker.flush(connection);
+    } catch (SQLException e) {
+      // Expected
+    }
+
+    assertThat(marker.isPending(1), is(true));
+    verify(jdbcConnection).rollback();
+    verify(jdbcConnection, never()).commit();
+  }
+
+  @Test
+  public void doesNothingWithoutConsumedRows() throws Exception {
+    ConsumedRowMarker marker = new ConsumedRowMarker("OUTBOX", "ID", null);
+
+    assertThat(marker.flush(connection), is(0));
+    verify(connection, never()).getJdbcConnection();
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void statementWithoutIdParameter() {
+    new ConsumedRowMarker("OUTBOX", "ID", "DELETE FROM OUTBOX WHERE SENT = 1");
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Test;
+
+public class InFlightIdsTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void tracksIds() {
+    InFlightIds ids = new InFlightIds(10);
+
+    assertThat(ids.add("1"), is(true));
+    assertThat(ids.add("1"), is(false));
+    assertThat(ids.contains("1"), is(true));
+    assertThat(ids.contains("2"), is(false));
+
+    ids.remove("1");
+    assertThat(ids.contains("1"), is(false));
+    assertThat(ids.size(), is(0));
+  }
+
+  @Test
+  public void doesNotGrowBeyondMaxSize() {
+    InFlightIds ids = new InFlightIds(2);
+
+    assertThat(ids.add("1"), is(true));
+    assertThat(ids.add("2"), is(true));
+    assertThat(ids.add("3"), is(false));
+    assertThat(ids.contains("3"), is(false));
+
+    ids.remove("1");
+    assertThat(ids.add("3"), is(true));
+  }
+
+  @Test
+  public void removalKeepsTheRestReachable() {
+    InFlightIds ids = new InFlightIds(1000);
+    for (int i = 0; i < 1000; i++) {
+      ids.add(Integer.toString(i));
+    }
+
+    for (int i = 0; i < 1000; i += 2) {
+      ids.remove(Integer.toString(i));
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      assertThat(ids.contains(Integer.toString(i)), is(i % 2 == 1));
+    }
+    assertThat(ids.size(), is(500));
+  }
+
+  @Test
+  public void removingUnknownIdIsIgnored() {
+    InFlightIds ids = new InFlightIds(10);
+    ids.add("1");
+
+    ids.remove("2");
+    assertThat(ids.size(), is(1));
+  }
+}
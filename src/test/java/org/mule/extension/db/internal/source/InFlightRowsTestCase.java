@@ -0,0 +1,91 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class InFlightRowsTestCase extends AbstractMuleTestCase {
+
+  private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void takesRowsUpToTheBound() throws Exception {
+    InFlightRows rows = new InFlightRows(3);
+
+    assertThat(rows.acquire(1), is(1));
+    assertThat(rows.acquire(2), is(2));
+    assertThat(rows.size(), is(3));
+
+    rows.release(2);
+    assertThat(rows.size(), is(1));
+  }
+
+  @Test
+  public void waitsForRoomOnceTheBoundIsReached() throws Exception {
+    InFlightRows rows = new InFlightRows(2);
+    rows.acquire(2);
+
+    Future<Integer> waiting = executor.submit(() -> rows.acquire(1));
+    assertStillWaiting(waiting);
+
+    rows.release(1);
+    assertThat(waiting.get(5, SECONDS), is(1));
+    assertThat(rows.size(), is(2));
+  }
+
+  @Test
+  public void messagesLargerThanTheBoundTakeTheWholeBound() throws Exception {
+    InFlightRows rows = new InFlightRows(2);
+    rows.acquire(1);
+
+    Future<Integer> waiting = executor.submit(() -> rows.acquire(5));
+    assertStillWaiting(waiting);
+
+    rows.release(1);
+    assertThat(waiting.get(5, SECONDS), is(2));
+  }
+
+  @Test
+  public void closingReleasesWaitingPolls() throws Exception {
+    InFlightRows rows = new InFlightRows(1);
+    rows.acquire(1);
+
+    Future<Integer> waiting = executor.submit(() -> rows.acquire(1));
+    assertStillWaiting(waiting);
+
+    rows.close();
+    assertThat(waiting.get(5, SECONDS), is(0));
+    assertThat(rows.size(), is(1));
+  }
+
+  private static void assertStillWaiting(Future<Integer> waiting) throws Exception {
+    try {
+      waiting.get(100, MILLISECONDS);
+      throw new AssertionError("Rows were taken beyond the bound");
+    } catch (TimeoutException e) {
+      // Expected, there's no room yet
+    }
+  }
+}
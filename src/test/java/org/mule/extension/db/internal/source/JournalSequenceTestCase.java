@@ -0,0 +1,107 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class JournalSequenceTestCase extends AbstractMuleTestCase {
+
+  private static final long TIMEOUT = SECONDS.toNanos(60);
+
+  private final JournalSequence sequence = new JournalSequence(TIMEOUT);
+  private final List<Long> dispatched = new ArrayList<>();
+
+  @Test
+  public void holdsTheWatermarkBeforeChangesCommittedOutOfOrder() {
+    // Transaction A gets 41 and transaction B gets 42, but B commits first
+    assertThat(poll(40L, 0, 42L), is(40L));
+    assertThat(dispatched, is(list(42L)));
+
+    // A commits: 41 is dispatched and 42 is not dispatched again
+    assertThat(poll(40L, 1, 41L, 42L), is(41L));
+    assertThat(dispatched, is(list(42L, 41L)));
+
+    // 42 was already dispatched, so nothing moves until a new change shows up
+    assertThat(poll(41L, 2, 42L), is(41L));
+    assertThat(poll(41L, 3, 42L, 43L), is(43L));
+    assertThat(dispatched, is(list(42L, 41L, 43L)));
+  }
+
+  @Test
+  public void skipsGapsOnceTheyTimeOut() {
+    assertThat(poll(40L, 0, 42L, 43L), is(40L));
+    assertThat(poll(40L, 30, 42L, 43L), is(40L));
+
+    // The transaction which got 41 rolled back
+    assertThat(poll(40L, 61, 42L, 43L, 44L), is(44L));
+    assertThat(dispatched, is(list(42L, 43L, 44L)));
+  }
+
+  @Test
+  public void timesOutEachGapOnItsOwn() {
+    assertThat(poll(40L, 0, 42L), is(40L));
+    assertThat(poll(40L, 30, 42L, 44L), is(40L));
+
+    // 41 is given up, while 43 was only noticed now
+    assertThat(poll(40L, 61, 42L, 44L, 45L), is(42L));
+    assertThat(poll(42L, 122, 44L, 45L, 46L), is(46L));
+    assertThat(dispatched, is(list(42L, 44L, 45L, 46L)));
+  }
+
+  @Test
+  public void startsFromTheFirstChangeWithoutWatermark() {
+    assertThat(poll(null, 0, 5L, 6L), is(6L));
+    assertThat(poll(6L, 1, 8L), is(6L));
+  }
+
+  @Test
+  public void keepsTheTypeOfTheSequence() {
+    sequence.startPoll(BigDecimal.valueOf(40));
+    sequence.read(BigDecimal.valueOf(42), 0);
+
+    assertThat(sequence.watermarkOf(BigDecimal.valueOf(42)), is(BigDecimal.valueOf(40)));
+  }
+
+  /**
+   * Reads the given sequence numbers as a poll would, dispatching the ones it's told to
+   *
+   * @return the greatest watermark among the dispatched changes, as the runtime would store it
+   */
+  private Long poll(Long watermark, long seconds, Long... read) {
+    sequence.startPoll(watermark);
+    Long latest = watermark;
+    for (Long value : read) {
+      if (sequence.read(value, SECONDS.toNanos(seconds))) {
+        dispatched.add(value);
+        sequence.dispatched(value);
+        Serializable changeWatermark = sequence.watermarkOf(value);
+        latest = latest == null || (Long) changeWatermark > latest ? (Long) changeWatermark : latest;
+      }
+    }
+    return latest;
+  }
+
+  private static List<Long> list(Long... values) {
+    List<Long> list = new ArrayList<>();
+    for (Long value : values) {
+      list.add(value);
+    }
+    return list;
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import org.junit.Test;
+
+public class MultiTableWatermarkTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void advancesOneTableAtATime() {
+    MultiTableWatermark first = MultiTableWatermark.empty().with("PLANET", 1);
+    MultiTableWatermark second = first.with("PLANET", 2);
+    MultiTableWatermark third = second.with("MOON", 1);
+
+    assertThat(first.compareTo(MultiTableWatermark.empty()), is(greaterThan(0)));
+    assertThat(second.compareTo(first), is(greaterThan(0)));
+    assertThat(second.compareTo(third), is(lessThan(0)));
+    assertThat(third.get("PLANET"), is(2));
+    assertThat(first.get("MOON"), is(nullValue()));
+  }
+
+  @Test
+  public void unchangedWatermarkIsReused() {
+    MultiTableWatermark watermark = MultiTableWatermark.empty().with("PLANET", 1);
+
+    assertThat(watermark.with("PLANET", 1), is(sameInstance(watermark)));
+    assertThat(watermark.with("PLANET", null), is(sameInstance(watermark)));
+  }
+
+  @Test
+  public void divergingWatermarksAreOrderedByTableName() {
+    MultiTableWatermark planets = MultiTableWatermark.empty().with("PLANET", 2).with("MOON", 1);
+    MultiTableWatermark moons = MultiTableWatermark.empty().with("PLANET", 1).with("MOON", 2);
+
+    assertThat(planets.compareTo(moons), is(lessThan(0)));
+    assertThat(moons.compareTo(planets), is(greaterThan(0)));
+  }
+
+  @Test
+  public void orderIsTransitive() {
+    MultiTableWatermark first = MultiTableWatermark.empty().with("MOON", 1).with("PLANET", 3);
+    MultiTableWatermark second = MultiTableWatermark.empty().with("MOON", 2).with("PLANET", 1);
+    MultiTableWatermark third = MultiTableWatermark.empty().with("MOON", 2).with("PLANET", 2);
+
+    assertThat(first.compareTo(second), is(lessThan(0)));
+    assertThat(second.compareTo(third), is(lessThan(0)));
+    assertThat(first.compareTo(third), is(lessThan(0)));
+  }
+
+  @Test
+  public void equality() {
+    MultiTableWatermark watermark = MultiTableWatermark.empty().with("PLANET", 1).with("MOON", 2);
+    MultiTableWatermark other = MultiTableWatermark.empty().with("MOON", 2).with("PLANET", 1);
+
+    assertThat(watermark.equals(other), is(true));
+    assertThat(watermark.hashCode(), is(other.hashCode()));
+  }
+}
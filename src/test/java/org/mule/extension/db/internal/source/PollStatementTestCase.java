@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.AbstractDbConnector;
+import org.mule.db.commons.api.param.ParameterizedStatementDefinition;
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.domain.param.InputQueryParam;
+import org.mule.db.commons.internal.domain.query.Query;
+import org.mule.db.commons.internal.domain.query.QueryParamValue;
+import org.mule.db.commons.internal.domain.query.QueryTemplate;
+import org.mule.db.commons.internal.resolver.query.QueryResolver;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class PollStatementTestCase extends AbstractMuleTestCase {
+
+  private static final String SQL = "SELECT * FROM PLANET WHERE ID > :watermark AND POSITION < :limit";
+
+  private final QueryResolver<ParameterizedStatementDefinition> resolver = mock(QueryResolver.class);
+  private final AbstractDbConnector config = mock(AbstractDbConnector.class);
+  private final DbConnection connection = mock(DbConnection.class);
+
+  @Test
+  public void resolvesTheTemplateOnlyOnce() {
+    QueryTemplate template = template("watermark", "limit");
+    PollStatement statement = resolvingTo(template, SQL);
+
+    statement.resolve(parameters(1, 10), config, connection);
+    Query query = statement.resolve(parameters(2, 10), config, connection);
+
+    assertThat(query.getQueryTemplate(), is(sameInstance(template)));
+    ArgumentCaptor<ParameterizedStatementDefinition> definition = ArgumentCaptor.forClass(ParameterizedStatementDefinition.class);
+    verify(resolver, times(1)).resolve(definition.capture(), any(), any(), any());
+    assertThat(definition.getValue().getSql(), is(SQL));
+  }
+
+  @Test
+  public void bindsParametersByName() {
+    PollStatement statement = resolvingTo(template("watermark", "limit"), SQL);
+    statement.resolve(parameters(1, 10), config, connection);
+
+    // The values are bound in the order of the template, whatever the order of the given parameters
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("limit", 20);
+    parameters.put("watermark", 5);
+    List<QueryParamValue> values = statement.resolve(parameters, config, connection).getParamValues();
+
+    assertThat(values.size(), is(2));
+    assertThat(values.get(0).getName(), is("watermark"));
+    assertThat(values.get(0).getValue(), is(5));
+    assertThat(values.get(1).getName(), is("limit"));
+    assertThat(values.get(1).getValue(), is(20));
+  }
+
+  @Test
+  public void bindsNothingWithoutWatermark() {
+    PollStatement statement = resolvingTo(template(), "SELECT * FROM PLANET");
+
+    statement.resolve(emptyMap(), config, connection);
+    Query query = statement.resolve(emptyMap(), config, connection);
+
+    assertThat(query.getParamValues().isEmpty(), is(true));
+    verify(resolver, times(1)).resolve(any(), any(), any(), any());
+  }
+
+  @Test
+  public void bindsAMissingParameterAsNull() {
+    PollStatement statement = resolvingTo(template("watermark"), "SELECT * FROM PLANET WHERE ID > :watermark");
+    statement.resolve(singletonMap("watermark", 1), config, connection);
+
+    List<QueryParamValue> values = statement.resolve(emptyMap(), config, connection).getParamValues();
+
+    assertThat(values.get(0).getName(), is("watermark"));
+    assertThat(values.get(0).getValue(), is((Object) null));
+  }
+
+  private PollStatement resolvingTo(QueryTemplate template, String sql) {
+    Query query = mock(Query.class);
+    when(query.getQueryTemplate()).thenReturn(template);
+    when(resolver.resolve(any(), any(), any(), any())).thenReturn(query);
+    return new PollStatement(sql, resolver);
+  }
+
+  private static QueryTemplate template(String... parameterNames) {
+    List<InputQueryParam> parameters = new ArrayList<>();
+    for (String name : parameterNames) {
+      InputQueryParam parameter = mock(InputQueryParam.class);
+      when(parameter.getName()).thenReturn(name);
+      parameters.add(parameter);
+    }
+
+    QueryTemplate template = mock(QueryTemplate.class);
+    when(template.getInputParams()).thenReturn(parameters);
+    return template;
+  }
+
+  private static Map<String, Object> parameters(Object watermark, Object limit) {
+    Map<String, Object> parameters = new HashMap<>();
+    parameters.put("watermark", watermark);
+    parameters.put("limit", limit);
+    return parameters;
+  }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+public class RowClaimerTestCase extends AbstractMuleTestCase {
+
+  @Test
+  public void mySqlSupportsSkipLockedFromVersion8() throws SQLException {
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MySQL", "8.0.30", 8, 0)), is(true));
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MySQL", "5.7.40", 5, 7)), is(false));
+  }
+
+  @Test
+  public void mariaDbSupportsSkipLockedFromVersion10_6() throws SQLException {
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MariaDB", "10.6.12-MariaDB", 10, 6)), is(true));
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MariaDB", "10.5.19-MariaDB", 10, 5)), is(false));
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MariaDB", "11.0.2-MariaDB", 11, 0)), is(true));
+  }
+
+  @Test
+  public void mariaDbIsToldApartThroughTheMySqlDriver() throws SQLException {
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MySQL", "5.5.5-10.5.19-MariaDB-1:10.5.19+maria~ubu2004", 5, 5)),
+               is(false));
+    assertThat(RowClaimer.supportsSkipLocked(metaData("MySQL", "5.5.5-10.11.2-MariaDB", 5, 5)), is(true));
+  }
+
+  @Test
+  public void leasesRunOnTheDatabaseClock() throws SQLException {
+    // A database clock an hour behind the local one
+    Timestamp databaseNow = new Timestamp(System.currentTimeMillis() - 3600000);
+
+    ResultSet candidates = mock(ResultSet.class);
+    when(candidates.next()).thenReturn(true, false);
+    when(candidates.getObject(1)).thenReturn(1);
+    when(candidates.getTimestamp(2)).thenReturn(databaseNow);
+    PreparedStatement select = mock(PreparedStatement.class);
+    when(select.executeQuery()).thenReturn(candidates);
+    PreparedStatement update = mock(PreparedStatement.class);
+
+    DatabaseMetaData metaData = metaData("Apache Derby", "10.14.2.0", 10, 14);
+    Connection jdbcConnection = mock(Connection.class);
+    when(jdbcConnection.getMetaData()).thenReturn(metaData);
+    when(jdbcConnection.getAutoCommit()).thenReturn(true);
+    when(jdbcConnection.prepareStatement(startsWith("SELECT"))).thenReturn(select);
+    when(jdbcConnection.prepareStatement(startsWith("UPDATE"))).thenReturn(update);
+    DbConnection connection = mock(DbConnection.class);
+    when(connection.getJdbcConnection()).thenReturn(jdbcConnection);
+
+    new RowClaimer("PLANET", "ID", "CLAIM", "CLAIM_EXPIRATION", 60000).claim(connection, null);
+
+    ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+    verify(jdbcConnection, times(2)).prepareStatement(sql.capture());
+    for (String statement : sql.getAllValues()) {
+      assertThat(statement, containsString("CLAIM_EXPIRATION < CURRENT_TIMESTAMP"));
+    }
+    verify(select, never()).setTimestamp(anyInt(), any(Timestamp.class));
+    verify(update).setTimestamp(2, new Timestamp(databaseNow.getTime() + 60000));
+    verify(update, never()).setTimestamp(eq(4), any(Timestamp.class));
+  }
+
+  private static DatabaseMetaData metaData(String product, String version, int major, int minor) throws SQLException {
+    DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+    when(metaData.getDatabaseProductName()).thenReturn(product);
+    when(metaData.getDatabaseProductVersion()).thenReturn(version);
+    when(metaData.getDatabaseMajorVersion()).thenReturn(major);
+    when(metaData.getDatabaseMinorVersion()).thenReturn(minor);
+    return metaData;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.lang.management.ManagementFactory.getPlatformMBeanServer;
+import static java.time.Duration.ofSeconds;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class RowListenerStatisticsTestCase extends AbstractMuleTestCase {
+
+  private static final Instant NOW = Instant.ofEpochSecond(1_700_000_000L);
+
+  @Test
+  public void lagOfTemporalWatermarks() {
+    Instant earlier = NOW.minusSeconds(30);
+
+    assertThat(RowListenerStatistics.lagOf(new Timestamp(earlier.toEpochMilli()), NOW), is(ofSeconds(30)));
+    assertThat(RowListenerStatistics.lagOf(LocalDateTime.ofInstant(earlier, ZoneId.systemDefault()), NOW), is(ofSeconds(30)));
+    assertThat(RowListenerStatistics.lagOf(new CompositeWatermark(earlier, 1), NOW), is(ofSeconds(30)));
+  }
+
+  @Test
+  public void noLagForOtherWatermarks() {
+    assertThat(RowListenerStatistics.lagOf(42, NOW), is(nullValue()));
+    assertThat(RowListenerStatistics.lagOf(new Time(1000), NOW), is(nullValue()));
+    assertThat(RowListenerStatistics.lagOf(null, NOW), is(nullValue()));
+  }
+
+  @Test
+  public void accumulatesPolls() {
+    RowListenerStatistics statistics = new RowListenerStatistics("app", "flow/source", "PLANET", () -> 0, () -> 0);
+    PollTimings timings = new PollTimings();
+    timings.connected(1_000_000);
+    timings.executed(10_000_000, 6_000_000, 4_000_000);
+
+    statistics.pollCompleted(3, timings, null);
+    statistics.pollCompleted(2, new PollTimings(), 7);
+    statistics.itemRejected();
+
+    assertThat(statistics.getPollCount(), is(2L));
+    assertThat(statistics.getRowCount(), is(5L));
+    assertThat(statistics.getLastPollRows(), is(2));
+    assertThat(statistics.getRejectedItemCount(), is(1L));
+    assertThat(statistics.getLagMillis(), is(-1L));
+  }
+
+  @Test
+  public void splitsPollTime() {
+    RowListenerStatistics statistics = new RowListenerStatistics("app", "flow/source", "PLANET", () -> 0, () -> 0);
+    PollTimings timings = new PollTimings();
+    timings.connected(1_000_000);
+    timings.executed(10_000_000, 6_000_000, 4_000_000);
+
+    statistics.pollCompleted(3, timings, null);
+
+    assertThat(statistics.getLastConnectMillis(), is(1L));
+    assertThat(statistics.getLastExecuteMillis(), is(4L));
+    assertThat(statistics.getLastFetchMillis(), is(2L));
+    assertThat(statistics.getLastDispatchMillis(), is(4L));
+    assertThat(statistics.getLastPoll().getDuration().toMillis(), is(11L));
+  }
+
+  @Test
+  public void exposedThroughJmx() throws Exception {
+    RowListenerStatistics statistics = new RowListenerStatistics("app", "flow/source", "PLANET", () -> 1500, () -> 20);
+    ObjectName name = new ObjectName("org.mule.extension.db:type=RowListener,artifact=" + ObjectName.quote("app") + ",name="
+        + ObjectName.quote("flow/source"));
+
+    statistics.register();
+    try {
+      assertThat(getPlatformMBeanServer().getAttribute(name, "Table"), is("PLANET"));
+      assertThat(getPlatformMBeanServer().getAttribute(name, "EffectivePollIntervalMillis"), is(1500L));
+      assertThat(getPlatformMBeanServer().getAttribute(name, "BacklogEstimate"), is(20L));
+    } finally {
+      statistics.unregister();
+    }
+
+    assertThat(getPlatformMBeanServer().isRegistered(name), is(false));
+  }
+
+  @Test
+  public void doesNotEvictRegistrationsItDoesNotOwn() throws Exception {
+    RowListenerStatistics registered = new RowListenerStatistics("app", "flow/source", "PLANET", () -> 1500, () -> 20);
+    RowListenerStatistics other = new RowListenerStatistics("app", "flow/source", "MOON", () -> 1500, () -> 20);
+    ObjectName name = new ObjectName("org.mule.extension.db:type=RowListener,artifact=" + ObjectName.quote("app") + ",name="
+        + ObjectName.quote("flow/source"));
+
+    registered.register();
+    try {
+      other.register();
+      other.unregister();
+      assertThat(getPlatformMBeanServer().getAttribute(name, "Table"), is("PLANET"));
+    } finally {
+      registered.unregister();
+    }
+  }
+
+  @Test
+  public void listenersOfOtherApplicationsDoNotClash() throws Exception {
+    RowListenerStatistics first = new RowListenerStatistics("app", "flow/source", "PLANET", () -> 1500, () -> 20);
+    RowListenerStatistics second = new RowListenerStatistics("other-app", "flow/source", "MOON", () -> 1500, () -> 20);
+
+    first.register();
+    second.register();
+    try {
+      assertThat(getPlatformMBeanServer().getAttribute(new ObjectName("org.mule.extension.db:type=RowListener,artifact="
+          + ObjectName.quote("other-app") + ",name=" + ObjectName.quote("flow/source")), "Table"), is("MOON"));
+    } finally {
+      first.unregister();
+      second.unregister();
+    }
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static org.mule.extension.db.internal.source.ChangeJournal.Operation.INSERT;
+import static org.mule.extension.db.internal.source.ChangeJournal.Operation.UPDATE;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RowSnapshotTestCase extends AbstractMuleTestCase {
+
+  private RowSnapshot snapshot;
+  private final List<String> deleted = new ArrayList<>();
+
+  @Before
+  public void setUp() throws Exception {
+    snapshot = new RowSnapshot();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    snapshot.close();
+  }
+
+  @Test
+  public void detectsInsertsAndUpdates() throws Exception {
+    assertThat(snapshot.record("1", RowSnapshot.hash(row(1, "Venus"))), is(INSERT));
+    assertThat(snapshot.record("2", RowSnapshot.hash(row(2, "Earth"))), is(INSERT));
+
+    snapshot.startScan();
+    assertThat(snapshot.record("1", RowSnapshot.hash(row(1, "Venus"))), is(nullValue()));
+    assertThat(snapshot.record("2", RowSnapshot.hash(row(2, "Mars"))), is(UPDATE));
+    snapshot.sweep(deleted::add);
+
+    assertThat(deleted, is(empty()));
+    assertThat(snapshot.size(), is(2L));
+  }
+
+  @Test
+  public void detectsDeletes() throws Exception {
+    snapshot.record("1", RowSnapshot.hash(row(1, "Venus")));
+    snapshot.record("2", RowSnapshot.hash(row(2, "Earth")));
+
+    snapshot.startScan();
+    snapshot.record("2", RowSnapshot.hash(row(2, "Earth")));
+    snapshot.sweep(deleted::add);
+
+    assertThat(deleted, contains("1"));
+    assertThat(snapshot.size(), is(2L));
+
+    snapshot.remove("1");
+    assertThat(snapshot.size(), is(1L));
+
+    snapshot.startScan();
+    assertThat(snapshot.record("1", RowSnapshot.hash(row(1, "Venus"))), is(INSERT));
+  }
+
+  @Test
+  public void reportsDeletesAgainUntilRemoved() throws Exception {
+    snapshot.record("1", RowSnapshot.hash(row(1, "Venus")));
+    snapshot.record("2", RowSnapshot.hash(row(2, "Earth")));
+
+    snapshot.startScan();
+    snapshot.sweep(id -> deleted.add(id) && false);
+    assertThat(deleted, hasSize(1));
+    assertThat(snapshot.size(), is(2L));
+
+    // The first delete couldn't be reported
+    deleted.clear();
+    snapshot.startScan();
+    snapshot.sweep(deleted::add);
+    assertThat(deleted, hasSize(2));
+
+    deleted.forEach(snapshot::remove);
+    snapshot.startScan();
+    snapshot.sweep(deleted::add);
+    assertThat(deleted, hasSize(2));
+    assertThat(snapshot.size(), is(0L));
+  }
+
+  @Test
+  public void comparingDoesNotTakeChangesIn() throws Exception {
+    snapshot.record("1", RowSnapshot.hash(row(1, "Venus")));
+
+    snapshot.startScan();
+    assertThat(snapshot.compare("1", RowSnapshot.hash(row(1, "Mars"))), is(UPDATE));
+    assertThat(snapshot.compare("2", RowSnapshot.hash(row(2, "Earth"))), is(INSERT));
+    snapshot.sweep(deleted::add);
+    assertThat(deleted, is(empty()));
+    assertThat(snapshot.size(), is(1L));
+
+    // Neither change was dispatched, so both are detected again
+    snapshot.startScan();
+    assertThat(snapshot.compare("1", RowSnapshot.hash(row(1, "Mars"))), is(UPDATE));
+    assertThat(snapshot.compare("2", RowSnapshot.hash(row(2, "Earth"))), is(INSERT));
+  }
+
+  @Test
+  public void grows() throws Exception {
+    int rows = 100000;
+    for (int i = 0; i < rows; i++) {
+      assertThat(snapshot.record(String.valueOf(i), RowSnapshot.hash(row(i, "Planet " + i))), is(INSERT));
+    }
+
+    snapshot.startScan();
+    for (int i = 1; i < rows; i++) {
+      assertThat(snapshot.record(String.valueOf(i), RowSnapshot.hash(row(i, "Planet " + i))), is(nullValue()));
+    }
+    snapshot.sweep(deleted::add);
+    snapshot.remove("0");
+
+    assertThat(deleted, contains("0"));
+    assertThat(snapshot.size(), is((long) rows - 1));
+  }
+
+  @Test
+  public void hashDoesNotDependOnColumnOrder() {
+    Map<String, Object> reversed = new LinkedHashMap<>();
+    reversed.put("NAME", "Venus");
+    reversed.put("ID", 1);
+
+    assertThat(RowSnapshot.hash(reversed), is(RowSnapshot.hash(row(1, "Venus"))));
+  }
+
+  private Map<String, Object> row(int id, String name) {
+    Map<String, Object> row = new HashMap<>();
+    row.put("ID", id);
+    row.put("NAME", name);
+    return row;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.fail;
+
+import org.mule.extension.db.internal.source.SegmentedPoll.Segment;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.io.Serializable;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class SegmentedPollTestCase extends AbstractMuleTestCase {
+
+  private final ExecutorService executor = newCachedThreadPool();
+  private final List<Object> dispatched = new ArrayList<>();
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void mergesUnorderedSegments() throws Exception {
+    PollOutcome outcome = new SegmentedPoll(3, executor, null, false, null)
+        .run(segments(asList(0, 3, 6), asList(1, 4, 7), asList(2, 5)), this::dispatch);
+
+    assertThat(dispatched, containsInAnyOrder(0, 1, 2, 3, 4, 5, 6, 7));
+    assertThat(outcome.getRows(), is(8));
+    assertThat(outcome.isDrained(), is(true));
+  }
+
+  @Test
+  public void mergesOrderedSegmentsInWatermarkOrder() throws Exception {
+    List<Integer> first = new ArrayList<>();
+    List<Integer> second = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      (i % 3 == 0 ? first : second).add(i);
+    }
+
+    new SegmentedPoll(2, executor, SegmentedPollTestCase::watermarkOf, true, null).run(segments(first, second), this::dispatch);
+
+    assertThat(dispatched, hasSize(1000));
+    for (int i = 0; i < 1000; i++) {
+      assertThat(dispatched.get(i), is(i));
+    }
+  }
+
+  @Test
+  public void truncatedSegmentCapsWatermark() throws Exception {
+    PollOutcome outcome = new SegmentedPoll(2, executor, SegmentedPollTestCase::watermarkOf, true, 5)
+        .run(segments(asList(0, 2, 4, 6, 8), asList(1, 3, 11, 13)), this::dispatch);
+
+    assertThat(dispatched, contains(0, 1, 2, 3, 4, 6, 8));
+    assertThat(outcome.isDrained(), is(false));
+  }
+
+  @Test
+  public void dispatchesTiesOnceEverySegmentMovesPastThem() throws Exception {
+    PollOutcome outcome = new SegmentedPoll(2, executor, row -> (Integer) row.get("ID") / 10, false, null)
+        .run(segments(asList(10, 20, 21), asList(11, 23, 30)), this::dispatch);
+
+    assertThat(dispatched, contains(10, 11, 20, 21, 23, 30));
+    assertThat(outcome.isDrained(), is(true));
+  }
+
+  @Test
+  public void truncatedSegmentHoldsBackTiesAtTheCap() throws Exception {
+    // The first segment stops at watermark 2 after reading 20 and 21, it may still hold more rows at 2, like 22
+    PollOutcome outcome = new SegmentedPoll(2, executor, row -> (Integer) row.get("ID") / 10, false, 3)
+        .run(segments(asList(10, 20, 21), asList(11, 23, 30)), this::dispatch);
+
+    assertThat(dispatched, contains(10, 11));
+    assertThat(outcome.isDrained(), is(false));
+  }
+
+  @Test
+  public void failedSegmentCapsWatermark() throws Exception {
+    Segment segments = (index, consumer) -> {
+      if (index == 0) {
+        for (int value : asList(0, 2, 4, 6)) {
+          consumer.accept(row(value));
+        }
+
+        return 4;
+      }
+
+      consumer.accept(row(1));
+      consumer.accept(row(3));
+      throw new SQLException("Connection lost");
+    };
+
+    try {
+      new SegmentedPoll(2, executor, SegmentedPollTestCase::watermarkOf, true, null).run(segments, this::dispatch);
+      fail("Expected the segment failure");
+    } catch (SQLException e) {
+      assertThat(e.getMessage(), is("Connection lost"));
+    }
+
+    assertThat(dispatched, contains(0, 1, 2, 3));
+  }
+
+  @Test
+  public void stopsWhenConsumerRefuses() throws Exception {
+    List<Integer> values = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      values.add(i);
+    }
+
+    PollOutcome outcome = new SegmentedPoll(2, executor, null, false, null)
+        .run(segments(values, values), row -> dispatch(row) && dispatched.size() < 10);
+
+    assertThat(dispatched, hasSize(10));
+    assertThat(outcome.isDrained(), is(false));
+  }
+
+  @SafeVarargs
+  private static Segment segments(List<Integer>... values) {
+    return (index, consumer) -> {
+      int read = 0;
+      for (int value : values[index]) {
+        read++;
+        if (!consumer.accept(row(value))) {
+          break;
+        }
+      }
+
+      return read;
+    };
+  }
+
+  private boolean dispatch(Map<String, Object> row) {
+    dispatched.add(row.get("ID"));
+    return true;
+  }
+
+  private static Map<String, Object> row(int id) {
+    return singletonMap("ID", id);
+  }
+
+  private static Serializable watermarkOf(Map<String, Object> row) {
+    return (Serializable) row.get("ID");
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2023 Salesforce, Inc. All rights reserved.
+ * The software in this package is published under the terms of the CPAL v1.0
+ * license, a copy of which has been included with this distribution in the
+ * LICENSE.txt file.
+ */
+package org.mule.extension.db.internal.source;
+
+import static java.util.Collections.singletonMap;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.mule.db.commons.internal.domain.connection.DbConnection;
+import org.mule.db.commons.internal.result.row.RowHandler;
+import org.mule.tck.junit4.AbstractMuleTestCase;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class StreamingRowResultSetHandlerTestCase extends AbstractMuleTestCase {
+
+  private final List<Object> consumed = new ArrayList<>();
+  private ResultSet resultSet;
+  private RowHandler rowHandler;
+
+  @Before
+  public void setUp() throws Exception {
+    resultSet = mock(ResultSet.class);
+    when(resultSet.next()).thenReturn(true, true, true, false);
+    when(resultSet.getInt("ID")).thenReturn(1, 2, 3);
+
+    rowHandler = mock(RowHandler.class);
+    when(rowHandler.process(resultSet))
+        .thenAnswer(invocation -> singletonMap("ID", ((ResultSet) invocation.getArgument(0)).getInt("ID")));
+  }
+
+  @Test
+  public void rowsAreConsumedAsTheyAreRead() throws Exception {
+    StreamingRowResultSetHandler handler = new StreamingRowResultSetHandler(rowHandler, this::consume);
+
+    assertThat(handler.processResultSet(mock(DbConnection.class), resultSet), is(3));
+    assertThat(consumed, contains(1, 2, 3));
+  }
+
+  @Test
+  public void stopsReadingWhenConsumerRefuses() throws Exception {
+    StreamingRowResultSetHandler handler = new StreamingRowResultSetHandler(rowHandler, row -> consume(row) && false);
+
+    assertThat(handler.processResultSet(mock(DbConnection.class), resultSet), is(1));
+    assertThat(consumed, contains(1));
+    verify(resultSet, times(1)).next();
+  }
+
+  @Test
+  public void skippedRowsAreNotMaterialized() throws Exception {
+    when(resultSet.getObject("ID")).thenReturn(1, 2, 3);
+    StreamingRowResultSetHandler handler =
+        new StreamingRowResultSetHandler(rowHandler, this::consume, rs -> rs.getObject("ID").equals(2));
+
+    assertThat(handler.processResultSet(mock(DbConnection.class), resultSet), is(3));
+    assertThat(consumed.size(), is(2));
+    verify(rowHandler, times(2)).process(resultSet);
+  }
+
+  private boolean consume(Map<String, Object> row) {
+    consumed.add(row.get("ID"));
+    return true;
+  }
+}